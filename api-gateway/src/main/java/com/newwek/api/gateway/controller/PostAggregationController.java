@@ -0,0 +1,41 @@
+package com.newwek.api.gateway.controller;
+
+import com.newwek.api.gateway.dto.AggregatedPostDto;
+import com.newwek.api.gateway.service.PostAggregationService;
+import com.newwek.api.gateway.service.TokenValidationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Gateway-local endpoints that combine responses from several services into one call.
+ * Requests are authenticated once here and the resolved username is forwarded to every service,
+ * instead of each proxied sub-request going through the {@code AuthenticationFilter} again.
+ */
+@RestController
+@RequestMapping("/api/aggregate")
+@RequiredArgsConstructor
+@Slf4j
+public class PostAggregationController {
+
+    private final TokenValidationService tokenValidationService;
+    private final PostAggregationService postAggregationService;
+
+    @GetMapping("/posts/{id}")
+    public Mono<AggregatedPostDto> getPostWithComments(@PathVariable Long id,
+                                                       @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        String token = TokenValidationService.bearerToken(authorization)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Missing Authorization Header"));
+
+        return tokenValidationService.validate(token)
+                .onErrorMap(e -> {
+                    log.info("Error during authentication: {}", e.getMessage());
+                    return new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Authentication Failed");
+                })
+                .flatMap(username -> postAggregationService.aggregate(id, username));
+    }
+}
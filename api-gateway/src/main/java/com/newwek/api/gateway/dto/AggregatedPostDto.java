@@ -0,0 +1,29 @@
+package com.newwek.api.gateway.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Map;
+
+/**
+ * A blog post merged with the first page of its newest comments, as returned by the gateway aggregation endpoint.
+ * Parts are passed through exactly as the owning service returned them. A part that could not be
+ * fetched in time is {@code null} and listed in {@code failures} with the reason, so clients can
+ * render what arrived and retry the rest on their own.
+ *
+ * @param post     the post as returned by BLOG-SERVICE, or {@code null} if that part failed
+ * @param comments the comment page as returned by COMMENT-SERVICE, whose {@code nextCursor} continues with older
+ *                 comments, or {@code null} if that part failed
+ * @param failures part name to failure reason for every part that failed; empty on full success
+ */
+public record AggregatedPostDto(
+        @JsonProperty("post") JsonNode post,
+        @JsonProperty("comments") JsonNode comments,
+        @JsonProperty("failures") Map<String, String> failures
+) {
+
+    @JsonProperty("partial")
+    public boolean partial() {
+        return !failures.isEmpty();
+    }
+}
@@ -1,5 +1,9 @@
 package com.newwek.api.gateway.filter;
 
+import com.newwek.api.gateway.jfr.AuthenticationFilterEvent;
+import com.newwek.api.gateway.service.TokenValidationService;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
@@ -9,61 +13,66 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
 import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
 
 @Component
 @Slf4j
 public class AuthenticationFilter extends AbstractGatewayFilterFactory<AuthenticationFilter.Config> {
 
-    private final RouteValidator validator;
+    private static final String USERNAME_HEADER = "X-Username";
 
-    private final WebClient.Builder webClientBuilder;
+    private final TokenValidationService tokenValidationService;
 
 
-    public AuthenticationFilter(RouteValidator validator, WebClient.Builder webClientBuilder) {
+    public AuthenticationFilter(TokenValidationService tokenValidationService) {
         super(Config.class);
-        this.validator = validator;
-        this.webClientBuilder = webClientBuilder;
+        this.tokenValidationService = tokenValidationService;
     }
 
     @Override
     public GatewayFilter apply(Config config) {
+        RoutePolicy policy = new RoutePolicy(config.getPublicEndpoints());
         return ((exchange, chain) -> {
-            if (validator.isSecured.test(exchange.getRequest())) {
-                ServerHttpRequest request = exchange.getRequest();
+            AuthenticationFilterEvent event = AuthenticationFilterEvent.start(exchange.getRequest().getPath().value());
+            ServerHttpRequest request = exchange.getRequest();
+            if (!policy.isPublic(request)) {
                 if (!request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION)) {
+                    event.finish("missing-header");
                     return onError(exchange, "Missing Authorization Header");
                 }
 
-                String authHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
-                if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                    String token = authHeader.substring(7);
-                    String uri = "http://AUTHENTICATION-SERVICE/auth/validate?token=" + token;
-                    return webClientBuilder.build()
-                            .get()
-                            .uri(uri)
-                            .retrieve()
-                            .bodyToMono(String.class)
-                            .doOnSubscribe(subscription -> log.debug("Requesting: {}", uri))
+                Optional<String> token = TokenValidationService.bearerToken(request);
+                if (token.isPresent()) {
+                    return tokenValidationService.validate(token.get())
                             .flatMap(username -> {
-                                log.debug("Username extracted: {}", username);
+                                event.finish("authenticated");
                                 ServerHttpRequest modifiedRequest = exchange.getRequest()
                                         .mutate()
-                                        .header("X-Username", username)
+                                        .header(USERNAME_HEADER, username)
                                         .build();
                                 return chain.filter(exchange.mutate().request(modifiedRequest).build());
                             })
                             .onErrorResume(e -> {
+                                event.finish("rejected");
                                 log.info("Error during authentication: {}", e.getMessage());
                                 return onError(exchange, "Authentication Failed");
                             });
                 }
+                event.finish("no-bearer-token");
+                return onError(exchange, "Missing Bearer Token");
             }
-            return chain.filter(exchange);
+            event.finish("open");
+            if (!request.getHeaders().containsKey(USERNAME_HEADER)) {
+                return chain.filter(exchange);
+            }
+            // Downstream services trust the header, so a client must not be able to set it on a public endpoint
+            ServerHttpRequest anonymousRequest = request.mutate().headers(headers -> headers.remove(USERNAME_HEADER)).build();
+            return chain.filter(exchange.mutate().request(anonymousRequest).build());
         });
     }
 
@@ -75,7 +84,14 @@ public class AuthenticationFilter extends AbstractGatewayFilterFactory<Authentic
         return response.writeWith(Mono.just(buffer));
     }
 
+    /**
+     * Configured per route in the filter's {@code public-endpoints} argument, a list of endpoints such as
+     * {@code GET /api/posts/{id}}; every other request on the route needs a token. See {@link RoutePolicy}.
+     */
+    @Getter
+    @Setter
     public static class Config {
 
+        private List<String> publicEndpoints = List.of();
     }
 }
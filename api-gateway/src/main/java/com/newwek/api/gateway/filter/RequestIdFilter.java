@@ -0,0 +1,102 @@
+package com.newwek.api.gateway.filter;
+
+import io.micrometer.context.ContextRegistry;
+import io.micrometer.context.ThreadLocalAccessor;
+import org.slf4j.MDC;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.core.Ordered;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Makes sure every request passing through the gateway carries an {@code X-Request-ID}. A client supplied ID is
+ * kept, otherwise a new one is generated. The ID is forwarded to routed services, echoed in the response, put into
+ * the Reactor context (and from there into the MDC) and added to calls made by gateway-local {@link WebClient}s.
+ * Downstream services pick it up as tracing baggage and propagate it further on their own.
+ */
+@Component
+public class RequestIdFilter implements WebFilter, WebClientCustomizer, Ordered {
+
+    public static final String REQUEST_ID_HEADER = "X-Request-ID";
+
+    /**
+     * Runs right after the server observation filter, so the request ID is in place before any routing happens.
+     */
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 2;
+
+    static {
+        ContextRegistry.getInstance().registerThreadLocalAccessor(new MdcAccessor());
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String inbound = exchange.getRequest().getHeaders().getFirst(REQUEST_ID_HEADER);
+        String requestId = StringUtils.hasText(inbound) ? inbound : UUID.randomUUID().toString();
+        ServerWebExchange tagged = exchange;
+        if (!requestId.equals(inbound)) {
+            ServerHttpRequest request = exchange.getRequest().mutate().header(REQUEST_ID_HEADER, requestId).build();
+            tagged = exchange.mutate().request(request).build();
+        }
+        tagged.getResponse().getHeaders().set(REQUEST_ID_HEADER, requestId);
+        return chain.filter(tagged).contextWrite(context -> context.put(REQUEST_ID_HEADER, requestId));
+    }
+
+    @Override
+    public void customize(WebClient.Builder webClientBuilder) {
+        webClientBuilder.filter(propagateRequestId());
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    /**
+     * Copies the request ID of the inbound request, if any, onto outbound {@link WebClient} requests.
+     */
+    static ExchangeFilterFunction propagateRequestId() {
+        return (request, next) -> Mono.deferContextual(context -> {
+            if (!context.hasKey(REQUEST_ID_HEADER) || request.headers().containsKey(REQUEST_ID_HEADER)) {
+                return next.exchange(request);
+            }
+            String requestId = context.get(REQUEST_ID_HEADER);
+            return next.exchange(ClientRequest.from(request).header(REQUEST_ID_HEADER, requestId).build());
+        });
+    }
+
+    /**
+     * Restores the request ID into the MDC whenever Reactor switches threads, so it shows up in the log output.
+     */
+    static class MdcAccessor implements ThreadLocalAccessor<String> {
+
+        @Override
+        public Object key() {
+            return REQUEST_ID_HEADER;
+        }
+
+        @Override
+        public String getValue() {
+            return MDC.get(REQUEST_ID_HEADER);
+        }
+
+        @Override
+        public void setValue(String value) {
+            MDC.put(REQUEST_ID_HEADER, value);
+        }
+
+        @Override
+        public void setValue() {
+            MDC.remove(REQUEST_ID_HEADER);
+        }
+    }
+}
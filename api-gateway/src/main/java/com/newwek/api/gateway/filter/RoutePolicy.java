@@ -0,0 +1,154 @@
+package com.newwek.api.gateway.filter;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * The endpoints of a route that are public, so that requests to them are passed on without a token. Each endpoint is
+ * written as an HTTP method and a path pattern, such as {@code GET /api/posts/{id}}, or just a pattern, which is public
+ * for every method. The patterns are parsed once, when the route is built, and match whole path segments: a path is
+ * public only if a pattern matches all of it.
+ * <p>
+ * Most patterns are a plain path, or a plain path followed by {@code /**} or by one {@code /{variable}} segment. Those
+ * are compared as strings, unless the request path has escaped characters or path parameters, which only the parsed
+ * pattern matches as it should.
+ */
+public class RoutePolicy {
+
+    private static final String ANY_PATH_BELOW = "/**";
+    private static final Pattern ONE_SEGMENT = Pattern.compile("/\\{\\w+}$");
+
+    private final Map<HttpMethod, Endpoints> byMethod;
+    private final Endpoints anyMethod;
+
+    /**
+     * @throws IllegalArgumentException if an endpoint is not a method and a pattern, or the pattern cannot be parsed
+     */
+    public RoutePolicy(List<String> publicEndpoints) {
+        Map<HttpMethod, List<String>> byMethod = new LinkedHashMap<>();
+        List<String> anyMethod = new ArrayList<>();
+        for (String endpoint : publicEndpoints) {
+            String[] parts = endpoint.trim().split("\\s+");
+            if (parts.length == 1 || parts.length == 2 && parts[0].equals("*")) {
+                anyMethod.add(parts[parts.length - 1]);
+            } else if (parts.length == 2) {
+                byMethod.computeIfAbsent(HttpMethod.valueOf(parts[0]), method -> new ArrayList<>()).add(parts[1]);
+            } else {
+                throw new IllegalArgumentException("Not a method and a path pattern: " + endpoint);
+            }
+        }
+        this.byMethod = new HashMap<>();
+        byMethod.forEach((method, patterns) -> this.byMethod.put(method, new Endpoints(patterns)));
+        this.anyMethod = new Endpoints(anyMethod);
+    }
+
+    public boolean isPublic(ServerHttpRequest request) {
+        return isPublic(request.getMethod(), request.getPath().pathWithinApplication());
+    }
+
+    public boolean isPublic(HttpMethod method, PathContainer path) {
+        String value = path.value();
+        boolean plain = value.indexOf('%') < 0 && value.indexOf(';') < 0;
+        if (anyMethod.matches(path, value, plain)) {
+            return true;
+        }
+        Endpoints endpoints = byMethod.get(method);
+        return endpoints != null && endpoints.matches(path, value, plain);
+    }
+
+    /**
+     * The public endpoints of one method.
+     */
+    private static final class Endpoints {
+
+        private static final PathPattern[] NONE = new PathPattern[0];
+
+        private final Set<String> paths = new HashSet<>();
+        private final String[] prefixes;
+        private final String[] parents;
+        private final PathPattern[] plainPatterns;
+        private final PathPattern[] patterns;
+
+        Endpoints(List<String> endpoints) {
+            List<String> prefixes = new ArrayList<>();
+            List<String> parents = new ArrayList<>();
+            List<PathPattern> plainPatterns = new ArrayList<>();
+            List<PathPattern> patterns = new ArrayList<>();
+            for (String endpoint : endpoints) {
+                PathPattern pattern = parse(endpoint);
+                if (isPlain(endpoint)) {
+                    paths.add(endpoint);
+                    plainPatterns.add(pattern);
+                } else if (endpoint.endsWith(ANY_PATH_BELOW) && isPlain(endpoint.substring(0, endpoint.length() - ANY_PATH_BELOW.length()))) {
+                    prefixes.add(endpoint.substring(0, endpoint.length() - ANY_PATH_BELOW.length()));
+                    plainPatterns.add(pattern);
+                } else if (ONE_SEGMENT.matcher(endpoint).find() && isPlain(endpoint.substring(0, endpoint.lastIndexOf('/')))) {
+                    parents.add(endpoint.substring(0, endpoint.lastIndexOf('/') + 1));
+                    plainPatterns.add(pattern);
+                } else {
+                    patterns.add(pattern);
+                }
+            }
+            this.prefixes = prefixes.toArray(String[]::new);
+            this.parents = parents.toArray(String[]::new);
+            this.plainPatterns = plainPatterns.toArray(NONE);
+            this.patterns = patterns.toArray(NONE);
+        }
+
+        boolean matches(PathContainer path, String value, boolean plain) {
+            if (plain) {
+                if (paths.contains(value)) {
+                    return true;
+                }
+                for (String prefix : prefixes) {
+                    if (value.startsWith(prefix) && (value.length() == prefix.length() || value.charAt(prefix.length()) == '/')) {
+                        return true;
+                    }
+                }
+                for (String parent : parents) {
+                    if (value.length() > parent.length() && value.startsWith(parent) && value.indexOf('/', parent.length()) < 0) {
+                        return true;
+                    }
+                }
+            } else if (matches(plainPatterns, path)) {
+                return true;
+            }
+            return matches(patterns, path);
+        }
+
+        private static boolean matches(PathPattern[] patterns, PathContainer path) {
+            for (PathPattern pattern : patterns) {
+                if (pattern.matches(path)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Whether the pattern has no wildcards or variables, and nothing that would be decoded before matching.
+         */
+        private static boolean isPlain(String pattern) {
+            return pattern.chars().noneMatch(c -> "*?{}%;".indexOf(c) >= 0);
+        }
+
+        private static PathPattern parse(String pattern) {
+            if (!pattern.startsWith("/")) {
+                throw new IllegalArgumentException("Not a path pattern: " + pattern);
+            }
+            return PathPatternParser.defaultInstance.parse(pattern);
+        }
+    }
+}
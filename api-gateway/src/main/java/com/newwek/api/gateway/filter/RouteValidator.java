@@ -1,25 +0,0 @@
-package com.newwek.api.gateway.filter;
-
-import org.springframework.http.server.reactive.ServerHttpRequest;
-import org.springframework.stereotype.Component;
-
-import java.util.*;
-import java.util.function.Predicate;
-
-@Component
-public class RouteValidator {
-
-    public static final List<String> openApiEndpoints = List.of(
-            "/auth/register",
-            "/auth/token",
-            "/eureka",
-            "/swagger",
-            "/v3/api-docs"
-    );
-
-    public Predicate<ServerHttpRequest> isSecured =
-            request -> openApiEndpoints
-                    .stream()
-                    .noneMatch(uri -> request.getURI().getPath().contains(uri));
-
-}
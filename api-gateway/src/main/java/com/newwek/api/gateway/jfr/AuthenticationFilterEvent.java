@@ -0,0 +1,52 @@
+package com.newwek.api.gateway.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for the time a request spends in {@code AuthenticationFilter} before it is routed or rejected,
+ * which includes verifying the token, and the round trip to AUTHENTICATION-SERVICE when the token has to be validated
+ * there. The event is begun on the thread that enters the filter and committed on whichever thread completes the
+ * decision.
+ */
+@Name("com.newwek.AuthenticationFilter")
+@Label("Authentication Filter")
+@Category({"Newwek", "Gateway"})
+@Description("Authentication of a request by the gateway before it is routed")
+@StackTrace(false)
+public class AuthenticationFilterEvent extends jdk.jfr.Event {
+
+    @Label("Path")
+    public String path;
+
+    @Label("Outcome")
+    @Description("open, missing-header, no-bearer-token, authenticated or rejected")
+    public String outcome;
+
+    private transient boolean finished;
+
+    public static AuthenticationFilterEvent start(String path) {
+        AuthenticationFilterEvent event = new AuthenticationFilterEvent();
+        event.path = path;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends and commits the event. Only the first call counts, later ones are ignored.
+     */
+    public synchronized void finish(String outcome) {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        end();
+        if (shouldCommit()) {
+            this.outcome = outcome;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.newwek.api.gateway.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches the public keys AUTHENTICATION-SERVICE signs tokens with, read from its JSON Web Key Set, as one token parser
+ * per key ID. The key set is fetched again when it is older than {@code auth.jwks.refresh-interval}, in the background
+ * while the cached keys keep being used, and right away when a token names a key that is not cached, which is how a
+ * new signing key is picked up. Fetches are at least {@link #MIN_REFRESH_INTERVAL} apart, so tokens with made-up key IDs
+ * cannot flood AUTHENTICATION-SERVICE, and concurrent requests share the fetch in progress.
+ */
+@Component
+@Slf4j
+public class JwksKeyCache {
+
+    static final Duration MIN_REFRESH_INTERVAL = Duration.ofSeconds(10);
+
+    private final WebClient webClient;
+    private final String jwksUri;
+    private final long refreshIntervalNanos;
+    private final LongSupplier nanoTime;
+    private final AtomicReference<Mono<KeySet>> refreshing = new AtomicReference<>();
+
+    private volatile KeySet keySet = new KeySet(Map.of(), 0);
+    private volatile long lastFetchNanos;
+
+    @Autowired
+    public JwksKeyCache(WebClient.Builder webClientBuilder,
+                        @Value("${auth.service-url:http://AUTHENTICATION-SERVICE}") String authServiceUrl,
+                        @Value("${auth.jwks.refresh-interval:10m}") Duration refreshInterval) {
+        this(webClientBuilder, authServiceUrl, refreshInterval, System::nanoTime);
+    }
+
+    JwksKeyCache(WebClient.Builder webClientBuilder, String authServiceUrl, Duration refreshInterval, LongSupplier nanoTime) {
+        this.webClient = webClientBuilder.build();
+        this.jwksUri = authServiceUrl + "/auth/jwks";
+        this.refreshIntervalNanos = refreshInterval.toNanos();
+        this.nanoTime = nanoTime;
+        this.lastFetchNanos = nanoTime.getAsLong() - MIN_REFRESH_INTERVAL.toNanos();
+    }
+
+    /**
+     * Emits the parser verifying tokens signed with the given key, or nothing if the key is not published or the key
+     * set cannot be fetched.
+     */
+    public Mono<JwtParser> parser(String keyId) {
+        if (keyId == null) {
+            return Mono.empty();
+        }
+        KeySet current = keySet;
+        JwtParser parser = current.parsers().get(keyId);
+        long now = nanoTime.getAsLong();
+        boolean canFetch = now - lastFetchNanos >= MIN_REFRESH_INTERVAL.toNanos();
+        if (parser != null) {
+            if (canFetch && now - current.fetchedNanos() >= refreshIntervalNanos) {
+                refresh().subscribe();
+            }
+            return Mono.just(parser);
+        }
+        if (!canFetch) {
+            return Mono.empty();
+        }
+        return refresh().mapNotNull(keys -> keys.parsers().get(keyId));
+    }
+
+    private Mono<KeySet> refresh() {
+        Mono<KeySet> inProgress = refreshing.get();
+        if (inProgress != null) {
+            return inProgress;
+        }
+        Mono<KeySet> fetch = webClient.get()
+                .uri(jwksUri)
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .map(jwks -> parse(jwks, nanoTime.getAsLong()))
+                .doOnNext(keys -> {
+                    keySet = keys;
+                    log.debug("Fetched {} token verification keys", keys.parsers().size());
+                })
+                .onErrorResume(e -> {
+                    log.warn("Could not fetch the token verification keys: {}", e.getMessage());
+                    return Mono.just(keySet);
+                })
+                .doFinally(signal -> refreshing.set(null))
+                .cache();
+        if (!refreshing.compareAndSet(null, fetch)) {
+            Mono<KeySet> other = refreshing.get();
+            return other != null ? other : Mono.just(keySet);
+        }
+        lastFetchNanos = nanoTime.getAsLong();
+        return fetch;
+    }
+
+    private static KeySet parse(JsonNode jwks, long fetchedNanos) {
+        Map<String, JwtParser> parsers = new HashMap<>();
+        for (JsonNode jwk : jwks.path("keys")) {
+            if (!"RSA".equals(jwk.path("kty").asText()) || !jwk.hasNonNull("kid") || "enc".equals(jwk.path("use").asText())) {
+                continue;
+            }
+            try {
+                PublicKey key = KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(
+                        unsigned(jwk.path("n").asText()), unsigned(jwk.path("e").asText())));
+                parsers.put(jwk.get("kid").asText(), Jwts.parserBuilder().setSigningKey(key).build());
+            } catch (GeneralSecurityException | IllegalArgumentException e) {
+                log.warn("Skipping the unreadable verification key {}: {}", jwk.path("kid").asText(), e.getMessage());
+            }
+        }
+        return new KeySet(Map.copyOf(parsers), fetchedNanos);
+    }
+
+    private static BigInteger unsigned(String base64Url) {
+        return new BigInteger(1, Base64.getUrlDecoder().decode(base64Url));
+    }
+
+    private record KeySet(Map<String, JwtParser> parsers, long fetchedNanos) {
+    }
+}
@@ -0,0 +1,109 @@
+package com.newwek.api.gateway.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.newwek.api.gateway.dto.AggregatedPostDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Fetches a post and the first page of its newest comments from BLOG-SERVICE and COMMENT-SERVICE in parallel
+ * and merges them into one {@link AggregatedPostDto}. Each part has its own timeout and never fails the whole response
+ * on its own: a slow or broken part is reported as a failure marker next to the parts that did arrive.
+ * The only exception is a post that does not exist, which is reported as 404.
+ */
+@Service
+@Slf4j
+public class PostAggregationService {
+
+    public static final String POST_PART = "post";
+    public static final String COMMENTS_PART = "comments";
+
+    private final WebClient webClient;
+    private final Duration postTimeout;
+    private final Duration commentsTimeout;
+    private final int commentsPageSize;
+
+    public PostAggregationService(WebClient.Builder webClientBuilder,
+                                  @Value("${aggregation.timeout.post:2s}") Duration postTimeout,
+                                  @Value("${aggregation.timeout.comments:2s}") Duration commentsTimeout,
+                                  @Value("${aggregation.comments-page-size:20}") int commentsPageSize) {
+        this.webClient = webClientBuilder.build();
+        this.postTimeout = postTimeout;
+        this.commentsTimeout = commentsTimeout;
+        this.commentsPageSize = commentsPageSize;
+    }
+
+    /**
+     * Loads the post with the given ID together with its comments on behalf of an already authenticated user.
+     *
+     * @param postId   the ID of the post to load
+     * @param username the authenticated username, forwarded to the services as {@code X-Username}
+     * @return the merged response; errors with 404 if the post does not exist
+     */
+    public Mono<AggregatedPostDto> aggregate(Long postId, String username) {
+        Mono<Part> post = fetch(POST_PART, username, postTimeout, "http://BLOG-SERVICE/api/posts/{id}", postId);
+        Mono<Part> comments = fetch(COMMENTS_PART, username, commentsTimeout,
+                "http://COMMENT-SERVICE/api/comments/post/{id}/page?order=NEWEST&size={size}", postId, commentsPageSize);
+
+        return Mono.zip(post, comments)
+                .flatMap(parts -> {
+                    Part postPart = parts.getT1();
+                    Part commentsPart = parts.getT2();
+                    if (postPart.notFound()) {
+                        return Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Blog post with id " + postId + " not found."));
+                    }
+
+                    Map<String, String> failures = new LinkedHashMap<>();
+                    postPart.addFailureTo(failures);
+                    commentsPart.addFailureTo(failures);
+                    return Mono.just(new AggregatedPostDto(postPart.body(), commentsPart.body(), failures));
+                });
+    }
+
+    private Mono<Part> fetch(String name, String username, Duration timeout, String uri, Object... uriVariables) {
+        return webClient.get()
+                .uri(uri, uriVariables)
+                .header("X-Username", username)
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .timeout(timeout)
+                .map(body -> Part.success(name, body))
+                .onErrorResume(e -> Mono.just(Part.failure(name, e)));
+    }
+
+    private record Part(String name, JsonNode body, String failure, boolean notFound) {
+
+        static Part success(String name, JsonNode body) {
+            return new Part(name, body, null, false);
+        }
+
+        static Part failure(String name, Throwable error) {
+            if (error instanceof WebClientResponseException responseException) {
+                boolean notFound = responseException.getStatusCode().isSameCodeAs(HttpStatus.NOT_FOUND);
+                return new Part(name, null, "status " + responseException.getStatusCode().value(), notFound);
+            }
+            if (error instanceof TimeoutException) {
+                return new Part(name, null, "timeout", false);
+            }
+            log.info("Aggregation part {} failed: {}", name, error.getMessage());
+            return new Part(name, null, "unavailable", false);
+        }
+
+        void addFailureTo(Map<String, String> failures) {
+            if (failure != null) {
+                failures.put(name, failure);
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.newwek.api.gateway.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.newwek.platform.revocation.CuckooFilter;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Rejects revoked tokens without asking AUTHENTICATION-SERVICE about every request. The IDs of the revoked tokens
+ * arrive as a cuckoo filter, fetched again in the background once it is older than
+ * {@code auth.revocations.refresh-interval}, and skipped with a 304 when it has not changed. A token whose ID the filter
+ * does not report is not revoked; the few the filter reports are confirmed with AUTHENTICATION-SERVICE, and the
+ * confirmed ones kept here until the tokens expire.
+ * <p>
+ * The first request waits for the filter. A token revoked since the last fetch is accepted until the next one, and
+ * the last filter fetched keeps being used while AUTHENTICATION-SERVICE cannot be reached.
+ */
+@Component
+@Slf4j
+public class RevocationList {
+
+    private static final CuckooFilter NONE_REVOKED = new CuckooFilter(0);
+
+    private final WebClient webClient;
+    private final String revocationsUri;
+    private final String revocationUri;
+    private final long refreshIntervalNanos;
+    private final AtomicReference<Mono<Snapshot>> refreshing = new AtomicReference<>();
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    private volatile Snapshot snapshot;
+
+    public RevocationList(WebClient.Builder webClientBuilder,
+                          @Value("${auth.service-url:http://AUTHENTICATION-SERVICE}") String authServiceUrl,
+                          @Value("${auth.revocations.refresh-interval:10s}") Duration refreshInterval) {
+        this.webClient = webClientBuilder.build();
+        this.revocationsUri = authServiceUrl + "/auth/revocations";
+        this.revocationUri = authServiceUrl + "/auth/revocations/{tokenId}";
+        this.refreshIntervalNanos = refreshInterval.toNanos();
+    }
+
+    /**
+     * Completes empty if the token is not revoked, or with an error if it is.
+     */
+    public Mono<Void> check(Claims claims) {
+        String tokenId = claims.getId();
+        if (tokenId == null) {
+            return Mono.empty();
+        }
+        if (revoked.containsKey(tokenId)) {
+            return Mono.error(new JwtException("Token revoked"));
+        }
+        Snapshot current = snapshot;
+        Mono<Snapshot> filter;
+        if (current == null) {
+            filter = refresh();
+        } else {
+            if (System.nanoTime() - current.fetchedNanos() >= refreshIntervalNanos) {
+                refresh().subscribe();
+            }
+            filter = Mono.just(current);
+        }
+        return filter.flatMap(s -> s.filter().mightContain(tokenId) ? confirm(tokenId, claims) : Mono.empty());
+    }
+
+    private Mono<Void> confirm(String tokenId, Claims claims) {
+        return webClient.get()
+                .uri(revocationUri, tokenId)
+                .retrieve()
+                .bodyToMono(Boolean.class)
+                .flatMap(isRevoked -> {
+                    if (!isRevoked) {
+                        return Mono.empty();
+                    }
+                    if (claims.getExpiration() != null) {
+                        revoked.put(tokenId, claims.getExpiration().getTime());
+                    }
+                    return Mono.error(new JwtException("Token revoked"));
+                });
+    }
+
+    private Mono<Snapshot> refresh() {
+        Mono<Snapshot> inProgress = refreshing.get();
+        if (inProgress != null) {
+            return inProgress;
+        }
+        Snapshot current = snapshot;
+        Mono<Snapshot> fetch = webClient.get()
+                .uri(revocationsUri)
+                .headers(headers -> {
+                    if (current != null) {
+                        headers.setIfNoneMatch(current.eTag());
+                    }
+                })
+                .exchangeToMono(response -> {
+                    if (current != null && response.statusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                        return response.releaseBody().thenReturn(current.refetched());
+                    }
+                    if (!response.statusCode().is2xxSuccessful()) {
+                        return response.createError();
+                    }
+                    String eTag = response.headers().asHttpHeaders().getETag();
+                    return response.bodyToMono(JsonNode.class).map(body -> new Snapshot(
+                            CuckooFilter.fromBytes(Base64.getDecoder().decode(body.path("filter").asText())),
+                            eTag != null ? eTag : "\"" + body.path("version").asText() + "\"", System.nanoTime()));
+                })
+                .doOnNext(fetched -> {
+                    snapshot = fetched;
+                    long now = System.currentTimeMillis();
+                    revoked.values().removeIf(expiresAt -> expiresAt <= now);
+                })
+                .onErrorResume(e -> {
+                    log.warn("Could not fetch the revoked tokens: {}", e.getMessage());
+                    Snapshot kept = current != null ? current.refetched() : new Snapshot(NONE_REVOKED, "\"\"", System.nanoTime());
+                    snapshot = kept;
+                    return Mono.just(kept);
+                })
+                .doFinally(signal -> refreshing.set(null))
+                .cache();
+        if (!refreshing.compareAndSet(null, fetch)) {
+            Mono<Snapshot> other = refreshing.get();
+            return other != null ? other : Mono.justOrEmpty(snapshot);
+        }
+        return fetch;
+    }
+
+    private record Snapshot(CuckooFilter filter, String eTag, long fetchedNanos) {
+
+        Snapshot refetched() {
+            return new Snapshot(filter, eTag, System.nanoTime());
+        }
+    }
+}
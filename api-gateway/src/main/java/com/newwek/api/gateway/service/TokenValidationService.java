@@ -0,0 +1,125 @@
+package com.newwek.api.gateway.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.MalformedJwtException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Validates bearer tokens and resolves the username they were issued for. Shared by the {@code AuthenticationFilter}
+ * on proxied routes and by gateway-local endpoints, so that a request is authenticated exactly once no matter how many
+ * downstream services it fans out to.
+ * <p>
+ * Tokens are verified in the gateway with the public key named by their {@code kid} header, from {@link JwksKeyCache},
+ * and checked against the {@link RevocationList}. A token that fails verification or is revoked is rejected right away.
+ * Only when its key cannot be obtained, because the token has no key ID, the key is not published or the key set
+ * cannot be fetched, is the token sent to AUTHENTICATION-SERVICE to be validated there, revocation included.
+ */
+@Service
+@Slf4j
+public class TokenValidationService {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final WebClient webClient;
+    private final JwksKeyCache keyCache;
+    private final RevocationList revocationList;
+    private final ObjectMapper objectMapper;
+    private final String validateUri;
+
+    public TokenValidationService(WebClient.Builder webClientBuilder, JwksKeyCache keyCache, RevocationList revocationList,
+                                  ObjectMapper objectMapper,
+                                  @Value("${auth.service-url:http://AUTHENTICATION-SERVICE}") String authServiceUrl) {
+        this.webClient = webClientBuilder.build();
+        this.keyCache = keyCache;
+        this.revocationList = revocationList;
+        this.objectMapper = objectMapper;
+        this.validateUri = authServiceUrl + "/auth/validate?token={token}";
+    }
+
+    /**
+     * Validates the token and emits the username it belongs to, or an error if the token is rejected.
+     */
+    public Mono<String> validate(String token) {
+        String keyId;
+        try {
+            keyId = keyId(token);
+        } catch (JwtException e) {
+            return Mono.error(e);
+        }
+        return keyCache.parser(keyId)
+                .map(parser -> verify(parser, token))
+                .flatMap(claims -> revocationList.check(claims).thenReturn(claims.getSubject()))
+                .switchIfEmpty(Mono.defer(() -> validateRemotely(token)));
+    }
+
+    /**
+     * Validates the token with a call to AUTHENTICATION-SERVICE, which {@link #validate(String)} falls back to when the
+     * key of the token is not available.
+     */
+    public Mono<String> validateRemotely(String token) {
+        return webClient.get()
+                .uri(validateUri, token)
+                .retrieve()
+                .bodyToMono(String.class)
+                .doOnSubscribe(subscription -> log.debug("Requesting token validation"))
+                .doOnNext(username -> log.debug("Username extracted: {}", username));
+    }
+
+    private static Claims verify(JwtParser parser, String token) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getSubject() == null) {
+            throw new MalformedJwtException("Token without subject");
+        }
+        log.debug("Token verified locally for {}", claims.getSubject());
+        return claims;
+    }
+
+    /**
+     * Reads the {@code kid} of the token header, without verifying anything.
+     *
+     * @return the key ID, or null if the header has none
+     */
+    private String keyId(String token) {
+        int headerEnd = token.indexOf('.');
+        if (headerEnd <= 0) {
+            throw new MalformedJwtException("Token without header");
+        }
+        try {
+            JsonNode header = objectMapper.readTree(Base64.getUrlDecoder().decode(token.substring(0, headerEnd)));
+            return header.path("kid").textValue();
+        } catch (IOException | IllegalArgumentException e) {
+            throw new MalformedJwtException("Unreadable token header", e);
+        }
+    }
+
+    /**
+     * Extracts the bearer token from the {@code Authorization} header of the request, if there is one.
+     */
+    public static Optional<String> bearerToken(ServerHttpRequest request) {
+        return bearerToken(request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+    }
+
+    /**
+     * Extracts the bearer token from an {@code Authorization} header value, if it carries one.
+     */
+    public static Optional<String> bearerToken(String authorizationHeader) {
+        if (authorizationHeader == null || !authorizationHeader.startsWith(BEARER_PREFIX)) {
+            return Optional.empty();
+        }
+        return Optional.of(authorizationHeader.substring(BEARER_PREFIX.length()));
+    }
+}
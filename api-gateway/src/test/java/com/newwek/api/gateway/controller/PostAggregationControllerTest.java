@@ -0,0 +1,81 @@
+package com.newwek.api.gateway.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.newwek.api.gateway.dto.AggregatedPostDto;
+import com.newwek.api.gateway.service.PostAggregationService;
+import com.newwek.api.gateway.service.TokenValidationService;
+import io.jsonwebtoken.ExpiredJwtException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class PostAggregationControllerTest {
+
+    private final TokenValidationService tokenValidationService = mock(TokenValidationService.class);
+    private final PostAggregationService postAggregationService = mock(PostAggregationService.class);
+    private final WebTestClient client = WebTestClient
+            .bindToController(new PostAggregationController(tokenValidationService, postAggregationService))
+            .build();
+
+    @Test
+    void validatesTheTokenOnceForTheWholeAggregate() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        when(tokenValidationService.validate("token")).thenReturn(Mono.just("alice"));
+        when(postAggregationService.aggregate(1L, "alice")).thenReturn(Mono.just(new AggregatedPostDto(
+                objectMapper.createObjectNode().put("title", "Hello"), objectMapper.createObjectNode(), Map.of())));
+
+        client.get().uri("/api/aggregate/posts/1").header(HttpHeaders.AUTHORIZATION, "Bearer token")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.post.title").isEqualTo("Hello")
+                .jsonPath("$.partial").isEqualTo(false);
+
+        verify(tokenValidationService, times(1)).validate("token");
+        verifyNoMoreInteractions(tokenValidationService);
+        verify(postAggregationService).aggregate(1L, "alice");
+    }
+
+    @Test
+    void rejectsARequestWithoutAToken() {
+        client.get().uri("/api/aggregate/posts/1")
+                .exchange()
+                .expectStatus().isUnauthorized();
+
+        verifyNoInteractions(tokenValidationService, postAggregationService);
+    }
+
+    @Test
+    void rejectsAnInvalidTokenWithoutLoadingThePost() {
+        when(tokenValidationService.validate(anyString()))
+                .thenReturn(Mono.error(new ExpiredJwtException(null, null, "Token expired")));
+
+        client.get().uri("/api/aggregate/posts/1").header(HttpHeaders.AUTHORIZATION, "Bearer expired")
+                .exchange()
+                .expectStatus().isUnauthorized();
+
+        verify(postAggregationService, never()).aggregate(any(), any());
+    }
+
+    @Test
+    void answers404ForAMissingPost() {
+        when(tokenValidationService.validate("token")).thenReturn(Mono.just("alice"));
+        when(postAggregationService.aggregate(1L, "alice"))
+                .thenReturn(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Blog post with id 1 not found.")));
+
+        client.get().uri("/api/aggregate/posts/1").header(HttpHeaders.AUTHORIZATION, "Bearer token")
+                .exchange()
+                .expectStatus().isNotFound();
+
+        verify(tokenValidationService, times(1)).validate("token");
+    }
+}
@@ -0,0 +1,124 @@
+package com.newwek.api.gateway.filter;
+
+import com.newwek.api.gateway.service.TokenValidationService;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class AuthenticationFilterTest {
+
+    private final TokenValidationService tokenValidationService = mock(TokenValidationService.class);
+    private final AtomicReference<ServerWebExchange> passedOn = new AtomicReference<>();
+    private final GatewayFilterChain chain = exchange -> {
+        passedOn.set(exchange);
+        return Mono.empty();
+    };
+    private GatewayFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        AuthenticationFilter.Config config = new AuthenticationFilter.Config();
+        config.setPublicEndpoints(RoutePolicyTest.publicEndpoints("blog-service"));
+        filter = new AuthenticationFilter(tokenValidationService).apply(config);
+    }
+
+    @Test
+    void passesOnAPublicRequestWithoutAToken() {
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("/api/posts/101"));
+
+        filter.filter(exchange, chain).block();
+
+        assertThat(passedOn.get()).isSameAs(exchange);
+        verifyNoInteractions(tokenValidationService);
+    }
+
+    @Test
+    void stripsTheUsernameHeaderFromAPublicRequest() {
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("/api/posts/101")
+                .header("X-Username", "admin")
+                .header(HttpHeaders.ACCEPT, "application/json"));
+
+        filter.filter(exchange, chain).block();
+
+        HttpHeaders headers = passedOn.get().getRequest().getHeaders();
+        assertThat(headers.containsKey("X-Username")).isFalse();
+        assertThat(headers.getFirst(HttpHeaders.ACCEPT)).isEqualTo("application/json");
+        verifyNoInteractions(tokenValidationService);
+    }
+
+    @Test
+    void rejectsASecuredRequestWithoutAnAuthorizationHeader() {
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.post("/api/posts"));
+
+        filter.filter(exchange, chain).block();
+
+        assertRejected(exchange, "Missing Authorization Header");
+    }
+
+    @Test
+    void rejectsAnAnonymousChangeOfACommentCounter() {
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("/api/posts/update-comments-count/101"));
+
+        filter.filter(exchange, chain).block();
+
+        assertRejected(exchange, "Missing Authorization Header");
+    }
+
+    @Test
+    void rejectsASecuredRequestWithoutABearerToken() {
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.post("/api/posts")
+                .header(HttpHeaders.AUTHORIZATION, "Basic YWxpY2U6c2VjcmV0"));
+
+        filter.filter(exchange, chain).block();
+
+        assertRejected(exchange, "Missing Bearer Token");
+        verifyNoInteractions(tokenValidationService);
+    }
+
+    @Test
+    void rejectsASecuredRequestWithAnInvalidToken() {
+        when(tokenValidationService.validate(anyString())).thenReturn(Mono.error(new JwtException("Token revoked")));
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("/api/postsX")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer revoked"));
+
+        filter.filter(exchange, chain).block();
+
+        assertRejected(exchange, "Authentication Failed");
+    }
+
+    @Test
+    void passesOnTheValidatedUsernameInsteadOfTheOneSent() {
+        when(tokenValidationService.validate("valid")).thenReturn(Mono.just("alice"));
+        MockServerWebExchange exchange = exchange(MockServerHttpRequest.post("/api/posts")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer valid")
+                .header("X-Username", "admin"));
+
+        filter.filter(exchange, chain).block();
+
+        assertThat(passedOn.get().getRequest().getHeaders().get("X-Username")).containsExactly("alice");
+    }
+
+    private static MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request) {
+        return MockServerWebExchange.from(request);
+    }
+
+    private void assertRejected(MockServerWebExchange exchange, String error) {
+        assertThat(passedOn.get()).isNull();
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo(error);
+    }
+}
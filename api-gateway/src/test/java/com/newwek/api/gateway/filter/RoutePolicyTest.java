@@ -0,0 +1,147 @@
+package com.newwek.api.gateway.filter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RoutePolicyTest {
+
+    private static final String ROUTES = "spring.cloud.gateway.routes[";
+
+    /**
+     * The policy of the blog route as the gateway is configured.
+     */
+    private final RoutePolicy blogRoute = new RoutePolicy(publicEndpoints("blog-service"));
+
+    /**
+     * Endpoints for every method, below a path and with a variable in the middle.
+     */
+    private final RoutePolicy policy = new RoutePolicy(List.of(
+            "GET /api/docs/**", "/auth/token", "* /auth/register", "GET /api/users/{id}/avatar"));
+
+    @ParameterizedTest(name = "{0} {1} public: {2}")
+    @CsvSource({
+            "GET,    /api/posts,                                 true",
+            "GET,    /api/posts/101,                             true",
+            "GET,    /api/posts/batch,                           true",
+            "GET,    /api/posts/,                                false",
+            "GET,    /api/posts/101/,                            false",
+            "GET,    /api/posts/101/comments,                    false",
+            "GET,    /api/posts/update-comments-count/101,       false",
+            "POST,   /api/posts/update-comments-count/101,       false",
+            "DELETE, /api/posts/update-comments-count/101,       false",
+            "HEAD,   /api/posts/101,                             false",
+            "POST,   /api/posts,                                 false",
+            "PUT,    /api/posts/101,                             false",
+            "DELETE, /api/posts/101,                             false",
+            "GET,    /api/postsX,                                false",
+            "GET,    /api/postsX/101,                            false",
+            "GET,    /api/post,                                  false",
+            "GET,    /api,                                       false",
+            "GET,    /API/posts,                                 false",
+            "GET,    /v3/api-docs/blog,                          true",
+            "GET,    /v3/api-docs/blog/,                         false",
+            "GET,    /v3/api-docs/blogs,                         false",
+            "GET,    /v3/api-docs/comment,                       false",
+            "GET,    /v3/api-docs/blog;v=1,                      true",
+            "GET,    /api/posts/update-comments-count;x=1/101,   false",
+    })
+    void decidesWhichRequestsOfTheBlogRouteArePublic(String method, String path, boolean expected) {
+        assertThat(blogRoute.isPublic(MockServerHttpRequest.method(HttpMethod.valueOf(method), path).build())).isEqualTo(expected);
+    }
+
+    @ParameterizedTest(name = "{0} {1} public: {2}")
+    @CsvSource({
+            "GET,    /api/docs,                     true",
+            "GET,    /api/docs/a/b,                 true",
+            "POST,   /api/docs/a,                   false",
+            "GET,    /api/docsX,                    false",
+            "POST,   /auth/token,                   true",
+            "GET,    /auth/token,                   true",
+            "POST,   /auth/tokens,                  false",
+            "POST,   /auth/register,                true",
+            "POST,   /api/comments/auth/token,      false",
+            "GET,    /api/users/7/avatar,           true",
+            "GET,    /api/users/7/profile,          false",
+            "POST,   /auth/token;jsessionid=1,      true",
+            "POST,   /auth/token%3Bx,               false",
+    })
+    void decidesWhichRequestsArePublic(String method, String path, boolean expected) {
+        assertThat(policy.isPublic(MockServerHttpRequest.method(HttpMethod.valueOf(method), path).build())).isEqualTo(expected);
+    }
+
+    @Test
+    void agreesWithThePathPatternsItWasGiven() {
+        List<String> patterns = List.of("/api/posts/**", "/api/posts", "/api/posts/{id}", "/v3/api-docs/blog", "/**", "/{id}", "/a/b/");
+        List<String> paths = List.of("/", "/api", "/api/posts", "/api/posts/", "/api/posts/1", "/api/posts//1", "/api//posts",
+                "/api/postsX", "/api/posts/1/", "/api/posts/1/2", "/v3/api-docs/blog", "/v3/api-docs/blog/", "/a/b", "/a/b/",
+                "/a/b//", "/A/b/",
+                // Escaped characters and path parameters, which only the parsed patterns handle
+                "/api/p%6Fsts/1", "/api/posts%2F1", "/api/postsX%2F1", "/api/posts;v=1/1", "/api/posts/1;v=1",
+                "/v3/api-docs/bl%6Fg", "/a/b;x=1/", "/a%2Fb/");
+        for (String pattern : patterns) {
+            PathPattern parsed = PathPatternParser.defaultInstance.parse(pattern);
+            RoutePolicy routePolicy = new RoutePolicy(List.of("GET " + pattern));
+            for (String path : paths) {
+                PathContainer container = PathContainer.parsePath(path);
+                assertThat(routePolicy.isPublic(HttpMethod.GET, container))
+                        .as("%s against %s", path, pattern)
+                        .isEqualTo(parsed.matches(container));
+            }
+        }
+    }
+
+    @Test
+    void hasNoPublicEndpointsUnlessConfigured() {
+        RoutePolicy none = new RoutePolicy(List.of());
+
+        assertThat(none.isPublic(HttpMethod.GET, PathContainer.parsePath("/api/posts"))).isFalse();
+        assertThat(none.isPublic(HttpMethod.GET, PathContainer.parsePath("/"))).isFalse();
+    }
+
+    @Test
+    void rejectsEndpointsThatAreNotAMethodAndAPattern() {
+        assertThatThrownBy(() -> new RoutePolicy(List.of("GET /a /b"))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new RoutePolicy(List.of("GET api/posts"))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new RoutePolicy(List.of("GET /api/{id"))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * The {@code public-endpoints} of the route's {@code AuthenticationFilter} in the gateway's application.yml.
+     */
+    static List<String> publicEndpoints(String routeId) {
+        YamlPropertiesFactoryBean yaml = new YamlPropertiesFactoryBean();
+        yaml.setResources(new ClassPathResource("application.yml"));
+        Properties properties = yaml.getObject();
+        for (int route = 0; properties.containsKey(ROUTES + route + "].id"); route++) {
+            if (!routeId.equals(properties.getProperty(ROUTES + route + "].id"))) {
+                continue;
+            }
+            for (int filter = 0; properties.containsKey(ROUTES + route + "].filters[" + filter + "].name"); filter++) {
+                List<String> endpoints = new ArrayList<>();
+                String key = ROUTES + route + "].filters[" + filter + "].args.public-endpoints[";
+                for (int endpoint = 0; properties.containsKey(key + endpoint + "]"); endpoint++) {
+                    endpoints.add(properties.getProperty(key + endpoint + "]"));
+                }
+                if (!endpoints.isEmpty()) {
+                    return endpoints;
+                }
+            }
+        }
+        throw new IllegalArgumentException("No public endpoints configured for " + routeId);
+    }
+}
@@ -0,0 +1,83 @@
+package com.newwek.api.gateway.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPair;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwksKeyCacheTest {
+
+    private static final KeyPair OLD_KEY = StubAuthService.generateKey();
+    private static final KeyPair NEW_KEY = StubAuthService.generateKey();
+
+    private final StubAuthService authService = new StubAuthService();
+    private final AtomicLong nanoTime = new AtomicLong();
+    private JwksKeyCache keyCache;
+
+    @BeforeEach
+    void setUp() {
+        authService.publish("old", OLD_KEY);
+        keyCache = new JwksKeyCache(authService.webClientBuilder(), StubAuthService.URL, Duration.ofMinutes(10), nanoTime::get);
+    }
+
+    @Test
+    void picksUpARotatedKeyWhenATokenNamesIt() {
+        String oldToken = StubAuthService.token("old", OLD_KEY, "alice", Instant.now().plusSeconds(60));
+        String newToken = StubAuthService.token("new", NEW_KEY, "alice", Instant.now().plusSeconds(60));
+        assertThat(keyCache.parser("old").block().parseClaimsJws(oldToken).getBody().getSubject()).isEqualTo("alice");
+
+        authService.publish("new", NEW_KEY);
+        advance(JwksKeyCache.MIN_REFRESH_INTERVAL);
+
+        assertThat(keyCache.parser("new").block().parseClaimsJws(newToken).getBody().getSubject()).isEqualTo("alice");
+        assertThat(keyCache.parser("old").block()).isNotNull();
+        assertThat(authService.jwksFetches).hasValue(2);
+    }
+
+    @Test
+    void fetchesAtMostOnceAMinimumIntervalForUnknownKeys() {
+        keyCache.parser("old").block();
+
+        assertThat(keyCache.parser("made-up-1").block()).isNull();
+        assertThat(keyCache.parser("made-up-2").block()).isNull();
+        assertThat(authService.jwksFetches).hasValue(1);
+
+        advance(JwksKeyCache.MIN_REFRESH_INTERVAL);
+        assertThat(keyCache.parser("made-up-3").block()).isNull();
+        assertThat(keyCache.parser("made-up-4").block()).isNull();
+        assertThat(authService.jwksFetches).hasValue(2);
+    }
+
+    @Test
+    void refreshesAStaleKeySetWhileServingTheCachedKeys() {
+        keyCache.parser("old").block();
+        authService.unpublish("old");
+        authService.publish("new", NEW_KEY);
+
+        advance(Duration.ofMinutes(5));
+        assertThat(keyCache.parser("old").block()).isNotNull();
+        assertThat(authService.jwksFetches).hasValue(1);
+
+        advance(Duration.ofMinutes(5));
+        // Answered from the cached keys, while the key set is fetched again in the background
+        assertThat(keyCache.parser("old").block()).isNotNull();
+        assertThat(authService.jwksFetches).hasValue(2);
+        assertThat(keyCache.parser("old").block()).isNull();
+        assertThat(keyCache.parser("new").block()).isNotNull();
+    }
+
+    @Test
+    void ignoresTokensWithoutAKeyId() {
+        assertThat(keyCache.parser(null).block()).isNull();
+        assertThat(authService.jwksFetches).hasValue(0);
+    }
+
+    private void advance(Duration duration) {
+        nanoTime.addAndGet(duration.toNanos());
+    }
+}
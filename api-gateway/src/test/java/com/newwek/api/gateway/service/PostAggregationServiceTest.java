@@ -0,0 +1,114 @@
+package com.newwek.api.gateway.service;
+
+import com.newwek.api.gateway.dto.AggregatedPostDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PostAggregationServiceTest {
+
+    private final StubPostServices services = new StubPostServices();
+    private final PostAggregationService aggregationService = new PostAggregationService(services.webClientBuilder(),
+            Duration.ofMillis(500), Duration.ofMillis(100), 20);
+
+    @Test
+    void mergesThePostWithItsNewestComments() {
+        AggregatedPostDto aggregate = aggregationService.aggregate(1L, "alice").block();
+
+        assertThat(aggregate.post().path("title").asText()).isEqualTo("Hello");
+        assertThat(aggregate.comments().path("comments").get(0).path("content").asText()).isEqualTo("Nice");
+        assertThat(aggregate.partial()).isFalse();
+        assertThat(services.requests).extracting(request -> request.url().toString()).containsExactlyInAnyOrder(
+                "http://BLOG-SERVICE/api/posts/1",
+                "http://COMMENT-SERVICE/api/comments/post/1/page?order=NEWEST&size=20");
+    }
+
+    @Test
+    void forwardsTheUsernameInsteadOfTheToken() {
+        aggregationService.aggregate(1L, "alice").block();
+
+        assertThat(services.requests).hasSize(2).allSatisfy(request -> {
+            assertThat(request.headers().getFirst("X-Username")).isEqualTo("alice");
+            assertThat(request.headers().containsKey(HttpHeaders.AUTHORIZATION)).isFalse();
+        });
+    }
+
+    @Test
+    void answersThePostWhenTheCommentsTimeOut() {
+        services.commentsDelay = Duration.ofSeconds(5);
+
+        long start = System.nanoTime();
+        AggregatedPostDto aggregate = aggregationService.aggregate(1L, "alice").block();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+        assertThat(aggregate.post().path("title").asText()).isEqualTo("Hello");
+        assertThat(aggregate.comments()).isNull();
+        assertThat(aggregate.failures()).isEqualTo(Map.of(PostAggregationService.COMMENTS_PART, "timeout"));
+        assertThat(aggregate.partial()).isTrue();
+    }
+
+    @Test
+    void waitsForEachPartOnlyAsLongAsItsOwnTimeout() {
+        // Longer than the comments may take, shorter than the post may take
+        services.postDelay = Duration.ofMillis(200);
+        services.commentsDelay = Duration.ofMillis(200);
+
+        AggregatedPostDto aggregate = aggregationService.aggregate(1L, "alice").block();
+
+        assertThat(aggregate.post()).isNotNull();
+        assertThat(aggregate.failures()).isEqualTo(Map.of(PostAggregationService.COMMENTS_PART, "timeout"));
+    }
+
+    @Test
+    void marksTheCommentsAsFailedWhenTheirServiceFails() {
+        services.commentsStatus = HttpStatus.INTERNAL_SERVER_ERROR;
+
+        AggregatedPostDto aggregate = aggregationService.aggregate(1L, "alice").block();
+
+        assertThat(aggregate.post().path("title").asText()).isEqualTo("Hello");
+        assertThat(aggregate.comments()).isNull();
+        assertThat(aggregate.failures()).isEqualTo(Map.of(PostAggregationService.COMMENTS_PART, "status 500"));
+    }
+
+    @Test
+    void marksAPartAsUnavailableWhenItsServiceCannotBeReached() {
+        PostAggregationService unreachable = new PostAggregationService(services.webClientBuilder()
+                .filter((request, next) -> request.url().getHost().equals("COMMENT-SERVICE")
+                        ? Mono.error(new IllegalStateException("No instances available"))
+                        : next.exchange(request)),
+                Duration.ofMillis(500), Duration.ofMillis(100), 20);
+
+        AggregatedPostDto aggregate = unreachable.aggregate(1L, "alice").block();
+
+        assertThat(aggregate.post()).isNotNull();
+        assertThat(aggregate.failures()).isEqualTo(Map.of(PostAggregationService.COMMENTS_PART, "unavailable"));
+    }
+
+    @Test
+    void answers404WhenThePostDoesNotExist() {
+        services.postStatus = HttpStatus.NOT_FOUND;
+
+        assertThatThrownBy(() -> aggregationService.aggregate(1L, "alice").block())
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+    }
+
+    @Test
+    void marksThePostAsFailedWhenItsServiceFails() {
+        services.postStatus = HttpStatus.SERVICE_UNAVAILABLE;
+
+        AggregatedPostDto aggregate = aggregationService.aggregate(1L, "alice").block();
+
+        assertThat(aggregate.post()).isNull();
+        assertThat(aggregate.comments()).isNotNull();
+        assertThat(aggregate.failures()).isEqualTo(Map.of(PostAggregationService.POST_PART, "status 503"));
+    }
+}
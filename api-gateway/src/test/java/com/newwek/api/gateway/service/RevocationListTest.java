@@ -0,0 +1,126 @@
+package com.newwek.api.gateway.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RevocationListTest {
+
+    private final StubAuthService authService = new StubAuthService();
+
+    @Test
+    void rejectsATokenRevokedByTheAuthenticationService() {
+        authService.revoke("revoked");
+        RevocationList revocationList = revocationList(Duration.ofMinutes(10));
+
+        assertThatThrownBy(() -> revocationList.check(claims("revoked")).block())
+                .isInstanceOf(JwtException.class)
+                .hasMessage("Token revoked");
+        assertThatThrownBy(() -> revocationList.check(claims("revoked")).block()).isInstanceOf(JwtException.class);
+        assertThat(authService.revocationFetches).hasValue(1);
+        assertThat(authService.revocationChecks).as("confirmed once, then kept").hasValue(1);
+    }
+
+    @Test
+    void acceptsTokensTheFilterRulesOutWithoutAsking() {
+        authService.revoke("revoked");
+        RevocationList revocationList = revocationList(Duration.ofMinutes(10));
+
+        for (int i = 0; i < 1_000; i++) {
+            revocationList.check(claims("token-" + i)).block();
+        }
+
+        assertThat(authService.revocationChecks.get()).isLessThan(5);
+    }
+
+    @Test
+    void acceptsATokenTheFilterReportsOnceTheAuthenticationServiceDeniesIt() {
+        authService.addToRevocationFilter("false-positive");
+        RevocationList revocationList = revocationList(Duration.ofMinutes(10));
+
+        revocationList.check(claims("false-positive")).block();
+
+        assertThat(authService.revocationChecks).hasValue(1);
+    }
+
+    @Test
+    void picksUpRevocationsOnTheNextRefresh() {
+        RevocationList revocationList = revocationList(Duration.ZERO);
+        revocationList.check(claims("later-revoked")).block();
+
+        authService.revoke("later-revoked");
+        // This check triggers the refresh, the next one sees the new filter
+        revocationList.check(claims("other")).block();
+
+        assertThatThrownBy(() -> revocationList.check(claims("later-revoked")).block()).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void skipsAnUnchangedFilter() {
+        authService.revoke("revoked");
+        RevocationList revocationList = revocationList(Duration.ZERO);
+
+        revocationList.check(claims("token-1")).block();
+        revocationList.check(claims("token-2")).block();
+        revocationList.check(claims("token-3")).block();
+
+        assertThat(authService.revocationFetches.get()).isGreaterThan(1);
+        assertThat(authService.revocationsNotModified).hasValue(authService.revocationFetches.get() - 1);
+        assertThatThrownBy(() -> revocationList.check(claims("revoked")).block()).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void fetchesTheFilterOfARestartedAuthenticationService() {
+        authService.revoke("before-restart");
+        RevocationList revocationList = revocationList(Duration.ZERO);
+        revocationList.check(claims("token")).block();
+
+        // Counts back up to the version the gateway holds, with another filter
+        authService.restart();
+        authService.revoke("after-restart");
+        revocationList.check(claims("token")).block();
+
+        assertThat(authService.revocationsNotModified).hasValue(0);
+        assertThatThrownBy(() -> revocationList.check(claims("after-restart")).block()).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void keepsTheLastFilterWhileTheAuthenticationServiceIsDown() {
+        authService.revoke("revoked");
+        RevocationList revocationList = revocationList(Duration.ZERO);
+        revocationList.check(claims("token")).block();
+
+        authService.revocationsDown = true;
+        revocationList.check(claims("token")).block();
+
+        authService.revocationsDown = false;
+        assertThatThrownBy(() -> revocationList.check(claims("revoked")).block()).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void acceptsTokensWhenNoFilterWasEverFetched() {
+        authService.revoke("revoked");
+        authService.revocationsDown = true;
+        RevocationList revocationList = revocationList(Duration.ofMinutes(10));
+
+        revocationList.check(claims("revoked")).block();
+
+        assertThat(authService.revocationChecks).hasValue(0);
+    }
+
+    private RevocationList revocationList(Duration refreshInterval) {
+        return new RevocationList(authService.webClientBuilder(), StubAuthService.URL, refreshInterval);
+    }
+
+    private static Claims claims(String tokenId) {
+        return Jwts.claims().setId(tokenId).setExpiration(Date.from(Instant.now().plusSeconds(60)));
+    }
+}
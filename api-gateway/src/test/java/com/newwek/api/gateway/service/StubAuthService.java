@@ -0,0 +1,182 @@
+package com.newwek.api.gateway.service;
+
+import com.newwek.platform.revocation.CuckooFilter;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Stands in for AUTHENTICATION-SERVICE behind a {@link WebClient}: publishes the keys it is given as a JSON Web Key
+ * Set, answers remote token validations for the tokens it was told about, and serves the revoked token IDs as
+ * AUTHENTICATION-SERVICE does, a versioned cuckoo filter with the IDs confirmed one by one.
+ */
+class StubAuthService implements ExchangeFunction {
+
+    static final String URL = "http://auth";
+
+    final AtomicInteger jwksFetches = new AtomicInteger();
+    final AtomicInteger validations = new AtomicInteger();
+    final AtomicInteger revocationFetches = new AtomicInteger();
+    final AtomicInteger revocationsNotModified = new AtomicInteger();
+    final AtomicInteger revocationChecks = new AtomicInteger();
+
+    private final Map<String, KeyPair> publishedKeys = new ConcurrentHashMap<>();
+    private final Map<String, String> remoteUsers = new ConcurrentHashMap<>();
+    private final Set<String> revokedIds = ConcurrentHashMap.newKeySet();
+    private CuckooFilter revocationFilter = new CuckooFilter(1024);
+    private String revocationsEpoch = UUID.randomUUID().toString();
+    private long revocationsVersion;
+    volatile boolean revocationsDown;
+
+    WebClient.Builder webClientBuilder() {
+        return WebClient.builder().exchangeFunction(this);
+    }
+
+    static KeyPair generateKey() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    void publish(String keyId, KeyPair key) {
+        publishedKeys.put(keyId, key);
+    }
+
+    void unpublish(String keyId) {
+        publishedKeys.remove(keyId);
+    }
+
+    /**
+     * Makes remote validation accept the token as issued to {@code username}.
+     */
+    void acceptRemotely(String token, String username) {
+        remoteUsers.put(token, username);
+    }
+
+    synchronized void revoke(String tokenId) {
+        revokedIds.add(tokenId);
+        addToRevocationFilter(tokenId);
+    }
+
+    /**
+     * Puts the ID in the filter without revoking it, as the filter reports a few IDs that were never added.
+     */
+    synchronized void addToRevocationFilter(String tokenId) {
+        revocationFilter.add(tokenId);
+        revocationsVersion++;
+    }
+
+    /**
+     * Forgets the revocations and starts counting their versions again, as a restarted AUTHENTICATION-SERVICE does.
+     */
+    synchronized void restart() {
+        revokedIds.clear();
+        revocationFilter = new CuckooFilter(1024);
+        revocationsEpoch = UUID.randomUUID().toString();
+        revocationsVersion = 0;
+    }
+
+    static String token(String keyId, KeyPair key, String subject, Instant expiration) {
+        return Jwts.builder()
+                .setHeaderParam("kid", keyId)
+                .setId(UUID.randomUUID().toString())
+                .setSubject(subject)
+                .setExpiration(Date.from(expiration))
+                .signWith(key.getPrivate(), SignatureAlgorithm.RS256)
+                .compact();
+    }
+
+    @Override
+    public Mono<ClientResponse> exchange(ClientRequest request) {
+        String path = request.url().getPath();
+        return Mono.fromSupplier(() -> switch (path) {
+            case "/auth/jwks" -> {
+                jwksFetches.incrementAndGet();
+                yield json(jwks());
+            }
+            case "/auth/validate" -> {
+                validations.incrementAndGet();
+                String token = UriComponentsBuilder.fromUri(request.url()).build().getQueryParams().getFirst("token");
+                String username = token != null ? remoteUsers.get(token) : null;
+                yield username != null
+                        ? ClientResponse.create(HttpStatus.OK).header(HttpHeaders.CONTENT_TYPE, MediaType.TEXT_PLAIN_VALUE).body(username).build()
+                        : ClientResponse.create(HttpStatus.UNAUTHORIZED).build();
+            }
+            case String revocations when revocations.equals("/auth/revocations") && !revocationsDown -> {
+                revocationFetches.incrementAndGet();
+                yield revocations(request.headers().getIfNoneMatch());
+            }
+            case String revocation when revocation.startsWith("/auth/revocations/") && !revocationsDown -> {
+                revocationChecks.incrementAndGet();
+                yield json(String.valueOf(revokedIds.contains(revocation.substring("/auth/revocations/".length()))));
+            }
+            default -> ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build();
+        });
+    }
+
+    private String jwks() {
+        return publishedKeys.entrySet().stream()
+                .map(entry -> {
+                    RSAPublicKey key = (RSAPublicKey) entry.getValue().getPublic();
+                    return """
+                            {"kty":"RSA","kid":"%s","use":"sig","n":"%s","e":"%s"}"""
+                            .formatted(entry.getKey(), base64Url(key.getModulus()), base64Url(key.getPublicExponent()));
+                })
+                .collect(Collectors.joining(",", "{\"keys\":[", "]}"));
+    }
+
+    private synchronized ClientResponse revocations(List<String> ifNoneMatch) {
+        String version = revocationsEpoch + "-" + revocationsVersion;
+        String eTag = "\"" + version + "\"";
+        if (ifNoneMatch.contains(eTag)) {
+            revocationsNotModified.incrementAndGet();
+            return ClientResponse.create(HttpStatus.NOT_MODIFIED).header(HttpHeaders.ETAG, eTag).build();
+        }
+        String filter = Base64.getEncoder().encodeToString(revocationFilter.toBytes());
+        return ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .header(HttpHeaders.ETAG, eTag)
+                .body("""
+                        {"version":"%s","filter":"%s"}""".formatted(version, filter))
+                .build();
+    }
+
+    static ClientResponse json(String body) {
+        return ClientResponse.create(HttpStatus.OK).header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE).body(body).build();
+    }
+
+    private static String base64Url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        int offset = bytes.length > 1 && bytes[0] == 0 ? 1 : 0;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOfRange(bytes, offset, bytes.length));
+    }
+}
@@ -0,0 +1,53 @@
+package com.newwek.api.gateway.service;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Stands in for BLOG-SERVICE and COMMENT-SERVICE behind a {@link WebClient}: answers the post and comment page the
+ * aggregation asks for, each after its own delay and with its own status, and records the requests it received.
+ */
+class StubPostServices implements ExchangeFunction {
+
+    static final String POST = """
+            {"id":1,"title":"Hello","content":"First post"}""";
+    static final String COMMENTS = """
+            {"comments":[{"id":7,"content":"Nice"}],"nextCursor":null}""";
+
+    final List<ClientRequest> requests = new CopyOnWriteArrayList<>();
+
+    volatile HttpStatus postStatus = HttpStatus.OK;
+    volatile HttpStatus commentsStatus = HttpStatus.OK;
+    volatile Duration postDelay = Duration.ZERO;
+    volatile Duration commentsDelay = Duration.ZERO;
+
+    WebClient.Builder webClientBuilder() {
+        return WebClient.builder().exchangeFunction(this);
+    }
+
+    @Override
+    public Mono<ClientResponse> exchange(ClientRequest request) {
+        requests.add(request);
+        return switch (request.url().getHost()) {
+            case "BLOG-SERVICE" -> respond(postStatus, postDelay, POST);
+            case "COMMENT-SERVICE" -> respond(commentsStatus, commentsDelay, COMMENTS);
+            default -> Mono.just(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build());
+        };
+    }
+
+    private static Mono<ClientResponse> respond(HttpStatus status, Duration delay, String body) {
+        ClientResponse response = status.is2xxSuccessful()
+                ? StubAuthService.json(body)
+                : ClientResponse.create(status).header(HttpHeaders.CONTENT_LENGTH, "0").build();
+        return delay.isZero() ? Mono.just(response) : Mono.delay(delay).thenReturn(response);
+    }
+}
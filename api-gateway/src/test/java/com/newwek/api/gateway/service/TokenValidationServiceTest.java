@@ -0,0 +1,78 @@
+package com.newwek.api.gateway.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.security.KeyPair;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenValidationServiceTest {
+
+    private static final KeyPair KEY = StubAuthService.generateKey();
+    private static final KeyPair OTHER_KEY = StubAuthService.generateKey();
+
+    private final StubAuthService authService = new StubAuthService();
+    private TokenValidationService tokenValidationService;
+
+    @BeforeEach
+    void setUp() {
+        authService.publish("key-1", KEY);
+        JwksKeyCache keyCache = new JwksKeyCache(authService.webClientBuilder(), StubAuthService.URL, Duration.ofMinutes(10));
+        RevocationList revocationList = new RevocationList(authService.webClientBuilder(), StubAuthService.URL, Duration.ofSeconds(10));
+        tokenValidationService = new TokenValidationService(authService.webClientBuilder(), keyCache, revocationList,
+                new ObjectMapper(), StubAuthService.URL);
+    }
+
+    @Test
+    void acceptsAValidTokenLocally() {
+        String token = StubAuthService.token("key-1", KEY, "alice", Instant.now().plusSeconds(60));
+
+        assertThat(tokenValidationService.validate(token).block()).isEqualTo("alice");
+        assertThat(tokenValidationService.validate(token).block()).isEqualTo("alice");
+        assertThat(authService.validations).hasValue(0);
+        assertThat(authService.jwksFetches).hasValue(1);
+    }
+
+    @Test
+    void rejectsAnExpiredToken() {
+        String token = StubAuthService.token("key-1", KEY, "alice", Instant.now().minusSeconds(1));
+
+        assertThatThrownBy(() -> tokenValidationService.validate(token).block()).isInstanceOf(ExpiredJwtException.class);
+        assertThat(authService.validations).hasValue(0);
+    }
+
+    @Test
+    void rejectsATokenWithABadSignature() {
+        String token = StubAuthService.token("key-1", OTHER_KEY, "alice", Instant.now().plusSeconds(60));
+
+        assertThatThrownBy(() -> tokenValidationService.validate(token).block()).isInstanceOf(SignatureException.class);
+        assertThat(authService.validations).hasValue(0);
+    }
+
+    @Test
+    void rejectsAnUnreadableToken() {
+        assertThatThrownBy(() -> tokenValidationService.validate("not-a-token").block()).isInstanceOf(MalformedJwtException.class);
+        assertThatThrownBy(() -> tokenValidationService.validate("%%%.e30.sig").block()).isInstanceOf(MalformedJwtException.class);
+    }
+
+    @Test
+    void validatesATokenWithAnUnknownKeyRemotely() {
+        String accepted = StubAuthService.token("key-2", OTHER_KEY, "bob", Instant.now().plusSeconds(60));
+        String rejected = StubAuthService.token("key-3", OTHER_KEY, "mallory", Instant.now().plusSeconds(60));
+        authService.acceptRemotely(accepted, "bob");
+
+        assertThat(tokenValidationService.validate(accepted).block()).isEqualTo("bob");
+        assertThatThrownBy(() -> tokenValidationService.validate(rejected).block())
+                .isInstanceOf(WebClientResponseException.Unauthorized.class);
+        assertThat(authService.validations).hasValue(2);
+    }
+}
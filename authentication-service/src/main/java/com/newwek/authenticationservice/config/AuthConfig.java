@@ -1,6 +1,7 @@
 package com.newwek.authenticationservice.config;
 
 import com.newwek.authenticationservice.repository.UserCredentialRepository;
+import com.newwek.authenticationservice.service.KnownUsers;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -10,8 +11,6 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 
@@ -20,8 +19,8 @@ import org.springframework.security.web.SecurityFilterChain;
 public class AuthConfig {
 
     @Bean
-    public UserDetailsService userDetailsService(UserCredentialRepository repository){
-        return new CustomUserDetailsService(repository);
+    public CustomUserDetailsService userDetailsService(UserCredentialRepository repository, KnownUsers knownUsers){
+        return new CustomUserDetailsService(repository, knownUsers);
     }
 
 
@@ -29,20 +28,17 @@ public class AuthConfig {
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         return http.csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
-                .requestMatchers("/auth/register", "/auth/token", "/auth/validate", "/swagger-ui/**",  "/v3/api-docs/**", "/actuator/**").permitAll())
+                .requestMatchers("/auth/register", "/auth/token", "/auth/refresh", "/auth/validate", "/auth/jwks", "/auth/revoke", "/auth/revocations", "/auth/revocations/*", "/error", "/swagger-ui/**",  "/v3/api-docs/**", "/actuator/**").permitAll())
                 .build();
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-
-    @Bean
-    public AuthenticationProvider authenticationProvider(UserCredentialRepository repository){
+    public AuthenticationProvider authenticationProvider(UserCredentialRepository repository, KnownUsers knownUsers, PasswordEncoder passwordEncoder){
         DaoAuthenticationProvider authenticationProvider=new DaoAuthenticationProvider();
-        authenticationProvider.setUserDetailsService(userDetailsService(repository));
-        authenticationProvider.setPasswordEncoder(passwordEncoder());
+        authenticationProvider.setUserDetailsService(userDetailsService(repository, knownUsers));
+        // Rehashes the password on login when the stored hash has another BCrypt cost
+        authenticationProvider.setUserDetailsPasswordService(userDetailsService(repository, knownUsers));
+        authenticationProvider.setPasswordEncoder(passwordEncoder);
         return authenticationProvider;
     }
 
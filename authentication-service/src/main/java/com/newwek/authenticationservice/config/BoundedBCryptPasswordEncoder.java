@@ -0,0 +1,142 @@
+package com.newwek.authenticationservice.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Hashes and checks passwords with BCrypt on a pool of {@code password-hashing.threads} threads, the CPU count by
+ * default, instead of the request threads. At most {@code password-hashing.queue-capacity} passwords wait for a
+ * thread; beyond that the request is answered with 503 right away, so a burst of logins cannot take every request
+ * thread and starve {@code /auth/validate}.
+ * <p>
+ * The cost is {@code password-hashing.bcrypt-cost}. A stored hash with another cost is reported by
+ * {@link #upgradeEncoding}, and rehashed with the current cost on the next successful login.
+ */
+@Component
+@Slf4j
+public class BoundedBCryptPasswordEncoder implements PasswordEncoder, MeterBinder, DisposableBean {
+
+    private static final Pattern COST = Pattern.compile("\\A\\$2[abxy]?\\$(\\d\\d)\\$");
+
+    private final BCryptPasswordEncoder encoder;
+    private final int cost;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong rejected = new AtomicLong();
+
+    private volatile Timer encodeTimer;
+    private volatile Timer matchesTimer;
+
+    @Autowired
+    public BoundedBCryptPasswordEncoder(@Value("${password-hashing.bcrypt-cost:10}") int cost,
+                                        @Value("${password-hashing.threads:0}") int threads,
+                                        @Value("${password-hashing.queue-capacity:32}") int queueCapacity) {
+        this(cost, pool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), queueCapacity));
+    }
+
+    BoundedBCryptPasswordEncoder(int cost, ThreadPoolExecutor executor) {
+        this.encoder = new BCryptPasswordEncoder(cost);
+        this.cost = cost;
+        this.executor = executor;
+        log.info("Hashing passwords with BCrypt cost {} on {} threads", cost, executor.getMaximumPoolSize());
+    }
+
+    static ThreadPoolExecutor pool(int threads, int queueCapacity) {
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), Thread.ofPlatform().name("password-hashing-", 0).daemon().factory());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> time(encodeTimer, () -> encoder.encode(rawPassword)));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> time(matchesTimer, () -> encoder.matches(rawPassword, encodedPassword)));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != cost;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        encodeTimer = hashTimer(registry, "encode");
+        matchesTimer = hashTimer(registry, "matches");
+        Gauge.builder("auth.password.hashing.queue.size", executor, e -> e.getQueue().size())
+                .description("Passwords waiting for a hashing thread")
+                .register(registry);
+        Gauge.builder("auth.password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Passwords being hashed")
+                .register(registry);
+        FunctionCounter.builder("auth.password.hashing.rejected", rejected, AtomicLong::get)
+                .description("Password hashing requests rejected because the queue was full")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many password checks in progress, retry later");
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing a password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static <T> T time(Timer timer, Callable<T> hash) throws Exception {
+        return timer != null ? timer.recordCallable(hash) : hash.call();
+    }
+
+    private static Timer hashTimer(MeterRegistry registry, String operation) {
+        return Timer.builder("auth.password.hashing")
+                .description("Time spent hashing a password, without the wait for a thread")
+                .tag("operation", operation)
+                .register(registry);
+    }
+}
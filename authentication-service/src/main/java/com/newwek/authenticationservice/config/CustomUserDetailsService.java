@@ -2,8 +2,10 @@ package com.newwek.authenticationservice.config;
 
 import com.newwek.authenticationservice.entity.UserCredential;
 import com.newwek.authenticationservice.repository.UserCredentialRepository;
+import com.newwek.authenticationservice.service.KnownUsers;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
@@ -12,13 +14,24 @@ import java.util.Optional;
 
 @Component
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserCredentialRepository repository;
+    private final KnownUsers knownUsers;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        Optional<UserCredential> credential = repository.findByName(username);
+        Optional<UserCredential> credential = knownUsers.findByName(username, repository::findByName);
         return credential.map(CustomUserDetails::new).orElseThrow(() -> new UsernameNotFoundException(STR."user not found with name :\{username}"));
     }
+
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        return repository.findByName(user.getUsername())
+                .map(credential -> {
+                    credential.setPassword(newPassword);
+                    return new CustomUserDetails(repository.save(credential));
+                })
+                .orElseThrow(() -> new UsernameNotFoundException(STR."user not found with name :\{user.getUsername()}"));
+    }
 }
@@ -1,41 +1,150 @@
 package com.newwek.authenticationservice.controller;
 
 import com.newwek.authenticationservice.dto.AuthRequest;
+import com.newwek.authenticationservice.dto.RefreshRequest;
 import com.newwek.authenticationservice.entity.UserCredential;
 import com.newwek.authenticationservice.service.AuthService;
+import com.newwek.authenticationservice.service.LoginAttempts;
+import com.newwek.authenticationservice.service.RevokedTokens;
+import com.newwek.authenticationservice.service.SigningKeys;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/auth")
-@CrossOrigin
+@CrossOrigin(exposedHeaders = AuthController.REFRESH_TOKEN_HEADER)
 public class AuthController {
+
+    static final String REFRESH_TOKEN_HEADER = "Refresh-Token";
+
     @Autowired
     private AuthService service;
 
     @Autowired
     private AuthenticationManager authenticationManager;
 
+    @Autowired
+    private SigningKeys signingKeys;
+
+    @Autowired
+    private RevokedTokens revokedTokens;
+
+    @Autowired
+    private LoginAttempts loginAttempts;
+
     @PostMapping("/register")
     public String addNewUser(@RequestBody UserCredential user) {
         return service.saveUser(user);
     }
 
+    /**
+     * Logs in with the password. The body is the access token; the {@value #REFRESH_TOKEN_HEADER} header carries the
+     * refresh token that gets the next ones from {@code /refresh}. Logins of a username or from an address that failed
+     * too often are answered with 429 before the password is checked.
+     */
     @PostMapping("/token")
-    public String getToken(@RequestBody AuthRequest authRequest) {
-        Authentication authenticate = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(authRequest.getUsername(), authRequest.getPassword()));
+    public ResponseEntity<String> getToken(@RequestBody AuthRequest authRequest, HttpServletRequest request) {
+        Duration lockedFor = loginAttempts.lockedFor(authRequest.getUsername(), request.getRemoteAddr());
+        if (lockedFor.isPositive()) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, lockedFor.toSeconds())))
+                    .body("Too many failed logins, retry later");
+        }
+        Authentication authenticate;
+        try {
+            authenticate = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(authRequest.getUsername(), authRequest.getPassword()));
+        } catch (AuthenticationException e) {
+            loginAttempts.failed(authRequest.getUsername(), request.getRemoteAddr());
+            throw e;
+        }
         if (authenticate.isAuthenticated()) {
-            return service.generateToken(authRequest.getUsername());
+            loginAttempts.succeeded(authRequest.getUsername());
+            return ResponseEntity.ok()
+                    .header(REFRESH_TOKEN_HEADER, service.issueRefreshToken(authRequest.getUsername()))
+                    .body(service.generateToken(authRequest.getUsername()));
         } else {
             throw new RuntimeException("invalid access");
         }
     }
 
+    /**
+     * Exchanges a refresh token for a new access token, answered like {@code /token}. The refresh token is used up;
+     * using it again logs its session out.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<String> refreshToken(@RequestBody RefreshRequest refreshRequest) {
+        if (refreshRequest.getRefreshToken() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing refresh token");
+        }
+        AuthService.Tokens tokens = service.refresh(refreshRequest.getRefreshToken());
+        return ResponseEntity.ok()
+                .header(REFRESH_TOKEN_HEADER, tokens.refreshToken())
+                .body(tokens.accessToken());
+    }
+
     @GetMapping("/validate")
     public String validateToken(@RequestParam("token") String token) {
         return service.validateToken(token);
     }
+
+    /**
+     * Revokes the bearer token of the request before it expires.
+     */
+    @PostMapping("/revoke")
+    public ResponseEntity<Void> revokeToken(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        if (!authorization.startsWith("Bearer ")) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Missing bearer token");
+        }
+        service.revokeToken(authorization.substring("Bearer ".length()));
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * The filter of the revoked token IDs, which the gateway checks tokens against, answered with 304 when the
+     * gateway already has this version.
+     */
+    @GetMapping("/revocations")
+    public ResponseEntity<Map<String, Object>> revocations(WebRequest request) {
+        RevokedTokens.Snapshot snapshot = revokedTokens.snapshot();
+        String eTag = STR."\"\{snapshot.version()}\"";
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .body(Map.of("version", snapshot.version(), "filter", snapshot.filter()));
+    }
+
+    /**
+     * Whether the token ID is revoked, for the gateway to confirm what the filter reports.
+     */
+    @GetMapping("/revocations/{tokenId}")
+    public boolean isRevoked(@PathVariable String tokenId) {
+        return revokedTokens.isRevoked(tokenId);
+    }
+
+    /**
+     * The public keys tokens are verified with, for the gateway to verify tokens without calling {@code /validate}.
+     */
+    @GetMapping("/jwks")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)))
+                .body(signingKeys.jwks());
+    }
 }
@@ -0,0 +1,31 @@
+package com.newwek.authenticationservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One refresh token of a login session. Only the hash of the token is stored. Every refresh uses up the token and
+ * adds the next one to the same family, which ends when the session was first opened plus the refresh token lifetime.
+ */
+@Entity
+@Table(indexes = @Index(columnList = "familyId"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RefreshToken {
+
+    @Id
+    @Column(length = 43)
+    private String tokenHash;
+    @Column(nullable = false, length = 36)
+    private String familyId;
+    @Column(nullable = false)
+    private String username;
+    @Column(nullable = false)
+    private Instant expiresAt;
+    private boolean used;
+}
@@ -0,0 +1,52 @@
+package com.newwek.authenticationservice.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.function.Supplier;
+
+/**
+ * Flight Recorder event for one parse and signature check of a JWT by {@code JwtService}.
+ */
+@Name("com.newwek.JwtValidation")
+@Label("JWT Validation")
+@Category({"Newwek", "Security"})
+@Description("Parsing and signature verification of a JWT")
+@StackTrace(false)
+public class JwtValidationEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Valid")
+    public boolean valid;
+
+    @Label("Failure")
+    @Description("Simple name of the exception that rejected the token")
+    public String failure;
+
+    /**
+     * Runs the parse and records it, including parses that reject the token.
+     */
+    public static <T> T record(String operation, Supplier<T> parse) {
+        JwtValidationEvent event = new JwtValidationEvent();
+        event.begin();
+        try {
+            T result = parse.get();
+            event.valid = true;
+            return result;
+        } catch (RuntimeException e) {
+            event.failure = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operation;
+                event.commit();
+            }
+        }
+    }
+}
@@ -2,9 +2,27 @@ package com.newwek.authenticationservice.repository;
 
 import com.newwek.authenticationservice.entity.UserCredential;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UserCredentialRepository  extends JpaRepository<UserCredential,Integer> {
     Optional<UserCredential> findByName(String username);
+
+    boolean existsByName(String name);
+
+    boolean existsByEmail(String email);
+
+    /**
+     * The name and email of every user, read within a transaction.
+     */
+    @Query("select c.name as name, c.email as email from UserCredential c")
+    Stream<Identity> streamIdentities();
+
+    interface Identity {
+        String getName();
+
+        String getEmail();
+    }
 }
@@ -2,9 +2,14 @@ package com.newwek.authenticationservice.service;
 
 import com.newwek.authenticationservice.entity.UserCredential;
 import com.newwek.authenticationservice.repository.UserCredentialRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 @Service
 @RequiredArgsConstructor
@@ -13,10 +18,29 @@ public class AuthService {
     private final UserCredentialRepository repository;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
+    private final KnownUsers knownUsers;
+    private final RevokedTokens revokedTokens;
+    private final RefreshTokens refreshTokens;
 
+    /**
+     * Registers a user, checking that the name and email are free before spending a password hash on it. The user
+     * filter spares the lookups for names and emails that were never registered.
+     */
     public String saveUser(UserCredential credential) {
+        if (knownUsers.nameTaken(credential.getName(), repository::existsByName)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Name already registered");
+        }
+        if (knownUsers.emailTaken(credential.getEmail(), repository::existsByEmail)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Email already registered");
+        }
         credential.setPassword(passwordEncoder.encode(credential.getPassword()));
-        repository.save(credential);
+        knownUsers.add(credential.getName(), credential.getEmail());
+        try {
+            repository.save(credential);
+        } catch (DataIntegrityViolationException e) {
+            // Registered concurrently
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Name or email already registered");
+        }
         return "user added to the system";
     }
 
@@ -24,10 +48,46 @@ public class AuthService {
         return jwtService.generateToken(username);
     }
 
+    /**
+     * Opens a refresh token family for a user who logged in with the password.
+     */
+    public String issueRefreshToken(String username) {
+        return refreshTokens.issue(username);
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token and the next refresh token, without the password.
+     */
+    public Tokens refresh(String refreshToken) {
+        RefreshTokens.Rotation rotation = refreshTokens.rotate(refreshToken);
+        return new Tokens(jwtService.generateToken(rotation.username()), rotation.refreshToken());
+    }
+
     public String validateToken(String token) {
-        jwtService.validateToken(token);
-        return jwtService.getUserNameFromToken(token);
+        Claims claims = jwtService.parseToken(token);
+        if (revokedTokens.isRevoked(claims.getId())) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Token revoked");
+        }
+        return claims.getSubject();
     }
 
+    /**
+     * Revokes the token until it expires, which logs its user out on every gateway within their refresh interval.
+     */
+    public void revokeToken(String token) {
+        Claims claims;
+        try {
+            claims = jwtService.parseToken(token);
+        } catch (JwtException e) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid token");
+        }
+        try {
+            revokedTokens.revoke(claims);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
 
+    public record Tokens(String accessToken, String refreshToken) {
+    }
 }
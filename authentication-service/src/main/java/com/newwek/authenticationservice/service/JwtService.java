@@ -1,27 +1,50 @@
 package com.newwek.authenticationservice.service;
 
+import com.newwek.authenticationservice.jfr.JwtValidationEvent;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
-import org.springframework.beans.factory.annotation.Value;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.SignatureException;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
+import java.security.PublicKey;
+import java.time.Duration;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
+/**
+ * Issues RS256 tokens signed with the active key of {@link SigningKeys}, carrying its ID in the {@code kid} header so
+ * the gateway can verify them with the published key set, and a random {@code jti} to revoke them by. Verifies them
+ * with a single parser shared by all threads; tokens verified before are answered from {@link VerifiedTokenCache}.
+ */
 @Component
 public class JwtService {
 
+    static final Duration TOKEN_LIFETIME = Duration.ofMinutes(15);
 
-    @Value("${jwt.secret}")
-    private final String SECRET = null;
+    private final SigningKeys signingKeys;
+    private final VerifiedTokenCache verifiedTokens;
+    private final JwtParser parser;
 
-
-    public void validateToken(final String token) {
-        Jwts.parserBuilder().setSigningKey(getSignKey()).build().parseClaimsJws(token);
+    public JwtService(SigningKeys signingKeys, VerifiedTokenCache verifiedTokens) {
+        this.signingKeys = signingKeys;
+        this.verifiedTokens = verifiedTokens;
+        this.parser = Jwts.parserBuilder().setSigningKeyResolver(new SigningKeyResolverAdapter() {
+            @Override
+            public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                PublicKey key = signingKeys.publicKey(header.getKeyId());
+                if (key == null) {
+                    throw new SignatureException("Token signed with an unknown key");
+                }
+                return key;
+            }
+        }).build();
     }
 
 
@@ -31,20 +54,27 @@ public class JwtService {
     }
 
     private String createToken(Map<String, Object> claims, String userName) {
+        SigningKeys.SigningKey key = signingKeys.active();
         return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, key.id())
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(userName)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 30))
-                .signWith(getSignKey(), SignatureAlgorithm.HS256).compact();
+                .setExpiration(new Date(System.currentTimeMillis() + TOKEN_LIFETIME.toMillis()))
+                .signWith(key.privateKey(), SignatureAlgorithm.RS256).compact();
     }
 
-    private Key getSignKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(SECRET);
-        return Keys.hmacShaKeyFor(keyBytes);
+    /**
+     * Verifies the token and returns its claims, which must not be modified.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, expired or not signed with a published key
+     */
+    public Claims parseToken(String token) {
+        return verifiedTokens.get(token, t -> JwtValidationEvent.record("parse", () -> parser.parseClaimsJws(t).getBody()));
     }
 
     public String getUserNameFromToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(getSignKey()).build().parseClaimsJws(token).getBody().getSubject();
+        return parseToken(token).getSubject();
     }
 }
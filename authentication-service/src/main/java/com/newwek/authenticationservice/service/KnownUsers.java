@@ -0,0 +1,179 @@
+package com.newwek.authenticationservice.service;
+
+import com.newwek.authenticationservice.repository.UserCredentialRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * A Bloom filter over the names and emails of the registered users, which answers most lookups of a user that does
+ * not exist without going to the database: logins with an unknown name, and registrations with a new name and email.
+ * It is loaded from the database once the application is ready, answering "maybe" until then, and every registration
+ * adds to it. Keys are compared without case and accents, like the MySQL collation of the unique constraints, so the
+ * filter never rules out a user the database would find.
+ * <p>
+ * The filter only learns of the registrations made on this instance, so with several instances it would rule out a
+ * user who registered on another one. Registrations are still safe, since the unique constraints turn away a name or
+ * email taken elsewhere, at the cost of a password hash. Logins are not: they are only ruled out with
+ * {@code auth.user-filter.rule-out-logins}, which suits a single instance, and otherwise always go to the database.
+ * <p>
+ * {@code auth.user-filter.false-positive-rate} is the share of lookups of users that do not exist that the filter
+ * could not rule out, next to the rate expected from the bits set.
+ */
+@Component
+@Slf4j
+public class KnownUsers implements MeterBinder {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private final UserCredentialRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final ScalableBloomFilter filter;
+    private final boolean ruleOutLogins;
+    private final LongAdder ruledOut = new LongAdder();
+    private final LongAdder found = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    private volatile boolean loaded;
+
+    public KnownUsers(UserCredentialRepository repository, TransactionTemplate transactionTemplate,
+                      @Value("${auth.user-filter.expected-users:100000}") int expectedUsers,
+                      @Value("${auth.user-filter.false-positive-probability:0.01}") double falsePositiveProbability,
+                      @Value("${auth.user-filter.rule-out-logins:false}") boolean ruleOutLogins) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        // Each user adds a name and an email
+        this.filter = new ScalableBloomFilter(expectedUsers * 2, falsePositiveProbability);
+        this.ruleOutLogins = ruleOutLogins;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.nanoTime();
+        LongAdder users = new LongAdder();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<UserCredentialRepository.Identity> identities = repository.streamIdentities()) {
+                identities.forEach(identity -> {
+                    add(identity.getName(), identity.getEmail());
+                    users.increment();
+                });
+            }
+        });
+        loaded = true;
+        log.info("Loaded {} users into the user filter in {} ms, {} bits", users.sum(), (System.nanoTime() - start) / 1_000_000, filter.bitSize());
+    }
+
+    /**
+     * Adds a user, before it is saved so that it is never ruled out once it can be found.
+     */
+    public void add(String name, String email) {
+        if (name != null) {
+            filter.add(nameKey(name));
+        }
+        if (email != null) {
+            filter.add(emailKey(email));
+        }
+    }
+
+    /**
+     * Looks the user up, unless logins may be ruled out and the filter rules the name out.
+     */
+    public <T> Optional<T> findByName(String name, Function<String, Optional<T>> lookup) {
+        if (!ruleOutLogins) {
+            return lookup.apply(name);
+        }
+        if (!mightContain(name == null ? null : nameKey(name))) {
+            return Optional.empty();
+        }
+        return record(lookup.apply(name));
+    }
+
+    public boolean nameTaken(String name, Predicate<String> exists) {
+        return taken(name == null ? null : nameKey(name), name, exists);
+    }
+
+    public boolean emailTaken(String email, Predicate<String> exists) {
+        return taken(email == null ? null : emailKey(email), email, exists);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("auth.user-filter.lookups", ruledOut, LongAdder::sum)
+                .description("Lookups of users answered by the user filter or the database")
+                .tag("result", "ruled-out")
+                .register(registry);
+        FunctionCounter.builder("auth.user-filter.lookups", found, LongAdder::sum)
+                .description("Lookups of users answered by the user filter or the database")
+                .tag("result", "found")
+                .register(registry);
+        FunctionCounter.builder("auth.user-filter.lookups", falsePositives, LongAdder::sum)
+                .description("Lookups of users answered by the user filter or the database")
+                .tag("result", "false-positive")
+                .register(registry);
+        Gauge.builder("auth.user-filter.false-positive-rate", this, KnownUsers::falsePositiveRate)
+                .description("Share of the lookups of users that do not exist that went to the database")
+                .register(registry);
+        Gauge.builder("auth.user-filter.expected-false-positive-rate", filter, ScalableBloomFilter::expectedFalsePositiveProbability)
+                .description("False positive rate expected from the bits set in the user filter")
+                .register(registry);
+        Gauge.builder("auth.user-filter.keys", filter, ScalableBloomFilter::approximateSize)
+                .description("Names and emails added to the user filter")
+                .register(registry);
+    }
+
+    private boolean taken(String key, String value, Predicate<String> exists) {
+        if (!mightContain(key)) {
+            return false;
+        }
+        return record(Optional.ofNullable(value).filter(exists)).isPresent();
+    }
+
+    private boolean mightContain(String key) {
+        if (!loaded || key == null || filter.mightContain(key)) {
+            return true;
+        }
+        ruledOut.increment();
+        return false;
+    }
+
+    private <T> Optional<T> record(Optional<T> result) {
+        if (!loaded) {
+            return result;
+        }
+        (result.isPresent() ? found : falsePositives).increment();
+        return result;
+    }
+
+    private double falsePositiveRate() {
+        double negatives = ruledOut.sum() + falsePositives.sum();
+        return negatives == 0 ? 0 : falsePositives.sum() / negatives;
+    }
+
+    private static String nameKey(String name) {
+        return "name:" + fold(name);
+    }
+
+    private static String emailKey(String email) {
+        return "email:" + fold(email);
+    }
+
+    private static String fold(String value) {
+        return MARKS.matcher(Normalizer.normalize(value.strip(), Normalizer.Form.NFKD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,188 @@
+package com.newwek.authenticationservice.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Locks out a username after {@code login-attempts.username-limit} failed logins within {@code login-attempts.window},
+ * and a client address after {@code login-attempts.client-limit}, so that guessed passwords are turned away before
+ * they cost a password hash. Lockouts start at {@code login-attempts.base-lockout} and double every time the failures
+ * reach the limit again, up to {@code login-attempts.max-lockout}. A successful login clears the counters of its
+ * username, but not of its address.
+ * <p>
+ * The counters are kept in {@link SlidingWindowCounters} and, when Redis is configured, in Redis as well, where every
+ * instance counts the failures it sees and reads the lockouts of the others. Lockouts read from Redis are remembered
+ * locally, so a locked out client costs one Redis call per instance. Without Redis, or while it cannot be reached, each
+ * instance counts on its own.
+ */
+@Component
+@Slf4j
+public class LoginAttempts implements MeterBinder {
+
+    private static final String KEY_PREFIX = "login-attempts:";
+
+    /**
+     * KEYS: failures in the current window, failures in the previous window, lockout, lockout level.
+     * ARGV: window in milliseconds, weight of the previous window, limit, base lockout, max lockout.
+     * Returns the lockout in milliseconds, or 0.
+     */
+    private static final RedisScript<Long> FAIL = RedisScript.of("""
+            local current = redis.call('INCR', KEYS[1])
+            redis.call('PEXPIRE', KEYS[1], ARGV[1] * 2)
+            local previous = tonumber(redis.call('GET', KEYS[2]) or '0')
+            if current + previous * tonumber(ARGV[2]) < tonumber(ARGV[3]) then
+                return 0
+            end
+            local level = redis.call('INCR', KEYS[4])
+            local lockout = math.floor(math.min(tonumber(ARGV[5]), tonumber(ARGV[4]) * 2 ^ math.min(level - 1, 30)))
+            redis.call('SET', KEYS[3], '1', 'PX', lockout)
+            redis.call('PEXPIRE', KEYS[4], lockout + ARGV[1])
+            return lockout""", Long.class);
+
+    private final StringRedisTemplate redis;
+    private final Clock clock;
+    private final long windowMillis;
+    private final long baseLockoutMillis;
+    private final long maxLockoutMillis;
+    private final int usernameLimit;
+    private final int clientLimit;
+    private final SlidingWindowCounters usernames;
+    private final SlidingWindowCounters clients;
+    private final LongAdder blocked = new LongAdder();
+
+    @Autowired
+    public LoginAttempts(ObjectProvider<StringRedisTemplate> redis,
+                         @Value("${login-attempts.window:15m}") Duration window,
+                         @Value("${login-attempts.username-limit:5}") int usernameLimit,
+                         @Value("${login-attempts.client-limit:50}") int clientLimit,
+                         @Value("${login-attempts.base-lockout:30s}") Duration baseLockout,
+                         @Value("${login-attempts.max-lockout:15m}") Duration maxLockout,
+                         @Value("${login-attempts.max-keys:100000}") int maxKeys) {
+        this(redis.getIfAvailable(), window, usernameLimit, clientLimit, baseLockout, maxLockout, maxKeys, Clock.systemUTC());
+    }
+
+    LoginAttempts(StringRedisTemplate redis, Duration window, int usernameLimit, int clientLimit, Duration baseLockout,
+                  Duration maxLockout, int maxKeys, Clock clock) {
+        this.redis = redis;
+        this.clock = clock;
+        this.windowMillis = window.toMillis();
+        this.baseLockoutMillis = baseLockout.toMillis();
+        this.maxLockoutMillis = maxLockout.toMillis();
+        this.usernameLimit = usernameLimit;
+        this.clientLimit = clientLimit;
+        this.usernames = new SlidingWindowCounters(windowMillis, usernameLimit, baseLockoutMillis, maxLockoutMillis, maxKeys);
+        this.clients = new SlidingWindowCounters(windowMillis, clientLimit, baseLockoutMillis, maxLockoutMillis, maxKeys);
+        if (this.redis == null) {
+            log.info("No Redis configured, counting failed logins on this instance only");
+        }
+    }
+
+    /**
+     * How long logins of the username or from the address are locked out, zero if they are not.
+     */
+    public Duration lockedFor(String username, String clientAddress) {
+        long now = clock.millis();
+        String usernameKey = usernameKey(username);
+        String clientKey = clientKey(clientAddress);
+        long lockedFor = Math.max(usernames.lockedFor(usernameKey, now), clients.lockedFor(clientKey, now));
+        if (lockedFor == 0 && redis != null) {
+            try {
+                long usernameLockout = sharedLockout(usernameKey);
+                long clientLockout = sharedLockout(clientKey);
+                if (usernameLockout > 0) {
+                    usernames.lockUntil(usernameKey, now + usernameLockout);
+                }
+                if (clientLockout > 0) {
+                    clients.lockUntil(clientKey, now + clientLockout);
+                }
+                lockedFor = Math.max(usernameLockout, clientLockout);
+            } catch (RuntimeException e) {
+                log.warn("Could not read the shared login lockouts: {}", e.getMessage());
+            }
+        }
+        if (lockedFor > 0) {
+            blocked.increment();
+        }
+        return Duration.ofMillis(lockedFor);
+    }
+
+    public void failed(String username, String clientAddress) {
+        long now = clock.millis();
+        String usernameKey = usernameKey(username);
+        String clientKey = clientKey(clientAddress);
+        long usernameLockout = usernames.fail(usernameKey, now);
+        long clientLockout = clients.fail(clientKey, now);
+        if (redis != null) {
+            try {
+                usernameLockout = Math.max(usernameLockout, sharedFail(usernameKey, usernameLimit, now));
+                clientLockout = Math.max(clientLockout, sharedFail(clientKey, clientLimit, now));
+                usernames.lockUntil(usernameKey, now + usernameLockout);
+                clients.lockUntil(clientKey, now + clientLockout);
+            } catch (RuntimeException e) {
+                log.warn("Could not count the failed login in Redis: {}", e.getMessage());
+            }
+        }
+        if (usernameLockout > 0 || clientLockout > 0) {
+            log.info("Locking out logins of {} for {} ms and from {} for {} ms", username, usernameLockout, clientAddress, clientLockout);
+        }
+    }
+
+    public void succeeded(String username) {
+        String usernameKey = usernameKey(username);
+        usernames.reset(usernameKey);
+        if (redis != null) {
+            try {
+                long window = clock.millis() / windowMillis;
+                String key = KEY_PREFIX + usernameKey;
+                redis.delete(List.of(STR."\{key}:\{window}", STR."\{key}:\{window - 1}", STR."\{key}:locked", STR."\{key}:level"));
+            } catch (RuntimeException e) {
+                log.warn("Could not clear the failed logins in Redis: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("auth.login.blocked", blocked, LongAdder::sum)
+                .description("Logins turned away by a lockout before their password was checked")
+                .register(registry);
+    }
+
+    private long sharedLockout(String key) {
+        Long lockout = redis.getExpire(STR."\{KEY_PREFIX}\{key}:locked", TimeUnit.MILLISECONDS);
+        return lockout == null || lockout < 0 ? 0 : lockout;
+    }
+
+    private long sharedFail(String key, int limit, long now) {
+        long window = now / windowMillis;
+        double previousWeight = 1 - (double) (now % windowMillis) / windowMillis;
+        String prefix = KEY_PREFIX + key;
+        Long lockout = redis.execute(FAIL, List.of(STR."\{prefix}:\{window}", STR."\{prefix}:\{window - 1}", STR."\{prefix}:locked", STR."\{prefix}:level"),
+                Long.toString(windowMillis), Double.toString(previousWeight), Integer.toString(limit),
+                Long.toString(baseLockoutMillis), Long.toString(maxLockoutMillis));
+        return lockout == null ? 0 : lockout;
+    }
+
+    private static String usernameKey(String username) {
+        return "user:" + (username == null ? "" : username.toLowerCase(Locale.ROOT));
+    }
+
+    private static String clientKey(String clientAddress) {
+        return "client:" + clientAddress;
+    }
+}
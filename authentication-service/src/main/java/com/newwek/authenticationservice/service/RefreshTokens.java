@@ -0,0 +1,136 @@
+package com.newwek.authenticationservice.service;
+
+import com.newwek.authenticationservice.entity.RefreshToken;
+import com.newwek.authenticationservice.repository.RefreshTokenRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opaque refresh tokens, which get a new access token without the password. Each refresh token can be used once:
+ * using it returns the next one of its family, the login session it was issued for. A token used a second time means
+ * that it was copied, so the whole family is deleted, logging out both the thief and the user, who logs in again with
+ * the password. A family lasts {@code jwt.refresh-token-lifetime} from the login, however often it is refreshed.
+ * <p>
+ * Only the SHA-256 hashes of the tokens are stored, so the table cannot be used to refresh. Families are deleted once
+ * they expire, every {@code jwt.refresh-token-purge-interval}.
+ */
+@Service
+@Slf4j
+public class RefreshTokens implements DisposableBean {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration lifetime;
+    private final Clock clock;
+    private final SecureRandom random = new SecureRandom();
+    private final ScheduledExecutorService purge = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("refresh-token-purge").daemon().factory());
+
+    @Autowired
+    public RefreshTokens(RefreshTokenRepository repository, TransactionTemplate transactionTemplate,
+                         @Value("${jwt.refresh-token-lifetime:30d}") Duration lifetime,
+                         @Value("${jwt.refresh-token-purge-interval:1h}") Duration purgeInterval) {
+        this(repository, transactionTemplate, lifetime, purgeInterval, Clock.systemUTC());
+    }
+
+    RefreshTokens(RefreshTokenRepository repository, TransactionTemplate transactionTemplate, Duration lifetime,
+                  Duration purgeInterval, Clock clock) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.lifetime = lifetime;
+        this.clock = clock;
+        long interval = purgeInterval.toMillis();
+        purge.scheduleWithFixedDelay(this::purgeExpired, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens a new family for a user who logged in with the password.
+     *
+     * @return the refresh token
+     */
+    public String issue(String username) {
+        return add(UUID.randomUUID().toString(), username, clock.instant().plus(lifetime));
+    }
+
+    /**
+     * Uses up the refresh token and returns the next one of its family, along with the user it belongs to.
+     *
+     * @throws ResponseStatusException 401 if the token is unknown, expired or was used before
+     */
+    @Transactional(noRollbackFor = ResponseStatusException.class)
+    public Rotation rotate(String refreshToken) {
+        String tokenHash = hash(refreshToken);
+        RefreshToken current = repository.findById(tokenHash)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid refresh token"));
+        if (!current.getExpiresAt().isAfter(clock.instant())) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh token expired");
+        }
+        if (repository.markUsed(tokenHash) == 0) {
+            repository.deleteFamily(current.getFamilyId());
+            log.warn("Refresh token of {} used twice, logging out its session", current.getUsername());
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh token already used");
+        }
+        String next = add(current.getFamilyId(), current.getUsername(), current.getExpiresAt());
+        return new Rotation(current.getUsername(), next);
+    }
+
+    @Override
+    public void destroy() {
+        purge.shutdownNow();
+    }
+
+    void purgeExpired() {
+        try {
+            Integer deleted = transactionTemplate.execute(status -> repository.deleteExpired(clock.instant()));
+            log.debug("Deleted {} expired refresh tokens", deleted);
+        } catch (RuntimeException e) {
+            log.warn("Could not delete the expired refresh tokens: {}", e.getMessage());
+        }
+    }
+
+    private String add(String familyId, String username, Instant expiresAt) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        repository.save(new RefreshToken(hash(token), familyId, username, expiresAt, false));
+        return token;
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param username     the user the family belongs to
+     * @param refreshToken the next refresh token of the family
+     */
+    public record Rotation(String username, String refreshToken) {
+    }
+}
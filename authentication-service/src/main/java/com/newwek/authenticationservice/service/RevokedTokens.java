@@ -0,0 +1,146 @@
+package com.newwek.authenticationservice.service;
+
+import com.newwek.platform.revocation.CuckooFilter;
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The IDs ({@code jti}) of the tokens revoked before they expired, kept until they expire. The gateway does not ask
+ * for every request: it fetches {@link #snapshot()}, a cuckoo filter of the revoked IDs, every few seconds, and only
+ * asks {@link #isRevoked} about the tokens the filter reports, which are the revoked ones and about one in 8,000
+ * others. Expired IDs are removed every {@code jwt.revocation.purge-interval}.
+ * <p>
+ * The version of the snapshot starts with an epoch drawn when the instance starts, so a gateway holding the filter of
+ * an earlier run never has it confirmed as current by a restarted instance that counted back up to the same number.
+ * <p>
+ * Like a generated signing key, the list lives in the memory of this instance, so it only suits a single instance.
+ */
+@Component
+@Slf4j
+public class RevokedTokens implements DisposableBean {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Clock clock;
+    private final String epoch = Long.toHexString(new SecureRandom().nextLong());
+    private final Map<String, Long> expirations = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService purge = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("revoked-token-purge").daemon().factory());
+
+    private CuckooFilter filter = new CuckooFilter(INITIAL_CAPACITY);
+    private long version;
+    private Snapshot snapshot;
+
+    @Autowired
+    public RevokedTokens(@Value("${jwt.revocation.purge-interval:1m}") Duration purgeInterval) {
+        this(purgeInterval, Clock.systemUTC());
+    }
+
+    RevokedTokens(Duration purgeInterval, Clock clock) {
+        this.clock = clock;
+        long interval = purgeInterval.toMillis();
+        purge.scheduleWithFixedDelay(this::purgeExpired, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Revokes a verified token until it expires.
+     *
+     * @throws IllegalArgumentException if the token has no ID or no expiration
+     */
+    public synchronized void revoke(Claims claims) {
+        if (claims.getId() == null || claims.getExpiration() == null) {
+            throw new IllegalArgumentException("Token without ID or expiration");
+        }
+        long expiresAt = claims.getExpiration().getTime();
+        if (expiresAt <= clock.millis() || expirations.putIfAbsent(claims.getId(), expiresAt) != null) {
+            return;
+        }
+        if (!filter.add(claims.getId())) {
+            rebuild(filter.capacity() * 2);
+        }
+        changed();
+        log.info("Revoked token {} of {}", claims.getId(), claims.getSubject());
+    }
+
+    public boolean isRevoked(String tokenId) {
+        Long expiresAt = tokenId == null ? null : expirations.get(tokenId);
+        return expiresAt != null && expiresAt > clock.millis();
+    }
+
+    /**
+     * The filter of the revoked IDs, with a version that changes whenever an ID is added or removed.
+     */
+    public synchronized Snapshot snapshot() {
+        if (snapshot == null) {
+            snapshot = new Snapshot(epoch + "-" + version, Base64.getEncoder().encodeToString(filter.toBytes()));
+        }
+        return snapshot;
+    }
+
+    public int size() {
+        return expirations.size();
+    }
+
+    synchronized void purgeExpired() {
+        long now = clock.millis();
+        boolean removed = false;
+        for (Iterator<Map.Entry<String, Long>> entries = expirations.entrySet().iterator(); entries.hasNext(); ) {
+            Map.Entry<String, Long> entry = entries.next();
+            if (entry.getValue() <= now) {
+                entries.remove();
+                filter.remove(entry.getKey());
+                removed = true;
+            }
+        }
+        if (removed) {
+            if (filter.capacity() > INITIAL_CAPACITY && expirations.size() < filter.capacity() / 8) {
+                rebuild(Math.max(INITIAL_CAPACITY, expirations.size() * 2));
+            }
+            changed();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        purge.shutdownNow();
+    }
+
+    private void rebuild(int capacity) {
+        CuckooFilter rebuilt = new CuckooFilter(capacity);
+        for (String tokenId : expirations.keySet()) {
+            if (!rebuilt.add(tokenId)) {
+                rebuild(capacity * 2);
+                return;
+            }
+        }
+        filter = rebuilt;
+    }
+
+    private void changed() {
+        version++;
+        snapshot = null;
+    }
+
+    /**
+     * @param version the epoch of this instance and the version of the filter, for the gateway to skip fetching an
+     *                unchanged one
+     * @param filter  the cuckoo filter table, base64 encoded
+     */
+    public record Snapshot(String version, String filter) {
+    }
+}
@@ -0,0 +1,148 @@
+package com.newwek.authenticationservice.service;
+
+import com.newwek.platform.hash.KeyHash;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A Bloom filter that grows as keys are added (Almeida et al., Scalable Bloom Filters). Keys go into the newest stage
+ * until it holds its capacity; the next stage has twice the capacity and half the false positive probability, so the
+ * probability over all stages stays below the one given however many keys are added.
+ * <p>
+ * Adding and checking keys is safe from any thread without locking, except for adding a stage. A key that has been
+ * added is always reported as possibly present.
+ */
+public class ScalableBloomFilter {
+
+    private volatile List<Stage> stages;
+
+    public ScalableBloomFilter(int initialCapacity, double falsePositiveProbability) {
+        this.stages = List.of(new Stage(initialCapacity, falsePositiveProbability / 2));
+    }
+
+    public void add(String key) {
+        long hash = KeyHash.of(key);
+        Stage stage = stages.getLast();
+        if (stage.count() >= stage.capacity) {
+            stage = grow(stage);
+        }
+        stage.add(hash);
+    }
+
+    /**
+     * False if the key has definitely not been added.
+     */
+    public boolean mightContain(String key) {
+        long hash = KeyHash.of(key);
+        for (Stage stage : stages) {
+            if (stage.mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The probability that a key that was not added is reported as possibly present, estimated from the bits set in
+     * each stage.
+     */
+    public double expectedFalsePositiveProbability() {
+        double none = 1;
+        for (Stage stage : stages) {
+            none *= 1 - stage.expectedFalsePositiveProbability();
+        }
+        return 1 - none;
+    }
+
+    public long approximateSize() {
+        return stages.stream().mapToLong(Stage::count).sum();
+    }
+
+    public long bitSize() {
+        return stages.stream().mapToLong(stage -> stage.bits).sum();
+    }
+
+    private synchronized Stage grow(Stage full) {
+        List<Stage> current = stages;
+        Stage last = current.getLast();
+        if (last != full) {
+            return last;
+        }
+        List<Stage> grown = new ArrayList<>(current);
+        Stage next = new Stage(Math.multiplyExact(full.capacity, 2), full.falsePositiveProbability / 2);
+        grown.add(next);
+        stages = List.copyOf(grown);
+        return next;
+    }
+
+    /**
+     * One plain Bloom filter, with {@code hashes} bit positions per key derived from the two halves of the key hash by
+     * enhanced double hashing (Dillinger and Manolios). Plain double hashing, {@code h1 + i * h2}, lets the positions
+     * of a key share factors with the bit count, which is a multiple of 64, and raised the false positive rate by a
+     * fifth over what the bits set predict.
+     */
+    private static final class Stage {
+
+        private final int capacity;
+        private final double falsePositiveProbability;
+        private final long bits;
+        private final int hashes;
+        private final AtomicLongArray words;
+        private final LongAdder count = new LongAdder();
+
+        Stage(int capacity, double falsePositiveProbability) {
+            this.capacity = capacity;
+            this.falsePositiveProbability = falsePositiveProbability;
+            double ln2 = Math.log(2);
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveProbability) / (ln2 * ln2));
+            this.words = new AtomicLongArray(Math.toIntExact(Math.max(1, (optimalBits + 63) >>> 6)));
+            this.bits = (long) words.length() << 6;
+            this.hashes = Math.max(1, (int) Math.round((double) bits / capacity * ln2));
+        }
+
+        long count() {
+            return count.sum();
+        }
+
+        void add(long hash) {
+            long h1 = hash & 0xffffffffL;
+            long h2 = hash >>> 32;
+            for (int i = 0; i < hashes; i++, h1 += h2, h2 += i) {
+                long bit = index(h1);
+                long mask = 1L << bit;
+                int word = (int) (bit >>> 6);
+                if ((words.get(word) & mask) == 0) {
+                    words.getAndAccumulate(word, mask, (current, m) -> current | m);
+                }
+            }
+            count.increment();
+        }
+
+        boolean mightContain(long hash) {
+            long h1 = hash & 0xffffffffL;
+            long h2 = hash >>> 32;
+            for (int i = 0; i < hashes; i++, h1 += h2, h2 += i) {
+                long bit = index(h1);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        double expectedFalsePositiveProbability() {
+            long set = 0;
+            for (int i = 0; i < words.length(); i++) {
+                set += Long.bitCount(words.get(i));
+            }
+            return Math.pow((double) set / bits, hashes);
+        }
+
+        private long index(long combined) {
+            return Long.remainderUnsigned(combined, bits);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.newwek.authenticationservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The RSA keys tokens are signed with, and the public keys they are verified with, published as a JSON Web Key Set so
+ * the gateway can verify tokens without calling this service.
+ * <p>
+ * The keys are read from {@code jwt.signing-keys}, a comma separated list of PKCS#8 PEM files that every instance of
+ * the service is given. The first key signs new tokens; the others are only published, so a key is rotated by adding
+ * the new one in front, and dropping the old one once the tokens it signed have expired. Without configured keys, the
+ * instance generates its own and replaces it every {@code jwt.key-rotation-interval}, which only suits a single
+ * instance. Key IDs are the RFC 7638 thumbprints of the public keys, so every instance derives the same ones.
+ */
+@Component
+@Slf4j
+public class SigningKeys implements DisposableBean {
+
+    private static final int GENERATED_KEY_SIZE = 2048;
+
+    private final Clock clock;
+    private final ScheduledExecutorService rotation = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("jwt-key-rotation").daemon().factory());
+
+    private volatile List<SigningKey> keys;
+
+    @Autowired
+    public SigningKeys(@Value("${jwt.signing-keys:}") List<String> locations,
+                       @Value("${jwt.key-rotation-interval:24h}") Duration rotationInterval,
+                       ResourceLoader resourceLoader) {
+        this(locations.stream().filter(location -> !location.isBlank()).map(resourceLoader::getResource).toList(),
+                rotationInterval, Clock.systemUTC());
+    }
+
+    SigningKeys(List<Resource> configured, Duration rotationInterval, Clock clock) {
+        this.clock = clock;
+        if (configured.isEmpty()) {
+            log.warn("No jwt.signing-keys configured, signing with a generated key that other instances cannot verify");
+            keys = List.of(generate());
+            long interval = rotationInterval.toMillis();
+            rotation.scheduleAtFixedRate(this::rotate, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            keys = configured.stream().map(SigningKeys::read).toList();
+            log.info("Signing tokens with key {}, publishing {} keys", keys.getFirst().id(), keys.size());
+        }
+    }
+
+    /**
+     * The key new tokens are signed with.
+     */
+    public SigningKey active() {
+        return keys.getFirst();
+    }
+
+    /**
+     * The public key with the given ID, or null if no published key has it.
+     */
+    public RSAPublicKey publicKey(String keyId) {
+        for (SigningKey key : keys) {
+            if (key.id().equals(keyId)) {
+                return key.publicKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The published keys as a JSON Web Key Set (RFC 7517).
+     */
+    public Map<String, Object> jwks() {
+        return Map.of("keys", keys.stream().map(SigningKey::jwk).toList());
+    }
+
+    /**
+     * Signs new tokens with a newly generated key, keeping the previous keys published until the tokens they signed
+     * have expired.
+     */
+    void rotate() {
+        Instant now = clock.instant();
+        List<SigningKey> current = keys;
+        SigningKey next = generate();
+        List<SigningKey> rotated = new ArrayList<>();
+        rotated.add(next);
+        for (SigningKey key : current) {
+            Instant retired = key.retiredAt() != null ? key.retiredAt() : now;
+            if (retired.plus(JwtService.TOKEN_LIFETIME).isAfter(now)) {
+                rotated.add(key.retire(retired));
+            }
+        }
+        keys = List.copyOf(rotated);
+        log.info("Rotated the signing key to {}, publishing {} keys", next.id(), rotated.size());
+    }
+
+    @Override
+    public void destroy() {
+        rotation.shutdownNow();
+    }
+
+    private static SigningKey generate() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(GENERATED_KEY_SIZE);
+            return SigningKey.of((RSAPrivateCrtKey) generator.generateKeyPair().getPrivate());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not generate a signing key", e);
+        }
+    }
+
+    private static SigningKey read(Resource location) {
+        try {
+            String pem = location.getContentAsString(StandardCharsets.US_ASCII)
+                    .replaceAll("-----(BEGIN|END) PRIVATE KEY-----", "")
+                    .replaceAll("\\s", "");
+            PKCS8EncodedKeySpec spec = new PKCS8EncodedKeySpec(Base64.getDecoder().decode(pem));
+            return SigningKey.of((RSAPrivateCrtKey) KeyFactory.getInstance("RSA").generatePrivate(spec));
+        } catch (IOException e) {
+            throw new UncheckedIOException(STR."Could not read the signing key \{location}", e);
+        } catch (GeneralSecurityException | ClassCastException e) {
+            throw new IllegalStateException(STR."\{location} is not a PKCS#8 RSA private key", e);
+        }
+    }
+
+    /**
+     * A signing key and its public half. {@code retiredAt} is when it stopped signing new tokens, or null for the
+     * active key.
+     */
+    public record SigningKey(String id, RSAPrivateCrtKey privateKey, RSAPublicKey publicKey, Instant retiredAt) {
+
+        static SigningKey of(RSAPrivateCrtKey privateKey) {
+            try {
+                RSAPublicKey publicKey = (RSAPublicKey) KeyFactory.getInstance("RSA")
+                        .generatePublic(new RSAPublicKeySpec(privateKey.getModulus(), privateKey.getPublicExponent()));
+                return new SigningKey(thumbprint(publicKey), privateKey, publicKey, null);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Could not derive the public key", e);
+            }
+        }
+
+        SigningKey retire(Instant at) {
+            return new SigningKey(id, privateKey, publicKey, at);
+        }
+
+        Map<String, Object> jwk() {
+            Map<String, Object> jwk = new LinkedHashMap<>();
+            jwk.put("kty", "RSA");
+            jwk.put("kid", id);
+            jwk.put("use", "sig");
+            jwk.put("alg", "RS256");
+            jwk.put("n", base64Url(publicKey.getModulus()));
+            jwk.put("e", base64Url(publicKey.getPublicExponent()));
+            return jwk;
+        }
+
+        private static String thumbprint(RSAPublicKey publicKey) throws GeneralSecurityException {
+            // The required members in lexicographic order, without whitespace
+            String members = STR."{\"e\":\"\{base64Url(publicKey.getPublicExponent())}\",\"kty\":\"RSA\",\"n\":\"\{base64Url(publicKey.getModulus())}\"}";
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(members.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        }
+
+        private static String base64Url(BigInteger value) {
+            byte[] bytes = value.toByteArray();
+            // Unsigned big-endian, without the sign byte BigInteger adds when the top bit is set
+            int offset = bytes.length > 1 && bytes[0] == 0 ? 1 : 0;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOfRange(bytes, offset, bytes.length));
+        }
+    }
+}
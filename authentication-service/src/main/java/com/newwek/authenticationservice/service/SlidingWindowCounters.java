@@ -0,0 +1,147 @@
+package com.newwek.authenticationservice.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Failure counters over a sliding window, with a lockout that doubles every time the failures reach the limit again.
+ * The window slides by weighing the count of the previous fixed window by the part of it that still overlaps, which
+ * takes two counters per key instead of a timestamp per failure.
+ * <p>
+ * Holds at most {@code maxKeys} keys, spread over stripes that each have their own lock and drop their least recently
+ * used key when full, so concurrent logins rarely wait on each other and memory stays bounded however many keys an
+ * attacker makes up, at the price of forgetting the oldest counters. A lockout level is forgotten once the key had no
+ * failure for a whole window after its last lockout.
+ */
+public class SlidingWindowCounters {
+
+    private static final int STRIPES = 64;
+
+    private final long windowMillis;
+    private final int limit;
+    private final long baseLockoutMillis;
+    private final long maxLockoutMillis;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public SlidingWindowCounters(long windowMillis, int limit, long baseLockoutMillis, long maxLockoutMillis, int maxKeys) {
+        this.windowMillis = windowMillis;
+        this.limit = limit;
+        this.baseLockoutMillis = baseLockoutMillis;
+        this.maxLockoutMillis = maxLockoutMillis;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(Math.max(1, maxKeys / STRIPES));
+        }
+    }
+
+    /**
+     * Milliseconds until the key is no longer locked out, or 0 if it is not.
+     */
+    public long lockedFor(String key, long now) {
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            Counter counter = stripe.get(key);
+            return counter == null ? 0 : Math.max(0, counter.lockedUntil - now);
+        }
+    }
+
+    /**
+     * Counts a failure, locking the key out if the failures in the window reach the limit.
+     *
+     * @return the lockout in milliseconds, or 0 if the key is not locked out
+     */
+    public long fail(String key, long now) {
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            Counter counter = stripe.computeIfAbsent(key, k -> new Counter());
+            counter.slide(now / windowMillis);
+            if (counter.level > 0 && now >= counter.lockedUntil + windowMillis) {
+                counter.level = 0;
+            }
+            counter.current++;
+            if (counter.estimate(now) < limit) {
+                return 0;
+            }
+            long lockout = lockout(++counter.level);
+            counter.lockedUntil = now + lockout;
+            return lockout;
+        }
+    }
+
+    /**
+     * Locks the key out until the given time, as decided by another instance, unless it is locked longer already.
+     */
+    public void lockUntil(String key, long lockedUntil) {
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            Counter counter = stripe.computeIfAbsent(key, k -> new Counter());
+            counter.lockedUntil = Math.max(counter.lockedUntil, lockedUntil);
+        }
+    }
+
+    public void reset(String key) {
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            stripe.remove(key);
+        }
+    }
+
+    /**
+     * The lockout at the given level: the base lockout doubled for every level above the first, up to the maximum.
+     */
+    long lockout(int level) {
+        return Math.min(maxLockoutMillis, baseLockoutMillis << Math.min(level - 1, 30));
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private Stripe stripe(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    private final class Counter {
+
+        private long window;
+        private int current;
+        private int previous;
+        private int level;
+        private long lockedUntil;
+
+        void slide(long index) {
+            if (index == window) {
+                return;
+            }
+            previous = index == window + 1 ? current : 0;
+            current = 0;
+            window = index;
+        }
+
+        double estimate(long now) {
+            double overlap = 1 - (double) (now % windowMillis) / windowMillis;
+            return current + previous * overlap;
+        }
+    }
+
+    private static final class Stripe extends LinkedHashMap<String, Counter> {
+
+        private final int capacity;
+
+        Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Counter> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.newwek.authenticationservice.service;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The claims of tokens whose signature has already been verified, keyed by the SHA-256 hash of the token, so a token
+ * presented again is not verified again until it expires. Hashing a token costs a fraction of an RS256 verification.
+ * <p>
+ * Holds at most {@code jwt.verified-cache-size} tokens, 0 disabling the cache, spread over up to 64 stripes that each
+ * have their own lock and drop their least recently used token when full. A full stripe first sweeps out its expired
+ * tokens once one has expired, but at most once a second, so the misses on a full cache do not each scan it. An entry
+ * is dropped when its token expires, so an expired token is parsed again and rejected. The cached claims are shared
+ * and must not be modified.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private static final int MAX_STRIPES = 64;
+    private static final int MIN_STRIPE_SIZE = 64;
+    private static final long MIN_PURGE_INTERVAL_MILLIS = 1_000;
+
+    private final int maxSize;
+    private final Clock clock;
+    private final Stripe[] stripes;
+
+    @Autowired
+    public VerifiedTokenCache(@Value("${jwt.verified-cache-size:10000}") int maxSize) {
+        this(maxSize, Clock.systemUTC());
+    }
+
+    VerifiedTokenCache(int maxSize, Clock clock) {
+        this.maxSize = maxSize;
+        this.clock = clock;
+        // A power of two of stripes, few enough that each holds a useful number of tokens
+        int count = Integer.highestOneBit(Math.clamp(maxSize / MIN_STRIPE_SIZE, 1, MAX_STRIPES));
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe(Math.max(1, maxSize / count));
+        }
+    }
+
+    /**
+     * The claims of the token, verified by {@code verify} unless they are cached. Tokens without an expiration are
+     * not cached.
+     */
+    public Claims get(String token, Function<String, Claims> verify) {
+        if (maxSize <= 0) {
+            return verify.apply(token);
+        }
+        TokenHash hash = TokenHash.of(token);
+        Stripe stripe = stripes[(int) hash.low() & (stripes.length - 1)];
+        long now = clock.millis();
+        synchronized (stripe) {
+            Entry cached = stripe.get(hash);
+            if (cached != null) {
+                if (now < cached.expiresAt()) {
+                    return cached.claims();
+                }
+                stripe.remove(hash);
+            }
+        }
+        Claims claims = verify.apply(token);
+        if (claims.getExpiration() != null) {
+            synchronized (stripe) {
+                stripe.add(hash, new Entry(claims, claims.getExpiration().getTime()), now);
+            }
+        }
+        return claims;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private static final class Stripe extends LinkedHashMap<TokenHash, Entry> {
+
+        private final int capacity;
+        private long nextExpiry = Long.MAX_VALUE;
+        private long nextPurge;
+
+        Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        /**
+         * Adds the token, sweeping out the expired ones first when the stripe is full, some have expired and the last
+         * sweep was more than a second ago.
+         */
+        void add(TokenHash hash, Entry entry, long now) {
+            if (size() >= capacity && now >= nextExpiry && now >= nextPurge) {
+                nextExpiry = Long.MAX_VALUE;
+                for (Iterator<Entry> iterator = values().iterator(); iterator.hasNext(); ) {
+                    long expiresAt = iterator.next().expiresAt();
+                    if (now >= expiresAt) {
+                        iterator.remove();
+                    } else {
+                        nextExpiry = Math.min(nextExpiry, expiresAt);
+                    }
+                }
+                nextPurge = now + MIN_PURGE_INTERVAL_MILLIS;
+            }
+            nextExpiry = Math.min(nextExpiry, entry.expiresAt());
+            put(hash, entry);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TokenHash, Entry> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    private record Entry(Claims claims, long expiresAt) {
+    }
+
+    /**
+     * The first 128 bits of the SHA-256 hash of a token, enough to tell tokens apart without keeping the tokens.
+     */
+    private record TokenHash(long high, long low) {
+
+        static TokenHash of(String token) {
+            try {
+                ByteBuffer digest = ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII)));
+                return new TokenHash(digest.getLong(), digest.getLong());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.newwek.authenticationservice.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedBCryptPasswordEncoderTest {
+
+    private final ThreadPoolExecutor executor = BoundedBCryptPasswordEncoder.pool(1, 1);
+    private final BoundedBCryptPasswordEncoder encoder = new BoundedBCryptPasswordEncoder(4, executor);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        encoder.destroy();
+    }
+
+    @Test
+    void hashesAndChecksPasswordsOnThePool() {
+        String hash = encoder.encode("secret");
+
+        assertThat(encoder.matches("secret", hash)).isTrue();
+        assertThat(encoder.matches("wrong", hash)).isFalse();
+        assertThat(executor.getTaskCount()).isEqualTo(3);
+    }
+
+    @Test
+    void reportsHashesOfAnotherCostForUpgrade() {
+        assertThat(encoder.upgradeEncoding(encoder.encode("secret"))).isFalse();
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode("secret"))).isTrue();
+        assertThat(encoder.upgradeEncoding(null)).isFalse();
+        assertThat(encoder.upgradeEncoding("not a bcrypt hash")).isFalse();
+    }
+
+    @Test
+    void queuesHashesWhileEveryThreadIsBusy() throws Exception {
+        occupyThread();
+
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("secret"));
+        while (executor.getQueue().isEmpty()) {
+            Thread.onSpinWait();
+        }
+        assertThat(queued).isNotDone();
+
+        release.countDown();
+        assertThat(encoder.matches("secret", queued.get(10, TimeUnit.SECONDS))).isTrue();
+    }
+
+    @Test
+    void rejectsWith503WhenTheQueueIsFull() throws Exception {
+        encoder.bindTo(registry);
+        occupyThread();
+        executor.submit(() -> release.await(10, TimeUnit.SECONDS));
+
+        assertThatThrownBy(() -> encoder.encode("secret")).isInstanceOfSatisfying(ResponseStatusException.class,
+                e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        assertThatThrownBy(() -> encoder.matches("secret", "$2a$04$abcdefghijklmnopqrstuuFNE1VzDCaXlYUbtFF6X2RaXQ9ZLUVha"))
+                .isInstanceOf(ResponseStatusException.class);
+        assertThat(registry.get("auth.password.hashing.rejected").functionCounter().count()).isEqualTo(2);
+        assertThat(registry.get("auth.password.hashing.queue.size").gauge().value()).isEqualTo(1);
+        assertThat(registry.get("auth.password.hashing.active").gauge().value()).isEqualTo(1);
+
+        release.countDown();
+        while (executor.getCompletedTaskCount() < 2) {
+            Thread.onSpinWait();
+        }
+        assertThat(encoder.encode("secret")).startsWith("$2a$04$");
+        assertThat(registry.get("auth.password.hashing").tag("operation", "encode").timer().count()).isEqualTo(1);
+    }
+
+    private void occupyThread() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        executor.submit(() -> {
+            started.countDown();
+            return release.await(10, TimeUnit.SECONDS);
+        });
+        started.await();
+    }
+}
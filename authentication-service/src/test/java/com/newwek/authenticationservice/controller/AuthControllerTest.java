@@ -0,0 +1,179 @@
+package com.newwek.authenticationservice.controller;
+
+import com.newwek.authenticationservice.repository.UserCredentialRepository;
+import com.newwek.authenticationservice.service.AuthService;
+import com.newwek.authenticationservice.service.JwtService;
+import com.newwek.authenticationservice.service.KnownUsers;
+import com.newwek.authenticationservice.service.LoginAttempts;
+import com.newwek.authenticationservice.service.RefreshTokens;
+import com.newwek.authenticationservice.service.RevokedTokens;
+import com.newwek.authenticationservice.service.SigningKeys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs {@link AuthController} and {@link AuthService} with a password encoder whose hashing pool is full, as
+ * {@code BoundedBCryptPasswordEncoder} reports it, or with logins locked out, to check what registrations and logins
+ * are answered with.
+ */
+@WebMvcTest(AuthController.class)
+@AutoConfigureMockMvc(addFilters = false)
+@Import({AuthService.class, AuthControllerTest.Authentication.class})
+@TestPropertySource(properties = "eureka.client.enabled=false")
+class AuthControllerTest {
+
+    private static final ResponseStatusException POOL_FULL =
+            new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many password checks in progress, retry later");
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @MockBean
+    PasswordEncoder passwordEncoder;
+    @MockBean
+    UserDetailsService userDetailsService;
+    @MockBean
+    UserCredentialRepository repository;
+    @MockBean
+    JwtService jwtService;
+    @MockBean
+    KnownUsers knownUsers;
+    @MockBean
+    RevokedTokens revokedTokens;
+    @MockBean
+    RefreshTokens refreshTokens;
+    @MockBean
+    SigningKeys signingKeys;
+    @MockBean
+    LoginAttempts loginAttempts;
+
+    @BeforeEach
+    void setUp() {
+        when(loginAttempts.lockedFor(anyString(), anyString())).thenReturn(Duration.ZERO);
+    }
+
+    @Test
+    void registrationIsAnswered503WhenThePasswordCannotBeHashed() throws Exception {
+        when(passwordEncoder.encode(anyString())).thenThrow(POOL_FULL);
+
+        mockMvc.perform(post("/auth/register")
+                        .contentType(APPLICATION_JSON)
+                        .content("""
+                                {"name": "alice", "email": "alice@example.com", "password": "secret"}"""))
+                .andExpect(status().isServiceUnavailable());
+
+        verify(knownUsers, never()).add(any(), any());
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void loginIsAnswered503WithoutCountingAFailure() throws Exception {
+        when(userDetailsService.loadUserByUsername("alice"))
+                .thenReturn(User.withUsername("alice").password("$2a$04$hash").authorities("USER").build());
+        when(passwordEncoder.matches(any(), anyString())).thenThrow(POOL_FULL);
+
+        login("alice").andExpect(status().isServiceUnavailable());
+
+        verify(loginAttempts, never()).failed(anyString(), anyString());
+        verify(loginAttempts, never()).succeeded(anyString());
+    }
+
+    @Test
+    void loginOfAnUnknownUserIsAnswered503WithoutCountingAFailure() throws Exception {
+        // The password is still checked against a dummy hash, so that unknown users take as long as known ones
+        when(userDetailsService.loadUserByUsername("mallory")).thenThrow(new UsernameNotFoundException("mallory"));
+        when(passwordEncoder.encode(anyString())).thenThrow(POOL_FULL);
+        when(passwordEncoder.matches(any(), any())).thenThrow(POOL_FULL);
+
+        login("mallory").andExpect(status().isServiceUnavailable());
+
+        verify(loginAttempts, never()).failed(anyString(), anyString());
+    }
+
+    @Test
+    void wrongPasswordStillCountsAsAFailedLogin() {
+        when(userDetailsService.loadUserByUsername("alice"))
+                .thenReturn(User.withUsername("alice").password("$2a$04$hash").authorities("USER").build());
+        when(passwordEncoder.matches(any(), anyString())).thenReturn(false);
+
+        assertThatThrownBy(() -> login("alice")).hasCauseInstanceOf(BadCredentialsException.class);
+
+        verify(loginAttempts).failed(eq("alice"), anyString());
+    }
+
+    @Test
+    void lockedOutLoginIsAnswered429BeforeThePasswordIsChecked() throws Exception {
+        when(loginAttempts.lockedFor(eq("alice"), anyString())).thenReturn(Duration.ofSeconds(90));
+
+        login("alice")
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "90"));
+
+        verifyNoInteractions(userDetailsService, passwordEncoder);
+        verify(loginAttempts, never()).failed(anyString(), anyString());
+    }
+
+    @Test
+    void successfulLoginClearsTheFailures() throws Exception {
+        when(userDetailsService.loadUserByUsername("alice"))
+                .thenReturn(User.withUsername("alice").password("$2a$04$hash").authorities("USER").build());
+        when(passwordEncoder.matches(any(), anyString())).thenReturn(true);
+        when(jwtService.generateToken("alice")).thenReturn("access-token");
+        when(refreshTokens.issue("alice")).thenReturn("refresh-token");
+
+        login("alice").andExpect(status().isOk());
+
+        verify(loginAttempts).succeeded("alice");
+        verify(loginAttempts, never()).failed(anyString(), anyString());
+    }
+
+    private ResultActions login(String username) throws Exception {
+        return mockMvc.perform(post("/auth/token")
+                .contentType(APPLICATION_JSON)
+                .content("""
+                        {"username": "%s", "password": "secret"}""".formatted(username)));
+    }
+
+    @TestConfiguration
+    static class Authentication {
+
+        @Bean
+        AuthenticationManager authenticationManager(UserDetailsService userDetailsService, PasswordEncoder passwordEncoder) {
+            DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+            provider.setUserDetailsService(userDetailsService);
+            provider.setPasswordEncoder(passwordEncoder);
+            return new ProviderManager(provider);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.newwek.authenticationservice.service;
+
+import com.newwek.authenticationservice.entity.UserCredential;
+import com.newwek.authenticationservice.repository.UserCredentialRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AuthServiceTest {
+
+    private final UserCredentialRepository repository = mock(UserCredentialRepository.class);
+    private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+    private KnownUsers knownUsers;
+    private AuthService authService;
+
+    @BeforeEach
+    void setUp() {
+        when(repository.streamIdentities()).thenReturn(Stream.empty());
+        when(passwordEncoder.encode(any())).thenReturn("hashed");
+        knownUsers = new KnownUsers(repository, new TransactionTemplate(mock(PlatformTransactionManager.class)), 100, 0.01, true);
+        knownUsers.load();
+        authService = new AuthService(repository, passwordEncoder, mock(JwtService.class), knownUsers,
+                mock(RevokedTokens.class), mock(RefreshTokens.class));
+    }
+
+    @Test
+    void registersANameTheFilterRulesOutWithoutTheDatabase() {
+        authService.saveUser(new UserCredential(0, "alice", "alice@example.com", "secret"));
+
+        verify(repository, never()).existsByName(any());
+        verify(repository, never()).existsByEmail(any());
+        verify(repository).save(any());
+        assertThat(knownUsers.nameTaken("alice", name -> true)).as("asks the database").isTrue();
+    }
+
+    @Test
+    void registersANameTheFilterOnlyMightContainOnceTheDatabaseRulesItOut() {
+        // Left in the filter by a registration whose insert failed, so the filter reports it though it is free
+        knownUsers.add("ghost", "ghost@example.com");
+
+        authService.saveUser(new UserCredential(0, "ghost", "ghost@example.com", "secret"));
+
+        verify(repository).existsByName("ghost");
+        verify(repository).existsByEmail("ghost@example.com");
+        verify(repository).save(any());
+    }
+
+    @Test
+    void rejectsATakenNameBeforeHashingThePassword() {
+        knownUsers.add("bob", "bob@example.com");
+        when(repository.existsByName("bob")).thenReturn(true);
+
+        assertThatThrownBy(() -> authService.saveUser(new UserCredential(0, "bob", "other@example.com", "secret")))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+        verifyNoInteractions(passwordEncoder);
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void rejectsATakenEmail() {
+        knownUsers.add("bob", "bob@example.com");
+        when(repository.existsByEmail("bob@example.com")).thenReturn(true);
+
+        assertThatThrownBy(() -> authService.saveUser(new UserCredential(0, "robert", "bob@example.com", "secret")))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+        verify(repository, never()).save(any());
+    }
+}
@@ -0,0 +1,140 @@
+package com.newwek.authenticationservice.service;
+
+import com.newwek.authenticationservice.repository.UserCredentialRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class KnownUsersTest {
+
+    private static final int STORED_USERS = 2_000;
+
+    private final UserCredentialRepository repository = mock(UserCredentialRepository.class);
+    private final Set<String> names = new HashSet<>();
+    private final Set<String> emails = new HashSet<>();
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private KnownUsers knownUsers;
+
+    @BeforeEach
+    void setUp() {
+        IntStream.range(0, STORED_USERS).forEach(i -> {
+            names.add("user" + i);
+            emails.add("user" + i + "@example.com");
+        });
+        when(repository.streamIdentities()).thenAnswer(invocation -> IntStream.range(0, STORED_USERS)
+                .mapToObj(i -> identity("user" + i, "user" + i + "@example.com")));
+        knownUsers = knownUsers(true);
+        knownUsers.bindTo(registry);
+    }
+
+    @Test
+    void asksTheDatabaseAboutEveryoneUntilLoaded() {
+        assertThat(knownUsers.nameTaken("nobody", this::nameExists)).isFalse();
+        assertThat(knownUsers.findByName("nobody", this::findName)).isEmpty();
+        assertThat(lookups).hasValue(2);
+    }
+
+    @Test
+    void neverRulesOutARegisteredNameOrEmail() {
+        knownUsers.load();
+        knownUsers.add("latecomer", "latecomer@example.com");
+        names.add("latecomer");
+        emails.add("latecomer@example.com");
+
+        assertThat(names).allMatch(name -> knownUsers.nameTaken(name, this::nameExists));
+        assertThat(emails).allMatch(email -> knownUsers.emailTaken(email, this::emailExists));
+        assertThat(names).allMatch(name -> knownUsers.findByName(name, this::findName).isPresent());
+    }
+
+    @Test
+    void matchesNamesLikeTheDatabaseCollation() {
+        knownUsers.load();
+        knownUsers.add("José", "Jose@Example.com");
+        names.add("jose");
+        emails.add("jose@example.com");
+
+        assertThat(knownUsers.nameTaken(" JOSE ", name -> nameExists(name.strip().toLowerCase()))).isTrue();
+        assertThat(knownUsers.emailTaken("jose@example.com", this::emailExists)).isTrue();
+    }
+
+    @Test
+    void rulesOutMostUnknownUsersWithoutTheDatabase() {
+        knownUsers.load();
+
+        long taken = IntStream.range(0, 10_000).filter(i -> knownUsers.nameTaken("stranger" + i, this::nameExists)).count();
+
+        assertThat(taken).isZero();
+        assertThat(lookups.get()).isLessThan(100);
+        double falsePositiveRate = registry.get("auth.user-filter.false-positive-rate").gauge().value();
+        assertThat(falsePositiveRate).isEqualTo(lookups.get() / 10_000.0);
+        assertThat(registry.get("auth.user-filter.keys").gauge().value()).isEqualTo(STORED_USERS * 2);
+    }
+
+    @Test
+    void rulesOutLoginsOfUnknownUsersOnASingleInstance() {
+        knownUsers.load();
+
+        assertThat(knownUsers.findByName("stranger", this::findName)).isEmpty();
+        assertThat(lookups).hasValue(0);
+    }
+
+    @Test
+    void findsUsersRegisteredOnAnotherInstanceUnlessLoginsMayBeRuledOut() {
+        KnownUsers shared = knownUsers(false);
+        shared.load();
+        knownUsers.load();
+        // Registered through another instance after this one loaded its filter
+        names.add("elsewhere");
+
+        assertThat(shared.findByName("elsewhere", this::findName)).contains("elsewhere");
+        assertThat(shared.nameTaken("elsewhere", this::nameExists)).isFalse();
+        assertThat(knownUsers.findByName("elsewhere", this::findName)).isEmpty();
+    }
+
+    private KnownUsers knownUsers(boolean ruleOutLogins) {
+        // Sized for far fewer users than are stored, so the filter has to grow while loading
+        return new KnownUsers(repository, new TransactionTemplate(mock(PlatformTransactionManager.class)), 100, 0.01,
+                ruleOutLogins);
+    }
+
+    private boolean nameExists(String name) {
+        lookups.incrementAndGet();
+        return names.contains(name);
+    }
+
+    private boolean emailExists(String email) {
+        lookups.incrementAndGet();
+        return emails.contains(email);
+    }
+
+    private Optional<String> findName(String name) {
+        return nameExists(name) ? Optional.of(name) : Optional.empty();
+    }
+
+    private static UserCredentialRepository.Identity identity(String name, String email) {
+        return new UserCredentialRepository.Identity() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public String getEmail() {
+                return email;
+            }
+        };
+    }
+}
@@ -0,0 +1,86 @@
+package com.newwek.authenticationservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoginAttemptsTest {
+
+    private static final Duration WINDOW = Duration.ofMinutes(15);
+    private static final Duration LOCKOUT = Duration.ofSeconds(30);
+
+    private final TestClock clock = new TestClock(Instant.parse("2024-04-01T10:00:00Z"));
+    private final LoginAttempts loginAttempts = new LoginAttempts(null, WINDOW, 5, 50, LOCKOUT, Duration.ofMinutes(15), 1_000, clock);
+
+    @Test
+    void locksOutAUsernameAtTheLimit() {
+        IntStream.range(0, 4).forEach(i -> loginAttempts.failed("alice", "10.0.0.1"));
+        assertThat(loginAttempts.lockedFor("alice", "10.0.0.2")).isZero();
+
+        loginAttempts.failed("alice", "10.0.0.1");
+
+        assertThat(loginAttempts.lockedFor("alice", "10.0.0.2")).isEqualTo(LOCKOUT);
+        assertThat(loginAttempts.lockedFor("ALICE", "10.0.0.2")).isEqualTo(LOCKOUT);
+        assertThat(loginAttempts.lockedFor("bob", "10.0.0.2")).isZero();
+    }
+
+    @Test
+    void locksOutAClientAddressAcrossUsernames() {
+        IntStream.range(0, 50).forEach(i -> loginAttempts.failed("user-" + i, "10.0.0.1"));
+
+        assertThat(loginAttempts.lockedFor("someone-else", "10.0.0.1")).isEqualTo(LOCKOUT);
+        assertThat(loginAttempts.lockedFor("someone-else", "10.0.0.2")).isZero();
+    }
+
+    @Test
+    void liftsTheLockoutOnceItRunsOut() {
+        IntStream.range(0, 5).forEach(i -> loginAttempts.failed("alice", "10.0.0.1"));
+
+        clock.advance(LOCKOUT.minusSeconds(10));
+        assertThat(loginAttempts.lockedFor("alice", "10.0.0.1")).isEqualTo(Duration.ofSeconds(10));
+
+        clock.advance(Duration.ofSeconds(10));
+        assertThat(loginAttempts.lockedFor("alice", "10.0.0.1")).isZero();
+    }
+
+    @Test
+    void forgetsFailuresOlderThanTheWindow() {
+        IntStream.range(0, 4).forEach(i -> loginAttempts.failed("alice", "10.0.0.1"));
+
+        clock.advance(WINDOW.multipliedBy(2));
+        loginAttempts.failed("alice", "10.0.0.1");
+
+        assertThat(loginAttempts.lockedFor("alice", "10.0.0.1")).isZero();
+    }
+
+    @Test
+    void aSuccessfulLoginClearsTheUsernameButNotTheAddress() {
+        IntStream.range(0, 4).forEach(i -> loginAttempts.failed("alice", "10.0.0.1"));
+        IntStream.range(0, 45).forEach(i -> loginAttempts.failed("user-" + i, "10.0.0.1"));
+
+        loginAttempts.succeeded("Alice");
+        loginAttempts.failed("alice", "10.0.0.2");
+        assertThat(loginAttempts.lockedFor("alice", "10.0.0.2")).isZero();
+
+        loginAttempts.failed("alice", "10.0.0.1");
+        assertThat(loginAttempts.lockedFor("bob", "10.0.0.1")).isEqualTo(LOCKOUT);
+    }
+
+    @Test
+    void countsTheLoginsTurnedAway() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        loginAttempts.bindTo(registry);
+        IntStream.range(0, 5).forEach(i -> loginAttempts.failed("alice", "10.0.0.1"));
+
+        loginAttempts.lockedFor("alice", "10.0.0.1");
+        loginAttempts.lockedFor("alice", "10.0.0.1");
+        loginAttempts.lockedFor("bob", "10.0.0.2");
+
+        assertThat(registry.get("auth.login.blocked").functionCounter().count()).isEqualTo(2);
+    }
+}
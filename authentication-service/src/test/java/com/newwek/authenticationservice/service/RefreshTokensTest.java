@@ -0,0 +1,155 @@
+package com.newwek.authenticationservice.service;
+
+import com.newwek.authenticationservice.entity.RefreshToken;
+import com.newwek.authenticationservice.repository.RefreshTokenRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RefreshTokensTest {
+
+    private static final Duration LIFETIME = Duration.ofDays(30);
+
+    private final TestClock clock = new TestClock(Instant.parse("2024-04-01T10:00:00Z"));
+    private final Map<String, RefreshToken> table = new ConcurrentHashMap<>();
+    private RefreshTokens refreshTokens;
+
+    @BeforeEach
+    void setUp() {
+        RefreshTokenRepository repository = mock(RefreshTokenRepository.class);
+        when(repository.save(any())).thenAnswer(invocation -> {
+            RefreshToken token = invocation.getArgument(0);
+            table.put(token.getTokenHash(), token);
+            return token;
+        });
+        when(repository.findById(anyString())).thenAnswer(invocation -> Optional.ofNullable(table.get(invocation.<String>getArgument(0))));
+        when(repository.markUsed(anyString())).thenAnswer(invocation -> {
+            RefreshToken token = table.get(invocation.<String>getArgument(0));
+            if (token == null || token.isUsed()) {
+                return 0;
+            }
+            token.setUsed(true);
+            return 1;
+        });
+        when(repository.deleteFamily(anyString())).thenAnswer(invocation -> removeIf(token -> token.getFamilyId().equals(invocation.getArgument(0))));
+        when(repository.deleteExpired(any())).thenAnswer(invocation -> removeIf(token -> !token.getExpiresAt().isAfter(invocation.getArgument(0))));
+        refreshTokens = new RefreshTokens(repository, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                LIFETIME, Duration.ofHours(1), clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        refreshTokens.destroy();
+    }
+
+    @Test
+    void rotationReturnsTheNextTokenOfTheFamily() {
+        String first = refreshTokens.issue("alice");
+
+        RefreshTokens.Rotation rotation = refreshTokens.rotate(first);
+
+        assertThat(rotation.username()).isEqualTo("alice");
+        assertThat(rotation.refreshToken()).isNotEqualTo(first);
+        assertThat(refreshTokens.rotate(rotation.refreshToken()).username()).isEqualTo("alice");
+    }
+
+    @Test
+    void storesOnlyTheHashesOfTheTokens() {
+        String token = refreshTokens.issue("alice");
+
+        assertThat(table).hasSize(1).doesNotContainKey(token);
+        assertThat(table.values()).noneMatch(stored -> stored.getTokenHash().contains(token));
+    }
+
+    @Test
+    void rotationUsesUpTheOldToken() {
+        String first = refreshTokens.issue("alice");
+        refreshTokens.rotate(first);
+
+        assertUnauthorized(first, "Refresh token already used");
+    }
+
+    @Test
+    void reusingARotatedTokenLogsOutTheWholeFamily() {
+        String first = refreshTokens.issue("alice");
+        String second = refreshTokens.rotate(first).refreshToken();
+        String third = refreshTokens.rotate(second).refreshToken();
+        String otherSession = refreshTokens.issue("alice");
+
+        assertUnauthorized(first, "Refresh token already used");
+
+        assertUnauthorized(third, "Invalid refresh token");
+        assertUnauthorized(second, "Invalid refresh token");
+        assertThat(refreshTokens.rotate(otherSession).username()).isEqualTo("alice");
+    }
+
+    @Test
+    void rejectsAnExpiredToken() {
+        String token = refreshTokens.issue("alice");
+
+        clock.advance(LIFETIME);
+
+        assertUnauthorized(token, "Refresh token expired");
+    }
+
+    @Test
+    void rotationDoesNotExtendTheFamily() {
+        String first = refreshTokens.issue("alice");
+        clock.advance(LIFETIME.minusDays(1));
+        String second = refreshTokens.rotate(first).refreshToken();
+
+        clock.advance(Duration.ofDays(1));
+
+        assertUnauthorized(second, "Refresh token expired");
+    }
+
+    @Test
+    void rejectsAnUnknownToken() {
+        assertUnauthorized("not-a-token", "Invalid refresh token");
+    }
+
+    @Test
+    void purgesExpiredFamilies() {
+        refreshTokens.issue("alice");
+        clock.advance(Duration.ofDays(1));
+        String current = refreshTokens.issue("bob");
+
+        clock.advance(LIFETIME.minusDays(1));
+        refreshTokens.purgeExpired();
+
+        assertThat(table).hasSize(1);
+        assertThat(refreshTokens.rotate(current).username()).isEqualTo("bob");
+    }
+
+    private void assertUnauthorized(String token, String reason) {
+        assertThatThrownBy(() -> refreshTokens.rotate(token))
+                .isInstanceOfSatisfying(ResponseStatusException.class, e -> {
+                    assertThat(e.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+                    assertThat(e.getReason()).isEqualTo(reason);
+                });
+    }
+
+    private int removeIf(Predicate<RefreshToken> condition) {
+        int before = table.size();
+        table.values().removeIf(condition);
+        return before - table.size();
+    }
+}
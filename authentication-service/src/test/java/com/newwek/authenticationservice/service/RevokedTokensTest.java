@@ -0,0 +1,126 @@
+package com.newwek.authenticationservice.service;
+
+import com.newwek.platform.revocation.CuckooFilter;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RevokedTokensTest {
+
+    private final TestClock clock = new TestClock(Instant.parse("2024-04-01T10:00:00Z"));
+    private final RevokedTokens revokedTokens = new RevokedTokens(Duration.ofHours(1), clock);
+
+    @AfterEach
+    void tearDown() {
+        revokedTokens.destroy();
+    }
+
+    @Test
+    void revokesATokenUntilItExpires() {
+        revokedTokens.revoke(claims("token-1", Duration.ofMinutes(5)));
+
+        assertThat(revokedTokens.isRevoked("token-1")).isTrue();
+        assertThat(revokedTokens.isRevoked("token-2")).isFalse();
+        assertThat(revokedTokens.isRevoked(null)).isFalse();
+
+        clock.advance(Duration.ofMinutes(5));
+        assertThat(revokedTokens.isRevoked("token-1")).isFalse();
+    }
+
+    @Test
+    void ignoresATokenThatHasAlreadyExpired() {
+        String version = revokedTokens.snapshot().version();
+
+        revokedTokens.revoke(claims("token-1", Duration.ZERO));
+
+        assertThat(revokedTokens.size()).isZero();
+        assertThat(revokedTokens.snapshot().version()).isEqualTo(version);
+    }
+
+    @Test
+    void neverRepeatsAVersionOfAnEarlierRun() {
+        revokedTokens.revoke(claims("token-1", Duration.ofMinutes(5)));
+        RevokedTokens restarted = new RevokedTokens(Duration.ofHours(1), clock);
+        try {
+            restarted.revoke(claims("token-2", Duration.ofMinutes(5)));
+
+            assertThat(restarted.snapshot().version()).isNotEqualTo(revokedTokens.snapshot().version());
+        } finally {
+            restarted.destroy();
+        }
+    }
+
+    @Test
+    void rejectsATokenWithoutAnId() {
+        Claims claims = Jwts.claims().setExpiration(Date.from(clock.instant().plusSeconds(60)));
+
+        assertThatThrownBy(() -> revokedTokens.revoke(claims)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void sendsTheRevokedIdsInTheSnapshotTheGatewayReads() {
+        RevokedTokens.Snapshot before = revokedTokens.snapshot();
+        revokedTokens.revoke(claims("token-1", Duration.ofMinutes(5)));
+
+        RevokedTokens.Snapshot after = revokedTokens.snapshot();
+        CuckooFilter filter = CuckooFilter.fromBytes(Base64.getDecoder().decode(after.filter()));
+
+        assertThat(after.version()).isNotEqualTo(before.version());
+        assertThat(revokedTokens.snapshot()).isSameAs(after);
+        assertThat(filter.mightContain("token-1")).isTrue();
+        assertThat(filter.mightContain("token-2")).isFalse();
+    }
+
+    @Test
+    void dropsExpiredIdsFromTheSnapshot() {
+        revokedTokens.revoke(claims("short-lived", Duration.ofMinutes(1)));
+        revokedTokens.revoke(claims("long-lived", Duration.ofMinutes(10)));
+        String version = revokedTokens.snapshot().version();
+
+        clock.advance(Duration.ofMinutes(2));
+        revokedTokens.purgeExpired();
+
+        RevokedTokens.Snapshot snapshot = revokedTokens.snapshot();
+        CuckooFilter filter = CuckooFilter.fromBytes(Base64.getDecoder().decode(snapshot.filter()));
+        assertThat(snapshot.version()).isNotEqualTo(version);
+        assertThat(filter.mightContain("short-lived")).isFalse();
+        assertThat(filter.mightContain("long-lived")).isTrue();
+        assertThat(revokedTokens.size()).isEqualTo(1);
+    }
+
+    @Test
+    void growsTheFilterWithoutLosingARevokedId() {
+        IntStream.range(0, 10_000).forEach(i -> revokedTokens.revoke(claims("token-" + i, Duration.ofMinutes(5))));
+
+        CuckooFilter filter = CuckooFilter.fromBytes(Base64.getDecoder().decode(revokedTokens.snapshot().filter()));
+
+        assertThat(filter.capacity()).isGreaterThanOrEqualTo(10_000);
+        assertThat(IntStream.range(0, 10_000)).allMatch(i -> filter.mightContain("token-" + i));
+    }
+
+    @Test
+    void shrinksTheFilterOnceMostIdsExpired() {
+        IntStream.range(0, 10_000).forEach(i -> revokedTokens.revoke(claims("token-" + i, Duration.ofMinutes(i < 9_990 ? 1 : 10))));
+
+        clock.advance(Duration.ofMinutes(2));
+        revokedTokens.purgeExpired();
+
+        CuckooFilter filter = CuckooFilter.fromBytes(Base64.getDecoder().decode(revokedTokens.snapshot().filter()));
+        assertThat(filter.capacity()).isLessThan(2_048);
+        assertThat(IntStream.range(9_990, 10_000)).allMatch(i -> filter.mightContain("token-" + i));
+    }
+
+    private Claims claims(String tokenId, Duration lifetime) {
+        return Jwts.claims().setId(tokenId).setSubject("alice").setExpiration(Date.from(clock.instant().plus(lifetime)));
+    }
+}
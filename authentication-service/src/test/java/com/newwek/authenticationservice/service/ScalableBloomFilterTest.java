@@ -0,0 +1,50 @@
+package com.newwek.authenticationservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScalableBloomFilterTest {
+
+    @Test
+    void neverRulesOutAnAddedKey() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01);
+        IntStream.range(0, 1_000).forEach(i -> filter.add("key-" + i));
+
+        assertThat(IntStream.range(0, 1_000)).allMatch(i -> filter.mightContain("key-" + i));
+    }
+
+    @Test
+    void growsPastItsInitialCapacityWithinTheFalsePositiveProbability() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+        long initialBits = filter.bitSize();
+
+        IntStream.range(0, 20_000).forEach(i -> filter.add("key-" + i));
+
+        assertThat(filter.approximateSize()).isEqualTo(20_000);
+        assertThat(filter.bitSize()).isGreaterThan(initialBits * 100);
+        assertThat(IntStream.range(0, 20_000)).allMatch(i -> filter.mightContain("key-" + i));
+        long falsePositives = IntStream.range(0, 100_000).filter(i -> filter.mightContain("absent-" + i)).count();
+        assertThat(falsePositives / 100_000.0).isLessThan(0.01);
+        assertThat(filter.expectedFalsePositiveProbability()).isLessThan(0.01);
+    }
+
+    @Test
+    void neverRulesOutKeysAddedConcurrentlyWhileGrowing() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(64, 0.01);
+
+        List<CompletableFuture<Void>> writers = new ArrayList<>();
+        for (int writer = 0; writer < 4; writer++) {
+            int offset = writer * 5_000;
+            writers.add(CompletableFuture.runAsync(() -> IntStream.range(offset, offset + 5_000).forEach(i -> filter.add("key-" + i))));
+        }
+        writers.forEach(CompletableFuture::join);
+
+        assertThat(IntStream.range(0, 20_000)).allMatch(i -> filter.mightContain("key-" + i));
+    }
+}
@@ -0,0 +1,103 @@
+package com.newwek.authenticationservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlidingWindowCountersTest {
+
+    private static final long WINDOW = 60_000;
+    private static final long LOCKOUT = 1_000;
+    private static final long MAX_LOCKOUT = 5_000;
+
+    private final SlidingWindowCounters counters = new SlidingWindowCounters(WINDOW, 3, LOCKOUT, MAX_LOCKOUT, 1_000);
+
+    @Test
+    void locksOutWhenTheFailuresReachTheLimit() {
+        assertThat(counters.fail("alice", 0)).isZero();
+        assertThat(counters.fail("alice", 10)).isZero();
+        assertThat(counters.lockedFor("alice", 20)).isZero();
+
+        assertThat(counters.fail("alice", 100)).isEqualTo(LOCKOUT);
+
+        assertThat(counters.lockedFor("alice", 100)).isEqualTo(LOCKOUT);
+        assertThat(counters.lockedFor("alice", 600)).isEqualTo(LOCKOUT - 500);
+        assertThat(counters.lockedFor("alice", 100 + LOCKOUT)).isZero();
+        assertThat(counters.lockedFor("bob", 100)).isZero();
+    }
+
+    @Test
+    void forgetsFailuresOnceTheWindowHasSlidPastThem() {
+        counters.fail("alice", 0);
+        counters.fail("alice", 1);
+
+        assertThat(counters.fail("alice", 2 * WINDOW)).isZero();
+        assertThat(counters.fail("alice", 2 * WINDOW + 1)).isZero();
+    }
+
+    @Test
+    void countsThePartOfThePreviousWindowThatStillOverlaps() {
+        counters.fail("alice", WINDOW - 2);
+        counters.fail("alice", WINDOW - 1);
+
+        // Two failures a moment ago still count in full, though they fell in the previous fixed window
+        assertThat(counters.fail("alice", WINDOW)).isEqualTo(LOCKOUT);
+
+        counters.fail("bob", WINDOW - 2);
+        counters.fail("bob", WINDOW - 1);
+        // Half a window later they weigh one between them
+        assertThat(counters.fail("bob", WINDOW + WINDOW / 2)).isZero();
+        assertThat(counters.fail("bob", WINDOW + WINDOW / 2)).isEqualTo(LOCKOUT);
+    }
+
+    @Test
+    void doublesTheLockoutEveryTimeTheLimitIsReachedAgainUpToTheMaximum() {
+        IntStream.range(0, 2).forEach(i -> counters.fail("alice", 0));
+        long now = 0;
+        // Logins are turned away while locked out, so the next failure comes once the lockout has run out
+        for (long expected : new long[]{LOCKOUT, 2 * LOCKOUT, 4 * LOCKOUT, MAX_LOCKOUT, MAX_LOCKOUT}) {
+            assertThat(counters.fail("alice", now)).isEqualTo(expected);
+            now += expected;
+        }
+    }
+
+    @Test
+    void forgetsTheLockoutLevelAfterAWindowWithoutFailures() {
+        IntStream.range(0, 3).forEach(i -> counters.fail("alice", 0));
+
+        long later = LOCKOUT + 2 * WINDOW;
+        counters.fail("alice", later);
+        counters.fail("alice", later);
+        assertThat(counters.fail("alice", later)).isEqualTo(LOCKOUT);
+    }
+
+    @Test
+    void resetClearsTheFailuresAndTheLockout() {
+        IntStream.range(0, 3).forEach(i -> counters.fail("alice", 0));
+
+        counters.reset("alice");
+
+        assertThat(counters.lockedFor("alice", 0)).isZero();
+        assertThat(counters.fail("alice", 1)).isZero();
+        assertThat(counters.fail("alice", 2)).isZero();
+    }
+
+    @Test
+    void keepsTheLongerOfTwoLockouts() {
+        counters.lockUntil("alice", 5_000);
+        counters.lockUntil("alice", 3_000);
+
+        assertThat(counters.lockedFor("alice", 1_000)).isEqualTo(4_000);
+    }
+
+    @Test
+    void holdsAtMostTheMaximumNumberOfKeys() {
+        SlidingWindowCounters bounded = new SlidingWindowCounters(WINDOW, 3, LOCKOUT, MAX_LOCKOUT, 128);
+
+        IntStream.range(0, 10_000).forEach(i -> bounded.fail("user-" + i, 0));
+
+        assertThat(bounded.size()).isLessThanOrEqualTo(128);
+    }
+}
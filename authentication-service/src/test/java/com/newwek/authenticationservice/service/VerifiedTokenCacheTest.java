@@ -0,0 +1,124 @@
+package com.newwek.authenticationservice.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VerifiedTokenCacheTest {
+
+    private final TestClock clock = new TestClock(Instant.ofEpochMilli(1_000_000));
+    private final AtomicInteger verifications = new AtomicInteger();
+
+    @Test
+    void answersATokenVerifiedBeforeUntilItExpires() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, clock);
+        Function<String, Claims> verify = verifier(clock.millis() + 1_000);
+
+        assertThat(cache.get("token", verify).getSubject()).isEqualTo("alice");
+        clock.advance(Duration.ofMillis(999));
+        assertThat(cache.get("token", verify).getSubject()).isEqualTo("alice");
+        assertThat(verifications).hasValue(1);
+    }
+
+    @Test
+    void doesNotAnswerAnExpiredTokenFromTheCache() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, clock);
+        long expiresAt = clock.millis() + 1_000;
+        cache.get("token", verifier(expiresAt));
+
+        clock.advance(Duration.ofMillis(1_000));
+
+        assertThatThrownBy(() -> cache.get("token", token -> {
+            verifications.incrementAndGet();
+            throw new ExpiredJwtException(null, null, "Token expired");
+        })).isInstanceOf(ExpiredJwtException.class);
+        assertThat(verifications).hasValue(2);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void doesNotCacheTokensWithoutExpiration() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, clock);
+        Function<String, Claims> verify = token -> {
+            verifications.incrementAndGet();
+            return Jwts.claims().setSubject("alice");
+        };
+
+        cache.get("token", verify);
+        cache.get("token", verify);
+
+        assertThat(verifications).hasValue(2);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void holdsAtMostItsSizeAndSweepsExpiredTokensFirst() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(2, clock);
+        cache.get("short-lived", verifier(clock.millis() + 10));
+        cache.get("long-lived", verifier(clock.millis() + 1_000));
+        clock.advance(Duration.ofMillis(10));
+
+        cache.get("new", verifier(clock.millis() + 1_000));
+
+        assertThat(cache.size()).isEqualTo(2);
+        verifications.set(0);
+        cache.get("long-lived", verifier(clock.millis() + 1_000));
+        cache.get("new", verifier(clock.millis() + 1_000));
+        assertThat(verifications).hasValue(0);
+    }
+
+    @Test
+    void dropsTheLeastRecentlyUsedTokenWhenFull() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(2, clock);
+        cache.get("first", verifier(clock.millis() + 1_000));
+        cache.get("second", verifier(clock.millis() + 1_000));
+        cache.get("first", verifier(clock.millis() + 1_000));
+
+        cache.get("third", verifier(clock.millis() + 1_000));
+
+        verifications.set(0);
+        cache.get("first", verifier(clock.millis() + 1_000));
+        cache.get("third", verifier(clock.millis() + 1_000));
+        assertThat(verifications).hasValue(0);
+        cache.get("second", verifier(clock.millis() + 1_000));
+        assertThat(verifications).hasValue(1);
+    }
+
+    @Test
+    void holdsAtMostItsSizeOverAllStripes() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(1_000, clock);
+
+        IntStream.range(0, 5_000).forEach(i -> cache.get("token-" + i, verifier(clock.millis() + 1_000)));
+
+        assertThat(cache.size()).isBetween(900, 1_000);
+    }
+
+    @Test
+    void verifiesEveryTimeWhenDisabled() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(0, clock);
+        Function<String, Claims> verify = verifier(clock.millis() + 1_000);
+
+        cache.get("token", verify);
+        cache.get("token", verify);
+
+        assertThat(verifications).hasValue(2);
+    }
+
+    private Function<String, Claims> verifier(long expiresAt) {
+        return token -> {
+            verifications.incrementAndGet();
+            return Jwts.claims().setSubject("alice").setExpiration(new Date(expiresAt));
+        };
+    }
+}
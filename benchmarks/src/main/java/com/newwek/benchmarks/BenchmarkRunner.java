@@ -0,0 +1,34 @@
+package com.newwek.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler attached, so every benchmark reports its allocation rate
+ * ({@code gc.alloc.rate.norm}, bytes per operation) next to its throughput. Results are also written to
+ * {@code jmh-result.json} in the working directory for comparison between runs.
+ *
+ * <pre>
+ * mvn -pl benchmarks -am package -DskipTests
+ * java --enable-preview -jar benchmarks/target/benchmarks.jar [regexp...] [jmh options]
+ * </pre>
+ *
+ * Any standard JMH command line option (for example {@code -f 3} or {@code -p size=1000}) overrides the defaults.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .build();
+        new Runner(options).run();
+    }
+}
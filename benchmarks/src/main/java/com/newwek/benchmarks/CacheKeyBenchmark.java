@@ -0,0 +1,52 @@
+package com.newwek.benchmarks;
+
+import com.newwek.blogservice.services.PostService;
+import com.newwek.commentservice.service.CommentService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.interceptor.KeyGenerator;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Key generation runs on every {@code @Cacheable} call that uses {@code customKeyGenerator}, hit or miss.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class CacheKeyBenchmark {
+
+    KeyGenerator blogKeyGenerator;
+    KeyGenerator commentKeyGenerator;
+    Object blogTarget;
+    Object commentTarget;
+    Method sortedPostsMethod;
+    Method commentsByPostMethod;
+    Object[] noParams;
+    Object[] postIdParams;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        blogKeyGenerator = new com.newwek.blogservice.config.CustomKeyGenerator();
+        commentKeyGenerator = new com.newwek.commentservice.config.CustomKeyGenerator();
+        blogTarget = new Object();
+        commentTarget = new Object();
+        sortedPostsMethod = PostService.class.getMethod("findAllSortedByCommentCountDesc");
+        commentsByPostMethod = CommentService.class.getMethod("findCommentsByPostId", Long.class);
+        noParams = new Object[0];
+        postIdParams = new Object[]{101L};
+    }
+
+    @Benchmark
+    public Object blogKeyWithoutParams() {
+        return blogKeyGenerator.generate(blogTarget, sortedPostsMethod, noParams);
+    }
+
+    @Benchmark
+    public Object commentKeyWithPostId() {
+        return commentKeyGenerator.generate(commentTarget, commentsByPostMethod, postIdParams);
+    }
+}
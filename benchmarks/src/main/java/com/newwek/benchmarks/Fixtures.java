@@ -0,0 +1,45 @@
+package com.newwek.benchmarks;
+
+import com.newwek.blogservice.domain.Post;
+import com.newwek.commentservice.domain.Comment;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic test data shared by the benchmarks, sized like real feed pages.
+ */
+final class Fixtures {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2024, 4, 12, 14, 30);
+
+    private Fixtures() {
+    }
+
+    static Post post(long id, long commentsCounter) {
+        return new Post(id,
+                "Exploring OpenAPI " + id,
+                "Detailed exploration of OpenAPI for documenting RESTful APIs. ".repeat(8),
+                "author" + (id % 50),
+                CREATED.plusMinutes(id),
+                CREATED.plusMinutes(id + 5),
+                commentsCounter);
+    }
+
+    static List<Post> posts(int count) {
+        SplittableRandom random = new SplittableRandom(42);
+        List<Post> posts = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            posts.add(post(id, random.nextLong(0, 500)));
+        }
+        return posts;
+    }
+
+    static Comment comment(long id, long blogPostId) {
+        LocalDateTime created = CREATED.plusMinutes(id);
+        return new Comment(id, blogPostId, "user" + (id % 100), "Nice post, thanks for sharing! #" + id,
+                created, created.plusMinutes(60), created.plusMinutes(1));
+    }
+}
@@ -0,0 +1,95 @@
+package com.newwek.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.newwek.api.gateway.service.JwksKeyCache;
+import com.newwek.api.gateway.service.RevocationList;
+import com.newwek.api.gateway.service.TokenValidationService;
+import com.newwek.authenticationservice.service.JwtService;
+import com.newwek.authenticationservice.service.RevokedTokens;
+import com.newwek.authenticationservice.service.SigningKeys;
+import com.newwek.authenticationservice.service.VerifiedTokenCache;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What authenticating a request adds to it in the gateway: verifying the token locally with the cached key set and
+ * revocation filter, against the call to {@code /auth/validate} every secured request used to make. The authentication
+ * service is stood in for by the JDK's HTTP server on the loopback interface; a real hop adds network latency on top.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class GatewayTokenBenchmark {
+
+    HttpServer authenticationService;
+    TokenValidationService tokenValidationService;
+    String token;
+
+    @Setup
+    public void setUp() throws IOException {
+        SigningKeys signingKeys = new SigningKeys(List.of(), Duration.ofDays(1), new DefaultResourceLoader());
+        JwtService jwtService = new JwtService(signingKeys, new VerifiedTokenCache(0));
+        ObjectMapper objectMapper = new ObjectMapper();
+        token = jwtService.generateToken("user1");
+
+        // Without it, the server's separate header and body writes wait on delayed ACKs and every call takes tens of milliseconds
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        authenticationService = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        authenticationService.createContext("/auth/jwks", exchange -> respond(exchange, "application/json", objectMapper.writeValueAsString(signingKeys.jwks())));
+        RevokedTokens revokedTokens = new RevokedTokens(Duration.ofMinutes(1));
+        authenticationService.createContext("/auth/revocations", exchange -> respond(exchange, "application/json",
+                objectMapper.writeValueAsString(Map.of("version", revokedTokens.snapshot().version(), "filter", revokedTokens.snapshot().filter()))));
+        authenticationService.createContext("/auth/validate", exchange -> {
+            String query = exchange.getRequestURI().getQuery();
+            respond(exchange, "text/plain", jwtService.getUserNameFromToken(query.substring(query.indexOf('=') + 1)));
+        });
+        authenticationService.start();
+
+        String url = "http://127.0.0.1:" + authenticationService.getAddress().getPort();
+        tokenValidationService = new TokenValidationService(WebClient.builder(),
+                new JwksKeyCache(WebClient.builder(), url, Duration.ofHours(1)),
+                new RevocationList(WebClient.builder(), url, Duration.ofHours(1)), objectMapper, url);
+        // Fetches the key set and the revoked tokens
+        tokenValidationService.validate(token).block();
+    }
+
+    @TearDown
+    public void tearDown() {
+        authenticationService.stop(0);
+    }
+
+    @Benchmark
+    public String localVerification() {
+        return tokenValidationService.validate(token).block();
+    }
+
+    @Benchmark
+    public String remoteValidation() {
+        return tokenValidationService.validateRemotely(token).block();
+    }
+
+    private static void respond(HttpExchange exchange, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
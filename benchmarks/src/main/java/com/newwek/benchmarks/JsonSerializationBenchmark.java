@@ -0,0 +1,78 @@
+package com.newwek.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.newwek.blogservice.domain.Post;
+import com.newwek.blogservice.domain.dto.PostDto;
+import com.newwek.commentservice.domain.Comment;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Jackson work done by the controllers when writing responses and reading request bodies. The mapper is built
+ * the way Spring Boot builds the one used by the HTTP message converters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class JsonSerializationBenchmark {
+
+    ObjectMapper objectMapper;
+    Post post;
+    List<PostDto> postFeed;
+    Comment comment;
+    List<Comment> comments;
+    String postJson;
+    String commentJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        post = Fixtures.post(1, 42);
+        postFeed = PostDto.of(Fixtures.posts(100));
+        comment = Fixtures.comment(1, 101);
+        comments = LongStream.rangeClosed(1, 100).mapToObj(id -> Fixtures.comment(id, 101)).toList();
+        postJson = objectMapper.writeValueAsString(post);
+        commentJson = objectMapper.writeValueAsString(comment);
+    }
+
+    @Benchmark
+    public byte[] writePost() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(post);
+    }
+
+    @Benchmark
+    public byte[] writePostFeed() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(postFeed);
+    }
+
+    @Benchmark
+    public Post readPost() throws JsonProcessingException {
+        return objectMapper.readValue(postJson, Post.class);
+    }
+
+    @Benchmark
+    public byte[] writeComment() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(comment);
+    }
+
+    @Benchmark
+    public byte[] writeComments() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(comments);
+    }
+
+    @Benchmark
+    public Comment readComment() throws JsonProcessingException {
+        return objectMapper.readValue(commentJson, Comment.class);
+    }
+}
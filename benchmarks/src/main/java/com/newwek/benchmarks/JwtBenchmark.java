@@ -0,0 +1,53 @@
+package com.newwek.benchmarks;
+
+import com.newwek.authenticationservice.service.JwtService;
+import com.newwek.authenticationservice.service.SigningKeys;
+import com.newwek.authenticationservice.service.VerifiedTokenCache;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokens per second issued ({@code /auth/token}) and validated ({@code /auth/validate}, which the gateway falls back
+ * to when it cannot verify a token itself), with RS256 signatures. {@code parseToken} verifies the signature every
+ * time; {@code parseCachedToken} answers a token that was verified before from the cache of verified tokens.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class JwtBenchmark {
+
+    JwtService jwtService;
+    JwtService cachingJwtService;
+    String token;
+
+    @Setup
+    public void setUp() {
+        SigningKeys signingKeys = new SigningKeys(List.of(), Duration.ofDays(1), new DefaultResourceLoader());
+        jwtService = new JwtService(signingKeys, new VerifiedTokenCache(0));
+        cachingJwtService = new JwtService(signingKeys, new VerifiedTokenCache(10_000));
+        token = jwtService.generateToken("user1");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken("user1");
+    }
+
+    @Benchmark
+    public Claims parseToken() {
+        return jwtService.parseToken(token);
+    }
+
+    @Benchmark
+    public Claims parseCachedToken() {
+        return cachingJwtService.parseToken(token);
+    }
+}
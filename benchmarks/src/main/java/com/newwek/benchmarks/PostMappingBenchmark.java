@@ -0,0 +1,35 @@
+package com.newwek.benchmarks;
+
+import com.newwek.blogservice.domain.Post;
+import com.newwek.blogservice.domain.dto.PostDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping done by {@code GET /api/posts} on every request, even when the post list is cached.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class PostMappingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int size;
+
+    List<Post> posts;
+
+    @Setup
+    public void setUp() {
+        posts = Fixtures.posts(size);
+    }
+
+    @Benchmark
+    public List<PostDto> postDtoOf() {
+        return PostDto.of(posts);
+    }
+}
@@ -0,0 +1,51 @@
+package com.newwek.benchmarks;
+
+import com.newwek.blogservice.domain.Post;
+import com.newwek.blogservice.repositories.PostRepository;
+import com.newwek.blogservice.services.PostServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.support.NoOpCacheManager;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The comment-count sort behind {@code GET /api/posts} on a cache miss. The repository is an in-memory stub
+ * returning a fresh copy of the posts, so the numbers cover the copy and the sort but not the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class PostSortBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    int size;
+
+    PostServiceImpl postService;
+
+    @Setup
+    public void setUp() {
+        List<Post> posts = Fixtures.posts(size);
+        PostRepository repository = (PostRepository) Proxy.newProxyInstance(
+                PostRepository.class.getClassLoader(),
+                new Class<?>[]{PostRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findAll" -> new ArrayList<>(posts);
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemoryPostRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        postService = new PostServiceImpl(repository, new NoOpCacheManager());
+    }
+
+    @Benchmark
+    public List<Post> findAllSortedByCommentCountDesc() {
+        return postService.findAllSortedByCommentCountDesc();
+    }
+}
@@ -0,0 +1,62 @@
+package com.newwek.benchmarks;
+
+import com.newwek.blogservice.config.RedisConfig;
+import com.newwek.blogservice.domain.dto.PostDto;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Value (de)serialization with the serializer configured in {@link RedisConfig#cacheConfiguration()}, i.e. the cost
+ * every cache read and write pays once the caches are backed by Redis instead of in-process maps.
+ * <p>
+ * The values are {@link PostDto}s rather than the {@code Post} entities the caches hold today: the serializer has no
+ * {@code java.time} support, and only the DTO declares its own {@code LocalDateTime} serializers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class RedisSerializationBenchmark {
+
+    RedisSerializationContext.SerializationPair<Object> valueSerializationPair;
+    PostDto post;
+    List<PostDto> sortedPosts;
+    ByteBuffer serializedPost;
+    ByteBuffer serializedSortedPosts;
+
+    @Setup
+    public void setUp() {
+        valueSerializationPair = new RedisConfig().cacheConfiguration().getValueSerializationPair();
+        post = new PostDto(Fixtures.post(1, 42));
+        sortedPosts = new ArrayList<>(PostDto.of(Fixtures.posts(100)));
+        serializedPost = valueSerializationPair.write(post);
+        serializedSortedPosts = valueSerializationPair.write(sortedPosts);
+    }
+
+    @Benchmark
+    public ByteBuffer writePost() {
+        return valueSerializationPair.write(post);
+    }
+
+    @Benchmark
+    public ByteBuffer writeSortedPosts() {
+        return valueSerializationPair.write(sortedPosts);
+    }
+
+    @Benchmark
+    public Object readPost() {
+        return valueSerializationPair.read(serializedPost.duplicate());
+    }
+
+    @Benchmark
+    public Object readSortedPosts() {
+        return valueSerializationPair.read(serializedSortedPosts.duplicate());
+    }
+}
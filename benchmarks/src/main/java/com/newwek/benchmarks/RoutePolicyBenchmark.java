@@ -0,0 +1,67 @@
+package com.newwek.benchmarks;
+
+import com.newwek.api.gateway.filter.RoutePolicy;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * The public-endpoint check the gateway's {@code AuthenticationFilter} runs on every routed request: the route's
+ * {@link RoutePolicy}, with its path patterns parsed when the route is built, against the scan of every open endpoint
+ * with {@code String.contains} that it replaced. A secured path has to be compared against every endpoint either way.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class RoutePolicyBenchmark {
+
+    static final List<String> OPEN_ENDPOINTS = List.of("/auth/register", "/auth/token", "/eureka", "/swagger", "/v3/api-docs");
+
+    RoutePolicy routePolicy;
+    Predicate<ServerHttpRequest> containsScan;
+    ServerHttpRequest securedRequest;
+    ServerHttpRequest publicRequest;
+    ServerHttpRequest publicPostRequest;
+
+    @Setup
+    public void setUp() {
+        routePolicy = new RoutePolicy(List.of("GET /api/posts", "GET /api/posts/batch", "GET /api/posts/{id}", "GET /v3/api-docs/blog",
+                "/auth/register", "/auth/token"));
+        containsScan = request -> OPEN_ENDPOINTS.stream().anyMatch(uri -> request.getURI().getPath().contains(uri));
+        securedRequest = MockServerHttpRequest.post("/api/comments/post/101").build();
+        publicRequest = MockServerHttpRequest.get("/v3/api-docs/blog").build();
+        publicPostRequest = MockServerHttpRequest.get("/api/posts/101").build();
+    }
+
+    @Benchmark
+    public boolean policySecuredPath() {
+        return routePolicy.isPublic(securedRequest);
+    }
+
+    @Benchmark
+    public boolean policyPublicPath() {
+        return routePolicy.isPublic(publicRequest);
+    }
+
+    @Benchmark
+    public boolean policyPublicPostPath() {
+        return routePolicy.isPublic(publicPostRequest);
+    }
+
+    @Benchmark
+    public boolean scanSecuredPath() {
+        return containsScan.test(securedRequest);
+    }
+
+    @Benchmark
+    public boolean scanPublicPath() {
+        return containsScan.test(publicRequest);
+    }
+}
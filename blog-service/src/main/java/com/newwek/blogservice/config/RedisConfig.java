@@ -1,5 +1,7 @@
 package com.newwek.blogservice.config;
 
+import com.newwek.platform.metrics.MeteredCache;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
@@ -40,10 +42,10 @@ public class RedisConfig {
     }
 
     @Bean
-    public CacheManager cacheManager() {
+    public CacheManager cacheManager(MeterRegistry meterRegistry) {
         SimpleCacheManager cacheManager = new SimpleCacheManager();
-        Cache blogPostCache = new ConcurrentMapCache(POST_CACHE);
-        Cache listBlogPostCache = new ConcurrentMapCache(POST_LIST_CACHE);
+        Cache blogPostCache = new MeteredCache(new ConcurrentMapCache(POST_CACHE), meterRegistry);
+        Cache listBlogPostCache = new MeteredCache(new ConcurrentMapCache(POST_LIST_CACHE), meterRegistry);
         cacheManager.setCaches(Arrays.asList(blogPostCache, listBlogPostCache));
         return cacheManager;
     }
@@ -14,7 +14,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 
 /**
  * Controller for managing the comments count of blog posts.
- * This controller provides endpoints to increment and decrement the comments count for a specific blog post,
+ * This controller provides endpoints to increment, decrement and adjust the comments count for a specific blog post,
  * which helps in maintaining an accurate count of comments, especially after direct modifications like deletions
  * or bulk actions that may not automatically update the post's metadata.
  */
@@ -64,4 +64,26 @@ public class PostCommentsController {
         postService.decrementPostCommentsCounter(id);
         return ResponseEntity.ok().build();
     }
+
+    /**
+     * Adds a delta to the comment count for a specified post by ID.
+     * This is used by bulk operations on comments, which adjust the count of each affected post once rather than
+     * once per comment.
+     *
+     * @param id    The unique identifier of the blog post to update.
+     * @param delta The number of comments added, negative if comments were removed.
+     * @return ResponseEntity indicating the operation's success.
+     */
+    @PostMapping("/{id}")
+    @Operation(summary = "Adjust post comments count", description = "Adds the given delta to the comment count for a blog post identified by its ID. Useful for batch creation or removal of comments.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Successfully adjusted the comments count."),
+            @ApiResponse(responseCode = "404", description = "Post not found. No post exists with the provided ID, so no adjustment performed.")
+    })
+    @Parameter(name = "id", description = "The unique ID of the blog post", required = true, schema = @Schema(type = "integer"))
+    @Parameter(name = "delta", description = "The number of comments added, negative if comments were removed", required = true, schema = @Schema(type = "integer"))
+    public ResponseEntity<Void> addToPostCommentsCounter(@PathVariable Long id, @RequestParam long delta) {
+        postService.addToPostCommentsCounter(id, delta);
+        return ResponseEntity.ok().build();
+    }
 }
@@ -1,16 +1,20 @@
 package com.newwek.blogservice.controllers;
 
 import com.newwek.blogservice.domain.Post;
+import com.newwek.blogservice.domain.dto.PostBatchItemDto;
 import com.newwek.blogservice.domain.dto.PostDto;
 import com.newwek.blogservice.domain.dto.CreatePostDto;
 import com.newwek.blogservice.services.PostService;
+import com.newwek.platform.moderation.ContentFilter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
+import java.util.Map;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -31,7 +35,10 @@ import io.swagger.v3.oas.annotations.tags.Tag;
                       " providing tools for both content creators and consumers to manage and engage with blog content effectively.")
 public class PostController {
 
+    private static final int MAX_BATCH_SIZE = 100;
+
     private final PostService postService;
+    private final ContentFilter contentFilter;
 
     @GetMapping
     @Operation(summary = "Retrieve all posts",
@@ -41,6 +48,26 @@ public class PostController {
         return PostDto.of(postService.findAllSortedByCommentCountDesc());
     }
 
+    @GetMapping("/batch")
+    @Operation(summary = "Retrieve several posts by ID",
+            description = "Fetches up to " + MAX_BATCH_SIZE + " blog posts in one call. " +
+                          "The response keeps the order of the requested IDs and contains one entry per requested ID; " +
+                          "IDs that do not match any post are returned with found set to false. " +
+                          "Intended for feed renderers that would otherwise call the single post endpoint once per post.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Successful operation"),
+            @ApiResponse(responseCode = "400", description = "No IDs, or more than " + MAX_BATCH_SIZE + " IDs were requested")
+    })
+    public List<PostBatchItemDto> getPostsByIds(@RequestParam List<Long> ids) {
+        if (ids.isEmpty() || ids.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, STR."Between 1 and \{MAX_BATCH_SIZE} post ids could be requested at once");
+        }
+        Map<Long, Post> postsById = postService.findAllByIds(ids);
+        return ids.stream()
+                .map(id -> PostBatchItemDto.of(id, postsById.get(id)))
+                .toList();
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Retrieve a post by ID",
             description = "Fetches a specific blog post identified by its unique ID. " +
@@ -60,8 +87,12 @@ public class PostController {
     @Operation(summary = "Create a new post",
             description = "Creates a new post with the provided title, content, and author details. " +
                           "This endpoint is responsible for post creation within the blog service, ensuring that all new posts meet validation criteria before being added to the database.")
-    @ApiResponse(responseCode = "201", description = "Post created successfully", content = @Content(schema = @Schema(implementation = PostDto.class)))
+    @ApiResponses({
+            @ApiResponse(responseCode = "201", description = "Post created successfully", content = @Content(schema = @Schema(implementation = PostDto.class))),
+            @ApiResponse(responseCode = "400", description = "The title or content contains a banned term")
+    })
     public PostDto createPost(@RequestBody @Validated CreatePostDto post) {
+        checkContent(post);
         Post newPost = new Post(post.title(), post.content(), post.author());
         return new PostDto(postService.save(newPost));
     }
@@ -73,9 +104,11 @@ public class PostController {
                           "It is key for maintaining the relevance and accuracy of the post information over time.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Post updated successfully", content = @Content(schema = @Schema(implementation = PostDto.class))),
+            @ApiResponse(responseCode = "400", description = "The title or content contains a banned term"),
             @ApiResponse(responseCode = "404", description = "Post not found, no update performed due to invalid post ID")
     })
     public ResponseEntity<PostDto> updatePost(@PathVariable Long id, @RequestBody @Validated CreatePostDto postDetails) {
+        checkContent(postDetails);
         Post post = postService.findById(id);
         if (post == null) {
             return ResponseEntity.notFound().build();
@@ -94,6 +127,11 @@ public class PostController {
         return ResponseEntity.ok(new PostDto(savedPost));
     }
 
+    private void checkContent(CreatePostDto post) {
+        contentFilter.check(post.title());
+        contentFilter.check(post.content());
+    }
+
     @DeleteMapping("/{id}")
     @Operation(summary = "Delete a post",
             description = "Permanently removes a post from the blog based on its ID. " +
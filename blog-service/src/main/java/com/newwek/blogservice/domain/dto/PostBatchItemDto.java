@@ -0,0 +1,36 @@
+package com.newwek.blogservice.domain.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.newwek.blogservice.domain.Post;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.io.Serializable;
+
+/**
+ * Represents one entry of a batch post lookup. Every requested ID produces exactly one entry, in the order
+ * the IDs were requested, so clients can zip the response with their own ID list. IDs that do not match any
+ * post are kept in the response with {@code found} set to {@code false} and no post attached.
+ *
+ * @param id    The requested post ID.
+ * @param found Whether a post with this ID exists.
+ * @param post  The post itself, or {@code null} if it was not found.
+ */
+@Schema(description = "One entry of a batch post lookup, in the same position as the requested ID.")
+public record PostBatchItemDto(
+        @JsonProperty("id")
+        @Schema(description = "The requested post ID.", example = "101", requiredMode = Schema.RequiredMode.REQUIRED)
+        Long id,
+
+        @JsonProperty("found")
+        @Schema(description = "Whether a post with the requested ID exists.", example = "true", requiredMode = Schema.RequiredMode.REQUIRED)
+        boolean found,
+
+        @JsonProperty("post")
+        @Schema(description = "The requested post, absent if it does not exist.")
+        PostDto post
+) implements Serializable {
+
+    public static PostBatchItemDto of(Long id, Post post) {
+        return post != null ? new PostBatchItemDto(id, true, new PostDto(post)) : new PostBatchItemDto(id, false, null);
+    }
+}
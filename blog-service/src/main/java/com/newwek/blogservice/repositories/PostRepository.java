@@ -2,7 +2,11 @@ package com.newwek.blogservice.repositories;
 
 import com.newwek.blogservice.domain.Post;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 
 /**
@@ -40,5 +44,17 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface PostRepository extends JpaRepository<Post, Long> {
+
+    /**
+     * Adds to the comments counter of a post with a single statement, so that concurrent adjustments of the same post
+     * are applied one after the other by the database instead of overwriting each other.
+     * @param id the ID of the post
+     * @param delta the number of comments added, negative if comments were removed
+     * @return 1 if the counter was changed, 0 if the post does not exist
+     */
+    @Modifying
+    @Transactional
+    @Query("update Post p set p.commentsCounter = p.commentsCounter + :delta where p.id = :id")
+    int addToCommentsCounter(@Param("id") Long id, @Param("delta") long delta);
 }
 
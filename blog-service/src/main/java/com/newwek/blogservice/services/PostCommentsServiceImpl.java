@@ -1,5 +1,7 @@
 package com.newwek.blogservice.services;
 
+import com.newwek.platform.jfr.ServiceCallEvent;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
@@ -14,6 +16,7 @@ import java.util.Objects;
  * Implements {@link PostCommentsService} to provide actual execution logic for deleting comments.
  */
 @Service
+@Timed(value = "service.calls", histogram = true)
 @RequiredArgsConstructor
 public class PostCommentsServiceImpl implements PostCommentsService {
 
@@ -21,7 +24,8 @@ public class PostCommentsServiceImpl implements PostCommentsService {
 
     /**
      * Deletes all comments associated with a specific blog post by making a DELETE request to a remote service.
-     * The method constructs the URL by inserting the blog post ID into a predefined template.
+     * The blog post ID is passed as a URI template variable, so the client metrics are tagged with the template
+     * rather than with one URI per post. The call is also recorded as a {@link ServiceCallEvent} for Flight Recorder.
      *
      * @param postId the ID of the blog post for which comments should be deleted
      * @throws IllegalArgumentException if the postId is null
@@ -29,8 +33,9 @@ public class PostCommentsServiceImpl implements PostCommentsService {
      */
     @Override
     public void deleteAllCommentForBlogPost(Long postId) {
-        String url = STR."http://COMMENT-SERVICE/api/comments/post/\{postId}"; // URL for the DELETE operation
-        ResponseEntity<Object> deleteResponse = restTemplate.exchange(url, HttpMethod.DELETE, null, Object.class);
+        String url = "http://COMMENT-SERVICE/api/comments/post/{postId}"; // URI template for the DELETE operation
+        ResponseEntity<Object> deleteResponse = ServiceCallEvent.record(HttpMethod.DELETE, url,
+                () -> restTemplate.exchange(url, HttpMethod.DELETE, null, Object.class, postId));
 
         checkResponseForIssues(deleteResponse);
     }
@@ -26,5 +26,15 @@ public interface PostCounterService {
      * @throws IllegalArgumentException if {@code postId} is null.
      */
     void decrementPostCommentsCounter(Long postId);
-}
 
+    /**
+     * Adds {@code delta} to the comment count for the specified post in a single update. This method should be used
+     * when several comments of a post are added or removed at once, instead of one increment or decrement per comment.
+     *
+     * @param postId the unique identifier of the post whose comment count is to be adjusted.
+     *               Must not be {@code null}.
+     * @param delta  the number of comments added, negative if comments were removed.
+     * @throws IllegalArgumentException if {@code postId} is null.
+     */
+    void addToPostCommentsCounter(Long postId, long delta);
+}
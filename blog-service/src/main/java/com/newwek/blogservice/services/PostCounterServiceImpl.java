@@ -1,6 +1,6 @@
 package com.newwek.blogservice.services;
 
-import com.newwek.blogservice.domain.Post;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -11,6 +11,7 @@ import org.springframework.web.server.ResponseStatusException;
  * manage the comments counter of blog posts. It utilizes a {@code PostService} to interact with post data.
  */
 @Service
+@Timed(value = "service.calls", histogram = true)
 @RequiredArgsConstructor
 public class PostCounterServiceImpl implements PostCounterService {
 
@@ -18,48 +19,39 @@ public class PostCounterServiceImpl implements PostCounterService {
 
     /**
      * Increments the comment count of a post identified by {@code postId}.
-     * This method retrieves the current post using its ID, updates the comments counter by adding one,
-     * and then persists the changes.
      *
      * @param postId the ID of the post to update; must not be {@code null}.
      * @throws ResponseStatusException if no post with the given ID could be found.
      */
     @Override
     public void incrementPostCommentsCounter(Long postId) {
-        Post currentPost = findPostById(postId);
-        Long commentsCounter = currentPost.getCommentsCounter();
-        currentPost.setCommentsCounter(commentsCounter + 1);
-        postService.save(currentPost);
+        addToPostCommentsCounter(postId, 1);
     }
 
     /**
      * Decrements the comment count of a post identified by {@code postId}.
-     * This method retrieves the post by its ID, decrements the comments counter by one,
-     * and then saves the updated post.
      *
      * @param postId the ID of the post to update; must not be {@code null}.
      * @throws ResponseStatusException if no post with the given ID could be found.
      */
     @Override
     public void decrementPostCommentsCounter(Long postId) {
-        Post currentPost = findPostById(postId);
-        Long commentsCounter = currentPost.getCommentsCounter();
-        currentPost.setCommentsCounter(commentsCounter - 1);
-        postService.save(currentPost);
+        addToPostCommentsCounter(postId, -1);
     }
 
     /**
-     * Retrieves a post by its ID using the {@code PostService}.
+     * Adds {@code delta} to the comment count of a post identified by {@code postId}.
+     * The counter is adjusted by a single update statement rather than read, changed and saved, so that concurrent
+     * adjustments of the same post are not lost.
      *
-     * @param postId the ID of the post to retrieve; must not be {@code null}.
-     * @return the retrieved {@code Post} object.
-     * @throws ResponseStatusException if the post cannot be found, encapsulating a {@code HttpStatus.NOT_FOUND}.
+     * @param postId the ID of the post to update; must not be {@code null}.
+     * @param delta  the number of comments added, negative if comments were removed.
+     * @throws ResponseStatusException if no post with the given ID could be found.
      */
-    private Post findPostById(Long postId) {
-        Post currentPost = postService.findById(postId);
-        if (currentPost == null) {
+    @Override
+    public void addToPostCommentsCounter(Long postId, long delta) {
+        if (!postService.addToCommentsCounter(postId, delta)) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, STR."Blog post with id \{postId} could not be found");
         }
-        return currentPost;
     }
 }
@@ -2,7 +2,9 @@ package com.newwek.blogservice.services;
 
 import com.newwek.blogservice.domain.Post;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * The {@code PostService} interface provides methods for managing posts in a blog or similar system.
@@ -34,6 +36,16 @@ public interface PostService {
      */
     Post findById(Long id);
 
+    /**
+     * Retrieves several posts by their IDs in one pass. Cached posts are resolved with a single
+     * multi-key cache lookup, and all cache misses are loaded with one {@code WHERE id IN (...)} query
+     * and written back to the cache together.
+     *
+     * @param ids the IDs of the posts to retrieve. Must not be null; duplicates are ignored.
+     * @return a map of ID to the found {@link Post}; IDs with no matching post are absent from the map.
+     */
+    Map<Long, Post> findAllByIds(Collection<Long> ids);
+
     /**
      * Saves a given post to the repository. If the post does not exist, it will be created.
      * If the post exists (as determined by its ID), it will be updated.
@@ -43,6 +55,16 @@ public interface PostService {
      */
     Post save(Post post);
 
+    /**
+     * Adds {@code delta} to the comments counter of a post in a single update, without reading the post first.
+     * The cached copy of the post and the sorted post lists are evicted.
+     *
+     * @param id    the ID of the post to update. Must not be null.
+     * @param delta the number of comments added, negative if comments were removed.
+     * @return {@code true} if the counter was changed, {@code false} if no such post exists.
+     */
+    boolean addToCommentsCounter(Long id, long delta);
+
     /**
      * Deletes a post by its ID.
      *
@@ -2,12 +2,13 @@ package com.newwek.blogservice.services;
 
 import com.newwek.blogservice.domain.Post;
 import com.newwek.blogservice.repositories.PostRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.*;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-
-import org.springframework.stereotype.Service;
+import java.util.*;
 
 import static com.newwek.blogservice.config.CacheNames.POST_CACHE;
 import static com.newwek.blogservice.config.CacheNames.POST_LIST_CACHE;
@@ -18,18 +19,22 @@ import static com.newwek.blogservice.config.CacheNames.POST_LIST_CACHE;
  * It uses a {@link PostRepository} for persistence operations.
  */
 @Service
+@Timed(value = "service.calls", histogram = true)
 @CacheConfig(cacheNames = {POST_CACHE, POST_LIST_CACHE})
 public class PostServiceImpl implements PostService {
 
     private final PostRepository postRepository;
+    private final CacheManager cacheManager;
 
     /**
      * Constructs a new instance of {@code PostServiceImpl} with the necessary repository.
      *
      * @param postRepository the repository used for data access operations. Must not be null.
+     * @param cacheManager   the cache manager holding the {@code POST_CACHE}, used directly by batch lookups.
      */
-    public PostServiceImpl(PostRepository postRepository) {
+    public PostServiceImpl(PostRepository postRepository, CacheManager cacheManager) {
         this.postRepository = postRepository;
+        this.cacheManager = cacheManager;
     }
 
     /**
@@ -60,6 +65,61 @@ public class PostServiceImpl implements PostService {
         return postRepository.findById(id).orElse(null);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Annotation-driven caching works on one key per call, so this method talks to {@code POST_CACHE}
+     * directly: all requested keys are resolved in a single pass, the misses are fetched with one
+     * {@code findAllById} query, and the loaded posts are written back in a single pass as well.
+     */
+    @Override
+    public Map<Long, Post> findAllByIds(Collection<Long> ids) {
+        Set<Long> requestedIds = new LinkedHashSet<>(ids);
+        Map<Long, Post> foundPosts = HashMap.newHashMap(requestedIds.size());
+        Cache postCache = cacheManager.getCache(POST_CACHE);
+
+        List<Long> missedIds = multiGet(postCache, requestedIds, foundPosts);
+        if (missedIds.isEmpty()) {
+            return foundPosts;
+        }
+
+        List<Post> loadedPosts = postRepository.findAllById(missedIds);
+        loadedPosts.forEach(post -> foundPosts.put(post.getId(), post));
+        multiPut(postCache, loadedPosts);
+        return foundPosts;
+    }
+
+    /**
+     * Looks up all {@code ids} in the given cache, collecting hits into {@code foundPosts}.
+     *
+     * @return the IDs that were not present in the cache, in request order.
+     */
+    private List<Long> multiGet(Cache postCache, Collection<Long> ids, Map<Long, Post> foundPosts) {
+        if (postCache == null) {
+            return new ArrayList<>(ids);
+        }
+        List<Long> missedIds = new ArrayList<>();
+        for (Long id : ids) {
+            Post cachedPost = postCache.get(id, Post.class);
+            if (cachedPost != null) {
+                foundPosts.put(id, cachedPost);
+            } else {
+                missedIds.add(id);
+            }
+        }
+        return missedIds;
+    }
+
+    /**
+     * Writes all loaded posts back into the given cache, keyed by post ID as {@link #findById(Long)} does.
+     */
+    private void multiPut(Cache postCache, List<Post> posts) {
+        if (postCache == null) {
+            return;
+        }
+        posts.forEach(post -> postCache.put(post.getId(), post));
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -72,6 +132,18 @@ public class PostServiceImpl implements PostService {
         return postRepository.save(post);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Caching(
+            evict = {@CacheEvict(value = POST_LIST_CACHE, allEntries = true),
+                     @CacheEvict(value = POST_CACHE, key = "#id")}
+    )
+    public boolean addToCommentsCounter(Long id, long delta) {
+        return postRepository.addToCommentsCounter(id, delta) > 0;
+    }
+
     /**
      * {@inheritDoc}
      */
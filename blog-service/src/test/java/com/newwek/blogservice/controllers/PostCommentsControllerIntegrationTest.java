@@ -16,6 +16,9 @@ import org.testcontainers.containers.MySQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 @Testcontainers
@@ -124,6 +127,27 @@ public class PostCommentsControllerIntegrationTest {
         return foundPost;
     }
 
+    @Test
+    public void testConcurrentDeltasAreNotLost() {
+        Post saved = postRepository.save(new Post("Title", "Content", "Author"));
+        Long postId = saved.getId();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 50; i++) {
+                executor.submit(() -> restTemplate.postForEntity("/api/posts/update-comments-count/" + postId + "?delta=3", null, Void.class));
+                executor.submit(() -> restTemplate.postForEntity("/api/posts/update-comments-count/" + postId + "?delta=-1", null, Void.class));
+            }
+        }
+
+        verifyIncremented(postId, 100L);
+    }
+
+    @Test
+    public void addToCommentsCounter_NotFound() {
+        ResponseEntity<Void> response = restTemplate.postForEntity("/api/posts/update-comments-count/999?delta=2", null, Void.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
     @Test
     public void incrementCommentsCounter_NotFound() {
         Long nonExistentPostId = 999L; // This post does not exist
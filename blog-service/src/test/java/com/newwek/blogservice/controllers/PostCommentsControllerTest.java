@@ -85,4 +85,28 @@ class PostCommentsControllerTest {
 
         verify(postCounterService, times(1)).decrementPostCommentsCounter(postId);
     }
+
+    @Test
+    void addToPostCommentsCounterTest() throws Exception {
+        Long postId = 1L;
+
+        mockMvc.perform(post(STR."/api/posts/update-comments-count/\{postId}")
+                        .param("delta", "-3")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        verify(postCounterService, times(1)).addToPostCommentsCounter(postId, -3L);
+    }
+
+    @Test
+    void addToPostCommentsCounter_NotFound() throws Exception {
+        Long postId = 999L;
+
+        doThrow(new ResponseStatusException(HttpStatus.NOT_FOUND, "Post not found")).when(postCounterService).addToPostCommentsCounter(postId, 5L);
+
+        mockMvc.perform(post(STR."/api/posts/update-comments-count/\{postId}")
+                        .param("delta", "5")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
 }
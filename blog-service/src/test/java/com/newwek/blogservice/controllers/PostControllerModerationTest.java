@@ -0,0 +1,66 @@
+package com.newwek.blogservice.controllers;
+
+import com.newwek.blogservice.domain.Post;
+import com.newwek.blogservice.services.PostService;
+import com.newwek.platform.moderation.ContentFilterAutoConfiguration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs {@link PostController} with the content filter the shared auto-configuration registers, rather than a mock, to
+ * check that post writes are moderated.
+ */
+@WebMvcTest(controllers = PostController.class)
+@ContextConfiguration(classes = PostController.class)
+@ImportAutoConfiguration(ContentFilterAutoConfiguration.class)
+@TestPropertySource(properties = "content-filter.terms=classpath:test-banned-terms.txt")
+class PostControllerModerationTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @MockBean
+    PostService postService;
+
+    @Test
+    void rejectsAPostWithABannedTerm() throws Exception {
+        mockMvc.perform(post("/api/posts")
+                        .contentType(APPLICATION_JSON)
+                        .content("""
+                                {"title": "Get FREE money", "content": "A perfectly ordinary post.", "author": "Author"}"""))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(put("/api/posts/1")
+                        .contentType(APPLICATION_JSON)
+                        .content("""
+                                {"title": "Title", "content": "This post is all Spam.", "author": "Author"}"""))
+                .andExpect(status().isBadRequest());
+
+        verify(postService, never()).findById(any());
+        verify(postService, never()).save(any());
+    }
+
+    @Test
+    void acceptsAPostWithoutBannedTerms() throws Exception {
+        when(postService.save(any(Post.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        mockMvc.perform(post("/api/posts")
+                        .contentType(APPLICATION_JSON)
+                        .content("""
+                                {"title": "Spamalot review", "content": "A perfectly ordinary post.", "author": "Author"}"""))
+                .andExpect(status().isCreated());
+    }
+}
@@ -4,19 +4,24 @@ import com.newwek.blogservice.domain.Post;
 import com.newwek.blogservice.domain.dto.PostDto;
 import com.newwek.blogservice.domain.dto.CreatePostDto;
 import com.newwek.blogservice.services.PostService;
+import com.newwek.platform.moderation.ContentFilter;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
 
 import static java.lang.StringTemplate.STR;
 import static org.mockito.Mockito.*;
@@ -35,6 +40,9 @@ class PostControllerTest {
     @MockBean
     PostService postService;
 
+    @MockBean
+    ContentFilter contentFilter;
+
     List<Post> posts = new ArrayList<>();
 
     @Test
@@ -203,6 +211,67 @@ class PostControllerTest {
 
     }
 
+    @Test
+    void getPostsByIds_keepsRequestedOrderAndMarksMissing() throws Exception {
+        Post firstPost = new Post(1L, "Blog Post", "This is the blog content.", "Vladimir", LocalDateTime.of(2024, 4, 5, 21, 0), null, 3L);
+        Post secondPost = new Post(2L, "Animals", "Animals blog", "Lion", LocalDateTime.of(2024, 4, 15, 23, 0), null, 0L);
+
+        String expectedResult = """
+                [
+                    {
+                        "id": 2,
+                        "found": true,
+                        "post": {
+                            "id": 2,
+                            "title": "Animals",
+                            "content": "Animals blog",
+                            "author": "Lion",
+                            "created_time": "2024-04-15T23:00:00",
+                            "modified_time": null,
+                            "comments_counter": 0
+                        }
+                    },
+                    {
+                        "id": 7,
+                        "found": false,
+                        "post": null
+                    },
+                    {
+                        "id": 1,
+                        "found": true,
+                        "post": {
+                            "id": 1,
+                            "title": "Blog Post",
+                            "content": "This is the blog content.",
+                            "author": "Vladimir",
+                            "created_time": "2024-04-05T21:00:00",
+                            "modified_time": null,
+                            "comments_counter": 3
+                        }
+                    }
+                ]
+                """;
+
+        when(postService.findAllByIds(List.of(2L, 7L, 1L))).thenReturn(Map.of(1L, firstPost, 2L, secondPost));
+
+        mockMvc.perform(get("/api/posts/batch").param("ids", "2", "7", "1"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(expectedResult, true));
+
+        verify(postService, times(1)).findAllByIds(List.of(2L, 7L, 1L));
+        verify(postService, never()).findById(any());
+    }
+
+    @Test
+    void getPostsByIds_rejectsOversizedBatch() throws Exception {
+        String[] ids = LongStream.rangeClosed(1, 101).mapToObj(String::valueOf).toArray(String[]::new);
+
+        mockMvc.perform(get("/api/posts/batch").param("ids", ids))
+                .andExpect(status().isBadRequest());
+
+        verify(postService, never()).findAllByIds(any());
+    }
+
     @Test
     void getPostById_notFoundException() throws Exception {
         long randId = 999L;
@@ -255,6 +324,23 @@ class PostControllerTest {
         testPostWithInvalidData("Title",RandomStringUtils.random(8), "Author");
     }
 
+    @Test
+    void shouldNotCreatePostWithBannedTerm() throws Exception {
+        doThrow(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Content contains a banned term."))
+                .when(contentFilter).check("This post is all SPAM");
+
+        testPostWithInvalidData("Title", "This post is all SPAM", "Author");
+
+        mockMvc.perform(put("/api/posts/1")
+                        .contentType(APPLICATION_JSON)
+                        .content("""
+                                {"title": "Title", "content": "This post is all SPAM", "author": "Author"}"""))
+                .andExpect(status().isBadRequest());
+
+        verify(postService, never()).findById(any());
+        verify(postService, never()).save(any());
+    }
+
     private void testPostWithInvalidData(String title, String content, String author) throws Exception {
         testPost(title,content,author, status().isBadRequest());
     }
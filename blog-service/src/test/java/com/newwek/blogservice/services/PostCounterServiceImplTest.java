@@ -0,0 +1,49 @@
+package com.newwek.blogservice.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PostCounterServiceImplTest {
+
+    private final PostService postService = mock(PostService.class);
+    private final PostCounterServiceImpl postCounterService = new PostCounterServiceImpl(postService);
+
+    @Test
+    void adjustsTheCounterWithoutReadingThePost() {
+        when(postService.addToCommentsCounter(1L, 3L)).thenReturn(true);
+
+        postCounterService.addToPostCommentsCounter(1L, 3L);
+
+        verify(postService).addToCommentsCounter(1L, 3L);
+        verify(postService, never()).findById(anyLong());
+        verify(postService, never()).save(any());
+    }
+
+    @Test
+    void incrementAndDecrementAdjustByOne() {
+        when(postService.addToCommentsCounter(eq(1L), anyLong())).thenReturn(true);
+
+        postCounterService.incrementPostCommentsCounter(1L);
+        postCounterService.decrementPostCommentsCounter(1L);
+
+        verify(postService).addToCommentsCounter(1L, 1L);
+        verify(postService).addToCommentsCounter(1L, -1L);
+    }
+
+    @Test
+    void noUpdatedRowIsNotFound() {
+        when(postService.addToCommentsCounter(anyLong(), anyLong())).thenReturn(false);
+
+        assertThatThrownBy(() -> postCounterService.addToPostCommentsCounter(42L, -2L))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+    }
+}
@@ -0,0 +1,83 @@
+package com.newwek.blogservice.services;
+
+import com.newwek.blogservice.domain.Post;
+import com.newwek.blogservice.repositories.PostRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.support.SimpleCacheManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.newwek.blogservice.config.CacheNames.POST_CACHE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class PostServiceImplTest {
+
+    private final PostRepository postRepository = mock(PostRepository.class);
+    private final Cache postCache = new ConcurrentMapCache(POST_CACHE);
+    private final PostServiceImpl postService = new PostServiceImpl(postRepository, cacheManager(postCache));
+
+    @Test
+    void loadsOnlyTheMissesInOneQuery() {
+        postCache.put(1L, post(1L));
+        postCache.put(3L, post(3L));
+        when(postRepository.findAllById(List.of(2L, 4L))).thenReturn(List.of(post(2L), post(4L)));
+
+        Map<Long, Post> posts = postService.findAllByIds(List.of(1L, 2L, 3L, 4L, 2L));
+
+        assertThat(posts).containsOnlyKeys(1L, 2L, 3L, 4L);
+        verify(postRepository, times(1)).findAllById(List.of(2L, 4L));
+        verifyNoMoreInteractions(postRepository);
+    }
+
+    @Test
+    void answersFromTheCacheAloneWhenEveryPostIsCached() {
+        postCache.put(1L, post(1L));
+        postCache.put(2L, post(2L));
+
+        Map<Long, Post> posts = postService.findAllByIds(List.of(1L, 2L));
+
+        assertThat(posts).containsOnlyKeys(1L, 2L);
+        verifyNoInteractions(postRepository);
+    }
+
+    @Test
+    void writesTheLoadedPostsBackToTheCache() {
+        when(postRepository.findAllById(any())).thenReturn(List.of(post(1L), post(2L)));
+
+        postService.findAllByIds(List.of(1L, 2L));
+        Map<Long, Post> again = postService.findAllByIds(List.of(1L, 2L));
+
+        assertThat(postCache.get(1L, Post.class).getId()).isEqualTo(1L);
+        assertThat(postCache.get(2L, Post.class).getId()).isEqualTo(2L);
+        assertThat(again).containsOnlyKeys(1L, 2L);
+        verify(postRepository, times(1)).findAllById(any());
+    }
+
+    @Test
+    void leavesMissingPostsOutOfTheResult() {
+        when(postRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(post(1L)));
+
+        Map<Long, Post> posts = postService.findAllByIds(List.of(1L, 2L));
+
+        assertThat(posts).containsOnlyKeys(1L);
+        assertThat(postCache.get(2L)).isNull();
+    }
+
+    private static SimpleCacheManager cacheManager(Cache... caches) {
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(caches));
+        cacheManager.afterPropertiesSet();
+        return cacheManager;
+    }
+
+    private static Post post(Long id) {
+        Post post = new Post("Title " + id, "Content", "alice");
+        post.setId(id);
+        return post;
+    }
+}
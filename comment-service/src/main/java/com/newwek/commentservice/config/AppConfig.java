@@ -1,5 +1,6 @@
 package com.newwek.commentservice.config;
 
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -32,12 +33,19 @@ public class AppConfig {
      * might scale up and down dynamically, ensuring that requests are evenly distributed among
      * available instances.
      *
+     * <p>The template is built from Spring Boot's {@link RestTemplateBuilder}, which registers the
+     * observation customizer. Every call is therefore recorded in the {@code http.client.requests}
+     * timer, tagged with the target service ({@code client.name}), the URI template, the status and
+     * the outcome. Callers should pass URI templates with variables rather than expanded URLs to
+     * keep the {@code uri} tag low-cardinality.
+     *
+     * @param restTemplateBuilder the builder auto-configured by Spring Boot
      * @return a load-balanced {@code RestTemplate} ready for use
      */
     @Bean
     @LoadBalanced
-    public RestTemplate template() {
-        return new RestTemplate();
+    public RestTemplate template(RestTemplateBuilder restTemplateBuilder) {
+        return restTemplateBuilder.build();
     }
 }
 
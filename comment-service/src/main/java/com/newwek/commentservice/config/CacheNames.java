@@ -8,4 +8,6 @@ public class CacheNames {
     public static final String COMMENTS_LIST_CACHE = "commentsList";
     public static final String COMMENT_CACHE = "comment";
     public static final String BLOG_COMMENTS_CACHE = "blogComments";
+    public static final String BLOG_COMMENT_PAGES_CACHE = "blogCommentPages";
+    public static final String BLOG_COMMENT_COUNTS_CACHE = "blogCommentCounts";
 }
@@ -0,0 +1,35 @@
+package com.newwek.commentservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.newwek.commentservice.stream.CommentStreamHub;
+import com.newwek.commentservice.stream.RedisCommentStreamBridge;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Bridges the comment streams of the instances of this service through Redis, see {@link RedisCommentStreamBridge}.
+ * Enabled unless {@code comment.stream.redis-bridge.enabled} is {@code false}, which suits a single instance running
+ * without Redis.
+ */
+@Configuration
+@ConditionalOnProperty(name = "comment.stream.redis-bridge.enabled", havingValue = "true", matchIfMissing = true)
+public class CommentStreamConfig {
+
+    @Bean
+    public RedisCommentStreamBridge redisCommentStreamBridge(CommentStreamHub hub, StringRedisTemplate redisTemplate, ObjectMapper objectMapper) {
+        return new RedisCommentStreamBridge(hub, redisTemplate, objectMapper);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer commentStreamListenerContainer(RedisConnectionFactory connectionFactory, RedisCommentStreamBridge bridge) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(bridge, new ChannelTopic(RedisCommentStreamBridge.CHANNEL));
+        return container;
+    }
+}
@@ -1,5 +1,7 @@
 package com.newwek.commentservice.config;
 
+import com.newwek.platform.metrics.MeteredCache;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
@@ -39,12 +41,14 @@ public class RedisConfig {
     }
 
     @Bean
-    public CacheManager cacheManager() {
+    public CacheManager cacheManager(MeterRegistry meterRegistry) {
         SimpleCacheManager cacheManager = new SimpleCacheManager();
-        Cache blogPostCache = new ConcurrentMapCache(COMMENT_CACHE);
-        Cache listBlogPostCache = new ConcurrentMapCache(COMMENTS_LIST_CACHE);
-        Cache blogCommentsCache = new ConcurrentMapCache(BLOG_COMMENTS_CACHE);
-        cacheManager.setCaches(Arrays.asList(blogPostCache, listBlogPostCache, blogCommentsCache));
+        Cache blogPostCache = new MeteredCache(new ConcurrentMapCache(COMMENT_CACHE), meterRegistry);
+        Cache listBlogPostCache = new MeteredCache(new ConcurrentMapCache(COMMENTS_LIST_CACHE), meterRegistry);
+        Cache blogCommentsCache = new MeteredCache(new ConcurrentMapCache(BLOG_COMMENTS_CACHE), meterRegistry);
+        Cache blogCommentPagesCache = new MeteredCache(new ConcurrentMapCache(BLOG_COMMENT_PAGES_CACHE), meterRegistry);
+        Cache blogCommentCountsCache = new MeteredCache(new ConcurrentMapCache(BLOG_COMMENT_COUNTS_CACHE), meterRegistry);
+        cacheManager.setCaches(Arrays.asList(blogPostCache, listBlogPostCache, blogCommentsCache, blogCommentPagesCache, blogCommentCountsCache));
         return cacheManager;
     }
 
@@ -1,20 +1,39 @@
 package com.newwek.commentservice.controller;
 
 import com.newwek.commentservice.domain.Comment;
+import com.newwek.commentservice.domain.CommentCursor;
+import com.newwek.commentservice.domain.CommentOrder;
+import com.newwek.commentservice.domain.CommentUpdate;
+import com.newwek.commentservice.domain.dto.CommentBatchItemDto;
+import com.newwek.commentservice.domain.dto.CommentPageDto;
 import com.newwek.commentservice.domain.dto.CreateCommentDto;
 import com.newwek.commentservice.domain.dto.UpdateCommentDto;
 import com.newwek.commentservice.service.CommentService;
+import com.newwek.commentservice.stream.CommentStreamHub;
+import com.newwek.platform.moderation.ContentFilter;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static java.lang.StringTemplate.STR;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -30,7 +49,16 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @Tag(name = "Comment Management", description = "API endpoints for managing comments related to blog posts.")
 public class CommentController {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final int MAX_REPLIES_PER_PARENT = 100;
+    private static final int MAX_COUNTED_POSTS = 100;
+
     private final CommentService commentService;
+    private final CommentStreamHub commentStreamHub;
+    private final ContentFilter contentFilter;
+    private final Validator validator;
 
     @GetMapping
     @Operation(summary = "Get all comments", description = "Retrieves a list of all comments from the database.")
@@ -38,6 +66,23 @@ public class CommentController {
         return commentService.findAll();
     }
 
+    @GetMapping("/counts")
+    @Operation(summary = "Get comment counts by post IDs",
+            description = "Counts the comments of up to " + MAX_COUNTED_POSTS + " posts, given as a comma separated list of post IDs. " +
+                          "Returns an object mapping each post ID to its number of comments, replies included, and 0 for posts without comments. " +
+                          "Counts are cached per post and kept up to date as comments are created and deleted.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "The comment count of each requested post"),
+            @ApiResponse(responseCode = "400", description = "No post IDs, or more than " + MAX_COUNTED_POSTS + " post IDs")
+    })
+    public Map<Long, Long> getCommentCounts(@RequestParam List<Long> postIds) {
+        Set<Long> distinct = postIds.stream().filter(Objects::nonNull).collect(Collectors.toCollection(LinkedHashSet::new));
+        if (distinct.isEmpty() || distinct.size() > MAX_COUNTED_POSTS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, STR."Between 1 and \{MAX_COUNTED_POSTS} posts could be counted at once");
+        }
+        return commentService.countCommentsByPostIds(distinct);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get a comment by ID", description = "Retrieves a specific comment by its ID.")
     @ApiResponses({
@@ -49,32 +94,156 @@ public class CommentController {
         return comment != null ? ResponseEntity.ok(comment) : ResponseEntity.notFound().build();
     }
 
+    @GetMapping("/{id}/replies")
+    @Operation(summary = "Get the replies to a comment",
+            description = "Retrieves the replies to a comment at any depth, in thread order: each reply is followed by its own replies before its next sibling. " +
+                          "With perParent, only the oldest replies to each comment are returned, up to " + MAX_REPLIES_PER_PARENT + ".")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "The replies, possibly none"),
+            @ApiResponse(responseCode = "400", description = "perParent outside 1 to " + MAX_REPLIES_PER_PARENT),
+            @ApiResponse(responseCode = "404", description = "Comment not found")
+    })
+    public ResponseEntity<List<Comment>> getReplies(@PathVariable Long id, @RequestParam(required = false) Integer perParent) {
+        if (perParent != null && (perParent < 1 || perParent > MAX_REPLIES_PER_PARENT)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, STR."Between 1 and \{MAX_REPLIES_PER_PARENT} replies could be requested per comment");
+        }
+        List<Comment> replies = commentService.findReplies(id, perParent);
+        return replies != null ? ResponseEntity.ok(replies) : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/post/{postId}")
+    @Operation(summary = "Get comments by post ID", description = "Retrieves all comments associated with a specific post ID. Returns an empty list if the post has no comments. " +
+                                                           "Prefer the paged variant for posts that may have many comments.")
+    public List<Comment> getCommentsForPostId(@PathVariable @NotNull Long postId) {
+        return commentService.findCommentsByPostId(postId);
+    }
+
+    @GetMapping(path = "/post/{postId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream comment changes by post ID",
+            description = "Opens a Server-Sent Events stream of the changes to the comments of a post, as an alternative to polling. " +
+                          "Each change is sent as a created, updated or deleted event whose data holds the comments, or the IDs of the deleted comments. " +
+                          "The stream only carries changes made after it was opened; clients load the current comments separately. " +
+                          "A client that does not keep up, or keeps a stream open for long, has its stream closed and should reconnect and reload the comments.")
+    @ApiResponse(responseCode = "200", description = "The stream of comment events")
+    public SseEmitter streamCommentsForPostId(@PathVariable @NotNull Long postId) {
+        return commentStreamHub.subscribe(postId);
+    }
+
+    @GetMapping("/post/{postId}/page")
+    @Operation(summary = "Get a page of comments by post ID",
+            description = "Retrieves up to " + MAX_PAGE_SIZE + " comments of a post, ordered by creation time oldest or newest first. " +
+                          "The response carries a nextCursor while more comments follow; pass it back as the cursor parameter to get the next page. " +
+                          "A cursor keeps the order it was created with, so the order parameter only applies to the first page.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "The requested page, possibly empty", content = @Content(schema = @Schema(implementation = CommentPageDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor, a cursor of another order, or a page size outside 1 to " + MAX_PAGE_SIZE)
+    })
+    public CommentPageDto getCommentsPageForPostId(@PathVariable @NotNull Long postId,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(required = false) CommentOrder order,
+                                                   @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, STR."Between 1 and \{MAX_PAGE_SIZE} comments could be requested per page");
+        }
+        CommentCursor position = null;
+        if (cursor != null) {
+            try {
+                position = CommentCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid comment cursor");
+            }
+            if (order != null && order != position.order()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, STR."The cursor continues the \{position.order()} order");
+            }
+        }
+        CommentOrder pageOrder = position != null ? position.order() : order != null ? order : CommentOrder.OLDEST;
+        return CommentPageDto.of(commentService.findCommentsPageByPostId(postId, pageOrder, position, size));
+    }
+
     @ResponseStatus(HttpStatus.CREATED)
     @PostMapping
-    @Operation(summary = "Create a comment", description = "Creates a new comment for a blog post, using the provided content and the username extracted from the request header.")
-    @ApiResponse(responseCode = "201", description = "Comment created successfully", content = @Content(schema = @Schema(implementation = Comment.class)))
+    @Operation(summary = "Create a comment", description = "Creates a new comment for a blog post, using the provided content and the username extracted from the request header. " +
+                                                           "With a parentId, the comment is a reply to another comment of the same post.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "201", description = "Comment created successfully", content = @Content(schema = @Schema(implementation = Comment.class))),
+            @ApiResponse(responseCode = "400", description = "The content contains a banned term, the parent comment belongs to another post, or replies are nested too deeply"),
+            @ApiResponse(responseCode = "404", description = "Blog post or parent comment not found")
+    })
     public Comment createComment(@RequestHeader("X-Username") @NotNull @NotBlank String username, @RequestBody @Validated CreateCommentDto comment) {
-        Comment createdComment = new Comment(comment.blogPostId(), username, comment.content());
+        contentFilter.check(comment.content());
+        Comment createdComment = new Comment(comment.blogPostId(), comment.parentId(), username, comment.content());
         return commentService.save(createdComment);
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Create several comments",
+            description = "Creates up to " + MAX_BATCH_SIZE + " comments in one call, for example when importing comment threads. " +
+                          "Each comment is validated on its own; valid comments are inserted together and the comment count of each " +
+                          "affected post is adjusted once. Replies are not accepted in a batch, and comments containing a banned term are rejected like other invalid comments. The response contains one entry per submitted comment, in the same order.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Batch processed, see the status of each entry"),
+            @ApiResponse(responseCode = "400", description = "No comments, or more than " + MAX_BATCH_SIZE + " comments were submitted")
+    })
+    public List<CommentBatchItemDto> createComments(@RequestHeader("X-Username") @NotNull @NotBlank String username, @RequestBody List<CreateCommentDto> comments) {
+        if (comments.isEmpty() || comments.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, STR."Between 1 and \{MAX_BATCH_SIZE} comments could be created at once");
+        }
+
+        List<String> errors = comments.stream().map(this::validationError).toList();
+        List<Comment> valid = new ArrayList<>();
+        for (int i = 0; i < comments.size(); i++) {
+            if (errors.get(i) == null) {
+                valid.add(new Comment(comments.get(i).blogPostId(), username, comments.get(i).content()));
+            }
+        }
+        Iterator<Comment> saved = (valid.isEmpty() ? List.<Comment>of() : commentService.saveAll(valid)).iterator();
+
+        List<CommentBatchItemDto> results = new ArrayList<>(comments.size());
+        for (int i = 0; i < comments.size(); i++) {
+            if (errors.get(i) != null) {
+                results.add(CommentBatchItemDto.failed(i, CommentBatchItemDto.Status.INVALID, errors.get(i)));
+                continue;
+            }
+            Comment comment = saved.next();
+            results.add(comment != null
+                    ? CommentBatchItemDto.created(i, comment)
+                    : CommentBatchItemDto.failed(i, CommentBatchItemDto.Status.POST_NOT_FOUND, STR."Blog post with id \{comments.get(i).blogPostId()} not found."));
+        }
+        return results;
+    }
+
+    private String validationError(CreateCommentDto comment) {
+        if (comment == null) {
+            return "Comment could not be null";
+        }
+        if (comment.parentId() != null) {
+            return "Replies could not be created in a batch";
+        }
+        Set<ConstraintViolation<CreateCommentDto>> violations = validator.validate(comment);
+        if (violations.isEmpty()) {
+            return contentFilter.findBannedTerm(comment.content()) != null ? "Content contains a banned term." : null;
+        }
+        return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; "));
+    }
+
     @PutMapping("/{id}")
-    @Operation(summary = "Update a comment", description = "Updates an existing comment's content, if the requesting user is the original author and the modification window has not expired.")
+    @Operation(summary = "Update a comment", description = "Updates an existing comment's content, if the requesting user is the original author and the modification window has not expired. " +
+                                                           "Both conditions are checked by the update statement itself; when nothing was updated, the reason is returned in the error message.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Comment updated successfully", content = @Content(schema = @Schema(implementation = Comment.class))),
+            @ApiResponse(responseCode = "400", description = "The content contains a banned term"),
             @ApiResponse(responseCode = "403", description = "Forbidden - Either you are not the author or the update window has expired"),
             @ApiResponse(responseCode = "404", description = "Comment not found")
     })
     public ResponseEntity<Comment> updateComment(@RequestHeader("X-Username") @NotNull @NotBlank String username, @PathVariable Long id, @RequestBody UpdateCommentDto comment) {
-        Comment existingComment = commentService.findById(id);
-        if (existingComment == null) {
-            return ResponseEntity.notFound().build();
-        }
-        if (!username.equals(existingComment.getUsername()) || LocalDateTime.now().isAfter(existingComment.getEnableToUpdateTill())) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You are not authorized to update this comment or the update period has expired.");
-        }
-        existingComment.setContent(comment.content());
-        return ResponseEntity.ok(commentService.save(existingComment));
+        contentFilter.check(comment.content());
+        CommentUpdate update = commentService.update(id, username, comment.content());
+        return switch (update.status()) {
+            case UPDATED -> ResponseEntity.ok(update.comment());
+            case NOT_FOUND -> ResponseEntity.notFound().build();
+            case NOT_AUTHOR -> throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You are not the author of this comment.");
+            case EXPIRED -> throw new ResponseStatusException(HttpStatus.FORBIDDEN, "The update period of this comment has expired.");
+        };
     }
 
     @DeleteMapping("/{id}")
@@ -84,25 +253,22 @@ public class CommentController {
             @ApiResponse(responseCode = "404", description = "Comment not found")
     })
     public ResponseEntity<Void> deleteComment(@PathVariable Long id) {
-        if (commentService.findById(id) == null) {
+        if (!commentService.deleteById(id)) {
             return ResponseEntity.notFound().build();
         }
-        commentService.deleteById(id);
         return ResponseEntity.noContent().build();
     }
 
     @DeleteMapping("/post/{postId}")
-    @Operation(summary = "Delete comments by post ID", description = "Deletes all comments associated with a specific post ID.")
+    @Operation(summary = "Delete comments by post ID", description = "Deletes all comments associated with a specific post ID, in chunks of bounded size.")
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "All comments for the post deleted successfully"),
             @ApiResponse(responseCode = "404", description = "No comments found for the post ID")
     })
     public ResponseEntity<Void> deleteCommentsForPostId(@PathVariable @NotNull Long postId) {
-        List<Comment> commentsByPostId = commentService.findCommentsByPostId(postId);
-        if (commentsByPostId.isEmpty()) {
+        if (commentService.deleteAllForPostId(postId) == 0) {
             return ResponseEntity.notFound().build();
         }
-        commentService.deleteAllForPostId(postId);
         return ResponseEntity.noContent().build();
     }
 }
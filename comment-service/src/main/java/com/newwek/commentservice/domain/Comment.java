@@ -1,10 +1,12 @@
 package com.newwek.commentservice.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import jakarta.persistence.*;
 import lombok.*;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 /**
  * Entity representing a comment made on a blog post. This class is mapped to the "comment" table in the database.
@@ -13,6 +15,16 @@ import java.time.LocalDateTime;
  *
  * Comments have a limited time during which they can be updated, set to 60 minutes post-creation. This is enforced
  * in the onUpdate lifecycle method, which checks if the comment is still within the allowable update period.
+ *
+ * The composite index on (blog_post_id, created_time, id) serves the keyset pagination of a post's comments: each page
+ * is a single range scan in either direction, whatever its depth.
+ *
+ * Comments can reply to other comments of the same post, nested to any depth up to {@link #MAX_DEPTH}. Besides the
+ * {@code parentId}, every comment stores the materialized path of its ancestors: the IDs from the top-level comment
+ * down to its parent, each encoded as {@link #SEGMENT_LENGTH} base-36 digits followed by a slash. Top-level comments
+ * have an empty path. The descendants of a comment are therefore exactly the comments whose path starts with
+ * {@link #childPath()}, so a whole thread is a single range scan of the index on {@code path}. The {@code replyCount}
+ * counts the direct replies and is kept up to date when replies are added or deleted.
  */
 @Getter
 @Setter
@@ -21,9 +33,28 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "comment")
+@Table(name = "comment", indexes = {
+        @Index(name = "idx_comment_post_created_id", columnList = "blog_post_id, created_time, id"),
+        @Index(name = "idx_comment_path", columnList = "path")
+})
 @JsonDeserialize
 public class Comment {
+
+    /**
+     * The number of base-36 digits of one ID in a path, enough for any positive ID below 36^12.
+     */
+    public static final int SEGMENT_LENGTH = 12;
+
+    /**
+     * The maximum length of a path, which keeps it indexable by MySQL with a four byte character set.
+     */
+    public static final int MAX_PATH_LENGTH = 754;
+
+    /**
+     * The maximum number of ancestors of a comment.
+     */
+    public static final int MAX_DEPTH = MAX_PATH_LENGTH / (SEGMENT_LENGTH + 1);
+
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     @Column(name = "id", nullable = false)
@@ -47,6 +78,31 @@ public class Comment {
     @Column(name = "modified_time")
     private LocalDateTime modifiedTime;
 
+    @Column(name = "parent_id")
+    private Long parentId;
+
+    @JsonIgnore
+    @Column(name = "path", nullable = false, updatable = false, length = MAX_PATH_LENGTH)
+    private String path;
+
+    @Column(name = "reply_count", nullable = false)
+    private long replyCount;
+
+    /**
+     * Creates a top-level comment with all of its persistent state, typically used to build comments outside of JPA.
+     * @param id the ID of the comment
+     * @param blogPostId the ID of the blog post the comment belongs to
+     * @param username the username of the individual who made the comment
+     * @param content the textual content of the comment
+     * @param createdTime when the comment was created
+     * @param enableToUpdateTill until when the comment can be updated
+     * @param modifiedTime when the comment was last updated, or null
+     */
+    public Comment(Long id, Long blogPostId, String username, String content, LocalDateTime createdTime,
+                   LocalDateTime enableToUpdateTill, LocalDateTime modifiedTime) {
+        this(id, blogPostId, username, content, createdTime, enableToUpdateTill, modifiedTime, null, "", 0);
+    }
+
     /**
      * Creates a new comment for a blog post with the specified blog post ID, username, and content.
      * This constructor initializes the comment with the provided values.
@@ -60,14 +116,51 @@ public class Comment {
         this.content = content;
     }
 
+    /**
+     * Creates a reply to another comment of a blog post. The path is set from the parent by the service saving it.
+     * @param blogPostId the ID of the blog post to which the comment is being added
+     * @param parentId the ID of the comment being replied to
+     * @param username the username of the individual who is making the comment
+     * @param content the textual content of the comment
+     */
+    public Comment(Long blogPostId, Long parentId, String username, String content) {
+        this(blogPostId, username, content);
+        this.parentId = parentId;
+    }
+
+    /**
+     * Returns the path of the direct replies to this comment, which is also the prefix of the paths of all its
+     * descendants.
+     * @return the path of this comment followed by its own segment
+     */
+    public String childPath() {
+        return childPath(path, id);
+    }
+
+    /**
+     * Returns the path of the direct replies to a comment.
+     * @param path the path of the comment
+     * @param id the ID of the comment
+     * @return the path of the comment followed by the segment of its ID
+     */
+    public static String childPath(String path, Long id) {
+        String segment = Long.toString(id, 36);
+        return path + "0".repeat(SEGMENT_LENGTH - segment.length()) + segment + "/";
+    }
+
     /**
      * Lifecycle hook method that is called when a new comment entity is persisted.
      * It sets the creation time to the current date and time and initializes the update expiration time to 60 minutes later.
+     * The time is truncated to the microsecond precision of the column, so a keyset cursor taken from a comment that
+     * was just saved matches the stored row. Comments that are not replies get an empty path.
      */
     @PrePersist
     protected void onCreate() {
-        createdTime = LocalDateTime.now();
+        createdTime = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
         enableToUpdateTill = createdTime.plusMinutes(60);
+        if (path == null) {
+            path = "";
+        }
     }
 
     /**
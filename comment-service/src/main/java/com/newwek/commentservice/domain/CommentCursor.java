@@ -0,0 +1,65 @@
+package com.newwek.commentservice.domain;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import static java.lang.StringTemplate.STR;
+
+/**
+ * Position of a page in the comments of a blog post: the sort key of the last comment on the previous page, and the
+ * order the pages are walked in. The next page starts right after this position, so pages stay stable while comments
+ * are added or removed, and fetching a page costs the same no matter how deep into the comments it is.
+ * <p>
+ * Clients receive cursors as opaque, URL-safe tokens produced by {@link #encode()}; they should pass them back
+ * unchanged rather than build them.
+ *
+ * @param order       The order the pages are walked in.
+ * @param createdTime The creation time of the last comment on the previous page.
+ * @param id          The ID of the last comment on the previous page, breaking ties between equal creation times.
+ */
+public record CommentCursor(CommentOrder order, LocalDateTime createdTime, Long id) {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /**
+     * Creates the cursor pointing right after the given comment.
+     *
+     * @param order   the order the pages are walked in
+     * @param comment the last comment of the current page
+     * @return the cursor of the next page
+     */
+    public static CommentCursor after(CommentOrder order, Comment comment) {
+        return new CommentCursor(order, comment.getCreatedTime(), comment.getId());
+    }
+
+    /**
+     * Encodes this cursor into the token handed out to clients.
+     *
+     * @return the URL-safe token
+     */
+    public String encode() {
+        return ENCODER.encodeToString(STR."\{order}|\{createdTime}|\{id}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     *
+     * @param token the token received from a client
+     * @return the cursor it represents
+     * @throws IllegalArgumentException if the token is not a valid cursor
+     */
+    public static CommentCursor decode(String token) {
+        try {
+            String[] parts = new String(DECODER.decode(token), StandardCharsets.UTF_8).split("\\|", 3);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Malformed comment cursor");
+            }
+            return new CommentCursor(CommentOrder.valueOf(parts[0]), LocalDateTime.parse(parts[1]), Long.valueOf(parts[2]));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Malformed comment cursor", e);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.newwek.commentservice.domain;
+
+/**
+ * The orders in which the comments of a blog post can be paged through. Both orders sort by creation time and break
+ * ties by comment ID, so that every comment has a unique position even when several were created in the same instant.
+ */
+public enum CommentOrder {
+
+    /**
+     * The oldest comment first, the order in which a discussion is usually read.
+     */
+    OLDEST,
+
+    /**
+     * The most recent comment first, suited to showing the latest activity on a post.
+     */
+    NEWEST
+}
@@ -0,0 +1,12 @@
+package com.newwek.commentservice.domain;
+
+import java.util.List;
+
+/**
+ * One page of the comments of a blog post.
+ *
+ * @param comments The comments on this page, in the requested order.
+ * @param next     The cursor of the following page, or {@code null} if this is the last page.
+ */
+public record CommentPage(List<Comment> comments, CommentCursor next) {
+}
@@ -0,0 +1,12 @@
+package com.newwek.commentservice.domain;
+
+/**
+ * Where a comment sits in the threads of its blog post, read without loading the whole comment.
+ *
+ * @param blogPostId The ID of the blog post the comment belongs to.
+ * @param parentId   The ID of the comment it replies to, or {@code null} for a top-level comment.
+ * @param path       The materialized path of its ancestors, see {@link Comment}.
+ * @param replyCount The number of direct replies to the comment.
+ */
+public record CommentPosition(Long blogPostId, Long parentId, String path, long replyCount) {
+}
@@ -0,0 +1,47 @@
+package com.newwek.commentservice.domain;
+
+/**
+ * Outcome of a request to change the content of a comment.
+ *
+ * @param status  Whether the comment was updated, and if not, why.
+ * @param comment The updated comment, or {@code null} if it was not updated.
+ */
+public record CommentUpdate(Status status, Comment comment) {
+
+    /**
+     * Whether a comment was updated, and if not, why.
+     */
+    public enum Status {
+        /** The content was replaced. */
+        UPDATED,
+        /** No comment with the given ID exists. */
+        NOT_FOUND,
+        /** The comment is written by another user. */
+        NOT_AUTHOR,
+        /** The update window of the comment has closed. */
+        EXPIRED
+    }
+
+    public static CommentUpdate updated(Comment comment) {
+        return new CommentUpdate(Status.UPDATED, comment);
+    }
+
+    /**
+     * Explains why a conditional update did not change a comment, from the current state of the comment. The update
+     * compares the update window with the same instant, so an existing comment of the user can only have been refused
+     * because its window had closed.
+     *
+     * @param current  the comment as it is now, or {@code null} if it does not exist
+     * @param username the user who asked for the update
+     * @return the outcome of the refused update
+     */
+    public static CommentUpdate rejected(Comment current, String username) {
+        if (current == null) {
+            return new CommentUpdate(Status.NOT_FOUND, null);
+        }
+        if (!current.getUsername().equals(username)) {
+            return new CommentUpdate(Status.NOT_AUTHOR, null);
+        }
+        return new CommentUpdate(Status.EXPIRED, null);
+    }
+}
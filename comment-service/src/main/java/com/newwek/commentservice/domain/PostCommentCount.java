@@ -0,0 +1,10 @@
+package com.newwek.commentservice.domain;
+
+/**
+ * The number of comments of a blog post, as counted by the database.
+ *
+ * @param blogPostId The ID of the blog post.
+ * @param count      The number of comments of the post, replies included.
+ */
+public record PostCommentCount(Long blogPostId, long count) {
+}
@@ -0,0 +1,54 @@
+package com.newwek.commentservice.domain.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.newwek.commentservice.domain.Comment;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Data Transfer Object for the outcome of one comment of a batch creation. Every submitted comment produces exactly
+ * one entry, in the order the comments were submitted, so clients can match the results with their own list.
+ *
+ * @param index   The position of the comment in the submitted batch.
+ * @param status  Whether the comment was created, and if not, why.
+ * @param comment The created comment, or {@code null} if it was not created.
+ * @param error   A description of why the comment was not created, or {@code null} if it was.
+ */
+@Schema(description = "The outcome of one comment of a batch creation, in the same position as the submitted comment.")
+public record CommentBatchItemDto(
+        @JsonProperty("index")
+        @Schema(description = "The position of the comment in the submitted batch.", example = "0", requiredMode = Schema.RequiredMode.REQUIRED)
+        int index,
+
+        @JsonProperty("status")
+        @Schema(description = "Whether the comment was created, and if not, why.", example = "CREATED", requiredMode = Schema.RequiredMode.REQUIRED)
+        Status status,
+
+        @JsonProperty("comment")
+        @Schema(description = "The created comment, absent if it was not created.")
+        Comment comment,
+
+        @JsonProperty("error")
+        @Schema(description = "Why the comment was not created, absent if it was.", example = "Content comment could not be blank")
+        String error
+) {
+
+    /**
+     * Outcome of one comment of a batch creation.
+     */
+    public enum Status {
+        /** The comment was saved. */
+        CREATED,
+        /** The comment did not pass validation and was not submitted. */
+        INVALID,
+        /** The blog post the comment refers to does not exist. */
+        POST_NOT_FOUND
+    }
+
+    public static CommentBatchItemDto created(int index, Comment comment) {
+        return new CommentBatchItemDto(index, Status.CREATED, comment, null);
+    }
+
+    public static CommentBatchItemDto failed(int index, Status status, String error) {
+        return new CommentBatchItemDto(index, status, null, error);
+    }
+}
@@ -0,0 +1,34 @@
+package com.newwek.commentservice.domain.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.newwek.commentservice.domain.Comment;
+import com.newwek.commentservice.domain.CommentCursor;
+import com.newwek.commentservice.domain.CommentPage;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object for one page of the comments of a blog post.
+ * Clients fetch the following page by passing {@code nextCursor} back as the {@code cursor} request parameter,
+ * until a page comes back without one.
+ *
+ * @param comments   The comments on this page, in the requested order.
+ * @param nextCursor The opaque cursor of the following page, or {@code null} if this is the last page.
+ */
+@Schema(description = "One page of the comments of a blog post.")
+public record CommentPageDto(
+        @JsonProperty("comments")
+        @Schema(description = "The comments on this page, in the requested order.", requiredMode = Schema.RequiredMode.REQUIRED)
+        List<Comment> comments,
+
+        @JsonProperty("nextCursor")
+        @Schema(description = "Opaque cursor of the following page, absent on the last page.", example = "T0xERVNUfDIwMjQtMDQtMDFUMTA6MTU6MDB8NDI")
+        String nextCursor
+) {
+
+    public static CommentPageDto of(CommentPage page) {
+        CommentCursor next = page.next();
+        return new CommentPageDto(page.comments(), next != null ? next.encode() : null);
+    }
+}
@@ -15,6 +15,7 @@ import io.swagger.v3.oas.annotations.media.Schema;
  *
  * @param blogPostId The ID of the blog post to which the comment will be attached. This cannot be null and must refer to an existing post.
  * @param content The text content of the comment. It must be a non-empty, non-blank string between 2 and 255 characters, providing sufficient detail to be meaningful but concise enough to ensure readability and relevance.
+ * @param parentId The ID of the comment being replied to, which must belong to the same blog post, or null for a top-level comment.
  */
 public record CreateCommentDto(
         @NotNull(message = "Blog post id could not be null")
@@ -26,6 +27,16 @@ public record CreateCommentDto(
         @NotEmpty(message = "Content comment could not be empty")
         @NotBlank(message = "Content comment could not be blank")
         @Schema(description = "The content of the comment. Must be a non-blank, non-empty string within 2 to 255 characters, ensuring clarity and brevity.", requiredMode = Schema.RequiredMode.REQUIRED, example = "This is a great post! Thanks for sharing.")
-        String content
+        String content,
+
+        @Schema(description = "The unique identifier of the comment being replied to, which must belong to the same blog post. Omit it for a top-level comment.", example = "42")
+        Long parentId
 ) implements Serializable {
+
+    /**
+     * Creates a top-level comment.
+     */
+    public CreateCommentDto(Long blogPostId, String content) {
+        this(blogPostId, content, null);
+    }
 }
@@ -1,15 +1,35 @@
 package com.newwek.commentservice.repository;
 
 import com.newwek.commentservice.domain.Comment;
+import com.newwek.commentservice.domain.CommentPosition;
+import com.newwek.commentservice.domain.PostCommentCount;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Spring Data JPA repository for handling persistence operations for {@link Comment} entities.
  * This repository provides standard CRUD operations and includes custom methods to handle specific
  * queries related to the 'comments' related to a particular blog post.
+ *
+ * <p>The page queries implement keyset pagination over {@code (created_time, id)}: a page continues strictly after the
+ * sort key of the previous page's last comment instead of skipping rows with an offset, so every page is a range scan
+ * of the {@code (blog_post_id, created_time, id)} index declared on {@link Comment}.
+ *
+ * <p>The thread queries select the descendants of a comment by the prefix of their materialized path, which is a range
+ * scan of the {@code path} index whatever the depth of the thread. Paths only contain base-36 digits and slashes, so the
+ * prefix never needs escaping in a {@code like} pattern.
  */
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
@@ -22,10 +42,185 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
     List<Comment> findAllByBlogPostId(Long blogPostId);
 
     /**
-     * Deletes all comments that are associated with a specific blog post ID.
-     * This operation is typically used when a blog post is deleted to ensure data integrity.
-     * @param blogPostId the ID of the blog post for which comments need to be deleted
+     * Retrieves the first page of the comments of a blog post, oldest first.
+     * @param blogPostId the ID of the blog post
+     * @param limit the maximum number of comments to return
+     * @return the oldest comments of the post, ordered by creation time and ID
      */
-    void deleteAllByBlogPostId(Long blogPostId);
-}
+    @Query("select c from Comment c where c.blogPostId = :blogPostId order by c.createdTime asc, c.id asc")
+    List<Comment> findOldestByBlogPostId(@Param("blogPostId") Long blogPostId, Limit limit);
+
+    /**
+     * Retrieves the comments of a blog post that come after the given position, oldest first.
+     * @param blogPostId the ID of the blog post
+     * @param createdTime the creation time of the last comment of the previous page
+     * @param id the ID of the last comment of the previous page
+     * @param limit the maximum number of comments to return
+     * @return the comments following the position, ordered by creation time and ID
+     */
+    @Query("""
+            select c from Comment c
+            where c.blogPostId = :blogPostId
+              and (c.createdTime > :createdTime or (c.createdTime = :createdTime and c.id > :id))
+            order by c.createdTime asc, c.id asc""")
+    List<Comment> findOldestByBlogPostIdAfter(@Param("blogPostId") Long blogPostId, @Param("createdTime") LocalDateTime createdTime,
+                                              @Param("id") Long id, Limit limit);
+
+    /**
+     * Retrieves the first page of the comments of a blog post, newest first.
+     * @param blogPostId the ID of the blog post
+     * @param limit the maximum number of comments to return
+     * @return the most recent comments of the post, ordered by descending creation time and ID
+     */
+    @Query("select c from Comment c where c.blogPostId = :blogPostId order by c.createdTime desc, c.id desc")
+    List<Comment> findNewestByBlogPostId(@Param("blogPostId") Long blogPostId, Limit limit);
+
+    /**
+     * Retrieves the comments of a blog post that come after the given position, newest first.
+     * @param blogPostId the ID of the blog post
+     * @param createdTime the creation time of the last comment of the previous page
+     * @param id the ID of the last comment of the previous page
+     * @param limit the maximum number of comments to return
+     * @return the comments created before the position, ordered by descending creation time and ID
+     */
+    @Query("""
+            select c from Comment c
+            where c.blogPostId = :blogPostId
+              and (c.createdTime < :createdTime or (c.createdTime = :createdTime and c.id < :id))
+            order by c.createdTime desc, c.id desc""")
+    List<Comment> findNewestByBlogPostIdAfter(@Param("blogPostId") Long blogPostId, @Param("createdTime") LocalDateTime createdTime,
+                                              @Param("id") Long id, Limit limit);
+
+    /**
+     * Counts the comments of several blog posts with a single grouped query, which only reads the index leading with
+     * {@code blog_post_id}.
+     * @param blogPostIds the IDs of the blog posts
+     * @return the number of comments of each post that has any; posts without comments are left out
+     */
+    @Query("""
+            select new com.newwek.commentservice.domain.PostCommentCount(c.blogPostId, count(c))
+            from Comment c where c.blogPostId in :blogPostIds group by c.blogPostId""")
+    List<PostCommentCount> countByBlogPostIdIn(@Param("blogPostIds") Collection<Long> blogPostIds);
 
+    /**
+     * Retrieves the IDs of up to {@code limit} comments of a blog post, reading only the index on {@code blog_post_id}.
+     * @param blogPostId the ID of the blog post
+     * @param limit the maximum number of IDs to return
+     * @return the IDs of comments of the post
+     */
+    @Query("select c.id from Comment c where c.blogPostId = :blogPostId")
+    List<Long> findIdsByBlogPostId(@Param("blogPostId") Long blogPostId, Limit limit);
+
+    /**
+     * Deletes the given comments of a blog post with a single set-based statement, without loading them into the
+     * persistence context. The post ID is repeated in the condition so a chunk can never reach into another post.
+     * @param blogPostId the ID of the blog post the comments belong to
+     * @param ids the IDs of the comments to delete
+     * @return the number of deleted comments
+     */
+    @Modifying
+    @Query("delete from Comment c where c.blogPostId = :blogPostId and c.id in :ids")
+    int deleteByBlogPostIdAndIdIn(@Param("blogPostId") Long blogPostId, @Param("ids") Collection<Long> ids);
+
+    /**
+     * Replaces the content of a comment with a single conditional statement, only if the comment is written by the
+     * given user and its update window is still open at {@code now}.
+     * @param id the ID of the comment
+     * @param username the user asking for the update
+     * @param content the new content
+     * @param now the current time, also recorded as the modification time
+     * @return 1 if the comment was updated, 0 if it does not exist, is written by someone else or can no longer be updated
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            update Comment c set c.content = :content, c.modifiedTime = :now
+            where c.id = :id and c.username = :username and c.enableToUpdateTill > :now""")
+    int updateContentIfEditable(@Param("id") Long id, @Param("username") String username, @Param("content") String content,
+                                @Param("now") LocalDateTime now);
+
+    /**
+     * Retrieves where a comment sits in the threads of its post, without loading the entity.
+     * @param id the ID of the comment
+     * @return the position of the comment, or empty if the comment does not exist
+     */
+    @Query("""
+            select new com.newwek.commentservice.domain.CommentPosition(c.blogPostId, c.parentId, c.path, c.replyCount)
+            from Comment c where c.id = :id""")
+    Optional<CommentPosition> findPosition(@Param("id") Long id);
+
+    /**
+     * Retrieves where a comment sits in the threads of its post and locks its row until the end of the transaction,
+     * so the comment and its replies can be deleted right after without loading the entities. Holding the lock also
+     * keeps new replies from being attached to it in the meantime, see {@link #addToReplyCount(Long, long)}.
+     * @param id the ID of the comment
+     * @return the position of the comment, or empty if the comment does not exist
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            select new com.newwek.commentservice.domain.CommentPosition(c.blogPostId, c.parentId, c.path, c.replyCount)
+            from Comment c where c.id = :id""")
+    Optional<CommentPosition> findPositionForDelete(@Param("id") Long id);
+
+    /**
+     * Retrieves all descendants of a comment with one range scan of the {@code path} index.
+     * @param pathPrefix the path of the direct replies to the comment, see {@link Comment#childPath()}
+     * @return the replies to the comment at any depth, in no particular order
+     */
+    @Query("select c from Comment c where c.path like concat(:pathPrefix, '%')")
+    List<Comment> findThread(@Param("pathPrefix") String pathPrefix);
+
+    /**
+     * Retrieves the descendants of a comment, keeping at most {@code perParent} replies to each comment, the oldest
+     * ones. The replies are numbered per parent by a window function over the same range scan of the {@code path}
+     * index, so a node that was left out may still have replies in the result; they have to be discarded by the caller.
+     * @param pathPrefix the path of the direct replies to the comment, see {@link Comment#childPath()}
+     * @param perParent the maximum number of replies to keep for each comment
+     * @return the oldest replies to each comment of the thread, in no particular order
+     */
+    @Query(nativeQuery = true, value = """
+            select ranked.id, ranked.blog_post_id, ranked.username, ranked.content, ranked.created_time,
+                   ranked.enable_to_update_till, ranked.modified_time, ranked.parent_id, ranked.path, ranked.reply_count
+            from (select c.*, row_number() over (partition by c.parent_id order by c.created_time, c.id) as reply_rank
+                  from comment c where c.path like concat(:pathPrefix, '%')) ranked
+            where ranked.reply_rank <= :perParent""")
+    List<Comment> findThreadLimitedPerParent(@Param("pathPrefix") String pathPrefix, @Param("perParent") int perParent);
+
+    /**
+     * Retrieves the IDs of all descendants of a comment, reading only the {@code path} index.
+     * @param pathPrefix the path of the direct replies to the comment, see {@link Comment#childPath()}
+     * @return the IDs of the replies to the comment at any depth
+     */
+    @Query("select c.id from Comment c where c.path like concat(:pathPrefix, '%')")
+    List<Long> findThreadIds(@Param("pathPrefix") String pathPrefix);
+
+    /**
+     * Adds to the number of direct replies of a comment with a single statement, which also locks its row until the
+     * end of the transaction.
+     * @param id the ID of the comment
+     * @param delta the number of replies added, negative if replies were removed
+     * @return 1 if the count was changed, 0 if the comment does not exist
+     */
+    @Modifying
+    @Query("update Comment c set c.replyCount = c.replyCount + :delta where c.id = :id")
+    int addToReplyCount(@Param("id") Long id, @Param("delta") long delta);
+
+    /**
+     * Deletes a comment with a single set-based statement, without loading it into the persistence context.
+     * @param id the ID of the comment
+     * @return the number of deleted comments, 0 or 1
+     */
+    @Modifying
+    @Query("delete from Comment c where c.id = :id")
+    int deleteCommentById(@Param("id") Long id);
+
+    /**
+     * Deletes a comment along with all of its replies at any depth, with a single set-based statement.
+     * @param id the ID of the comment
+     * @param pathPrefix the path of the direct replies to the comment, see {@link Comment#childPath()}
+     * @return the number of deleted comments
+     */
+    @Modifying
+    @Query("delete from Comment c where c.id = :id or c.path like concat(:pathPrefix, '%')")
+    int deleteThread(@Param("id") Long id, @Param("pathPrefix") String pathPrefix);
+}
@@ -1,8 +1,14 @@
 package com.newwek.commentservice.service;
 
 import com.newwek.commentservice.domain.Comment;
+import com.newwek.commentservice.domain.CommentCursor;
+import com.newwek.commentservice.domain.CommentOrder;
+import com.newwek.commentservice.domain.CommentPage;
+import com.newwek.commentservice.domain.CommentUpdate;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Service interface for managing comments. This interface abstracts the logic required to
@@ -31,10 +37,36 @@ public interface CommentService {
     Comment save(Comment comment);
 
     /**
-     * Deletes a comment by its ID.
+     * Creates several new comments at once, adjusting the comment count of each affected blog post once.
+     * Comments of blog posts that do not exist are skipped.
+     * @param comments the new comments to save
+     * @return one entry per given comment, in the same order: the saved comment, or null if its blog post does not exist
+     */
+    List<Comment> saveAll(List<Comment> comments);
+
+    /**
+     * Replaces the content of a comment, if it is written by the given user and its update window is still open.
+     * @param id the ID of the comment to update
+     * @param username the user asking for the update
+     * @param content the new content
+     * @return the updated comment, or why the comment was not updated
+     */
+    CommentUpdate update(Long id, String username, String content);
+
+    /**
+     * Deletes a comment by its ID, along with all of its replies.
      * @param id the ID of the comment to delete
+     * @return true if the comment was deleted, false if it does not exist
      */
-    void deleteById(Long id);
+    boolean deleteById(Long id);
+
+    /**
+     * Finds the replies to a comment at any depth, each reply followed by its own replies.
+     * @param id the ID of the comment
+     * @param perParent the maximum number of replies to return for each comment, or null for all of them
+     * @return the replies in thread order, or null if the comment does not exist
+     */
+    List<Comment> findReplies(Long id, Integer perParent);
 
     /**
      * Finds all comments related to a specific blog post ID.
@@ -43,9 +75,27 @@ public interface CommentService {
      */
     List<Comment> findCommentsByPostId(Long id);
 
+    /**
+     * Counts the comments of several blog posts.
+     * @param postIds the IDs of the blog posts
+     * @return the number of comments of each post, in the order of the given IDs, 0 for posts without comments
+     */
+    Map<Long, Long> countCommentsByPostIds(Collection<Long> postIds);
+
+    /**
+     * Finds one page of the comments related to a specific blog post ID.
+     * @param postId the blog post ID for which comments are to be found
+     * @param order the order of the comments, used for the first page only as the cursor carries it afterwards
+     * @param cursor the position after which the page starts, or null for the first page
+     * @param size the maximum number of comments on the page
+     * @return the page, with the cursor of the following page if there is one
+     */
+    CommentPage findCommentsPageByPostId(Long postId, CommentOrder order, CommentCursor cursor, int size);
+
     /**
      * Deletes all comments associated with a specific blog post ID.
      * @param postId the ID of the blog post for which all comments should be deleted
+     * @return the number of deleted comments, 0 if the post had none
      */
-    void deleteAllForPostId(Long postId);
+    int deleteAllForPostId(Long postId);
 }
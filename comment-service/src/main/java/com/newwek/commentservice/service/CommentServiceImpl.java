@@ -1,22 +1,35 @@
 package com.newwek.commentservice.service;
 
 import com.newwek.commentservice.domain.Comment;
+import com.newwek.commentservice.domain.CommentCursor;
+import com.newwek.commentservice.domain.CommentOrder;
+import com.newwek.commentservice.domain.CommentPage;
+import com.newwek.commentservice.domain.CommentPosition;
+import com.newwek.commentservice.domain.CommentUpdate;
+import com.newwek.commentservice.domain.PostCommentCount;
 import com.newwek.commentservice.repository.CommentRepository;
+import com.newwek.commentservice.stream.CommentEvent;
+import com.newwek.commentservice.stream.CommentStreamHub;
+import com.newwek.platform.jfr.ServiceCallEvent;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.*;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.sql.SQLException;
-import java.util.List;
-import java.util.Objects;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
 
 import static com.newwek.commentservice.config.CacheNames.*;
 import static java.lang.StringTemplate.STR;
@@ -24,17 +37,24 @@ import static java.lang.StringTemplate.STR;
 /**
  * Provides implementation for {@link CommentService} interface with business logic to manage comments
  * on blog posts. This service uses {@link CommentRepository} for database operations and integrates
- * external service calls to manage related functionalities like comment counters.
+ * external service calls to manage related functionalities like comment counters. Every successful write is also
+ * published to the clients streaming the comments of its post, see {@link CommentStreamHub}.
  *
  * @see CommentService for service interface
  */
 @Service
+@Timed(value = "service.calls", histogram = true)
 @RequiredArgsConstructor
 @Slf4j
-@CacheConfig(cacheNames = {COMMENT_CACHE, COMMENTS_LIST_CACHE, BLOG_COMMENTS_CACHE})
+@CacheConfig(cacheNames = {COMMENT_CACHE, COMMENTS_LIST_CACHE})
 public class CommentServiceImpl implements CommentService {
+    static final int DELETE_CHUNK_SIZE = 500;
+
     private final CommentRepository commentRepository;
     private final RestTemplate restTemplate;
+    private final PostCommentsCache postCommentsCache;
+    private final TransactionTemplate transactionTemplate;
+    private final CommentStreamHub commentStreamHub;
 
     /**
      * Retrieves all comments stored in the database.
@@ -60,109 +80,473 @@ public class CommentServiceImpl implements CommentService {
     }
 
     /**
-     * Saves a comment to the database and adjusts the comment count for the associated blog post.
+     * Saves a comment to the database and, for a new comment, increments the comment count of the associated blog post.
      * If saving fails due to a data integrity issue, it attempts to revert the comment count and throws a status exception.
+     * The cached comments of the post are patched with the saved comment, leaving the entries of other posts in place.
+     * <p>
+     * A new reply gets the path of its parent, which must belong to the same post, and is inserted in the same
+     * transaction as the increment of the parent's reply count. The increment locks the parent row, so a reply can
+     * never be attached to a comment that is being deleted. The cached comments of the post are evicted, as the reply
+     * count of the parent changed.
      *
      * @param comment The {@link Comment} to save.
      * @return the saved {@link Comment} instance.
-     * @throws ResponseStatusException if the comment cannot be saved or the comment count adjustment fails.
+     * @throws ResponseStatusException if the comment cannot be saved, its parent cannot be replied to or the comment
+     * count adjustment fails.
      */
     @Override
     @Caching(
             evict = {
-                     @CacheEvict(value = COMMENTS_LIST_CACHE, allEntries = true),
-                     @CacheEvict(value = BLOG_COMMENTS_CACHE, allEntries = true)
+                     @CacheEvict(value = COMMENTS_LIST_CACHE, allEntries = true)
             },
             put = {@CachePut(value = COMMENT_CACHE, key = "#comment.id")}
     )
     public Comment save(Comment comment) {
         Long postID = comment.getBlogPostId();
-        decreaseBlogPostCommentsCounter(postID, HttpMethod.GET);
+        boolean created = comment.getId() == null;
+        Long parentId = created ? comment.getParentId() : null;
+        if (parentId != null) {
+            comment.setPath(replyPath(comment));
+        }
+        if (created) {
+            decreaseBlogPostCommentsCounter(postID, HttpMethod.GET);
+        }
 
         try {
-            return commentRepository.save(comment);
+            Comment saved = parentId == null
+                    ? commentRepository.save(comment)
+                    : transactionTemplate.execute(status -> commentRepository.addToReplyCount(parentId, 1) > 0
+                            ? commentRepository.save(comment) : null);
+            if (saved == null) {
+                log.info("Reverting blog post comments counter");
+                decreaseBlogPostCommentsCounter(postID, HttpMethod.DELETE);
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, STR."Comment with id \{parentId} not found.");
+            }
+            if (parentId != null) {
+                postCommentsCache.threadChanged(postID, List.of(parentId), 1);
+            } else if (created) {
+                postCommentsCache.added(saved);
+            } else {
+                postCommentsCache.updated(saved);
+            }
+            commentStreamHub.publish(created ? CommentEvent.created(saved) : CommentEvent.updated(saved));
+            return saved;
         } catch (DataIntegrityViolationException exception) {
             log.error("Error saving comment {}", comment, exception);
-            log.info("Reverting blog post comments counter");
-            decreaseBlogPostCommentsCounter(postID, HttpMethod.DELETE);
+            if (created) {
+                log.info("Reverting blog post comments counter");
+                decreaseBlogPostCommentsCounter(postID, HttpMethod.DELETE);
+            }
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Could not save comment.");
         }
     }
 
     /**
-     * Deletes a comment by its ID and updates the associated blog post's comment count.
+     * Computes the path of a new reply from the position of its parent.
+     *
+     * @param reply The new reply, with the ID of its parent.
+     * @return the path of the reply.
+     * @throws ResponseStatusException if the parent does not exist, belongs to another post or is nested too deeply.
+     */
+    private String replyPath(Comment reply) {
+        CommentPosition parent = commentRepository.findPosition(reply.getParentId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, STR."Comment with id \{reply.getParentId()} not found."));
+        if (!parent.blogPostId().equals(reply.getBlogPostId())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A reply must belong to the blog post of the comment it replies to.");
+        }
+        String path = Comment.childPath(parent.path(), reply.getParentId());
+        if (path.length() > Comment.MAX_PATH_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, STR."Replies could not be nested more than \{Comment.MAX_DEPTH} levels deep.");
+        }
+        return path;
+    }
+
+    /**
+     * Creates several new comments at once. The comment count of each distinct blog post is adjusted with one call to
+     * the blog service carrying the number of its new comments, then all comments are inserted in a single transaction
+     * which Hibernate sends as JDBC batches. The cached comments of every affected post are patched once.
+     * If the insert fails, the counter adjustments are reverted and a status exception is thrown.
+     *
+     * @param comments The new {@link Comment}s to save.
+     * @return the saved comments in the given order, with null for each comment whose blog post does not exist.
+     * @throws ResponseStatusException if the comments cannot be saved or a comment count adjustment fails.
+     */
+    @Override
+    @CacheEvict(value = COMMENTS_LIST_CACHE, allEntries = true)
+    public List<Comment> saveAll(List<Comment> comments) {
+        Map<Long, Long> countsByPost = comments.stream()
+                .collect(Collectors.groupingBy(Comment::getBlogPostId, LinkedHashMap::new, Collectors.counting()));
+        Map<Long, Long> adjusted = new LinkedHashMap<>();
+        Set<Long> missingPosts = new HashSet<>();
+        try {
+            countsByPost.forEach((postId, count) -> {
+                if (addToBlogPostCommentsCounter(postId, count)) {
+                    adjusted.put(postId, count);
+                } else {
+                    missingPosts.add(postId);
+                }
+            });
+        } catch (RuntimeException exception) {
+            revertBlogPostCommentsCounters(adjusted);
+            throw exception;
+        }
+
+        List<Comment> accepted = comments.stream().filter(comment -> !missingPosts.contains(comment.getBlogPostId())).toList();
+        List<Comment> saved;
+        try {
+            saved = commentRepository.saveAll(accepted);
+        } catch (DataIntegrityViolationException exception) {
+            log.error("Error saving a batch of {} comments", accepted.size(), exception);
+            log.info("Reverting blog post comments counters");
+            revertBlogPostCommentsCounters(adjusted);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Could not save comments.");
+        }
+
+        saved.stream()
+                .collect(Collectors.groupingBy(Comment::getBlogPostId, LinkedHashMap::new, Collectors.toList()))
+                .forEach((postId, postComments) -> {
+                    postCommentsCache.added(postId, postComments);
+                    commentStreamHub.publish(CommentEvent.created(postId, postComments));
+                });
+
+        Iterator<Comment> savedComments = saved.iterator();
+        List<Comment> results = new ArrayList<>(comments.size());
+        for (Comment comment : comments) {
+            results.add(missingPosts.contains(comment.getBlogPostId()) ? null : savedComments.next());
+        }
+        return results;
+    }
+
+    /**
+     * Replaces the content of a comment with one conditional update statement that only matches if the comment is
+     * written by the given user and its update window is still open, so ownership and the window are checked by the
+     * database in the same round trip as the write. The comment is then read once, either to return and cache it or,
+     * if nothing was updated, to tell why. The comment count of the blog post is not affected.
+     *
+     * @param id       The ID of the comment to update.
+     * @param username The user asking for the update.
+     * @param content  The new content.
+     * @return the updated comment, or why it was not updated.
+     */
+    @Override
+    @Caching(
+            evict = {
+                    @CacheEvict(value = COMMENTS_LIST_CACHE, allEntries = true),
+                    @CacheEvict(value = COMMENT_CACHE, key = "#id"),
+            }
+    )
+    public CommentUpdate update(Long id, String username, String content) {
+        int updated = commentRepository.updateContentIfEditable(id, username, content, LocalDateTime.now());
+        Comment comment = commentRepository.findById(id).orElse(null);
+        if (updated == 0 || comment == null) {
+            return CommentUpdate.rejected(comment, username);
+        }
+        postCommentsCache.updated(comment);
+        commentStreamHub.publish(CommentEvent.updated(comment));
+        return CommentUpdate.updated(comment);
+    }
+
+    /**
+     * Deletes a comment along with all of its replies and updates the associated blog post's comment count.
+     * The position of the comment is read under a row lock and the comment deleted in the same short transaction,
+     * without loading any entity: a comment without replies is deleted by ID, otherwise its whole thread is deleted by
+     * path prefix with one statement. The reply count of its parent is decreased in the same transaction, and the
+     * counter of the post is decreased by the number of deleted comments afterwards. A top-level comment without
+     * replies is removed from the cached comments of its post, otherwise the cached comments of the post are evicted.
+     * If the counter of the post cannot be decreased, the error is logged and the deletion still reported.
      *
      * @param id The ID of the comment to delete.
+     * @return true if the comment was deleted, false if it does not exist.
      */
     @Override
     @Caching(
             evict = {
-                    @CacheEvict(value = BLOG_COMMENTS_CACHE, allEntries = true),
                     @CacheEvict(value = COMMENTS_LIST_CACHE, allEntries = true),
                     @CacheEvict(value = COMMENT_CACHE, key = "#id"),
             }
     )
-    public void deleteById(Long id) {
+    public boolean deleteById(Long id) {
+        ThreadDeletion deletion = transactionTemplate.execute(status -> commentRepository.findPositionForDelete(id)
+                .map(position -> deleteThread(id, position))
+                .filter(deleted -> deleted.count() > 0)
+                .orElse(null));
+        if (deletion == null) {
+            return false;
+        }
+
+        Long postId = deletion.position().blogPostId();
+        if (deletion.count() == 1 && deletion.position().parentId() == null) {
+            postCommentsCache.removed(postId, id);
+        } else {
+            List<Long> changed = new ArrayList<>(deletion.ids());
+            if (deletion.position().parentId() != null) {
+                changed.add(deletion.position().parentId());
+            }
+            postCommentsCache.threadChanged(postId, changed, -deletion.count());
+        }
+        commentStreamHub.publish(CommentEvent.deleted(postId, deletion.ids()));
+
+        decreaseBlogPostCommentsCounterAfterDelete(postId, deletion.count());
+        return true;
+    }
+
+    /**
+     * Helper method to decrease the comment count of a blog post by the number of comments whose deletion has already
+     * been committed. Failures are logged rather than thrown: the comments are gone, so the caller must not be told
+     * that the deletion failed.
+     *
+     * @param postId The ID of the blog post whose comment count is to be adjusted.
+     * @param count  The number of deleted comments.
+     */
+    private void decreaseBlogPostCommentsCounterAfterDelete(Long postId, int count) {
         try {
-            decreaseBlogPostCommentsCounter(id, HttpMethod.DELETE);
-        } finally {
-            commentRepository.deleteById(id);
+            if (count == 1) {
+                decreaseBlogPostCommentsCounter(postId, HttpMethod.DELETE);
+            } else if (!addToBlogPostCommentsCounter(postId, -count)) {
+                log.warn("Blog post {} not found when decreasing its comments counter by {}", postId, count);
+            }
+        } catch (RuntimeException exception) {
+            log.error("Could not decrease the comments counter of blog post {} by {}", postId, count, exception);
+        }
+    }
+
+    private ThreadDeletion deleteThread(Long id, CommentPosition position) {
+        List<Long> ids;
+        int count;
+        if (position.replyCount() == 0) {
+            ids = List.of(id);
+            count = commentRepository.deleteCommentById(id);
+        } else {
+            String pathPrefix = Comment.childPath(position.path(), id);
+            ids = new ArrayList<>(commentRepository.findThreadIds(pathPrefix));
+            ids.add(id);
+            count = commentRepository.deleteThread(id, pathPrefix);
+        }
+        if (count > 0 && position.parentId() != null) {
+            commentRepository.addToReplyCount(position.parentId(), -1);
+        }
+        return new ThreadDeletion(position, ids, count);
+    }
+
+    /**
+     * Outcome of the deletion of a comment and its replies.
+     *
+     * @param position The position of the deleted comment.
+     * @param ids      The IDs of the deleted comments.
+     * @param count    The number of deleted comments.
+     */
+    private record ThreadDeletion(CommentPosition position, List<Long> ids, int count) {
+    }
+
+    /**
+     * Retrieves the replies to a comment at any depth, from one range scan of the materialized paths. The replies are
+     * returned in thread order: each reply is followed by its own replies before its next sibling, and siblings come
+     * in the order they were created. With {@code perParent}, only the oldest replies to each comment are kept, which
+     * the database selects with a window function in the same scan; replies to comments that were left out are dropped.
+     *
+     * @param id        The ID of the comment.
+     * @param perParent The maximum number of replies to keep for each comment, or null to keep them all.
+     * @return the replies in thread order, or null if the comment does not exist.
+     */
+    @Override
+    public List<Comment> findReplies(Long id, Integer perParent) {
+        CommentPosition position = commentRepository.findPosition(id).orElse(null);
+        if (position == null) {
+            return null;
+        }
+        if (position.replyCount() == 0) {
+            return List.of();
         }
+
+        String pathPrefix = Comment.childPath(position.path(), id);
+        List<Comment> replies = new ArrayList<>(perParent == null
+                ? commentRepository.findThread(pathPrefix)
+                : commentRepository.findThreadLimitedPerParent(pathPrefix, perParent));
+        // The child path of a comment sorts right after its parent's and before its next sibling's
+        replies.sort(Comparator.comparing(Comment::childPath));
+        if (perParent == null) {
+            return replies;
+        }
+
+        Set<Long> kept = new HashSet<>(List.of(id));
+        List<Comment> thread = new ArrayList<>(replies.size());
+        for (Comment reply : replies) {
+            if (kept.contains(reply.getParentId())) {
+                kept.add(reply.getId());
+                thread.add(reply);
+            }
+        }
+        return thread;
     }
 
     /**
-     * Retrieves all comments associated with a specific blog post ID.
+     * Retrieves all comments associated with a specific blog post ID. The list is cached per post and kept up to date
+     * by the writes of this service, see {@link PostCommentsCache}.
      *
      * @param blogPostId The blog post ID for which to find comments.
      * @return a list of {@link Comment} associated with the given blog post.
      */
     @Override
-    @Cacheable(value = BLOG_COMMENTS_CACHE, key = "#blogPostId")
     public List<Comment> findCommentsByPostId(Long blogPostId) {
-        return commentRepository.findAllByBlogPostId(blogPostId);
+        return postCommentsCache.comments(blogPostId, () -> commentRepository.findAllByBlogPostId(blogPostId));
+    }
+
+    /**
+     * Counts the comments of several blog posts. Each count is cached per post and kept up to date by the writes of
+     * this service, so a warm call does not reach the database; the posts missing from the cache are counted together
+     * with one grouped query.
+     *
+     * @param postIds The blog post IDs.
+     * @return the number of comments of each post, in the order of the given IDs, 0 for posts without comments.
+     */
+    @Override
+    public Map<Long, Long> countCommentsByPostIds(Collection<Long> postIds) {
+        return postCommentsCache.counts(postIds, missing -> commentRepository.countByBlogPostIdIn(missing).stream()
+                .collect(Collectors.toMap(PostCommentCount::blogPostId, PostCommentCount::count)));
     }
 
     /**
-     * Deletes all comments associated with a given blog post ID and updates the comment count accordingly.
-     * This method is transactional to ensure all deletions complete successfully before updating the count.
+     * Retrieves one page of the comments of a blog post using keyset pagination. One comment more than requested is
+     * fetched to learn whether a following page exists without a separate count query.
+     * Each page is cached on its own, keyed by post, order, cursor and size, so a deep or large post never turns into
+     * one huge cache entry. Writes to the post patch or evict only its own pages, see {@link PostCommentsCache}.
+     *
+     * @param postId The blog post ID for which to find comments.
+     * @param order  The order of the comments, used when no cursor is given.
+     * @param cursor The position after which the page starts, or null for the first page.
+     * @param size   The maximum number of comments on the page.
+     * @return the {@link CommentPage}, with the cursor of the following page if there is one.
+     */
+    @Override
+    public CommentPage findCommentsPageByPostId(Long postId, CommentOrder order, CommentCursor cursor, int size) {
+        CommentOrder pageOrder = cursor != null ? cursor.order() : order;
+        return postCommentsCache.page(postId, pageOrder, cursor, size, () -> loadCommentsPage(postId, pageOrder, cursor, size));
+    }
+
+    private CommentPage loadCommentsPage(Long postId, CommentOrder pageOrder, CommentCursor cursor, int size) {
+        Limit limit = Limit.of(size + 1);
+        List<Comment> comments = switch (pageOrder) {
+            case OLDEST -> cursor == null
+                    ? commentRepository.findOldestByBlogPostId(postId, limit)
+                    : commentRepository.findOldestByBlogPostIdAfter(postId, cursor.createdTime(), cursor.id(), limit);
+            case NEWEST -> cursor == null
+                    ? commentRepository.findNewestByBlogPostId(postId, limit)
+                    : commentRepository.findNewestByBlogPostIdAfter(postId, cursor.createdTime(), cursor.id(), limit);
+        };
+
+        if (comments.size() <= size) {
+            return new CommentPage(comments, null);
+        }
+        List<Comment> page = List.copyOf(comments.subList(0, size));
+        return new CommentPage(page, CommentCursor.after(pageOrder, page.getLast()));
+    }
+
+    /**
+     * Deletes all comments associated with a given blog post ID in chunks of {@link #DELETE_CHUNK_SIZE}. Each chunk
+     * selects the IDs of some of the post's comments and deletes them with one set-based statement in its own short
+     * transaction, so deleting a heavily commented post neither loads its comments into memory nor holds row locks
+     * for the whole operation. If a chunk fails, the chunks before it stay deleted and the call can simply be repeated.
+     * Only the cache entries of the post and of its comments are evicted.
      *
      * @param postId The blog post ID for which all comments should be deleted.
+     * @return the number of deleted comments.
      */
     @Override
-    @Transactional
-    @Caching(
-            evict = {@CacheEvict(value = BLOG_COMMENTS_CACHE, key = "#postId"),
-                    @CacheEvict(value = COMMENT_CACHE, allEntries = true),
-                    @CacheEvict(value = COMMENTS_LIST_CACHE, allEntries = true),
-            }
-    )
-    public void deleteAllForPostId(Long postId) {
-        commentRepository.deleteAllByBlogPostId(postId);
+    @CacheEvict(value = COMMENTS_LIST_CACHE, allEntries = true)
+    public int deleteAllForPostId(Long postId) {
+        int deleted = 0;
+        int chunk;
+        do {
+            chunk = Objects.requireNonNull(transactionTemplate.execute(status -> {
+                List<Long> ids = commentRepository.findIdsByBlogPostId(postId, Limit.of(DELETE_CHUNK_SIZE));
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                int count = commentRepository.deleteByBlogPostIdAndIdIn(postId, ids);
+                postCommentsCache.commentsRemoved(ids);
+                commentStreamHub.publish(CommentEvent.deleted(postId, ids));
+                return count;
+            }));
+            deleted += chunk;
+        } while (chunk > 0);
+
+        postCommentsCache.postRemoved(postId);
+        return deleted;
     }
 
     /**
      * Helper method to decrease the comment count of a blog post by communicating with the blog service.
      * It handles HTTP responses to determine if the operation was successful or if there were errors.
+     * The call is recorded as a {@link ServiceCallEvent} for Flight Recorder.
      *
      * @param postID The ID of the blog post whose comment count is to be adjusted.
      * @param method The HTTP method to use for the request.
      * @throws ResponseStatusException If the blog post is not found or the service cannot process the request.
      */
     private void decreaseBlogPostCommentsCounter(Long postID, HttpMethod method) {
-        ResponseEntity<Object> deleteResponse = restTemplate.exchange(STR."http://BLOG-SERVICE/api/posts/update-comments-count/\{postID}", method, null, Object.class);
+        String url = "http://BLOG-SERVICE/api/posts/update-comments-count/{postId}";
+        ResponseEntity<Object> deleteResponse = ServiceCallEvent.record(method, url,
+                () -> restTemplate.exchange(url, method, null, Object.class, postID));
 
         if (deleteResponse.getStatusCode().isSameCodeAs(HttpStatus.NOT_FOUND)) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, STR."Blog post with id \{postID} not found.");
         }
 
-        if(!deleteResponse.getStatusCode().is2xxSuccessful()) {
+        checkSuccessful(deleteResponse);
+    }
+
+    /**
+     * Helper method to add a delta to the comment count of a blog post with a single call to the blog service.
+     * The call is recorded as a {@link ServiceCallEvent} for Flight Recorder.
+     *
+     * @param postID The ID of the blog post whose comment count is to be adjusted.
+     * @param delta  The number of comments added, negative if comments were removed.
+     * @return true if the count was adjusted, false if the blog post does not exist.
+     * @throws ResponseStatusException If the service cannot process the request.
+     */
+    private boolean addToBlogPostCommentsCounter(Long postID, long delta) {
+        String url = "http://BLOG-SERVICE/api/posts/update-comments-count/{postId}?delta={delta}";
+        ResponseEntity<Object> response;
+        try {
+            response = ServiceCallEvent.record(HttpMethod.POST, url,
+                    () -> restTemplate.exchange(url, HttpMethod.POST, null, Object.class, postID, delta));
+        } catch (HttpClientErrorException.NotFound exception) {
+            return false;
+        }
+
+        if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_FOUND)) {
+            return false;
+        }
+
+        checkSuccessful(response);
+        return true;
+    }
+
+    /**
+     * Helper method to take back counter adjustments made for a batch that could not be saved. Failures are logged
+     * rather than thrown, so they do not hide the error that caused the revert.
+     *
+     * @param adjusted The number of comments added to the count of each blog post.
+     */
+    private void revertBlogPostCommentsCounters(Map<Long, Long> adjusted) {
+        adjusted.forEach((postId, count) -> {
+            try {
+                addToBlogPostCommentsCounter(postId, -count);
+            } catch (RuntimeException exception) {
+                log.error("Could not revert the comments counter of blog post {} by {}", postId, count, exception);
+            }
+        });
+    }
+
+    private static void checkSuccessful(ResponseEntity<Object> response) {
+        if(!response.getStatusCode().is2xxSuccessful()) {
             String reason = "";
 
-            if (deleteResponse.hasBody()){
-                reason = Objects.requireNonNull(deleteResponse.getBody()).toString();
+            if (response.hasBody()){
+                reason = Objects.requireNonNull(response.getBody()).toString();
             }
 
-            throw new ResponseStatusException(deleteResponse.getStatusCode(), reason);
+            throw new ResponseStatusException(response.getStatusCode(), reason);
         }
     }
 }
@@ -0,0 +1,385 @@
+package com.newwek.commentservice.service;
+
+import com.newwek.commentservice.domain.Comment;
+import com.newwek.commentservice.domain.CommentCursor;
+import com.newwek.commentservice.domain.CommentOrder;
+import com.newwek.commentservice.domain.CommentPage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static com.newwek.commentservice.config.CacheNames.BLOG_COMMENTS_CACHE;
+import static com.newwek.commentservice.config.CacheNames.BLOG_COMMENT_COUNTS_CACHE;
+import static com.newwek.commentservice.config.CacheNames.BLOG_COMMENT_PAGES_CACHE;
+import static com.newwek.commentservice.config.CacheNames.COMMENT_CACHE;
+
+/**
+ * Maintains the cached comments of each blog post, the full lists ({@code BLOG_COMMENTS_CACHE}), the keyset pages
+ * ({@code BLOG_COMMENT_PAGES_CACHE}) and the comment counts ({@code BLOG_COMMENT_COUNTS_CACHE}), so that a write only
+ * touches the entries of the post it belongs to instead of clearing the caches for every post:
+ * <ul>
+ *     <li>a new comment is appended to the cached list of its post and added to its cached count,</li>
+ *     <li>an updated comment replaces its previous version in the cached list and in every cached page of its post,</li>
+ *     <li>a deleted comment is removed from the cached list of its post and subtracted from its cached count.</li>
+ * </ul>
+ * Creating or deleting a comment moves the boundaries of the following pages, so the cached pages of that post are
+ * evicted rather than patched. Deleting all comments of a post evicts its entries, along with the entries of its
+ * individual comments in {@code COMMENT_CACHE}. Adding or deleting replies changes the reply count of another comment
+ * and may remove a whole thread, so the list and pages of the post are evicted, along with the entries of the comments
+ * that changed, while its count is adjusted by the number of comments added or deleted.
+ * <p>
+ * Each post carries a version that every write increments. A load that ran while the post was written only caches its
+ * result if the version is still the one it started with, so a list read before a write cannot overwrite the patched
+ * entry afterwards. Writes inside a transaction are applied once it has committed, when loads see the new rows.
+ * <p>
+ * The version and the keys of the cached pages are tracked in memory for at most {@code comment-cache.tracked-posts}
+ * posts, a few dozen bytes each. When a post has to make room for another, the one read or written least recently is
+ * dropped along with its cached pages, which could no longer be patched; its list and count are patched by post ID
+ * and stay cached. Deleting all comments of a post drops it as well. A load that started before its post was dropped
+ * is not cached.
+ */
+@Component
+public class PostCommentsCache {
+
+    private final Cache singles;
+    private final Cache lists;
+    private final Cache pages;
+    private final Cache counts;
+    private final Map<Long, PostEntries> posts;
+
+    /**
+     * Looks up the caches maintained by this class.
+     *
+     * @param cacheManager the cache manager holding {@code COMMENT_CACHE}, {@code BLOG_COMMENTS_CACHE},
+     *                     {@code BLOG_COMMENT_PAGES_CACHE} and {@code BLOG_COMMENT_COUNTS_CACHE}
+     * @param trackedPosts the number of posts whose version and page keys are kept in memory
+     */
+    public PostCommentsCache(CacheManager cacheManager, @Value("${comment-cache.tracked-posts:10000}") int trackedPosts) {
+        this.singles = Objects.requireNonNull(cacheManager.getCache(COMMENT_CACHE));
+        this.lists = Objects.requireNonNull(cacheManager.getCache(BLOG_COMMENTS_CACHE));
+        this.pages = Objects.requireNonNull(cacheManager.getCache(BLOG_COMMENT_PAGES_CACHE));
+        this.counts = Objects.requireNonNull(cacheManager.getCache(BLOG_COMMENT_COUNTS_CACHE));
+        this.posts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, PostEntries> eldest) {
+                if (size() <= trackedPosts) {
+                    return false;
+                }
+                eldest.getValue().retire(pages);
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached comments of a blog post, loading and caching them on a miss.
+     *
+     * @param postId The blog post ID.
+     * @param loader Loads the comments of the post from the database.
+     * @return the comments of the post.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Comment> comments(Long postId, Supplier<List<Comment>> loader) {
+        Cache.ValueWrapper cached = lists.get(postId);
+        if (cached != null) {
+            return (List<Comment>) cached.get();
+        }
+        PostEntries entries = entries(postId);
+        long version = entries.version();
+        List<Comment> comments = List.copyOf(loader.get());
+        entries.putIfUnchanged(version, () -> lists.put(postId, comments));
+        return comments;
+    }
+
+    /**
+     * Returns a cached page of the comments of a blog post, loading and caching it on a miss.
+     *
+     * @param postId The blog post ID.
+     * @param order  The order of the comments.
+     * @param cursor The position after which the page starts, or null for the first page.
+     * @param size   The maximum number of comments on the page.
+     * @param loader Loads the page from the database.
+     * @return the page.
+     */
+    public CommentPage page(Long postId, CommentOrder order, CommentCursor cursor, int size, Supplier<CommentPage> loader) {
+        PageKey key = new PageKey(postId, order, cursor, size);
+        CommentPage cached = pages.get(key, CommentPage.class);
+        if (cached != null) {
+            return cached;
+        }
+        PostEntries entries = entries(postId);
+        long version = entries.version();
+        CommentPage page = loader.get();
+        entries.putIfUnchanged(version, () -> {
+            pages.put(key, page);
+            entries.pageKeys.add(key);
+        });
+        return page;
+    }
+
+    /**
+     * Returns the cached comment counts of several blog posts. The posts missing from the cache are loaded together
+     * with a single call to the loader, and each count is cached on its own, so a post shared by several requests is
+     * only counted once.
+     *
+     * @param postIds The blog post IDs.
+     * @param loader  Counts the comments of the given posts in the database, leaving out posts without comments.
+     * @return the number of comments of each post, in the order of the given IDs.
+     */
+    public Map<Long, Long> counts(Collection<Long> postIds, Function<Collection<Long>, Map<Long, Long>> loader) {
+        Map<Long, Long> result = new LinkedHashMap<>();
+        Map<Long, Long> versions = new LinkedHashMap<>();
+        for (Long postId : postIds) {
+            Long cached = counts.get(postId, Long.class);
+            result.put(postId, cached);
+            if (cached == null) {
+                versions.put(postId, entries(postId).version());
+            }
+        }
+        if (versions.isEmpty()) {
+            return result;
+        }
+
+        Map<Long, Long> loaded = loader.apply(versions.keySet());
+        versions.forEach((postId, version) -> {
+            long count = loaded.getOrDefault(postId, 0L);
+            result.put(postId, count);
+            entries(postId).putIfUnchanged(version, () -> counts.put(postId, count));
+        });
+        return result;
+    }
+
+    /**
+     * Appends a newly created comment to the cached list of its post and evicts the cached pages of the post.
+     *
+     * @param comment The saved comment.
+     */
+    public void added(Comment comment) {
+        added(comment.getBlogPostId(), List.of(comment));
+    }
+
+    /**
+     * Appends several newly created comments to the cached list of their post and evicts the cached pages of the post,
+     * touching the entries of the post once for all of them.
+     *
+     * @param postId   The blog post ID.
+     * @param comments The saved comments, all of the given post.
+     */
+    public void added(Long postId, List<Comment> comments) {
+        write(postId, entries -> {
+            patchList(postId, cached -> cached.addAll(comments));
+            evictPages(entries);
+            adjustCount(postId, comments.size());
+        });
+    }
+
+    /**
+     * Replaces the previous version of an updated comment in the cached list and the cached pages of its post. The
+     * position of a comment does not depend on its content, so the pages stay valid.
+     *
+     * @param comment The saved comment.
+     */
+    public void updated(Comment comment) {
+        write(comment.getBlogPostId(), entries -> {
+            patchList(comment.getBlogPostId(), comments -> comments.replaceAll(c -> sameId(c, comment) ? comment : c));
+            for (PageKey key : entries.pageKeys) {
+                CommentPage page = pages.get(key, CommentPage.class);
+                if (page != null && page.comments().stream().anyMatch(c -> sameId(c, comment))) {
+                    List<Comment> patched = page.comments().stream().map(c -> sameId(c, comment) ? comment : c).toList();
+                    pages.put(key, new CommentPage(patched, page.next()));
+                }
+            }
+        });
+    }
+
+    /**
+     * Removes a deleted comment from the cached list of its post and evicts the cached pages of the post.
+     *
+     * @param postId    The blog post ID.
+     * @param commentId The ID of the deleted comment.
+     */
+    public void removed(Long postId, Long commentId) {
+        write(postId, entries -> {
+            patchList(postId, comments -> comments.removeIf(c -> commentId.equals(c.getId())));
+            evictPages(entries);
+            adjustCount(postId, -1);
+        });
+    }
+
+    /**
+     * Evicts the cached list, pages and count of a post whose comments have all been deleted, and stops tracking it.
+     *
+     * @param postId The blog post ID.
+     */
+    public void postRemoved(Long postId) {
+        afterCommit(() -> {
+            PostEntries entries = writeNow(postId, written -> {
+                lists.evict(postId);
+                evictPages(written);
+                counts.evict(postId);
+            });
+            synchronized (posts) {
+                posts.remove(postId, entries);
+            }
+            entries.retire(pages);
+        });
+    }
+
+    /**
+     * Evicts the cached list and pages of a post whose threads changed, along with the entries of the individual
+     * comments that were deleted or whose reply count changed. The cached count of the post is adjusted.
+     *
+     * @param postId     The blog post ID.
+     * @param commentIds The IDs of the changed comments.
+     * @param countDelta The number of comments added, negative if comments were deleted.
+     */
+    public void threadChanged(Long postId, Collection<Long> commentIds, long countDelta) {
+        write(postId, entries -> {
+            lists.evict(postId);
+            evictPages(entries);
+            adjustCount(postId, countDelta);
+            commentIds.forEach(singles::evict);
+        });
+    }
+
+    /**
+     * Evicts the entries of individual comments that were deleted in bulk.
+     *
+     * @param commentIds The IDs of the deleted comments.
+     */
+    public void commentsRemoved(Collection<Long> commentIds) {
+        afterCommit(() -> commentIds.forEach(singles::evict));
+    }
+
+    private void write(Long postId, Consumer<PostEntries> patch) {
+        afterCommit(() -> writeNow(postId, patch));
+    }
+
+    /**
+     * Applies a write to the entries of a post, to the ones that replaced them if they were dropped in the meantime.
+     *
+     * @return the entries written
+     */
+    private PostEntries writeNow(Long postId, Consumer<PostEntries> patch) {
+        while (true) {
+            PostEntries entries = entries(postId);
+            if (entries.write(patch)) {
+                return entries;
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable apply) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void patchList(Long postId, Consumer<List<Comment>> patch) {
+        Cache.ValueWrapper cached = lists.get(postId);
+        if (cached == null) {
+            return;
+        }
+        // Cached lists are handed out to readers, so they are never modified in place
+        List<Comment> comments = new ArrayList<>((List<Comment>) cached.get());
+        patch.accept(comments);
+        lists.put(postId, List.copyOf(comments));
+    }
+
+    private void adjustCount(Long postId, long delta) {
+        Long cached = counts.get(postId, Long.class);
+        if (cached != null) {
+            counts.put(postId, cached + delta);
+        }
+    }
+
+    private void evictPages(PostEntries entries) {
+        entries.pageKeys.forEach(pages::evict);
+        entries.pageKeys.clear();
+    }
+
+    private PostEntries entries(Long postId) {
+        synchronized (posts) {
+            return posts.computeIfAbsent(postId, id -> new PostEntries());
+        }
+    }
+
+    /**
+     * The number of posts whose version and page keys are kept in memory.
+     */
+    int trackedPosts() {
+        synchronized (posts) {
+            return posts.size();
+        }
+    }
+
+    private static boolean sameId(Comment a, Comment b) {
+        return Objects.equals(a.getId(), b.getId());
+    }
+
+    /**
+     * Key of a cached page.
+     */
+    private record PageKey(Long postId, CommentOrder order, CommentCursor cursor, int size) {
+    }
+
+    /**
+     * Version and cached page keys of one post. All access is synchronized on the instance, which serializes the writes
+     * of a post against each other and against the loads completing for it. Once retired, the entries no longer accept
+     * loads or writes, which go to the entries that replaced them.
+     */
+    private static final class PostEntries {
+
+        private final Set<PageKey> pageKeys = new HashSet<>();
+        private long version;
+        private boolean retired;
+
+        synchronized long version() {
+            return version;
+        }
+
+        synchronized void putIfUnchanged(long loadedVersion, Runnable put) {
+            if (!retired && version == loadedVersion) {
+                put.run();
+            }
+        }
+
+        synchronized boolean write(Consumer<PostEntries> patch) {
+            if (retired) {
+                return false;
+            }
+            version++;
+            patch.accept(this);
+            return true;
+        }
+
+        synchronized void retire(Cache pages) {
+            retired = true;
+            pageKeys.forEach(pages::evict);
+            pageKeys.clear();
+        }
+    }
+}
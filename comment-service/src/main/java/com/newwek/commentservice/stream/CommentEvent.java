@@ -0,0 +1,48 @@
+package com.newwek.commentservice.stream;
+
+import com.newwek.commentservice.domain.Comment;
+
+import java.util.List;
+
+/**
+ * A change to the comments of a blog post, pushed to the clients streaming that post.
+ *
+ * @param type       What happened to the comments.
+ * @param blogPostId The ID of the blog post the comments belong to.
+ * @param comments   The created or updated comments, or an empty list for deletions.
+ * @param commentIds The IDs of the deleted comments, replies included, or an empty list for other changes.
+ */
+public record CommentEvent(Type type, Long blogPostId, List<Comment> comments, List<Long> commentIds) {
+
+    /**
+     * What happened to the comments. The lower case name is used as the name of the server-sent event.
+     */
+    public enum Type {
+        /** One or more comments were created. */
+        CREATED,
+        /** The content of a comment was changed. */
+        UPDATED,
+        /** One or more comments were deleted. */
+        DELETED
+    }
+
+    public static CommentEvent created(Comment comment) {
+        return created(comment.getBlogPostId(), List.of(comment));
+    }
+
+    /**
+     * Announces comments created together, such as a batch, with one event so a burst of new comments does not fill
+     * the buffers of the subscribers.
+     */
+    public static CommentEvent created(Long blogPostId, List<Comment> comments) {
+        return new CommentEvent(Type.CREATED, blogPostId, List.copyOf(comments), List.of());
+    }
+
+    public static CommentEvent updated(Comment comment) {
+        return new CommentEvent(Type.UPDATED, comment.getBlogPostId(), List.of(comment), List.of());
+    }
+
+    public static CommentEvent deleted(Long blogPostId, List<Long> commentIds) {
+        return new CommentEvent(Type.DELETED, blogPostId, List.of(), List.copyOf(commentIds));
+    }
+}
@@ -0,0 +1,279 @@
+package com.newwek.commentservice.stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Fans out the {@link CommentEvent}s of each blog post to the clients streaming it over Server-Sent Events.
+ * <p>
+ * An event is serialized once, whatever the number of subscribers, and queued for each subscriber of its post. Each
+ * subscriber is drained by its own virtual thread while it has queued events, so a client that is slow to read only
+ * holds up itself. The queue of a subscriber holds at most {@link #BUFFER_SIZE} events: a subscriber that falls that
+ * far behind is evicted by completing its stream, and the client is expected to reconnect and reload the comments.
+ * Idle subscribers own no thread and no queue, which keeps a large number of open streams cheap.
+ * <p>
+ * A heartbeat comment is sent to every subscriber every {@link #HEARTBEAT_INTERVAL}, which keeps idle connections
+ * open through proxies and detects clients that went away without closing their connection. Streams are closed after
+ * {@link #STREAM_TIMEOUT}, after which the client reconnects.
+ * <p>
+ * Events published on this instance are also handed to the peer publisher, if one is set, which relays them to the
+ * other instances of the service; see {@link RedisCommentStreamBridge}. Events received from peers are only delivered
+ * locally.
+ */
+@Component
+@Slf4j
+public class CommentStreamHub implements MeterBinder, DisposableBean {
+
+    static final int BUFFER_SIZE = 32;
+    static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(25);
+    static final Duration STREAM_TIMEOUT = Duration.ofMinutes(30);
+
+    private static final Frame HEARTBEAT = new Frame(null, null);
+
+    private final ObjectMapper objectMapper;
+    private final ConcurrentMap<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("comment-stream-heartbeat").daemon().factory());
+    private final AtomicLong evictions = new AtomicLong();
+
+    private volatile Consumer<CommentEvent> peerPublisher = event -> { };
+
+    /**
+     * Creates the hub and starts sending heartbeats.
+     *
+     * @param objectMapper the mapper serializing the events
+     */
+    public CommentStreamHub(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        long interval = HEARTBEAT_INTERVAL.toMillis();
+        heartbeats.scheduleAtFixedRate(this::sendHeartbeats, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens a stream of the comment events of a blog post.
+     *
+     * @param postId the blog post ID
+     * @return the emitter to return from the controller
+     */
+    public SseEmitter subscribe(Long postId) {
+        return subscribe(postId, new SseEmitter(STREAM_TIMEOUT.toMillis()));
+    }
+
+    SseEmitter subscribe(Long postId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(postId, emitter);
+        // Added inside compute so a concurrent removal of the last subscriber cannot drop the set it is added to
+        subscribers.compute(postId, (id, postSubscribers) -> {
+            Set<Subscriber> added = postSubscribers != null ? postSubscribers : ConcurrentHashMap.newKeySet();
+            added.add(subscriber);
+            return added;
+        });
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        return emitter;
+    }
+
+    /**
+     * Delivers an event to the subscribers of its post on this instance and relays it to the other instances. Inside a
+     * transaction, the event is only published once the transaction has committed.
+     *
+     * @param event the event
+     */
+    public void publish(CommentEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publishNow(event);
+                }
+            });
+        } else {
+            publishNow(event);
+        }
+    }
+
+    private void publishNow(CommentEvent event) {
+        deliver(event);
+        try {
+            peerPublisher.accept(event);
+        } catch (RuntimeException exception) {
+            log.warn("Could not relay a {} event of blog post {} to peers", event.type(), event.blogPostId(), exception);
+        }
+    }
+
+    /**
+     * Delivers an event to the subscribers of its post on this instance only.
+     *
+     * @param event the event
+     */
+    public void deliver(CommentEvent event) {
+        Set<Subscriber> postSubscribers = subscribers.get(event.blogPostId());
+        if (postSubscribers == null || postSubscribers.isEmpty()) {
+            return;
+        }
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException exception) {
+            log.error("Could not serialize a {} event of blog post {}", event.type(), event.blogPostId(), exception);
+            return;
+        }
+        Frame frame = new Frame(event.type().name().toLowerCase(Locale.ROOT), data);
+        postSubscribers.forEach(subscriber -> subscriber.offer(frame));
+    }
+
+    /**
+     * Sets where the events published on this instance are relayed to.
+     *
+     * @param peerPublisher relays an event to the other instances of the service
+     */
+    public void setPeerPublisher(Consumer<CommentEvent> peerPublisher) {
+        this.peerPublisher = peerPublisher;
+    }
+
+    /**
+     * The number of open streams on this instance.
+     */
+    public int subscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    /**
+     * The number of subscribers evicted for falling behind since the hub was started.
+     */
+    public long evictionCount() {
+        return evictions.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("comment.stream.subscribers", this, CommentStreamHub::subscriberCount)
+                .description("Open comment streams")
+                .register(registry);
+        FunctionCounter.builder("comment.stream.evictions", this, CommentStreamHub::evictionCount)
+                .description("Comment streams closed because the client could not keep up")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        heartbeats.shutdownNow();
+        subscribers.values().forEach(postSubscribers -> postSubscribers.forEach(subscriber -> subscriber.emitter.complete()));
+        senders.shutdownNow();
+    }
+
+    private void sendHeartbeats() {
+        subscribers.values().forEach(postSubscribers -> postSubscribers.forEach(subscriber -> subscriber.offer(HEARTBEAT)));
+    }
+
+    /**
+     * A serialized event, or the heartbeat if it has no name.
+     */
+    private record Frame(String name, String data) {
+    }
+
+    /**
+     * One open stream. All state is guarded by the instance: the queue only exists while events are waiting, and
+     * {@code draining} tells whether a sender thread is already emptying it.
+     */
+    private final class Subscriber {
+
+        private final Long postId;
+        private final SseEmitter emitter;
+        private ArrayDeque<Frame> queue;
+        private boolean draining;
+        private boolean closed;
+
+        Subscriber(Long postId, SseEmitter emitter) {
+            this.postId = postId;
+            this.emitter = emitter;
+        }
+
+        void offer(Frame frame) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (queue == null) {
+                    queue = new ArrayDeque<>();
+                }
+                if (queue.size() >= BUFFER_SIZE) {
+                    evictions.incrementAndGet();
+                    log.debug("Evicting a subscriber of blog post {} that fell {} events behind", postId, BUFFER_SIZE);
+                    close();
+                    // Completing waits for a send in progress, which is what is slow, so it must not hold up the publisher
+                    senders.execute(emitter::complete);
+                    return;
+                }
+                queue.add(frame);
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            senders.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                Frame frame;
+                synchronized (this) {
+                    frame = queue != null ? queue.poll() : null;
+                    if (frame == null) {
+                        queue = null;
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    emitter.send(frame.name() == null
+                            ? SseEmitter.event().comment("")
+                            : SseEmitter.event().name(frame.name()).data(frame.data(), MediaType.APPLICATION_JSON));
+                } catch (IOException | IllegalStateException exception) {
+                    // The client went away or the stream was completed meanwhile
+                    close();
+                    emitter.completeWithError(exception);
+                    return;
+                }
+            }
+        }
+
+        synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue = null;
+            subscribers.computeIfPresent(postId, (id, postSubscribers) -> {
+                postSubscribers.remove(this);
+                return postSubscribers.isEmpty() ? null : postSubscribers;
+            });
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.newwek.commentservice.stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Relays the comment events of this instance to the other instances of the service through a Redis pub/sub channel,
+ * and delivers the events they publish to the local subscribers, so a client receives every change to the post it
+ * streams whichever instance it is connected to. Each instance tags its messages with a random origin and ignores its
+ * own, which it has already delivered locally.
+ * <p>
+ * Pub/sub delivery is at most once: a message published while an instance is disconnected from Redis is lost for the
+ * streams of that instance, which catch up when they reconnect and reload the comments.
+ */
+@Slf4j
+public class RedisCommentStreamBridge implements MessageListener {
+
+    public static final String CHANNEL = "comment-service:comment-events";
+
+    private final String origin = UUID.randomUUID().toString();
+    private final CommentStreamHub hub;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Creates the bridge and registers it as the peer publisher of the hub.
+     *
+     * @param hub           the hub of this instance
+     * @param redisTemplate the template publishing to the channel
+     * @param objectMapper  the mapper serializing the messages
+     */
+    public RedisCommentStreamBridge(CommentStreamHub hub, StringRedisTemplate redisTemplate, ObjectMapper objectMapper) {
+        this.hub = hub;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        hub.setPeerPublisher(this::publish);
+    }
+
+    /**
+     * Publishes an event of this instance on the channel.
+     *
+     * @param event the event
+     */
+    void publish(CommentEvent event) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, objectMapper.writeValueAsString(new PeerMessage(origin, event)));
+        } catch (JsonProcessingException exception) {
+            log.error("Could not serialize a {} event of blog post {}", event.type(), event.blogPostId(), exception);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        PeerMessage peerMessage;
+        try {
+            peerMessage = objectMapper.readValue(message.getBody(), PeerMessage.class);
+        } catch (IOException exception) {
+            log.warn("Ignoring an unreadable message on {}", CHANNEL, exception);
+            return;
+        }
+        if (!origin.equals(peerMessage.origin())) {
+            hub.deliver(peerMessage.event());
+        }
+    }
+
+    /**
+     * An event as published on the channel.
+     *
+     * @param origin The instance that published the event.
+     * @param event  The event.
+     */
+    record PeerMessage(String origin, CommentEvent event) {
+    }
+}
@@ -48,7 +48,8 @@ public class CommentControllerIntegrationTest {
                 anyString(),
                 any(HttpMethod.class),
                 eq(null),
-                ArgumentMatchers.<Class<Object>>any())
+                ArgumentMatchers.<Class<Object>>any(),
+                anyLong())
         ).thenReturn(result);
     }
 
@@ -1,19 +1,34 @@
 package com.newwek.commentservice.controller;
 
 import com.newwek.commentservice.domain.Comment;
+import com.newwek.commentservice.domain.CommentCursor;
+import com.newwek.commentservice.domain.CommentOrder;
+import com.newwek.commentservice.domain.CommentPage;
+import com.newwek.commentservice.domain.CommentUpdate;
 import com.newwek.commentservice.domain.dto.UpdateCommentDto;
 import com.newwek.commentservice.service.CommentService;
+import com.newwek.commentservice.stream.CommentStreamHub;
+import com.newwek.platform.moderation.ContentFilter;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -28,6 +43,12 @@ class CommentControllerTest {
     @MockBean
     private CommentService commentService;
 
+    @MockBean
+    private CommentStreamHub commentStreamHub;
+
+    @MockBean
+    private ContentFilter contentFilter;
+
     @Test
     void getAllComments() throws Exception {
         List<Comment> comments = List.of(new Comment(1L, 101L, "user1", "Nice post!", LocalDateTime.now(), LocalDateTime.now(), LocalDateTime.now()));
@@ -56,6 +77,17 @@ class CommentControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void getCommentsForPostId() throws Exception {
+        List<Comment> comments = List.of(new Comment(1L, 101L, "user1", "First!", LocalDateTime.now(), LocalDateTime.now(), LocalDateTime.now()));
+        when(commentService.findCommentsByPostId(101L)).thenReturn(comments);
+
+        mockMvc.perform(get("/api/comments/post/101"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].blogPostId").value(101))
+                .andExpect(jsonPath("$[0].content").value("First!"));
+    }
+
     @Test
     void createComment() throws Exception {
         Comment savedComment = new Comment(1L, 101L, "user1", "Great post!", LocalDateTime.now(), LocalDateTime.now().plusMinutes(60), LocalDateTime.now());
@@ -69,11 +101,106 @@ class CommentControllerTest {
                 .andExpect(jsonPath("$.content").value("Great post!"));
     }
 
+    @Test
+    void createComment_RejectsBannedTerm() throws Exception {
+        doThrow(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Content contains a banned term."))
+                .when(contentFilter).check("Buy SPAM now");
+
+        mockMvc.perform(post("/api/comments")
+                        .header("X-Username", "user1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"blogPostId\": 101, \"content\": \"Buy SPAM now\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(status().reason("Content contains a banned term."));
+
+        mockMvc.perform(put("/api/comments/1")
+                        .header("X-Username", "user1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\": \"Buy SPAM now\"}"))
+                .andExpect(status().isBadRequest());
+
+        verify(commentService, never()).save(any());
+        verify(commentService, never()).update(any(), any(), any());
+    }
+
+    @Test
+    void createReply() throws Exception {
+        Comment savedReply = new Comment(2L, 101L, "user2", "I agree!", LocalDateTime.now(), LocalDateTime.now().plusMinutes(60), null,
+                1L, Comment.childPath("", 1L), 0);
+        when(commentService.save(any(Comment.class))).thenReturn(savedReply);
+
+        mockMvc.perform(post("/api/comments")
+                        .header("X-Username", "user2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"blogPostId\": 101, \"parentId\": 1, \"content\": \"I agree!\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.parentId").value(1))
+                .andExpect(jsonPath("$.replyCount").value(0))
+                .andExpect(jsonPath("$.path").doesNotExist());
+
+        verify(commentService).save(argThat(comment -> comment.getParentId() == 1L && comment.getBlogPostId() == 101L));
+    }
+
+    @Test
+    void getReplies() throws Exception {
+        Comment reply = new Comment(2L, 101L, "user2", "I agree!", LocalDateTime.now(), LocalDateTime.now(), null,
+                1L, Comment.childPath("", 1L), 1);
+        Comment nested = new Comment(3L, 101L, "user1", "Thanks!", LocalDateTime.now(), LocalDateTime.now(), null,
+                2L, reply.childPath(), 0);
+        when(commentService.findReplies(1L, 5)).thenReturn(List.of(reply, nested));
+
+        mockMvc.perform(get("/api/comments/1/replies").param("perParent", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(2))
+                .andExpect(jsonPath("$[0].replyCount").value(1))
+                .andExpect(jsonPath("$[1].parentId").value(2));
+    }
+
+    @Test
+    void getReplies_NotFoundOrBadRequest() throws Exception {
+        when(commentService.findReplies(1L, null)).thenReturn(null);
+
+        mockMvc.perform(get("/api/comments/1/replies"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/comments/1/replies").param("perParent", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/comments/1/replies").param("perParent", "101"))
+                .andExpect(status().isBadRequest());
+
+        verify(commentService, never()).findReplies(anyLong(), anyInt());
+    }
+
+    @Test
+    void getCommentCounts() throws Exception {
+        Map<Long, Long> counts = new LinkedHashMap<>();
+        counts.put(102L, 0L);
+        counts.put(101L, 4L);
+        when(commentService.countCommentsByPostIds(anyCollection())).thenReturn(counts);
+
+        mockMvc.perform(get("/api/comments/counts").param("postIds", "102,101,102"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.101").value(4))
+                .andExpect(jsonPath("$.102").value(0));
+
+        verify(commentService).countCommentsByPostIds(argThat(postIds -> List.copyOf(postIds).equals(List.of(102L, 101L))));
+    }
+
+    @Test
+    void getCommentCounts_RejectsTooManyPosts() throws Exception {
+        String postIds = LongStream.rangeClosed(1, 101).mapToObj(Long::toString).collect(Collectors.joining(","));
+
+        mockMvc.perform(get("/api/comments/counts").param("postIds", postIds))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/comments/counts").param("postIds", ""))
+                .andExpect(status().isBadRequest());
+
+        verify(commentService, never()).countCommentsByPostIds(anyCollection());
+    }
+
     @Test
     void updateComment() throws Exception {
-        Comment existingComment = new Comment(1L, 101L, "user1", "Old content", LocalDateTime.now(), LocalDateTime.now().plusMinutes(60), LocalDateTime.now());
-        when(commentService.findById(1L)).thenReturn(existingComment);
-        when(commentService.save(any(Comment.class))).thenReturn(existingComment);
+        Comment updatedComment = new Comment(1L, 101L, "user1", "Updated content", LocalDateTime.now(), LocalDateTime.now().plusMinutes(60), LocalDateTime.now());
+        when(commentService.update(1L, "user1", "Updated content")).thenReturn(CommentUpdate.updated(updatedComment));
 
         mockMvc.perform(put("/api/comments/1")
                         .header("X-Username", "user1")
@@ -81,49 +208,186 @@ class CommentControllerTest {
                         .content("{\"content\": \"Updated content\"}"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content").value("Updated content"));
+
+        verify(commentService, never()).findById(any());
+        verify(commentService, never()).save(any());
     }
 
     @Test
     void shouldNotUpdateComment() throws Exception {
         Comment existingComment = new Comment(1L, 101L, "user1", "Old content", LocalDateTime.now().minusMinutes(60), LocalDateTime.now().minusMinutes(60), null);
-        when(commentService.findById(1L)).thenReturn(existingComment);
-        when(commentService.save(any(Comment.class))).thenReturn(existingComment);
+        when(commentService.update(1L, "user1", "Updated content")).thenReturn(CommentUpdate.rejected(existingComment, "user1"));
+        when(commentService.update(1L, "user2", "Updated content")).thenReturn(CommentUpdate.rejected(existingComment, "user2"));
+        when(commentService.update(2L, "user1", "Updated content")).thenReturn(CommentUpdate.rejected(null, "user1"));
 
         mockMvc.perform(put("/api/comments/1")
                         .header("X-Username", "user1")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"content\": \"Updated content\"}"))
-                .andExpect(status().isForbidden());
+                .andExpect(status().isForbidden())
+                .andExpect(status().reason("The update period of this comment has expired."));
+
+        mockMvc.perform(put("/api/comments/1")
+                        .header("X-Username", "user2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\": \"Updated content\"}"))
+                .andExpect(status().isForbidden())
+                .andExpect(status().reason("You are not the author of this comment."));
+
+        mockMvc.perform(put("/api/comments/2")
+                        .header("X-Username", "user1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\": \"Updated content\"}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void createCommentsInBatch() throws Exception {
+        Comment first = new Comment(1L, 101L, "user1", "Great post!", LocalDateTime.now(), LocalDateTime.now(), null);
+        when(commentService.saveAll(anyList())).thenReturn(Arrays.asList(first, null));
+        when(contentFilter.findBannedTerm("Buy SPAM now")).thenReturn("spam");
+
+        mockMvc.perform(post("/api/comments/batch")
+                        .header("X-Username", "user1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [{"blogPostId": 101, "content": "Great post!"},
+                                 {"blogPostId": 101, "content": " "},
+                                 {"blogPostId": 999, "content": "Where did it go?"},
+                                 {"blogPostId": 101, "parentId": 1, "content": "Replies are not batched"},
+                                 {"blogPostId": 101, "content": "Buy SPAM now"}]"""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(5))
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[0].comment.id").value(1))
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].status").value("INVALID"))
+                .andExpect(jsonPath("$[1].error").isNotEmpty())
+                .andExpect(jsonPath("$[2].status").value("POST_NOT_FOUND"))
+                .andExpect(jsonPath("$[3].status").value("INVALID"))
+                .andExpect(jsonPath("$[4].status").value("INVALID"))
+                .andExpect(jsonPath("$[4].error").value("Content contains a banned term."));
+
+        verify(commentService).saveAll(argThat(comments -> comments.size() == 2
+                && comments.stream().allMatch(comment -> "user1".equals(comment.getUsername()))));
+    }
+
+    @Test
+    void createCommentsInBatch_RejectsEmptyBatch() throws Exception {
+        mockMvc.perform(post("/api/comments/batch")
+                        .header("X-Username", "user1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+
+        verify(commentService, never()).saveAll(any());
     }
 
     @Test
     void deleteComment() throws Exception {
-        Comment comment = new Comment(1L, 101L, "user1", "Some content", LocalDateTime.now(), LocalDateTime.now(), LocalDateTime.now());
-        when(commentService.findById(1L)).thenReturn(comment);
-        doNothing().when(commentService).deleteById(1L);
+        when(commentService.deleteById(1L)).thenReturn(true);
 
         mockMvc.perform(delete("/api/comments/1"))
                 .andExpect(status().isNoContent());
+
+        verify(commentService, never()).findById(any());
     }
 
     @Test
     void shouldNotDeleteNonExistentComment() throws Exception {
-        doNothing().when(commentService).deleteById(1L);
+        when(commentService.deleteById(1L)).thenReturn(false);
 
         mockMvc.perform(delete("/api/comments/1"))
                 .andExpect(status().isNotFound());
 
-        doNothing().when(commentService).deleteById(12L);
+        when(commentService.deleteById(12L)).thenReturn(false);
 
         mockMvc.perform(delete("/api/comments/12"))
                 .andExpect(status().isNotFound());
 
-        doNothing().when(commentService).deleteById(1000L);
+        when(commentService.deleteById(1000L)).thenReturn(false);
 
         mockMvc.perform(delete("/api/comments/1000"))
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void deleteCommentsForPostId() throws Exception {
+        when(commentService.deleteAllForPostId(101L)).thenReturn(3);
+
+        mockMvc.perform(delete("/api/comments/post/101"))
+                .andExpect(status().isNoContent());
+
+        verify(commentService, never()).findCommentsByPostId(any());
+    }
+
+    @Test
+    void shouldNotDeleteCommentsForPostWithoutComments() throws Exception {
+        when(commentService.deleteAllForPostId(101L)).thenReturn(0);
 
-}
+        mockMvc.perform(delete("/api/comments/post/101"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void streamCommentsForPostId() throws Exception {
+        when(commentStreamHub.subscribe(101L)).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/comments/post/101/stream").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+
+        verify(commentStreamHub).subscribe(101L);
+    }
+
+    @Test
+    void getCommentsPageForPostId() throws Exception {
+        LocalDateTime created = LocalDateTime.of(2024, 4, 1, 10, 15);
+        Comment comment = new Comment(42L, 101L, "user1", "Newest!", created, created.plusMinutes(60), null);
+        CommentCursor next = CommentCursor.after(CommentOrder.NEWEST, comment);
+        when(commentService.findCommentsPageByPostId(101L, CommentOrder.NEWEST, null, 1)).thenReturn(new CommentPage(List.of(comment), next));
+
+        mockMvc.perform(get("/api/comments/post/101/page").param("order", "NEWEST").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.comments[0].content").value("Newest!"))
+                .andExpect(jsonPath("$.nextCursor").value(next.encode()));
+    }
+
+    @Test
+    void getCommentsPageForPostId_ContinuesCursorInItsOrder() throws Exception {
+        CommentCursor cursor = new CommentCursor(CommentOrder.NEWEST, LocalDateTime.of(2024, 4, 1, 10, 15), 42L);
+        when(commentService.findCommentsPageByPostId(101L, CommentOrder.NEWEST, cursor, 20)).thenReturn(new CommentPage(List.of(), null));
 
+        mockMvc.perform(get("/api/comments/post/101/page").param("cursor", cursor.encode()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.comments").isEmpty())
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        verify(commentService).findCommentsPageByPostId(101L, CommentOrder.NEWEST, cursor, 20);
+    }
+
+    @Test
+    void getCommentsPageForPostId_DefaultsToOldestFirst() throws Exception {
+        when(commentService.findCommentsPageByPostId(101L, CommentOrder.OLDEST, null, 20)).thenReturn(new CommentPage(List.of(), null));
+
+        mockMvc.perform(get("/api/comments/post/101/page"))
+                .andExpect(status().isOk());
+
+        verify(commentService).findCommentsPageByPostId(101L, CommentOrder.OLDEST, null, 20);
+    }
+
+    @Test
+    void getCommentsPageForPostId_RejectsBadRequests() throws Exception {
+        CommentCursor cursor = new CommentCursor(CommentOrder.NEWEST, LocalDateTime.of(2024, 4, 1, 10, 15), 42L);
+
+        mockMvc.perform(get("/api/comments/post/101/page").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/comments/post/101/page").param("cursor", cursor.encode()).param("order", "OLDEST"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/comments/post/101/page").param("size", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/comments/post/101/page").param("size", "101"))
+                .andExpect(status().isBadRequest());
+
+        verify(commentService, never()).findCommentsPageByPostId(any(), any(), any(), anyInt());
+    }
+}
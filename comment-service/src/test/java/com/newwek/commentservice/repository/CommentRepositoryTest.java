@@ -0,0 +1,86 @@
+package com.newwek.commentservice.repository;
+
+import com.newwek.commentservice.domain.Comment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.Limit;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Testcontainers
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class CommentRepositoryTest {
+
+    @Container
+    @ServiceConnection
+    static MySQLContainer<?> mySQLContainer = new MySQLContainer<>("mysql:8.0.36");
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    private final List<Long> oldestFirst = new ArrayList<>();
+
+    @BeforeEach
+    public void init() {
+        LocalDateTime created = LocalDateTime.of(2024, 4, 1, 10, 0);
+        // Pairs of comments share a creation time so the pages have to be split on the id as well
+        for (int i = 0; i < 7; i++) {
+            LocalDateTime createdTime = created.plusMinutes(i / 2);
+            Comment comment = commentRepository.save(new Comment(null, 1L, "user1", "Comment " + i, createdTime, createdTime, null));
+            oldestFirst.add(comment.getId());
+        }
+        commentRepository.save(new Comment(null, 2L, "user1", "Other post", created, created, null));
+    }
+
+    @Test
+    public void testOldestFirstPages() {
+        List<Long> walked = new ArrayList<>();
+        List<Comment> page = commentRepository.findOldestByBlogPostId(1L, Limit.of(3));
+        while (!page.isEmpty()) {
+            page.forEach(comment -> walked.add(comment.getId()));
+            Comment last = page.getLast();
+            page = commentRepository.findOldestByBlogPostIdAfter(1L, last.getCreatedTime(), last.getId(), Limit.of(3));
+        }
+
+        assertThat(walked).containsExactlyElementsOf(oldestFirst);
+    }
+
+    @Test
+    public void testNewestFirstPages() {
+        List<Long> walked = new ArrayList<>();
+        List<Comment> page = commentRepository.findNewestByBlogPostId(1L, Limit.of(3));
+        while (!page.isEmpty()) {
+            page.forEach(comment -> walked.add(comment.getId()));
+            Comment last = page.getLast();
+            page = commentRepository.findNewestByBlogPostIdAfter(1L, last.getCreatedTime(), last.getId(), Limit.of(3));
+        }
+
+        assertThat(walked).containsExactlyElementsOf(oldestFirst.reversed());
+    }
+
+    @Test
+    public void testDeleteInChunks() {
+        List<Long> firstChunk = commentRepository.findIdsByBlogPostId(1L, Limit.of(5));
+        assertThat(firstChunk).hasSize(5).isSubsetOf(oldestFirst);
+        assertThat(commentRepository.deleteByBlogPostIdAndIdIn(1L, firstChunk)).isEqualTo(5);
+
+        List<Long> secondChunk = commentRepository.findIdsByBlogPostId(1L, Limit.of(5));
+        assertThat(secondChunk).hasSize(2);
+        assertThat(commentRepository.deleteByBlogPostIdAndIdIn(1L, secondChunk)).isEqualTo(2);
+
+        assertThat(commentRepository.findIdsByBlogPostId(1L, Limit.of(5))).isEmpty();
+        assertThat(commentRepository.findIdsByBlogPostId(2L, Limit.of(5))).hasSize(1);
+    }
+}
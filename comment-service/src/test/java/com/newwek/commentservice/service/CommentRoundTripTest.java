@@ -0,0 +1,213 @@
+package com.newwek.commentservice.service;
+
+import com.newwek.commentservice.domain.Comment;
+import com.newwek.commentservice.domain.CommentUpdate;
+import com.newwek.commentservice.repository.CommentRepository;
+import com.newwek.commentservice.stream.CommentStreamHub;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static com.newwek.commentservice.config.CacheNames.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Counts the statements sent to the database by the comment update, delete, reply and count paths, using Hibernate
+ * statistics.
+ */
+@Testcontainers
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CommentServiceImpl.class, PostCommentsCache.class, CommentRoundTripTest.CacheConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CommentRoundTripTest {
+
+    @Container
+    @ServiceConnection
+    static MySQLContainer<?> mySQLContainer = new MySQLContainer<>("mysql:8.0.36");
+
+    @MockBean
+    private RestTemplate restTemplate;
+
+    @MockBean
+    private CommentStreamHub commentStreamHub;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Comment comment;
+
+    @BeforeEach
+    public void init() {
+        when(restTemplate.exchange(anyString(), any(HttpMethod.class), isNull(), eq(Object.class), anyLong()))
+                .thenReturn(new ResponseEntity<>(HttpStatus.OK));
+        comment = commentRepository.save(new Comment(101L, "user1", "Original content"));
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        commentRepository.deleteAll();
+    }
+
+    @Test
+    public void testUpdateTakesOneConditionalStatementAndOneRead() {
+        CommentUpdate update = commentService.update(comment.getId(), "user1", "Updated content");
+
+        assertThat(update.status()).isEqualTo(CommentUpdate.Status.UPDATED);
+        assertThat(update.comment().getContent()).isEqualTo("Updated content");
+        assertThat(update.comment().getModifiedTime()).isNotNull();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    public void testRefusedUpdateTellsWhy() {
+        assertThat(commentService.update(comment.getId(), "user2", "Hijacked").status()).isEqualTo(CommentUpdate.Status.NOT_AUTHOR);
+        assertThat(commentService.update(comment.getId() + 1000, "user1", "Lost").status()).isEqualTo(CommentUpdate.Status.NOT_FOUND);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+
+        jdbcTemplate.update("update comment set enable_to_update_till = created_time where id = ?", comment.getId());
+        assertThat(commentService.update(comment.getId(), "user1", "Too late").status()).isEqualTo(CommentUpdate.Status.EXPIRED);
+
+        assertThat(commentRepository.findById(comment.getId())).get().extracting(Comment::getContent).isEqualTo("Original content");
+    }
+
+    @Test
+    public void testDeleteAdjustsTheCounterOfTheCommentsPost() {
+        assertThat(commentService.deleteById(comment.getId())).isTrue();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(commentRepository.existsById(comment.getId())).isFalse();
+        verify(restTemplate).exchange(anyString(), eq(HttpMethod.DELETE), isNull(), eq(Object.class), eq(101L));
+    }
+
+    @Test
+    public void testDeleteOfMissingCommentTakesOneStatement() {
+        assertThat(commentService.deleteById(comment.getId() + 1000)).isFalse();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    public void testRepliesAreReadWithOneThreadQuery() {
+        Comment first = commentService.save(new Comment(101L, comment.getId(), "user2", "First reply"));
+        Comment second = commentService.save(new Comment(101L, comment.getId(), "user3", "Second reply"));
+        Comment nested = commentService.save(new Comment(101L, first.getId(), "user1", "Nested reply"));
+        Comment laterNested = commentService.save(new Comment(101L, first.getId(), "user3", "Later nested reply"));
+        Comment deepest = commentService.save(new Comment(101L, laterNested.getId(), "user2", "Deepest reply"));
+        statistics.clear();
+
+        assertThat(commentService.findReplies(comment.getId(), null)).extracting(Comment::getId)
+                .containsExactly(first.getId(), nested.getId(), laterNested.getId(), deepest.getId(), second.getId());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+
+        assertThat(commentService.findReplies(comment.getId(), 1)).extracting(Comment::getId)
+                .containsExactly(first.getId(), nested.getId());
+        assertThat(commentService.findReplies(first.getId(), 1)).extracting(Comment::getId)
+                .containsExactly(nested.getId());
+        assertThat(commentService.findReplies(deepest.getId(), null)).isEmpty();
+        assertThat(commentRepository.findById(comment.getId())).get().extracting(Comment::getReplyCount).isEqualTo(2L);
+        assertThat(commentRepository.findById(first.getId())).get().extracting(Comment::getReplyCount).isEqualTo(2L);
+    }
+
+    @Test
+    public void testReplyToAnotherPostIsRejected() {
+        assertThatThrownBy(() -> commentService.save(new Comment(102L, comment.getId(), "user2", "Wrong post")))
+                .isInstanceOfSatisfying(ResponseStatusException.class, e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        assertThatThrownBy(() -> commentService.save(new Comment(101L, comment.getId() + 1000, "user2", "No parent")))
+                .isInstanceOfSatisfying(ResponseStatusException.class, e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+
+        assertThat(commentRepository.count()).isEqualTo(1);
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    public void testDeleteOfAThreadTakesOneDeleteStatement() {
+        when(restTemplate.exchange(anyString(), any(HttpMethod.class), isNull(), eq(Object.class), anyLong(), anyLong()))
+                .thenReturn(new ResponseEntity<>(HttpStatus.OK));
+        Comment reply = commentService.save(new Comment(101L, comment.getId(), "user2", "Reply"));
+        Comment nested = commentService.save(new Comment(101L, reply.getId(), "user1", "Nested reply"));
+        commentService.save(new Comment(101L, nested.getId(), "user3", "Deepest reply"));
+        statistics.clear();
+
+        assertThat(commentService.deleteById(reply.getId())).isTrue();
+
+        // Locking read, IDs of the replies, the delete itself and the reply count of the parent
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+        assertThat(commentRepository.findAll()).extracting(Comment::getId).containsExactly(comment.getId());
+        assertThat(commentRepository.findById(comment.getId())).get().extracting(Comment::getReplyCount).isEqualTo(0L);
+        verify(restTemplate).exchange(anyString(), eq(HttpMethod.POST), isNull(), eq(Object.class), eq(101L), eq(-3L));
+    }
+
+    @Test
+    public void testCountsTakeOneGroupedQueryThenNone() {
+        commentRepository.save(new Comment(101L, "user2", "Second comment"));
+        commentRepository.save(new Comment(102L, "user2", "Other post"));
+        statistics.clear();
+
+        assertThat(commentService.countCommentsByPostIds(List.of(101L, 102L, 103L)))
+                .containsExactly(entry(101L, 2L), entry(102L, 1L), entry(103L, 0L));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        commentService.save(new Comment(103L, "user1", "First comment"));
+        commentService.deleteById(comment.getId());
+        statistics.clear();
+
+        assertThat(commentService.countCommentsByPostIds(List.of(101L, 102L, 103L)))
+                .containsExactly(entry(101L, 1L), entry(102L, 1L), entry(103L, 1L));
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @TestConfiguration
+    static class CacheConfig {
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager(COMMENT_CACHE, COMMENTS_LIST_CACHE, BLOG_COMMENTS_CACHE, BLOG_COMMENT_PAGES_CACHE,
+                    BLOG_COMMENT_COUNTS_CACHE);
+        }
+    }
+}
@@ -0,0 +1,443 @@
+package com.newwek.commentservice.service;
+
+import com.newwek.commentservice.domain.Comment;
+import com.newwek.commentservice.domain.CommentOrder;
+import com.newwek.commentservice.domain.CommentPage;
+import com.newwek.commentservice.domain.CommentPosition;
+import com.newwek.commentservice.domain.PostCommentCount;
+import com.newwek.commentservice.repository.CommentRepository;
+import com.newwek.commentservice.stream.CommentStreamHub;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static com.newwek.commentservice.config.CacheNames.BLOG_COMMENTS_CACHE;
+import static com.newwek.commentservice.config.CacheNames.BLOG_COMMENT_COUNTS_CACHE;
+import static com.newwek.commentservice.config.CacheNames.BLOG_COMMENT_PAGES_CACHE;
+import static com.newwek.commentservice.config.CacheNames.COMMENT_CACHE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static java.lang.StringTemplate.STR;
+
+/**
+ * Runs {@link CommentServiceImpl} against an in-memory repository to check that writes patch the cached comments of
+ * their own post and leave the entries of every other post warm.
+ */
+public class PostCommentsCacheTest {
+
+    private static final int POSTS = 20;
+    private static final int PAGE_SIZE = 5;
+
+    private final Map<Long, Comment> rows = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final LocalDateTime start = LocalDateTime.now();
+    private final AtomicInteger listLoads = new AtomicInteger();
+    private final AtomicInteger pageLoads = new AtomicInteger();
+    private final AtomicInteger countLoads = new AtomicInteger();
+
+    private RestTemplate restTemplate;
+    private PostCommentsCache postCommentsCache;
+    private CommentServiceImpl commentService;
+
+    @BeforeEach
+    public void init() {
+        restTemplate = mock(RestTemplate.class);
+        when(restTemplate.exchange(anyString(), any(), any(), eq(Object.class), anyLong()))
+                .thenReturn(new ResponseEntity<>(HttpStatus.OK));
+        when(restTemplate.exchange(anyString(), any(), any(), eq(Object.class), anyLong(), anyLong()))
+                .thenReturn(new ResponseEntity<>(HttpStatus.OK));
+        wire(POSTS);
+
+        for (long postId = 1; postId <= POSTS; postId++) {
+            for (int i = 0; i < 3; i++) {
+                commentService.save(new Comment(postId, "user1", STR."Comment \{i}"));
+            }
+        }
+    }
+
+    @Test
+    public void testHitRatioStaysFlatUnderWrites() {
+        for (long postId = 1; postId <= POSTS; postId++) {
+            commentService.findCommentsByPostId(postId);
+            commentService.findCommentsPageByPostId(postId, CommentOrder.NEWEST, null, PAGE_SIZE);
+        }
+        listLoads.set(0);
+        pageLoads.set(0);
+
+        Random random = new Random(42);
+        int pageEvictingWrites = 0;
+        List<Double> pageHitRatios = new ArrayList<>();
+        for (int window = 0; window < 4; window++) {
+            int loadsBefore = pageLoads.get();
+            int pageReads = 0;
+            for (int i = 0; i < 1_000; i++) {
+                long postId = 1 + random.nextInt(POSTS);
+                int operation = random.nextInt(10);
+                if (operation < 4) {
+                    commentService.findCommentsByPostId(postId);
+                } else if (operation < 8) {
+                    pageReads++;
+                    commentService.findCommentsPageByPostId(postId, CommentOrder.NEWEST, null, PAGE_SIZE);
+                } else {
+                    pageEvictingWrites += write(random, postId) ? 1 : 0;
+                }
+            }
+            pageHitRatios.add(1 - (double) (pageLoads.get() - loadsBefore) / pageReads);
+        }
+
+        // Lists are patched in place, so they never have to be reloaded. A page is reloaded at most once per write that
+        // moved its boundaries, and only for the post written to, so its hit ratio does not degrade as writes go on
+        assertThat(listLoads).hasValue(0);
+        assertThat(pageLoads.get()).isLessThanOrEqualTo(pageEvictingWrites);
+        assertThat(pageHitRatios).allSatisfy(ratio -> assertThat(ratio).isGreaterThan(pageHitRatios.getFirst() - 0.05));
+
+        for (long postId = 1; postId <= POSTS; postId++) {
+            assertThat(commentService.findCommentsByPostId(postId)).containsExactlyInAnyOrderElementsOf(stored(postId));
+            assertThat(commentService.findCommentsPageByPostId(postId, CommentOrder.NEWEST, null, PAGE_SIZE).comments())
+                    .containsExactlyElementsOf(newest(postId, PAGE_SIZE));
+        }
+    }
+
+    @Test
+    public void testWritesOnlyTouchTheirPost() {
+        commentService.findCommentsPageByPostId(1L, CommentOrder.NEWEST, null, PAGE_SIZE);
+        commentService.findCommentsPageByPostId(2L, CommentOrder.NEWEST, null, PAGE_SIZE);
+        pageLoads.set(0);
+
+        Comment created = commentService.save(new Comment(1L, "user2", "New comment"));
+
+        commentService.findCommentsPageByPostId(2L, CommentOrder.NEWEST, null, PAGE_SIZE);
+        assertThat(pageLoads).hasValue(0);
+        CommentPage page = commentService.findCommentsPageByPostId(1L, CommentOrder.NEWEST, null, PAGE_SIZE);
+        assertThat(pageLoads).hasValue(1);
+        assertThat(page.comments().getFirst().getId()).isEqualTo(created.getId());
+    }
+
+    @Test
+    public void testUpdatePatchesListAndPagesInPlace() {
+        commentService.findCommentsByPostId(1L);
+        Comment comment = commentService.findCommentsPageByPostId(1L, CommentOrder.NEWEST, null, PAGE_SIZE).comments().getFirst();
+        listLoads.set(0);
+        pageLoads.set(0);
+
+        commentService.update(comment.getId(), comment.getUsername(), "Edited");
+
+        assertThat(commentService.findCommentsByPostId(1L)).extracting(Comment::getContent).contains("Edited");
+        assertThat(commentService.findCommentsPageByPostId(1L, CommentOrder.NEWEST, null, PAGE_SIZE).comments().getFirst().getContent())
+                .isEqualTo("Edited");
+        assertThat(listLoads).hasValue(0);
+        assertThat(pageLoads).hasValue(0);
+    }
+
+    @Test
+    public void testLoadOverlappingAWriteIsNotCached() {
+        List<Comment> stale = postCommentsCache.comments(1L, () -> {
+            List<Comment> loaded = stored(1L);
+            commentService.save(new Comment(1L, "user2", "Written during the load"));
+            return loaded;
+        });
+
+        assertThat(stale).hasSize(3);
+        assertThat(commentService.findCommentsByPostId(1L)).hasSize(4);
+    }
+
+    @Test
+    public void testDeleteAllForPostOnlyEvictsThatPost() {
+        for (int i = 0; i < CommentServiceImpl.DELETE_CHUNK_SIZE; i++) {
+            commentService.save(new Comment(1L, "user2", "Bulk comment"));
+        }
+        commentService.findCommentsByPostId(1L);
+        commentService.findCommentsByPostId(2L);
+        listLoads.set(0);
+
+        assertThat(commentService.deleteAllForPostId(1L)).isEqualTo(CommentServiceImpl.DELETE_CHUNK_SIZE + 3);
+        assertThat(commentService.deleteAllForPostId(1L)).isZero();
+
+        assertThat(commentService.findCommentsByPostId(2L)).hasSize(3);
+        assertThat(listLoads).hasValue(0);
+        assertThat(commentService.findCommentsByPostId(1L)).isEmpty();
+        assertThat(listLoads).hasValue(1);
+    }
+
+    @Test
+    public void testBatchAdjustsCounterAndCacheOncePerPost() {
+        commentService.findCommentsByPostId(1L);
+        commentService.findCommentsByPostId(2L);
+        commentService.findCommentsByPostId(3L);
+        listLoads.set(0);
+        when(restTemplate.exchange(anyString(), any(), any(), eq(Object.class), eq(3L), anyLong()))
+                .thenReturn(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+
+        List<Comment> saved = commentService.saveAll(List.of(
+                new Comment(1L, "user2", "First"), new Comment(2L, "user2", "Second"),
+                new Comment(1L, "user2", "Third"), new Comment(3L, "user2", "Lost")));
+
+        assertThat(saved).extracting(comment -> comment != null ? comment.getContent() : null)
+                .containsExactly("First", "Second", "Third", null);
+        verify(restTemplate).exchange(anyString(), eq(HttpMethod.POST), any(), eq(Object.class), eq(1L), eq(2L));
+        verify(restTemplate).exchange(anyString(), eq(HttpMethod.POST), any(), eq(Object.class), eq(2L), eq(1L));
+        assertThat(commentService.findCommentsByPostId(1L)).hasSize(5);
+        assertThat(commentService.findCommentsByPostId(2L)).hasSize(4);
+        assertThat(commentService.findCommentsByPostId(3L)).hasSize(3);
+        assertThat(listLoads).hasValue(0);
+    }
+
+    @Test
+    public void testRepliesEvictOnlyTheirPostAndParent() {
+        Comment parent = stored(1L).getFirst();
+        commentService.findById(parent.getId());
+        commentService.findCommentsByPostId(1L);
+        commentService.findCommentsByPostId(2L);
+        listLoads.set(0);
+
+        Comment reply = commentService.save(new Comment(1L, parent.getId(), "user2", "A reply"));
+        Comment nested = commentService.save(new Comment(1L, reply.getId(), "user1", "A nested reply"));
+
+        assertThat(nested.getPath()).isEqualTo(reply.childPath()).startsWith(parent.childPath());
+        assertThat(commentService.findCommentsByPostId(2L)).hasSize(3);
+        assertThat(listLoads).hasValue(0);
+        assertThat(commentService.findCommentsByPostId(1L)).hasSize(5);
+        assertThat(listLoads).hasValue(1);
+        assertThat(commentService.findById(parent.getId()).getReplyCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testDeletingACommentDeletesItsThread() {
+        Comment parent = stored(1L).getFirst();
+        Comment reply = commentService.save(new Comment(1L, parent.getId(), "user2", "A reply"));
+        commentService.save(new Comment(1L, reply.getId(), "user1", "A nested reply"));
+        commentService.save(new Comment(1L, parent.getId(), "user2", "Another reply"));
+        commentService.findCommentsByPostId(1L);
+
+        assertThat(commentService.deleteById(reply.getId())).isTrue();
+
+        assertThat(rows.get(parent.getId()).getReplyCount()).isEqualTo(1);
+        assertThat(commentService.findCommentsByPostId(1L)).extracting(Comment::getContent)
+                .containsExactlyInAnyOrder("Comment 0", "Comment 1", "Comment 2", "Another reply");
+        verify(restTemplate).exchange(anyString(), eq(HttpMethod.POST), any(), eq(Object.class), eq(1L), eq(-2L));
+
+        assertThat(commentService.deleteById(parent.getId())).isTrue();
+        assertThat(stored(1L)).hasSize(2);
+    }
+
+    @Test
+    public void testDeleteIsReportedWhenTheCounterCannotBeDecreased() {
+        Comment parent = stored(1L).getFirst();
+        Comment reply = commentService.save(new Comment(1L, parent.getId(), "user2", "A reply"));
+        Comment single = stored(1L).get(1);
+        commentService.findCommentsByPostId(1L);
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.POST), any(), eq(Object.class), eq(1L), anyLong()))
+                .thenReturn(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.DELETE), any(), eq(Object.class), eq(1L)))
+                .thenThrow(new ResourceAccessException("Blog service unavailable"));
+
+        assertThat(commentService.deleteById(parent.getId())).isTrue();
+        assertThat(commentService.deleteById(single.getId())).isTrue();
+
+        assertThat(rows).doesNotContainKeys(parent.getId(), reply.getId(), single.getId());
+        assertThat(commentService.findCommentsByPostId(1L)).extracting(Comment::getContent).containsExactly("Comment 2");
+    }
+
+    @Test
+    public void testCountsStayWarmUnderWrites() {
+        List<Long> postIds = LongStream.rangeClosed(1, POSTS).boxed().toList();
+        assertThat(commentService.countCommentsByPostIds(List.of(1L, 2L))).containsExactly(entry(1L, 3L), entry(2L, 3L));
+        assertThat(countLoads).hasValue(1);
+        commentService.countCommentsByPostIds(postIds);
+        assertThat(countLoads).hasValue(2);
+
+        Random random = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            write(random, 1 + random.nextInt(POSTS));
+        }
+        Comment parent = stored(1L).getFirst();
+        Comment reply = commentService.save(new Comment(1L, parent.getId(), "user2", "A reply"));
+        commentService.save(new Comment(1L, reply.getId(), "user1", "A nested reply"));
+        commentService.saveAll(List.of(new Comment(2L, "user2", "First"), new Comment(2L, "user2", "Second")));
+        commentService.deleteById(reply.getId());
+
+        Map<Long, Long> counts = commentService.countCommentsByPostIds(postIds);
+        assertThat(countLoads).hasValue(2);
+        postIds.forEach(postId -> assertThat(counts).containsEntry(postId, (long) stored(postId).size()));
+
+        commentService.deleteAllForPostId(3L);
+        assertThat(commentService.countCommentsByPostIds(List.of(3L))).containsExactly(entry(3L, 0L));
+        assertThat(countLoads).hasValue(3);
+    }
+
+    @Test
+    public void testDeletingAllCommentsOfAPostStopsTrackingIt() {
+        for (long postId = 1; postId <= POSTS; postId++) {
+            commentService.findCommentsPageByPostId(postId, CommentOrder.NEWEST, null, PAGE_SIZE);
+        }
+        assertThat(postCommentsCache.trackedPosts()).isEqualTo(POSTS);
+
+        commentService.deleteAllForPostId(1L);
+
+        assertThat(postCommentsCache.trackedPosts()).isEqualTo(POSTS - 1);
+        assertThat(commentService.findCommentsPageByPostId(1L, CommentOrder.NEWEST, null, PAGE_SIZE).comments()).isEmpty();
+    }
+
+    @Test
+    public void testTrackedPostsAreBoundedAndDroppedPagesReloaded() {
+        wire(2);
+        commentService.findCommentsPageByPostId(1L, CommentOrder.NEWEST, null, PAGE_SIZE);
+        commentService.findCommentsPageByPostId(2L, CommentOrder.NEWEST, null, PAGE_SIZE);
+        commentService.findCommentsPageByPostId(3L, CommentOrder.NEWEST, null, PAGE_SIZE);
+        assertThat(postCommentsCache.trackedPosts()).isEqualTo(2);
+        pageLoads.set(0);
+
+        // Post 1 was dropped to make room for post 3, so this write cannot find the page it cached and must not be
+        // able to leave it stale
+        Comment created = commentService.save(new Comment(1L, "user2", "Written after the post was dropped"));
+
+        CommentPage page = commentService.findCommentsPageByPostId(1L, CommentOrder.NEWEST, null, PAGE_SIZE);
+        assertThat(page.comments().getFirst().getId()).isEqualTo(created.getId());
+        assertThat(pageLoads).hasValue(1);
+        assertThat(postCommentsCache.trackedPosts()).isEqualTo(2);
+    }
+
+    private void wire(int trackedPosts) {
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(new ConcurrentMapCache(COMMENT_CACHE), new ConcurrentMapCache(BLOG_COMMENTS_CACHE),
+                new ConcurrentMapCache(BLOG_COMMENT_PAGES_CACHE), new ConcurrentMapCache(BLOG_COMMENT_COUNTS_CACHE)));
+        cacheManager.afterPropertiesSet();
+        postCommentsCache = new PostCommentsCache(cacheManager, trackedPosts);
+        commentService = new CommentServiceImpl(inMemoryRepository(), restTemplate, postCommentsCache,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), mock(CommentStreamHub.class));
+    }
+
+    private boolean write(Random random, long postId) {
+        List<Comment> comments = stored(postId);
+        switch (random.nextInt(3)) {
+            case 0 -> {
+                commentService.save(new Comment(postId, "user2", "Another comment"));
+                return true;
+            }
+            case 1 -> {
+                if (comments.isEmpty()) {
+                    return false;
+                }
+                Comment comment = comments.get(random.nextInt(comments.size()));
+                commentService.update(comment.getId(), comment.getUsername(), "Edited");
+                return false;
+            }
+            default -> {
+                if (comments.isEmpty()) {
+                    return false;
+                }
+                commentService.deleteById(comments.get(random.nextInt(comments.size())).getId());
+                return true;
+            }
+        }
+    }
+
+    private Optional<CommentPosition> position(Long id) {
+        return Optional.ofNullable(rows.get(id)).map(c -> new CommentPosition(c.getBlogPostId(), c.getParentId(), c.getPath(), c.getReplyCount()));
+    }
+
+    private List<Comment> stored(long postId) {
+        return rows.values().stream().filter(c -> c.getBlogPostId() == postId).sorted(Comparator.comparing(Comment::getId)).toList();
+    }
+
+    private List<Comment> newest(long postId, int limit) {
+        return stored(postId).reversed().stream().limit(limit).toList();
+    }
+
+    private CommentRepository inMemoryRepository() {
+        CommentRepository repository = mock(CommentRepository.class);
+        when(repository.save(any(Comment.class))).thenAnswer(invocation -> {
+            Comment comment = invocation.getArgument(0);
+            if (comment.getId() == null) {
+                // Ids grow with the creation time, so ordering by id matches the keyset order
+                long id = ids.incrementAndGet();
+                LocalDateTime created = start.plusSeconds(id);
+                comment = new Comment(id, comment.getBlogPostId(), comment.getUsername(), comment.getContent(), created, created.plusMinutes(60),
+                        null, comment.getParentId(), comment.getPath() != null ? comment.getPath() : "", 0);
+            }
+            rows.put(comment.getId(), comment);
+            return comment;
+        });
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> invocation.<List<Comment>>getArgument(0).stream()
+                .map(repository::save)
+                .toList());
+        when(repository.findById(anyLong())).thenAnswer(invocation -> Optional.ofNullable(rows.get(invocation.<Long>getArgument(0))));
+        when(repository.findAllByBlogPostId(anyLong())).thenAnswer(invocation -> {
+            listLoads.incrementAndGet();
+            return new ArrayList<>(stored(invocation.getArgument(0)));
+        });
+        when(repository.findNewestByBlogPostId(anyLong(), any(Limit.class))).thenAnswer(invocation -> {
+            pageLoads.incrementAndGet();
+            return newest(invocation.getArgument(0), invocation.<Limit>getArgument(1).max());
+        });
+        when(repository.countByBlogPostIdIn(anyCollection())).thenAnswer(invocation -> {
+            countLoads.incrementAndGet();
+            return invocation.<Collection<Long>>getArgument(0).stream()
+                    .filter(postId -> !stored(postId).isEmpty())
+                    .map(postId -> new PostCommentCount(postId, stored(postId).size()))
+                    .toList();
+        });
+        when(repository.findIdsByBlogPostId(anyLong(), any(Limit.class))).thenAnswer(invocation ->
+                stored(invocation.getArgument(0)).stream().map(Comment::getId).limit(invocation.<Limit>getArgument(1).max()).toList());
+        when(repository.deleteByBlogPostIdAndIdIn(anyLong(), anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(1);
+            return (int) ids.stream().filter(id -> rows.remove(id) != null).count();
+        });
+        when(repository.updateContentIfEditable(anyLong(), anyString(), anyString(), any(LocalDateTime.class))).thenAnswer(invocation -> {
+            Comment comment = rows.get(invocation.<Long>getArgument(0));
+            LocalDateTime now = invocation.getArgument(3);
+            if (comment == null || !comment.getUsername().equals(invocation.getArgument(1)) || !now.isBefore(comment.getEnableToUpdateTill())) {
+                return 0;
+            }
+            rows.put(comment.getId(), new Comment(comment.getId(), comment.getBlogPostId(), comment.getUsername(), invocation.getArgument(2),
+                    comment.getCreatedTime(), comment.getEnableToUpdateTill(), now));
+            return 1;
+        });
+        when(repository.findPosition(anyLong())).thenAnswer(invocation -> position(invocation.getArgument(0)));
+        when(repository.findPositionForDelete(anyLong())).thenAnswer(invocation -> position(invocation.getArgument(0)));
+        when(repository.addToReplyCount(anyLong(), anyLong())).thenAnswer(invocation -> {
+            Comment comment = rows.get(invocation.<Long>getArgument(0));
+            if (comment == null) {
+                return 0;
+            }
+            comment.setReplyCount(comment.getReplyCount() + invocation.<Long>getArgument(1));
+            return 1;
+        });
+        when(repository.deleteCommentById(anyLong())).thenAnswer(invocation -> rows.remove(invocation.<Long>getArgument(0)) != null ? 1 : 0);
+        when(repository.findThreadIds(anyString())).thenAnswer(invocation -> rows.values().stream()
+                .filter(c -> c.getPath().startsWith(invocation.getArgument(0))).map(Comment::getId).toList());
+        when(repository.deleteThread(anyLong(), anyString())).thenAnswer(invocation -> {
+            String pathPrefix = invocation.getArgument(1);
+            int count = rows.remove(invocation.<Long>getArgument(0)) != null ? 1 : 0;
+            return count + (int) List.copyOf(rows.values()).stream()
+                    .filter(c -> c.getPath().startsWith(pathPrefix) && rows.remove(c.getId()) != null).count();
+        });
+        return repository;
+    }
+}
@@ -0,0 +1,188 @@
+package com.newwek.commentservice.stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.newwek.commentservice.domain.Comment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Checks the fan-out of {@link CommentStreamHub} with emitters that record what is sent to them instead of writing to
+ * a response.
+ */
+public class CommentStreamHubTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final CommentStreamHub hub = new CommentStreamHub(objectMapper);
+
+    @AfterEach
+    public void cleanUp() {
+        hub.destroy();
+    }
+
+    @Test
+    public void testEventsOnlyReachTheSubscribersOfTheirPost() throws Exception {
+        RecordingEmitter first = new RecordingEmitter(1);
+        RecordingEmitter second = new RecordingEmitter(1);
+        RecordingEmitter otherPost = new RecordingEmitter(1);
+        hub.subscribe(1L, first);
+        hub.subscribe(1L, second);
+        hub.subscribe(2L, otherPost);
+
+        hub.publish(CommentEvent.created(comment(7L, 1L)));
+
+        assertThat(first.received.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(second.received.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(first.events.getFirst()).startsWith("event:created\ndata:").contains("\"comments\":[{\"id\":7");
+        assertThat(second.events).isEqualTo(first.events);
+        assertThat(otherPost.received.await(200, TimeUnit.MILLISECONDS)).isFalse();
+    }
+
+    @Test
+    public void testSlowSubscriberIsEvictedWithoutHoldingUpOthers() throws Exception {
+        int events = CommentStreamHub.BUFFER_SIZE + 2;
+        RecordingEmitter fast = new RecordingEmitter(events);
+        RecordingEmitter slow = new RecordingEmitter(1);
+        CountDownLatch release = new CountDownLatch(1);
+        slow.blockUntil = release;
+        hub.subscribe(1L, fast);
+        hub.subscribe(1L, slow);
+
+        hub.publish(CommentEvent.created(comment(1L, 1L)));
+        assertThat(slow.received.await(5, TimeUnit.SECONDS)).isTrue();
+        for (long id = 2; id <= events; id++) {
+            hub.publish(CommentEvent.created(comment(id, 1L)));
+            fast.awaitEvents((int) id);
+        }
+
+        // The first event is stuck in the slow client's socket and the next ones fill its buffer, while the fast
+        // client keeps up with every event
+        assertThat(fast.events).hasSize(events);
+        assertThat(slow.completed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(hub.evictionCount()).isEqualTo(1);
+        assertThat(hub.subscriberCount()).isEqualTo(1);
+        release.countDown();
+    }
+
+    @Test
+    public void testPeersReceiveEventsThroughTheBridge() throws Exception {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        CommentStreamHub peerHub = new CommentStreamHub(objectMapper);
+        RedisCommentStreamBridge bridge = new RedisCommentStreamBridge(hub, redisTemplate, objectMapper);
+        RedisCommentStreamBridge peerBridge = new RedisCommentStreamBridge(peerHub, redisTemplate, objectMapper);
+        RecordingEmitter local = new RecordingEmitter(2);
+        RecordingEmitter remote = new RecordingEmitter(1);
+        hub.subscribe(1L, local);
+        peerHub.subscribe(1L, remote);
+        List<String> published = new ArrayList<>();
+        doAnswer(invocation -> published.add(invocation.getArgument(1)))
+                .when(redisTemplate).convertAndSend(eq(RedisCommentStreamBridge.CHANNEL), anyString());
+
+        hub.publish(CommentEvent.deleted(1L, List.of(3L, 4L)));
+        DefaultMessage message = new DefaultMessage(RedisCommentStreamBridge.CHANNEL.getBytes(), published.getFirst().getBytes());
+        bridge.onMessage(message, null);
+        peerBridge.onMessage(message, null);
+
+        try {
+            assertThat(remote.received.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(remote.events.getFirst()).startsWith("event:deleted\ndata:").contains("\"commentIds\":[3,4]");
+            // The origin does not deliver its own event a second time
+            assertThat(local.received.await(200, TimeUnit.MILLISECONDS)).isFalse();
+            assertThat(local.events).hasSize(1);
+            verify(redisTemplate).convertAndSend(eq(RedisCommentStreamBridge.CHANNEL), anyString());
+        } finally {
+            peerHub.destroy();
+        }
+    }
+
+    @Test
+    public void testIdleSubscribersAreCheap() {
+        int subscribers = 10_000;
+        int threadsBefore = Thread.activeCount();
+        long heapBefore = usedHeapAfterGc();
+
+        List<SseEmitter> emitters = new ArrayList<>(subscribers);
+        for (int i = 0; i < subscribers; i++) {
+            emitters.add(hub.subscribe((long) i % 500, new SseEmitter()));
+        }
+        long perSubscriber = (usedHeapAfterGc() - heapBefore) / subscribers;
+
+        assertThat(hub.subscriberCount()).isEqualTo(subscribers);
+        assertThat(perSubscriber).as("heap bytes per idle subscriber").isLessThan(2_048);
+        assertThat(Thread.activeCount()).isLessThanOrEqualTo(threadsBefore + 1);
+        assertThat(emitters).hasSize(subscribers);
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static Comment comment(Long id, Long postId) {
+        LocalDateTime created = LocalDateTime.of(2024, 4, 1, 10, 0);
+        return new Comment(id, postId, "user1", "Comment " + id, created, created.plusMinutes(60), null);
+    }
+
+    /**
+     * Records the text of every event sent to it, optionally blocking each send until released like a client that
+     * does not read.
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch received;
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile CountDownLatch blockUntil;
+
+        RecordingEmitter(int expectedEvents) {
+            this.received = new CountDownLatch(expectedEvents);
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            events.add(builder.build().stream().map(data -> data.getData().toString()).collect(Collectors.joining()));
+            received.countDown();
+            CountDownLatch latch = blockUntil;
+            if (latch != null) {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        void awaitEvents(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (events.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertThat(events).hasSizeGreaterThanOrEqualTo(count);
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.newwek.loadtests;
+
+import org.springframework.cloud.netflix.eureka.http.DefaultEurekaClientHttpRequestFactorySupplier;
+import org.springframework.cloud.netflix.eureka.http.RestTemplateDiscoveryClientOptionalArgs;
+import org.springframework.cloud.netflix.eureka.http.RestTemplateTransportClientFactories;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Gives the Eureka clients the RestTemplate transport they use in production. Spring Cloud only auto-configures it
+ * when Jersey is absent, but the in-process Eureka server puts Jersey on the shared classpath.
+ */
+@Configuration(proxyBeanMethods = false)
+class EurekaClientTransportConfiguration {
+
+    /**
+     * The request factory supplier is deliberately not a bean: as a bean it would be disposed, and its connection pool
+     * closed, before the Eureka client gets to deregister on shutdown.
+     */
+    @Bean
+    RestTemplateDiscoveryClientOptionalArgs restTemplateDiscoveryClientOptionalArgs() {
+        return new RestTemplateDiscoveryClientOptionalArgs(new DefaultEurekaClientHttpRequestFactorySupplier());
+    }
+
+    @Bean
+    RestTemplateTransportClientFactories restTemplateTransportClientFactories(RestTemplateDiscoveryClientOptionalArgs optionalArgs) {
+        return new RestTemplateTransportClientFactories(optionalArgs);
+    }
+}
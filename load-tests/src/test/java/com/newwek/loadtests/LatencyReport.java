@@ -0,0 +1,100 @@
+package com.newwek.loadtests;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Machine-readable result of one workload run: throughput and latency percentiles per endpoint.
+ *
+ * @param workload    the workload name
+ * @param concurrency the number of concurrent clients
+ * @param seconds     the measured wall-clock time
+ * @param endpoints   endpoint template to its statistics, sorted by endpoint
+ */
+record LatencyReport(
+        @JsonProperty("workload") String workload,
+        @JsonProperty("concurrency") int concurrency,
+        @JsonProperty("seconds") double seconds,
+        @JsonProperty("endpoints") Map<String, EndpointStats> endpoints
+) {
+
+    long requests() {
+        return endpoints.values().stream().mapToLong(EndpointStats::requests).sum();
+    }
+
+    long errors() {
+        return endpoints.values().stream().mapToLong(EndpointStats::errors).sum();
+    }
+
+    /**
+     * @param requests           all requests sent, including failed ones
+     * @param errors             requests answered with a 4xx/5xx status or failed on the transport level
+     * @param throughputPerSecond requests per second over the measured time
+     * @param latencyMillis      latency percentiles (p50, p90, p95, p99, p99.9) and max, in milliseconds
+     */
+    record EndpointStats(
+            @JsonProperty("requests") long requests,
+            @JsonProperty("errors") long errors,
+            @JsonProperty("throughput_per_second") double throughputPerSecond,
+            @JsonProperty("latency_ms") Map<String, Double> latencyMillis
+    ) {
+    }
+
+    /**
+     * Thread-safe collector the {@link LoadDriver} clients record into while a workload runs.
+     */
+    static final class Recorder {
+
+        private static final long MAX_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+        private final Map<String, Histogram> latencies = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+        void record(String endpoint, long elapsedNanos, boolean failed) {
+            long micros = Math.min(TimeUnit.NANOSECONDS.toMicros(elapsedNanos), MAX_TRACKABLE_MICROS);
+            latencies.computeIfAbsent(endpoint, key -> new ConcurrentHistogram(MAX_TRACKABLE_MICROS, 3)).recordValue(micros);
+            if (failed) {
+                errors.computeIfAbsent(endpoint, key -> new LongAdder()).increment();
+            }
+        }
+
+        LatencyReport report(String workload, int concurrency, Duration elapsed) {
+            double seconds = elapsed.toNanos() / 1e9;
+            Map<String, EndpointStats> endpoints = new TreeMap<>();
+            latencies.forEach((endpoint, histogram) -> {
+                long count = histogram.getTotalCount();
+                LongAdder failed = errors.get(endpoint);
+                endpoints.put(endpoint, new EndpointStats(
+                        count,
+                        failed == null ? 0 : failed.sum(),
+                        count / seconds,
+                        percentiles(histogram)));
+            });
+            return new LatencyReport(workload, concurrency, seconds, endpoints);
+        }
+
+        private static Map<String, Double> percentiles(Histogram histogram) {
+            Map<String, Double> percentiles = new LinkedHashMap<>();
+            percentiles.put("p50", millis(histogram.getValueAtPercentile(50)));
+            percentiles.put("p90", millis(histogram.getValueAtPercentile(90)));
+            percentiles.put("p95", millis(histogram.getValueAtPercentile(95)));
+            percentiles.put("p99", millis(histogram.getValueAtPercentile(99)));
+            percentiles.put("p99.9", millis(histogram.getValueAtPercentile(99.9)));
+            percentiles.put("max", millis(histogram.getMaxValue()));
+            return percentiles;
+        }
+
+        private static double millis(long micros) {
+            return micros / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.newwek.loadtests;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load generator: a fixed number of clients, each on its own virtual thread, send the next request of
+ * a {@link Workload} as soon as the previous response arrived.
+ */
+@Slf4j
+final class LoadDriver {
+
+    private final HttpClient httpClient;
+    private final int concurrency;
+
+    LoadDriver(HttpClient httpClient, int concurrency) {
+        this.httpClient = httpClient;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Runs the workload for the warmup period without recording, then for the given duration while recording.
+     */
+    LatencyReport run(String name, Workload workload, Duration warmup, Duration duration) throws InterruptedException {
+        if (!warmup.isZero()) {
+            drive(workload, new LatencyReport.Recorder(), warmup);
+        }
+        LatencyReport.Recorder recorder = new LatencyReport.Recorder();
+        Duration elapsed = drive(workload, recorder, duration);
+        return recorder.report(name, concurrency, elapsed);
+    }
+
+    /**
+     * Runs the workload until it has no requests left.
+     */
+    LatencyReport runToCompletion(String name, Workload workload) throws InterruptedException {
+        LatencyReport.Recorder recorder = new LatencyReport.Recorder();
+        Duration elapsed = drive(workload, recorder, null);
+        return recorder.report(name, concurrency, elapsed);
+    }
+
+    private Duration drive(Workload workload, LatencyReport.Recorder recorder, Duration duration) throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = duration == null ? Long.MAX_VALUE : start + duration.toNanos();
+        AtomicLong transportErrors = new AtomicLong();
+        SplittableRandom seed = new SplittableRandom(42);
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                SplittableRandom random = seed.split();
+                clients.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        Workload.Request next = workload.next(random);
+                        if (next == null) {
+                            return;
+                        }
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = httpClient.send(next.request(), HttpResponse.BodyHandlers.discarding());
+                            recorder.record(next.endpoint(), System.nanoTime() - sent, response.statusCode() >= 400);
+                        } catch (IOException e) {
+                            recorder.record(next.endpoint(), System.nanoTime() - sent, true);
+                            if (transportErrors.getAndIncrement() == 0) {
+                                log.warn("Request to {} failed: {}", next.endpoint(), e.toString());
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                });
+            }
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+}
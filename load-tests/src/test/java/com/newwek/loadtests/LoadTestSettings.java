@@ -0,0 +1,24 @@
+package com.newwek.loadtests;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Knobs of a load test run, read from system properties so they can be changed from the Maven command line,
+ * e.g. {@code -Dloadtest.duration=PT60S -Dloadtest.concurrency=64}.
+ *
+ * @param warmup      how long each duration-based workload runs before measuring starts
+ * @param duration    how long each duration-based workload is measured
+ * @param concurrency number of concurrent clients
+ * @param output      directory the JSON reports are written to
+ */
+record LoadTestSettings(Duration warmup, Duration duration, int concurrency, Path output) {
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Duration.parse(System.getProperty("loadtest.warmup", "PT5S")),
+                Duration.parse(System.getProperty("loadtest.duration", "PT20S")),
+                Integer.getInteger("loadtest.concurrency", 32),
+                Path.of(System.getProperty("loadtest.output", "target/load-test-results")));
+    }
+}
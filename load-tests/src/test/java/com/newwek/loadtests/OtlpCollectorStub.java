@@ -0,0 +1,80 @@
+package com.newwek.loadtests;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Stands in for an OpenTelemetry collector: accepts OTLP/HTTP trace exports on {@code /v1/traces} and keeps the raw
+ * protobuf payloads. Every export carries the spans of a single service, so payloads are searched for the service name
+ * and the trace ID bytes instead of being decoded.
+ */
+final class OtlpCollectorStub implements AutoCloseable {
+
+    private final HttpServer server;
+    private final List<byte[]> exports = new CopyOnWriteArrayList<>();
+
+    private OtlpCollectorStub(HttpServer server) {
+        this.server = server;
+    }
+
+    static OtlpCollectorStub start() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        OtlpCollectorStub collector = new OtlpCollectorStub(server);
+        server.createContext("/v1/traces", collector::receive);
+        server.start();
+        return collector;
+    }
+
+    String tracesEndpoint() {
+        return "http://localhost:" + server.getAddress().getPort() + "/v1/traces";
+    }
+
+    int exports() {
+        return exports.size();
+    }
+
+    /**
+     * Whether the service has exported at least one span of the trace.
+     *
+     * @param traceId the trace ID as 32 hex characters
+     */
+    boolean hasSpans(String serviceName, String traceId) {
+        byte[] service = serviceName.getBytes(StandardCharsets.UTF_8);
+        byte[] trace = HexFormat.of().parseHex(traceId);
+        return exports.stream().anyMatch(payload -> contains(payload, service) && contains(payload, trace));
+    }
+
+    private void receive(HttpExchange exchange) throws IOException {
+        try (exchange; InputStream body = exchange.getRequestBody()) {
+            exports.add(body.readAllBytes());
+            exchange.getResponseHeaders().set("Content-Type", "application/x-protobuf");
+            exchange.sendResponseHeaders(200, -1);
+        }
+    }
+
+    private static boolean contains(byte[] payload, byte[] part) {
+        outer:
+        for (int i = 0; i <= payload.length - part.length; i++) {
+            for (int j = 0; j < part.length; j++) {
+                if (payload[i + j] != part[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
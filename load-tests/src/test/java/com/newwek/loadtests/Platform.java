@@ -0,0 +1,123 @@
+package com.newwek.loadtests;
+
+import com.newwek.api.gateway.ApiGatewayApplication;
+import com.newwek.authenticationservice.AuthenticationServiceApplication;
+import com.newwek.blogservice.BlogServiceApplication;
+import com.newwek.commentservice.CommentServiceApplication;
+import com.newwek.service.registry.ServiceRegistryApplication;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The whole platform running in this JVM: an in-process Eureka registry, the authentication, blog and comment
+ * services backed by in-memory H2 databases in MySQL mode, and the API gateway in front of them.
+ * <p>
+ * Every service is a separate Spring context on a random port and talks to the others exactly as in production,
+ * through Eureka and the load-balanced clients. Configuration comes from the {@code loadtest-*.properties} files of
+ * this module instead of the services' own {@code application.properties}. Traces of all services are exported to an
+ * {@link OtlpCollectorStub}.
+ */
+@Slf4j
+final class Platform implements AutoCloseable {
+
+    private static final List<String> SERVICES = List.of("AUTHENTICATION-SERVICE", "BLOG-SERVICE", "COMMENT-SERVICE");
+
+    private final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+    private OtlpCollectorStub collector;
+    private String gatewayUrl;
+
+    static Platform start(Duration discoveryTimeout) throws InterruptedException {
+        Platform platform = new Platform();
+        try {
+            platform.startAll(discoveryTimeout);
+        } catch (RuntimeException | InterruptedException e) {
+            platform.close();
+            throw e;
+        }
+        return platform;
+    }
+
+    String gatewayUrl() {
+        return gatewayUrl;
+    }
+
+    OtlpCollectorStub collector() {
+        return collector;
+    }
+
+    private void startAll(Duration discoveryTimeout) throws InterruptedException {
+        try {
+            collector = OtlpCollectorStub.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ConfigurableApplicationContext registry = start(ServiceRegistryApplication.class, WebApplicationType.SERVLET, "registry", null);
+        String eurekaUrl = "http://localhost:" + port(registry) + "/eureka/";
+
+        start(AuthenticationServiceApplication.class, WebApplicationType.SERVLET, "authentication", eurekaUrl);
+        start(BlogServiceApplication.class, WebApplicationType.SERVLET, "blog", eurekaUrl);
+        start(CommentServiceApplication.class, WebApplicationType.SERVLET, "comment", eurekaUrl);
+        ConfigurableApplicationContext gateway = start(ApiGatewayApplication.class, WebApplicationType.REACTIVE, "gateway", eurekaUrl);
+        gatewayUrl = "http://localhost:" + port(gateway);
+
+        awaitDiscovery(discoveryTimeout);
+        log.info("Platform is up, gateway at {}", gatewayUrl);
+    }
+
+    private ConfigurableApplicationContext start(Class<?> application, WebApplicationType type, String name, String eurekaUrl) {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(application).web(type);
+        List<String> args = new ArrayList<>();
+        args.add("--spring.config.name=loadtest-common,loadtest-" + name);
+        args.add("--management.otlp.tracing.endpoint=" + collector.tracesEndpoint());
+        if (eurekaUrl != null) {
+            builder.sources(EurekaClientTransportConfiguration.class);
+            args.add("--eureka.client.service-url.defaultZone=" + eurekaUrl);
+        }
+
+        ConfigurableApplicationContext context = builder.run(args.toArray(String[]::new));
+        contexts.add(context);
+        log.info("Started {} on port {}", name, port(context));
+        return context;
+    }
+
+    /**
+     * Waits until every service that makes outgoing calls sees all the other services in its local copy of the registry,
+     * so the first measured requests are not failed by an empty load balancer.
+     */
+    private void awaitDiscovery(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        for (ConfigurableApplicationContext context : contexts.subList(1, contexts.size())) {
+            DiscoveryClient discoveryClient = context.getBean(DiscoveryClient.class);
+            while (!SERVICES.stream().allMatch(service -> !discoveryClient.getInstances(service).isEmpty())) {
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("Services were not discovered within " + timeout);
+                }
+                Thread.sleep(200);
+            }
+        }
+    }
+
+    private static String port(ConfigurableApplicationContext context) {
+        return context.getEnvironment().getProperty("local.server.port");
+    }
+
+    @Override
+    public void close() {
+        for (int i = contexts.size() - 1; i >= 0; i--) {
+            contexts.get(i).close();
+        }
+        contexts.clear();
+        if (collector != null) {
+            collector.close();
+        }
+    }
+}
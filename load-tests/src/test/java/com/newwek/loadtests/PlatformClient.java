@@ -0,0 +1,121 @@
+package com.newwek.loadtests;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds requests against the gateway and performs the synchronous calls used to seed data before a workload.
+ */
+final class PlatformClient {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpClient httpClient;
+    private final String gatewayUrl;
+    private String token;
+
+    PlatformClient(HttpClient httpClient, String gatewayUrl) {
+        this.httpClient = httpClient;
+        this.gatewayUrl = gatewayUrl;
+    }
+
+    /**
+     * Registers a user and keeps its token for all requests built afterwards.
+     */
+    void signUp(String username, String password) {
+        send(post("/auth/register", Map.of("name", username, "email", username + "@load.test", "password", password), false));
+        token = send(post("/auth/token", Map.of("username", username, "password", password), false));
+    }
+
+    long createPost(String title) {
+        String body = send(post("/api/posts", Map.of("title", title, "content", "Load test content of " + title, "author", "load-tester"), true));
+        return readId(body);
+    }
+
+    long createComment(long postId, String content) {
+        return readId(send(createCommentRequest(postId, content)));
+    }
+
+    /**
+     * Creates several comments on a post with one batch request, failing if any of them was not created.
+     */
+    void createComments(long postId, List<String> contents) {
+        List<Map<String, Object>> comments = contents.stream()
+                .map(content -> Map.<String, Object>of("blogPostId", postId, "content", content))
+                .toList();
+        try {
+            for (JsonNode item : MAPPER.readTree(send(post("/api/comments/batch", comments, true)))) {
+                if (!"CREATED".equals(item.get("status").asText())) {
+                    throw new IllegalStateException("Batch comment on post " + postId + " was not created: " + item);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    HttpRequest createCommentRequest(long postId, String content) {
+        return post("/api/comments", Map.of("blogPostId", postId, "content", content), true);
+    }
+
+    HttpRequest get(String path) {
+        return authorized(path).GET().build();
+    }
+
+    HttpRequest delete(String path) {
+        return authorized(path).DELETE().build();
+    }
+
+    private HttpRequest post(String path, Object body, boolean authorized) {
+        HttpRequest.Builder builder = authorized ? authorized(path) : HttpRequest.newBuilder(URI.create(gatewayUrl + path));
+        return builder
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(write(body)))
+                .build();
+    }
+
+    private HttpRequest.Builder authorized(String path) {
+        return HttpRequest.newBuilder(URI.create(gatewayUrl + path)).header("Authorization", "Bearer " + token);
+    }
+
+    private String send(HttpRequest request) {
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() >= 400) {
+                throw new IllegalStateException(request.method() + " " + request.uri() + " failed with " + response.statusCode() + ": " + response.body());
+            }
+            return response.body();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String write(Object body) {
+        try {
+            return MAPPER.writeValueAsString(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long readId(String body) {
+        try {
+            JsonNode id = MAPPER.readTree(body).get("id");
+            return id.asLong();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.newwek.loadtests;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * End-to-end load test of the platform through the gateway. Each workload writes its report to
+ * {@code <loadtest.output>/<workload>.json}.
+ * <p>
+ * Only part of the build under the {@code load-test} profile:
+ * <pre>
+ * mvn -Pload-test -pl load-tests -am test -DskipTests -Dloadtest.duration=PT30S -Dloadtest.concurrency=64
+ * </pre>
+ */
+@Slf4j
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class PlatformLoadTest {
+
+    private static final int FEED_POSTS = 200;
+    private static final int DELETED_POSTS_PER_CLIENT = 10;
+    private static final int COMMENTS_PER_DELETED_POST = 5;
+    private static final List<String> TRACED_SERVICES = List.of("api-gateway", "blog-service", "comment-service");
+    private static final Duration TRACE_EXPORT_TIMEOUT = Duration.ofSeconds(30);
+
+    private final LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+    private final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private Platform platform;
+    private PlatformClient client;
+    private LoadDriver driver;
+    private final List<Long> feedPostIds = new ArrayList<>();
+
+    @BeforeAll
+    void startPlatform() throws InterruptedException {
+        platform = Platform.start(Duration.ofMinutes(1));
+        client = new PlatformClient(httpClient, platform.gatewayUrl());
+        client.signUp("load-tester", "load-tester-password");
+        for (int i = 0; i < FEED_POSTS; i++) {
+            feedPostIds.add(client.createPost("Feed post " + i));
+        }
+        driver = new LoadDriver(httpClient, settings.concurrency());
+    }
+
+    @AfterAll
+    void stopPlatform() {
+        httpClient.close();
+        if (platform != null) {
+            platform.close();
+        }
+    }
+
+    @Test
+    @Order(1)
+    void readHeavyFeed() throws Exception {
+        LatencyReport report = driver.run("read-heavy-feed", random -> {
+            int roll = random.nextInt(100);
+            long postId = feedPostIds.get(random.nextInt(feedPostIds.size()));
+            if (roll < 80) {
+                return new Workload.Request("GET /api/posts", client.get("/api/posts"));
+            }
+            if (roll < 95) {
+                return new Workload.Request("GET /api/posts/{id}", client.get("/api/posts/" + postId));
+            }
+            return new Workload.Request("GET /api/comments/post/{postId}/page", client.get("/api/comments/post/" + postId + "/page?order=NEWEST"));
+        }, settings.warmup(), settings.duration());
+
+        write(report);
+    }
+
+    @Test
+    @Order(2)
+    void commentStormOnHotPost() throws Exception {
+        long hotPostId = client.createPost("Hot post");
+        LatencyReport report = driver.run("comment-storm", random -> {
+            if (random.nextInt(100) < 70) {
+                return new Workload.Request("POST /api/comments", client.createCommentRequest(hotPostId, "Storm comment " + random.nextInt()));
+            }
+            return new Workload.Request("GET /api/comments/post/{postId}/page", client.get("/api/comments/post/" + hotPostId + "/page?order=NEWEST"));
+        }, settings.warmup(), settings.duration());
+
+        write(report);
+    }
+
+    @Test
+    @Order(3)
+    void bulkDeletes() throws Exception {
+        Queue<Long> postsToDelete = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < settings.concurrency() * DELETED_POSTS_PER_CLIENT; i++) {
+            long postId = client.createPost("Doomed post " + i);
+            client.createComments(postId, IntStream.range(0, COMMENTS_PER_DELETED_POST).mapToObj(c -> "Doomed comment " + c).toList());
+            postsToDelete.add(postId);
+        }
+
+        LatencyReport report = driver.runToCompletion("bulk-delete", random -> {
+            Long postId = postsToDelete.poll();
+            return postId == null ? null : new Workload.Request("DELETE /api/posts/{id}", client.delete("/api/posts/" + postId));
+        });
+
+        write(report);
+    }
+
+    /**
+     * Deleting a post goes gateway, which verifies the token itself, blog and then comment service, so a single
+     * request shows whether the trace context survives every hop and whether every service on the way exports its spans.
+     */
+    @Test
+    @Order(4)
+    void tracesFollowRequestsAcrossServices() throws Exception {
+        long postId = client.createPost("Traced post");
+        client.createComment(postId, "Traced comment");
+
+        byte[] traceIdBytes = new byte[16];
+        ThreadLocalRandom.current().nextBytes(traceIdBytes);
+        String traceId = HexFormat.of().formatHex(traceIdBytes);
+        HttpRequest delete = HttpRequest.newBuilder(client.delete("/api/posts/" + postId), (name, value) -> true)
+                .header("traceparent", "00-" + traceId + "-00f067aa0ba902b7-01")
+                .header("X-Request-ID", "traced-delete")
+                .build();
+
+        HttpResponse<Void> response = httpClient.send(delete, HttpResponse.BodyHandlers.discarding());
+        assertThat(response.statusCode()).isEqualTo(204);
+        assertThat(response.headers().firstValue("X-Request-ID")).contains("traced-delete");
+
+        OtlpCollectorStub collector = platform.collector();
+        long deadline = System.nanoTime() + TRACE_EXPORT_TIMEOUT.toNanos();
+        while (!TRACED_SERVICES.stream().allMatch(service -> collector.hasSpans(service, traceId)) && System.nanoTime() < deadline) {
+            Thread.sleep(200);
+        }
+        log.info("Collector received {} exports", collector.exports());
+        assertThat(TRACED_SERVICES).allMatch(service -> collector.hasSpans(service, traceId), "exported spans of trace " + traceId);
+    }
+
+    private void write(LatencyReport report) throws IOException {
+        Files.createDirectories(settings.output());
+        mapper.writeValue(settings.output().resolve(report.workload() + ".json").toFile(), report);
+        log.info("{}: {} requests, {} errors in {}s -> {}", report.workload(), report.requests(), report.errors(),
+                String.format("%.1f", report.seconds()), settings.output().resolve(report.workload() + ".json"));
+
+        assertThat(report.requests()).isPositive();
+        assertThat(report.errors()).isLessThan(report.requests());
+    }
+}
@@ -0,0 +1,24 @@
+package com.newwek.loadtests;
+
+import java.net.http.HttpRequest;
+import java.util.random.RandomGenerator;
+
+/**
+ * A scripted mix of requests. Called concurrently by every client of a {@link LoadDriver}.
+ */
+@FunctionalInterface
+interface Workload {
+
+    /**
+     * @param random the calling client's random generator
+     * @return the next request to send, or {@code null} once the workload has nothing left to do
+     */
+    Request next(RandomGenerator random);
+
+    /**
+     * @param endpoint the endpoint template the request is reported under, e.g. {@code GET /api/posts/{id}}
+     * @param request  the request itself
+     */
+    record Request(String endpoint, HttpRequest request) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.newwek.platform.hash;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The 64-bit hash the probabilistic filters of the platform place their keys with. It is cheap and stable across
+ * processes, unlike {@link String#hashCode()} it spreads over all 64 bits, and it is not meant to resist keys chosen
+ * to collide.
+ */
+public final class KeyHash {
+
+    private KeyHash() {
+    }
+
+    /**
+     * 64-bit FNV-1a of the UTF-8 bytes, finished with the SplitMix64 mixer to spread the low bits.
+     */
+    public static long of(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+}
@@ -0,0 +1,32 @@
+package com.newwek.platform.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for one lookup in a Spring cache, emitted by {@link com.newwek.platform.metrics.MeteredCache}.
+ * The event duration covers the whole lookup; for a synchronized miss that includes running the value loader, whose
+ * own share is reported in {@link #loadTime}. Stack traces are not recorded to keep the event cheap on hot paths.
+ */
+@Name("com.newwek.CacheLookup")
+@Label("Cache Lookup")
+@Category({"Newwek", "Cache"})
+@Description("A lookup in a Spring cache, with its outcome and the time spent loading the value on a miss")
+@StackTrace(false)
+public class CacheLookupEvent extends jdk.jfr.Event {
+
+    @Label("Cache")
+    public String cache;
+
+    @Label("Hit")
+    public boolean hit;
+
+    @Label("Load Time")
+    @Description("Time spent in the value loader, zero unless the lookup was a synchronized miss")
+    @Timespan(Timespan.NANOSECONDS)
+    public long loadTime;
+}
@@ -0,0 +1,196 @@
+package com.newwek.platform.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.util.unit.DataSize;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Actuator endpoint ({@code /actuator/jfr}) controlling a continuous JDK Flight Recorder recording of this instance,
+ * so a profile can be pulled from a running service without restarting it with extra JVM flags:
+ * <ul>
+ *     <li>{@code GET /actuator/jfr} reports the state of the recording,</li>
+ *     <li>{@code POST /actuator/jfr} starts it, optionally with {@code maxAge} (e.g. {@code "15m"}) and
+ *     {@code maxSize} (e.g. {@code "50MB"}) in the JSON body,</li>
+ *     <li>{@code GET /actuator/jfr/continuous} downloads what has been recorded so far, while the recording keeps going,</li>
+ *     <li>{@code DELETE /actuator/jfr} stops and discards it.</li>
+ * </ul>
+ * The recording uses the JDK's {@code default} settings, which are meant for always-on use, plus the custom events of
+ * the service. It is bounded on disk by age and size, and the size is capped at {@link #MAX_SIZE_LIMIT} so a dump can
+ * never grow beyond that.
+ * <p>
+ * Recordings expose the internals of the service, so the endpoint must only be exposed on the management port, which
+ * the gateway does not route and which is not published outside the platform.
+ */
+@WebEndpoint(id = "jfr")
+public class FlightRecorderEndpoint {
+
+    public static final String RECORDING_NAME = "continuous";
+
+    static final Duration DEFAULT_MAX_AGE = Duration.ofMinutes(30);
+    static final DataSize DEFAULT_MAX_SIZE = DataSize.ofMegabytes(100);
+    static final DataSize MAX_SIZE_LIMIT = DataSize.ofMegabytes(512);
+
+    private Recording recording;
+
+    /**
+     * Reports the state of the continuous recording.
+     */
+    @ReadOperation
+    public synchronized RecordingStatus status() {
+        return RecordingStatus.of(recording);
+    }
+
+    /**
+     * Starts the continuous recording. Answers {@code 409 Conflict} if it is already running.
+     *
+     * @param maxAge  how long recorded data is kept, {@link #DEFAULT_MAX_AGE} if not given
+     * @param maxSize how much recorded data is kept, {@link #DEFAULT_MAX_SIZE} if not given
+     */
+    @WriteOperation
+    public synchronized WebEndpointResponse<RecordingStatus> start(@Nullable Duration maxAge, @Nullable DataSize maxSize) {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            return new WebEndpointResponse<>(status(), HttpStatus.CONFLICT.value());
+        }
+        Duration age = maxAge != null ? maxAge : DEFAULT_MAX_AGE;
+        DataSize size = maxSize != null ? maxSize : DEFAULT_MAX_SIZE;
+        if (age.isNegative() || age.isZero() || size.toBytes() <= 0 || size.compareTo(MAX_SIZE_LIMIT) > 0) {
+            return new WebEndpointResponse<>(status(), WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+
+        closeRecording();
+        try {
+            recording = new Recording(Configuration.getConfiguration("default"));
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("The JDK's default recording settings could not be read", e);
+        }
+        recording.setName(RECORDING_NAME);
+        recording.setToDisk(true);
+        recording.setMaxAge(age);
+        recording.setMaxSize(size.toBytes());
+        recording.start();
+        return new WebEndpointResponse<>(status());
+    }
+
+    /**
+     * Stops the continuous recording and discards its data.
+     */
+    @DeleteOperation
+    public synchronized WebEndpointResponse<RecordingStatus> stop() {
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        closeRecording();
+        return new WebEndpointResponse<>(status());
+    }
+
+    /**
+     * Writes the data recorded so far to a temporary file and streams it as a {@code .jfr} file, which is deleted once
+     * it has been sent.
+     *
+     * @param name the name of the recording, which must be {@link #RECORDING_NAME}
+     */
+    @ReadOperation(produces = "application/octet-stream")
+    public synchronized WebEndpointResponse<Resource> dump(@Selector String name) throws IOException {
+        if (recording == null || !RECORDING_NAME.equals(name) || recording.getState() != RecordingState.RUNNING) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        Path file = Files.createTempFile(RECORDING_NAME + "-", ".jfr");
+        try {
+            recording.dump(file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return new WebEndpointResponse<>(new TemporaryFileResource(file));
+    }
+
+    private void closeRecording() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    /**
+     * State of the continuous recording as reported by the endpoint.
+     *
+     * @param name      the name of the recording
+     * @param state     {@code NEW}, {@code RUNNING}, {@code STOPPED} or {@code CLOSED}, {@code null} if there is none
+     * @param startTime when the recording was started
+     * @param maxAge    how long recorded data is kept
+     * @param maxSize   how many bytes of recorded data are kept
+     * @param size      how many bytes have been written to disk so far
+     */
+    public record RecordingStatus(String name, RecordingState state, Instant startTime, Duration maxAge, long maxSize, long size) {
+
+        static RecordingStatus of(Recording recording) {
+            if (recording == null) {
+                return new RecordingStatus(RECORDING_NAME, null, null, null, 0, 0);
+            }
+            return new RecordingStatus(recording.getName(), recording.getState(), recording.getStartTime(),
+                    recording.getMaxAge(), recording.getMaxSize(), recording.getSize());
+        }
+    }
+
+    /**
+     * A file that is deleted once it has been read. Not exposed as a file resource, so every web stack streams it through
+     * {@link #getInputStream()} instead of sending the file directly.
+     */
+    private static final class TemporaryFileResource extends AbstractResource {
+
+        private final Path file;
+
+        TemporaryFileResource(Path file) {
+            this.file = file;
+        }
+
+        @Override
+        public String getFilename() {
+            return file.getFileName().toString();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return Files.size(file);
+        }
+
+        @Override
+        public String getDescription() {
+            return "temporary file [" + file + "]";
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new FilterInputStream(Files.newInputStream(file)) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.newwek.platform.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.util.function.Supplier;
+
+/**
+ * Flight Recorder event for one call to another service. The URI template rather than the expanded URI is recorded,
+ * so events of the same endpoint group together in JDK Mission Control. A status of {@code 0} means no response was
+ * received, in which case {@link #failure} names the exception.
+ */
+@Name("com.newwek.ServiceCall")
+@Label("Service Call")
+@Category({"Newwek", "HTTP Client"})
+@Description("A call to another service of the platform")
+@StackTrace(false)
+public class ServiceCallEvent extends jdk.jfr.Event {
+
+    @Label("Method")
+    public String method;
+
+    @Label("URI Template")
+    public String uriTemplate;
+
+    @Label("Status")
+    public int status;
+
+    @Label("Failure")
+    public String failure;
+
+    /**
+     * Performs the call and records it, including calls that end in an exception.
+     *
+     * @param method      the HTTP method of the call
+     * @param uriTemplate the URI template the call is made to
+     * @param call        performs the call
+     * @return the response of the call
+     */
+    public static <T> ResponseEntity<T> record(HttpMethod method, String uriTemplate, Supplier<ResponseEntity<T>> call) {
+        ServiceCallEvent event = new ServiceCallEvent();
+        event.begin();
+        try {
+            ResponseEntity<T> response = call.get();
+            event.status = response.getStatusCode().value();
+            return response;
+        } catch (RestClientResponseException e) {
+            event.status = e.getStatusCode().value();
+            event.failure = e.getClass().getSimpleName();
+            throw e;
+        } catch (RuntimeException e) {
+            event.failure = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.method = method.name();
+                event.uriTemplate = uriTemplate;
+                event.commit();
+            }
+        }
+    }
+}
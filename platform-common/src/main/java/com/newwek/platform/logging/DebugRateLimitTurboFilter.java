@@ -0,0 +1,106 @@
+package com.newwek.platform.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits how many DEBUG and TRACE events each of the configured loggers may emit per second, so that enabling debug
+ * output on a hot path does not flood the logging pipeline. Loggers are configured by name, a name also covers its
+ * child loggers, and every logger gets its own budget:
+ * <pre>
+ * &lt;turboFilter class="com.newwek.platform.logging.DebugRateLimitTurboFilter"&gt;
+ *     &lt;logger&gt;com.newwek.blogservice.services&lt;/logger&gt;
+ *     &lt;permitsPerSecond&gt;20&lt;/permitsPerSecond&gt;
+ * &lt;/turboFilter&gt;
+ * </pre>
+ * Events of higher levels, of other loggers and of loggers whose level disables them anyway are left alone, so they
+ * neither use up the budget nor count as rate limited.
+ */
+public class DebugRateLimitTurboFilter extends TurboFilter {
+
+    private final List<String> loggers = new ArrayList<>();
+    private final ConcurrentMap<String, Window> windows = new ConcurrentHashMap<>();
+    private final AtomicLong rateLimited = new AtomicLong();
+
+    private final LongSupplier nanoClock;
+
+    private int permitsPerSecond = 10;
+
+    public DebugRateLimitTurboFilter() {
+        this(System::nanoTime);
+    }
+
+    DebugRateLimitTurboFilter(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // A null format means the call is an isDebugEnabled() style check rather than an actual event
+        if (!isStarted() || format == null || level.toInt() > Level.DEBUG_INT
+            || !level.isGreaterOrEqual(logger.getEffectiveLevel()) || !isLimited(logger.getName())) {
+            return FilterReply.NEUTRAL;
+        }
+        Window window = windows.computeIfAbsent(logger.getName(), name -> new Window());
+        if (window.tryAcquire(nanoClock.getAsLong() / 1_000_000_000L, permitsPerSecond)) {
+            return FilterReply.NEUTRAL;
+        }
+        rateLimited.incrementAndGet();
+        return FilterReply.DENY;
+    }
+
+    private boolean isLimited(String loggerName) {
+        for (String limited : loggers) {
+            if (loggerName.equals(limited) || loggerName.startsWith(limited) && loggerName.charAt(limited.length()) == '.') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Number of events denied since the filter was started.
+     */
+    public long getRateLimitedCount() {
+        return rateLimited.get();
+    }
+
+    public void addLogger(String logger) {
+        loggers.add(logger.trim());
+    }
+
+    public int getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public void setPermitsPerSecond(int permitsPerSecond) {
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    /**
+     * Fixed one second window of one logger.
+     */
+    private static final class Window {
+
+        private long second = Long.MIN_VALUE;
+        private int events;
+
+        synchronized boolean tryAcquire(long currentSecond, int permits) {
+            if (currentSecond != second) {
+                second = currentSecond;
+                events = 0;
+            }
+            return ++events <= permits;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.newwek.platform.logging;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Publishes the meters of the logging pipeline of every service that has Micrometer on its class path.
+ */
+@AutoConfiguration
+@ConditionalOnClass(MeterRegistry.class)
+public class LoggingAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public LoggingMetrics loggingMetrics() {
+        return new LoggingMetrics();
+    }
+}
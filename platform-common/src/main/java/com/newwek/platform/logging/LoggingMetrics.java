@@ -0,0 +1,75 @@
+package com.newwek.platform.logging;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.ILoggerFactory;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+
+/**
+ * Publishes the state of the logging pipeline configured in {@code logback-spring.xml}: the queue depth of every
+ * {@link SamplingAsyncAppender} attached to the root logger, the events it dropped, and the events denied by
+ * {@link DebugRateLimitTurboFilter}s. The Loki appender publishes its own {@code loki4j.*} meters.
+ */
+public class LoggingMetrics implements MeterBinder {
+
+    private final ILoggerFactory loggerFactory;
+
+    public LoggingMetrics() {
+        this(LoggerFactory.getILoggerFactory());
+    }
+
+    LoggingMetrics(ILoggerFactory loggerFactory) {
+        this.loggerFactory = loggerFactory;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!(loggerFactory instanceof LoggerContext context)) {
+            return;
+        }
+
+        Iterator<Appender<ILoggingEvent>> appenders = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).iteratorForAppenders();
+        while (appenders.hasNext()) {
+            if (appenders.next() instanceof SamplingAsyncAppender appender) {
+                bindAppender(registry, appender);
+            }
+        }
+
+        context.getTurboFilterList().stream()
+                .filter(DebugRateLimitTurboFilter.class::isInstance)
+                .map(DebugRateLimitTurboFilter.class::cast)
+                .forEach(filter -> FunctionCounter.builder("logging.events.dropped", filter, DebugRateLimitTurboFilter::getRateLimitedCount)
+                        .description("Log events dropped by the logging pipeline")
+                        .tag("appender", "none")
+                        .tag("reason", "rate-limited")
+                        .register(registry));
+    }
+
+    private static void bindAppender(MeterRegistry registry, SamplingAsyncAppender appender) {
+        Gauge.builder("logging.queue.size", appender, SamplingAsyncAppender::getNumberOfElementsInQueue)
+                .description("Log events waiting in the queue of an asynchronous appender")
+                .tag("appender", appender.getName())
+                .register(registry);
+        Gauge.builder("logging.queue.capacity", appender, SamplingAsyncAppender::getQueueSize)
+                .description("Capacity of the queue of an asynchronous appender")
+                .tag("appender", appender.getName())
+                .register(registry);
+        FunctionCounter.builder("logging.events.dropped", appender, SamplingAsyncAppender::getSampledOutCount)
+                .description("Log events dropped by the logging pipeline")
+                .tag("appender", appender.getName())
+                .tag("reason", "sampled")
+                .register(registry);
+        FunctionCounter.builder("logging.events.dropped", appender, SamplingAsyncAppender::getOverflowCount)
+                .description("Log events dropped by the logging pipeline")
+                .tag("appender", appender.getName())
+                .tag("reason", "overflow")
+                .register(registry);
+    }
+}
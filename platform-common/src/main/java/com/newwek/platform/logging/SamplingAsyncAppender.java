@@ -0,0 +1,83 @@
+package com.newwek.platform.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous appender that sheds low priority events under pressure instead of slowing down the logging threads.
+ * <p>
+ * Events are handed to the wrapped appender through logback's bounded queue, which is allocated once at its full size,
+ * so request threads only pay for the enqueue while JSON encoding and shipping to Loki happen on the worker thread.
+ * Once fewer than {@code discardingThreshold} slots are free, TRACE and DEBUG events are dropped and only one in
+ * {@code infoSampleRate} INFO events is kept, while WARN and ERROR are always queued. With {@code neverBlock} enabled,
+ * events arriving at a completely full queue are dropped as well, whatever their level.
+ * <p>
+ * Both kinds of drops are counted and published by {@link LoggingMetrics}. The overflow count is approximate, as the
+ * worker may free a slot between the capacity check and the enqueue.
+ */
+public class SamplingAsyncAppender extends AsyncAppender {
+
+    private final AtomicLong infoEvents = new AtomicLong();
+    private final AtomicLong sampledOut = new AtomicLong();
+    private final AtomicLong overflowed = new AtomicLong();
+
+    private int infoSampleRate = 10;
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        int remainingCapacity = getRemainingCapacity();
+        if (remainingCapacity < getDiscardingThreshold() && isSampledOut(event)) {
+            sampledOut.incrementAndGet();
+            return;
+        }
+        if (remainingCapacity == 0 && isNeverBlock()) {
+            overflowed.incrementAndGet();
+        }
+        super.append(event);
+    }
+
+    /**
+     * Sampling is decided in {@link #append(ILoggingEvent)}, so the level based discarding of the base class is disabled.
+     */
+    @Override
+    protected boolean isDiscardable(ILoggingEvent event) {
+        return false;
+    }
+
+    private boolean isSampledOut(ILoggingEvent event) {
+        int level = event.getLevel().toInt();
+        if (level < Level.INFO_INT) {
+            return true;
+        }
+        return level == Level.INFO_INT && infoEvents.getAndIncrement() % infoSampleRate != 0;
+    }
+
+    /**
+     * Number of low priority events dropped while the queue was above its discarding threshold.
+     */
+    public long getSampledOutCount() {
+        return sampledOut.get();
+    }
+
+    /**
+     * Number of events dropped because the queue was full.
+     */
+    public long getOverflowCount() {
+        return overflowed.get();
+    }
+
+    public int getInfoSampleRate() {
+        return infoSampleRate;
+    }
+
+    public void setInfoSampleRate(int infoSampleRate) {
+        if (infoSampleRate < 1) {
+            addError("infoSampleRate must be at least 1, keeping " + this.infoSampleRate);
+            return;
+        }
+        this.infoSampleRate = infoSampleRate;
+    }
+}
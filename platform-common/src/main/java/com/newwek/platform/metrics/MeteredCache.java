@@ -0,0 +1,163 @@
+package com.newwek.platform.metrics;
+
+import com.newwek.platform.jfr.CacheLookupEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * A {@link Cache} decorator that records cache activity in Micrometer, using the meter names of Micrometer's own
+ * cache binders so the usual cache dashboards work unchanged:
+ * <ul>
+ *     <li>{@code cache.gets} with {@code result=hit|miss} for every lookup,</li>
+ *     <li>{@code cache.puts} for every write, which for {@code @Cacheable} methods means every load after a miss,</li>
+ *     <li>{@code cache.evictions} for single-key evictions and clears,</li>
+ *     <li>{@code cache.loads} timing the value loader of {@link #get(Object, Callable)} (synchronized caching).</li>
+ * </ul>
+ * All meters are tagged with the {@code cache} name. The in-process {@code ConcurrentMapCache}s used by the services
+ * don't track statistics themselves, which is why Spring Boot's cache metrics only report their size.
+ * <p>
+ * Every lookup is also emitted as a {@link CacheLookupEvent} for JDK Flight Recorder, which adds the duration of
+ * individual lookups and loads to what the aggregated meters show.
+ */
+public class MeteredCache implements Cache {
+
+    private final Cache delegate;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter puts;
+    private final Counter evictions;
+    private final Timer loads;
+
+    /**
+     * Wraps the given cache and registers its meters.
+     *
+     * @param delegate the cache doing the actual work
+     * @param registry the registry to record the meters in
+     */
+    public MeteredCache(Cache delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        String name = delegate.getName();
+        this.hits = Counter.builder("cache.gets").tag("cache", name).tag("result", "hit")
+                .description("The number of times cache lookup methods have returned a cached value.").register(registry);
+        this.misses = Counter.builder("cache.gets").tag("cache", name).tag("result", "miss")
+                .description("The number of times cache lookup methods have not returned a value.").register(registry);
+        this.puts = Counter.builder("cache.puts").tag("cache", name)
+                .description("The number of entries added to the cache.").register(registry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", name)
+                .description("The number of evictions and clears of the cache.").register(registry);
+        this.loads = Timer.builder("cache.loads").tag("cache", name)
+                .description("The time spent loading values on a synchronized cache miss.").register(registry);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        CacheLookupEvent event = new CacheLookupEvent();
+        event.begin();
+        return record(delegate.get(key), event);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        CacheLookupEvent event = new CacheLookupEvent();
+        event.begin();
+        return record(delegate.get(key, type), event);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Counts a hit when the value was already cached and a miss plus a timed load when the loader ran.
+     */
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        CacheLookupEvent event = new CacheLookupEvent();
+        event.begin();
+        long[] loadTime = {-1};
+        T value = delegate.get(key, () -> {
+            long start = System.nanoTime();
+            try {
+                return loads.recordCallable(valueLoader);
+            } finally {
+                loadTime[0] = System.nanoTime() - start;
+            }
+        });
+        boolean hit = loadTime[0] < 0;
+        (hit ? hits : misses).increment();
+        commit(event, hit, Math.max(loadTime[0], 0));
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        puts.increment();
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key, value);
+        if (existing == null) {
+            puts.increment();
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+        evictions.increment();
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = delegate.evictIfPresent(key);
+        if (evicted) {
+            evictions.increment();
+        }
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        evictions.increment();
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = delegate.invalidate();
+        evictions.increment();
+        return invalidated;
+    }
+
+    private <T> T record(T value, CacheLookupEvent event) {
+        boolean hit = value != null;
+        (hit ? hits : misses).increment();
+        commit(event, hit, 0);
+        return value;
+    }
+
+    private void commit(CacheLookupEvent event, boolean hit, long loadTime) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.cache = getName();
+            event.hit = hit;
+            event.loadTime = loadTime;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.newwek.platform.metrics;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAspectsAutoConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Enables service-layer metrics on top of the {@code http.server.requests} metrics Spring Boot records out of the box.
+ *
+ * <p>Registering a {@link TimedAspect} makes {@code @Timed} work on any Spring bean. The service implementations
+ * are annotated with {@code @Timed("service.calls")}, which records one timer per service method, tagged with
+ * {@code class}, {@code method} and {@code exception}. Together with the cache metrics recorded by
+ * {@link MeteredCache} and the {@code http.client.requests} metrics of the calls between services, this splits the
+ * latency of a request into cache, database and inter-service time. Spring Boot only registers the aspect when
+ * {@code management.observations.annotations.enabled} is set, in which case this configuration backs off.
+ */
+@AutoConfiguration(after = {CompositeMeterRegistryAutoConfiguration.class, MetricsAspectsAutoConfiguration.class})
+@ConditionalOnClass(name = "org.aspectj.weaver.Advice")
+@ConditionalOnBean(MeterRegistry.class)
+public class ServiceMetricsAutoConfiguration {
+
+    /**
+     * Creates the aspect that times every method of beans annotated with {@code @Timed}.
+     *
+     * @param meterRegistry the registry the timers are recorded in
+     * @return the aspect handling {@code @Timed}
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
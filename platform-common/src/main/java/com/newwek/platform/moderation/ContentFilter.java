@@ -0,0 +1,129 @@
+package com.newwek.platform.moderation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rejects posts and comments containing a banned term, checked with a {@link TermAutomaton} compiled from the term list.
+ * <p>
+ * The list is read from {@code content-filter.terms}, one term per line, with blank lines and lines starting with
+ * {@code #} ignored. It is checked for changes every {@code content-filter.reload-interval} and recompiled on a
+ * background thread when its modification time changes. The new automaton then replaces the previous one in a single
+ * volatile write, so writes keep being checked against the previous list while the new one is compiled and never wait
+ * for a reload. A list that is missing or cannot be read keeps the previous one in place, which bans nothing at startup.
+ * <p>
+ * Registered by {@link ContentFilterAutoConfiguration} in the services that set {@code content-filter.terms}.
+ */
+public class ContentFilter implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ContentFilter.class);
+
+    private final Resource terms;
+    private final ScheduledExecutorService reloader = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("content-filter-reload").daemon().factory());
+
+    private volatile TermAutomaton automaton = TermAutomaton.compile(List.of());
+    private long loadedModified = -1;
+    private boolean missing;
+
+    /**
+     * Loads the term list and starts watching it for changes.
+     *
+     * @param terms          the term list
+     * @param reloadInterval how often the term list is checked for changes
+     */
+    public ContentFilter(Resource terms, Duration reloadInterval) {
+        this.terms = terms;
+        reloadIfModified();
+        long interval = reloadInterval.toMillis();
+        reloader.scheduleWithFixedDelay(this::reloadIfModified, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Finds the first banned term in a text.
+     *
+     * @param content the text, possibly null
+     * @return the banned term found, normalized and in lower case, or null if the text contains none
+     */
+    public String findBannedTerm(String content) {
+        return automaton.findTerm(content);
+    }
+
+    /**
+     * Rejects a text containing a banned term with a 400 response. The term itself is not disclosed.
+     *
+     * @param content the text, possibly null
+     */
+    public void check(String content) {
+        String term = findBannedTerm(content);
+        if (term != null) {
+            log.debug("Rejected content containing the banned term '{}'", term);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Content contains a banned term.");
+        }
+    }
+
+    /**
+     * The number of distinct terms currently banned.
+     */
+    public int termCount() {
+        return automaton.size();
+    }
+
+    /**
+     * Recompiles the term list if it changed since it was last loaded.
+     *
+     * @return true if a new list was loaded
+     */
+    synchronized boolean reloadIfModified() {
+        try {
+            if (!terms.exists()) {
+                if (!missing) {
+                    log.info("No banned term list found at {}, keeping the current one", terms);
+                    missing = true;
+                }
+                return false;
+            }
+            missing = false;
+            long modified = terms.isFile() ? terms.lastModified() : 0;
+            if (modified == loadedModified) {
+                return false;
+            }
+            TermAutomaton compiled = TermAutomaton.compile(readTerms());
+            automaton = compiled;
+            loadedModified = modified;
+            log.info("Loaded {} banned terms from {}", compiled.size(), terms);
+            return true;
+        } catch (IOException | RuntimeException exception) {
+            log.warn("Could not load the banned term list from {}, keeping the previous one", terms, exception);
+            return false;
+        }
+    }
+
+    private List<String> readTerms() throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(terms.getInputStream(), StandardCharsets.UTF_8))) {
+            return reader.lines()
+                    .map(String::strip)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .toList();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        reloader.shutdownNow();
+    }
+}
@@ -0,0 +1,25 @@
+package com.newwek.platform.moderation;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.io.Resource;
+
+import java.time.Duration;
+
+/**
+ * Registers the {@link ContentFilter} in every service that configures a banned term list.
+ */
+@AutoConfiguration
+@ConditionalOnProperty(prefix = "content-filter", name = "terms")
+public class ContentFilterAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ContentFilter contentFilter(@Value("${content-filter.terms}") Resource terms,
+                                       @Value("${content-filter.reload-interval:30s}") Duration reloadInterval) {
+        return new ContentFilter(terms, reloadInterval);
+    }
+}
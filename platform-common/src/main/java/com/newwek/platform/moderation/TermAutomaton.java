@@ -0,0 +1,247 @@
+package com.newwek.platform.moderation;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * An Aho–Corasick automaton over a fixed set of terms, which finds whether a text contains any of them in a single pass
+ * over the text, whatever the number of terms.
+ * <p>
+ * Terms and text are compared after NFKC normalization and case folding, so {@code "ＳＰＡＭ"} and {@code "Spam"} both
+ * match the term {@code "spam"}. Case folding maps each UTF-16 char on its own, see {@link #fold(char)}, which keeps
+ * the positions in the folded text equal to those in the normalized text. A term only matches as a whole word: the
+ * characters around a match must not be letters or digits, so a term never matches inside a longer, unrelated word.
+ * <p>
+ * The automaton is compiled into flat arrays: the transitions of each state are a range of {@code labels}, sorted, and
+ * the matching {@code targets}, looked up by binary search. Scanning allocates nothing per character; text that is
+ * already in NFKC, which is nearly all text, is scanned in place, and other text is normalized once up front.
+ * Instances are immutable and can be shared between threads.
+ */
+public final class TermAutomaton {
+
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+
+    private final String[] terms;
+    private final int[] firstEdge;
+    private final char[] labels;
+    private final int[] targets;
+    private final int[] failure;
+    private final int[] depth;
+    private final int[] termOf;
+    private final int[] outputLink;
+
+    private TermAutomaton(String[] terms, int[] firstEdge, char[] labels, int[] targets, int[] failure, int[] depth,
+                          int[] termOf, int[] outputLink) {
+        this.terms = terms;
+        this.firstEdge = firstEdge;
+        this.labels = labels;
+        this.targets = targets;
+        this.failure = failure;
+        this.depth = depth;
+        this.termOf = termOf;
+        this.outputLink = outputLink;
+    }
+
+    /**
+     * Compiles an automaton matching the given terms. Blank terms are ignored, and terms that are equal once
+     * normalized and folded are only kept once.
+     *
+     * @param terms the terms to match
+     * @return the compiled automaton
+     */
+    public static TermAutomaton compile(Collection<String> terms) {
+        Node root = new Node(0);
+        List<String> keys = new ArrayList<>();
+        int edges = 0;
+        for (String term : terms) {
+            String key = key(term);
+            if (key.isEmpty()) {
+                continue;
+            }
+            Node node = root;
+            for (int i = 0; i < key.length(); i++) {
+                Node parent = node;
+                node = parent.children.get(key.charAt(i));
+                if (node == null) {
+                    node = new Node(parent.depth + 1);
+                    parent.children.put(key.charAt(i), node);
+                    edges++;
+                }
+            }
+            if (node.term == NONE) {
+                node.term = keys.size();
+                keys.add(key);
+            }
+        }
+
+        // Numbers the states breadth first, which is also the order the failure links have to be computed in
+        List<Node> states = new ArrayList<>(edges + 1);
+        Queue<Node> pending = new ArrayDeque<>();
+        root.id = ROOT;
+        states.add(root);
+        pending.add(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.remove();
+            for (Map.Entry<Character, Node> edge : node.children.entrySet()) {
+                Node child = edge.getValue();
+                child.id = states.size();
+                states.add(child);
+                pending.add(child);
+                Node fallback = node.failure;
+                while (fallback != null && !fallback.children.containsKey(edge.getKey())) {
+                    fallback = fallback.failure;
+                }
+                child.failure = fallback == null ? root : fallback.children.get(edge.getKey());
+                child.output = child.failure.term != NONE ? child.failure : child.failure.output;
+            }
+        }
+
+        int[] firstEdge = new int[states.size() + 1];
+        char[] labels = new char[edges];
+        int[] targets = new int[edges];
+        int[] failure = new int[states.size()];
+        int[] depth = new int[states.size()];
+        int[] termOf = new int[states.size()];
+        int[] outputLink = new int[states.size()];
+        int edge = 0;
+        for (Node node : states) {
+            firstEdge[node.id] = edge;
+            for (Map.Entry<Character, Node> child : node.children.entrySet()) {
+                labels[edge] = child.getKey();
+                targets[edge] = child.getValue().id;
+                edge++;
+            }
+            failure[node.id] = node.failure == null ? ROOT : node.failure.id;
+            depth[node.id] = node.depth;
+            termOf[node.id] = node.term;
+            outputLink[node.id] = node.output == null ? NONE : node.output.id;
+        }
+        firstEdge[states.size()] = edge;
+        return new TermAutomaton(keys.toArray(String[]::new), firstEdge, labels, targets, failure, depth, termOf, outputLink);
+    }
+
+    /**
+     * Finds the first term contained in a text as a whole word.
+     *
+     * @param text the text to scan, possibly null
+     * @return the normalized and folded form of the first term found, or null if the text contains none
+     */
+    public String findTerm(CharSequence text) {
+        if (text == null || terms.length == 0) {
+            return null;
+        }
+        CharSequence normalized = Normalizer.isNormalized(text, Normalizer.Form.NFKC)
+                ? text
+                : Normalizer.normalize(text, Normalizer.Form.NFKC);
+        int length = normalized.length();
+        int state = ROOT;
+        for (int i = 0; i < length; i++) {
+            state = next(state, fold(normalized.charAt(i)));
+            // Walks the terms ending here, longest first, as a shorter one may be a whole word where a longer one is not
+            for (int match = termOf[state] != NONE ? state : outputLink[state]; match != NONE; match = outputLink[match]) {
+                if (isWord(normalized, i + 1 - depth[match], i + 1)) {
+                    return terms[termOf[match]];
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The number of distinct terms matched by this automaton.
+     */
+    public int size() {
+        return terms.length;
+    }
+
+    /**
+     * Folds the case of a char so that upper, lower and title case variants compare equal. Going through upper case
+     * first also folds variants that only agree in upper case, such as the final and regular Greek sigma.
+     *
+     * @param c the char
+     * @return the folded char
+     */
+    static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static String key(String term) {
+        if (term == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(term.strip(), Normalizer.Form.NFKC);
+        char[] folded = new char[normalized.length()];
+        for (int i = 0; i < folded.length; i++) {
+            folded[i] = fold(normalized.charAt(i));
+        }
+        return new String(folded);
+    }
+
+    private int next(int state, char c) {
+        while (true) {
+            int target = transition(state, c);
+            if (target != NONE) {
+                return target;
+            }
+            if (state == ROOT) {
+                return ROOT;
+            }
+            state = failure[state];
+        }
+    }
+
+    private int transition(int state, char c) {
+        int low = firstEdge[state];
+        int high = firstEdge[state + 1] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            char label = labels[middle];
+            if (label < c) {
+                low = middle + 1;
+            } else if (label > c) {
+                high = middle - 1;
+            } else {
+                return targets[middle];
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Tells whether the match between {@code start} and {@code end} is not part of a longer word. Only the ends of
+     * the match that are letters or digits need a boundary, so a term such as {@code "$$$"} matches anywhere.
+     */
+    private static boolean isWord(CharSequence text, int start, int end) {
+        boolean startsWord = start == 0
+                || !Character.isLetterOrDigit(text.charAt(start))
+                || !Character.isLetterOrDigit(text.charAt(start - 1));
+        boolean endsWord = end == text.length()
+                || !Character.isLetterOrDigit(text.charAt(end - 1))
+                || !Character.isLetterOrDigit(text.charAt(end));
+        return startsWord && endsWord;
+    }
+
+    /**
+     * A state of the trie while the automaton is being compiled.
+     */
+    private static final class Node {
+
+        private final Map<Character, Node> children = new TreeMap<>();
+        private final int depth;
+        private int id;
+        private int term = NONE;
+        private Node failure;
+        private Node output;
+
+        Node(int depth) {
+            this.depth = depth;
+        }
+    }
+}
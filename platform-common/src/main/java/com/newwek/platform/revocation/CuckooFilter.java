@@ -0,0 +1,182 @@
+package com.newwek.platform.revocation;
+
+import com.newwek.platform.hash.KeyHash;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A cuckoo filter (Fan et al., Cuckoo Filter: Practically Better Than Bloom) of 16-bit fingerprints in buckets of four,
+ * which unlike a Bloom filter can remove keys. About 0.012% of the keys that were not added are reported as possibly
+ * present, at 2 bytes per slot and up to 95% of the slots filled.
+ * <p>
+ * AUTHENTICATION-SERVICE builds the filter of the revoked token IDs and sends {@link #toBytes()}, the table itself,
+ * which the gateway reads back with {@link #fromBytes}. Not thread safe, though a filter that is no longer changed can
+ * be read from any thread once safely published.
+ */
+public class CuckooFilter {
+
+    private static final int SLOTS_PER_BUCKET = 4;
+    private static final double MAX_LOAD = 0.95;
+    private static final int MAX_KICKS = 500;
+
+    private final short[] table;
+    private final int bucketMask;
+    private int size;
+
+    /**
+     * An empty filter with room for at least {@code capacity} keys.
+     */
+    public CuckooFilter(int capacity) {
+        this(new short[Integer.highestOneBit(Math.max(1, (int) Math.ceil(capacity / (SLOTS_PER_BUCKET * MAX_LOAD))) * 2 - 1)
+                * SLOTS_PER_BUCKET]);
+    }
+
+    private CuckooFilter(short[] table) {
+        this.table = table;
+        this.bucketMask = table.length / SLOTS_PER_BUCKET - 1;
+    }
+
+    /**
+     * The filter whose {@link #toBytes()} are given.
+     *
+     * @throws IllegalArgumentException if the bytes are not a table of a power of two buckets
+     */
+    public static CuckooFilter fromBytes(byte[] bytes) {
+        int buckets = bytes.length / (Short.BYTES * SLOTS_PER_BUCKET);
+        if (buckets == 0 || Integer.bitCount(buckets) != 1 || bytes.length % (Short.BYTES * SLOTS_PER_BUCKET) != 0) {
+            throw new IllegalArgumentException("Not a cuckoo filter table: " + bytes.length + " bytes");
+        }
+        short[] table = new short[buckets * SLOTS_PER_BUCKET];
+        ByteBuffer.wrap(bytes).asShortBuffer().get(table);
+        CuckooFilter filter = new CuckooFilter(table);
+        for (short fingerprint : table) {
+            if (fingerprint != 0) {
+                filter.size++;
+            }
+        }
+        return filter;
+    }
+
+    /**
+     * Adds the key, or returns false if the filter is too full to take it and must be rebuilt with a larger capacity.
+     * The keys added before are kept either way.
+     */
+    public boolean add(String key) {
+        long hash = KeyHash.of(key);
+        short fingerprint = fingerprint(hash);
+        int first = (int) hash & bucketMask;
+        int second = alternate(first, fingerprint);
+        if (insert(first, fingerprint) || insert(second, fingerprint)) {
+            size++;
+            return true;
+        }
+        int[] kicked = new int[MAX_KICKS];
+        int bucket = ThreadLocalRandom.current().nextBoolean() ? first : second;
+        for (int kick = 0; kick < MAX_KICKS; kick++) {
+            int slot = bucket * SLOTS_PER_BUCKET + ThreadLocalRandom.current().nextInt(SLOTS_PER_BUCKET);
+            kicked[kick] = slot;
+            short evicted = table[slot];
+            table[slot] = fingerprint;
+            fingerprint = evicted;
+            bucket = alternate(bucket, fingerprint);
+            if (insert(bucket, fingerprint)) {
+                size++;
+                return true;
+            }
+        }
+        // Put every fingerprint kicked out back, which leaves the new one out
+        for (int kick = MAX_KICKS - 1; kick >= 0; kick--) {
+            short displaced = table[kicked[kick]];
+            table[kicked[kick]] = fingerprint;
+            fingerprint = displaced;
+        }
+        return false;
+    }
+
+    /**
+     * False if the key has definitely not been added.
+     */
+    public boolean mightContain(String key) {
+        long hash = KeyHash.of(key);
+        short fingerprint = fingerprint(hash);
+        int first = (int) hash & bucketMask;
+        return contains(first, fingerprint) || contains(alternate(first, fingerprint), fingerprint);
+    }
+
+    /**
+     * Removes one copy of the fingerprint of the key. Only keys that were added may be removed, or another key sharing
+     * the fingerprint could be lost.
+     */
+    public boolean remove(String key) {
+        long hash = KeyHash.of(key);
+        short fingerprint = fingerprint(hash);
+        int first = (int) hash & bucketMask;
+        if (delete(first, fingerprint) || delete(alternate(first, fingerprint), fingerprint)) {
+            size--;
+            return true;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return (int) (table.length * MAX_LOAD);
+    }
+
+    /**
+     * The table, two bytes per slot in big-endian order, empty slots being zero.
+     */
+    public byte[] toBytes() {
+        ByteBuffer bytes = ByteBuffer.allocate(table.length * Short.BYTES);
+        bytes.asShortBuffer().put(table);
+        return bytes.array();
+    }
+
+    private boolean insert(int bucket, short fingerprint) {
+        for (int slot = bucket * SLOTS_PER_BUCKET; slot < (bucket + 1) * SLOTS_PER_BUCKET; slot++) {
+            if (table[slot] == 0) {
+                table[slot] = fingerprint;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean contains(int bucket, short fingerprint) {
+        for (int slot = bucket * SLOTS_PER_BUCKET; slot < (bucket + 1) * SLOTS_PER_BUCKET; slot++) {
+            if (table[slot] == fingerprint) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean delete(int bucket, short fingerprint) {
+        for (int slot = bucket * SLOTS_PER_BUCKET; slot < (bucket + 1) * SLOTS_PER_BUCKET; slot++) {
+            if (table[slot] == fingerprint) {
+                table[slot] = 0;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The other bucket of a fingerprint, the same from either of its two buckets.
+     */
+    private int alternate(int bucket, short fingerprint) {
+        return (bucket ^ (fingerprint * 0x5bd1e995)) & bucketMask;
+    }
+
+    /**
+     * The top 16 bits of the hash, never zero, which marks an empty slot.
+     */
+    private static short fingerprint(long hash) {
+        short fingerprint = (short) (hash >>> 48);
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+}
@@ -0,0 +1,35 @@
+package com.newwek.platform.hash;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeyHashTest {
+
+    @Test
+    void hashesTheUtf8BytesTheSameWayInEveryProcess() {
+        // The gateway places keys in the filters the authentication service sends it with the same hash
+        assertThat(KeyHash.of("José")).isEqualTo(KeyHash.of(new String("José".toCharArray())));
+        assertThat(KeyHash.of("")).isEqualTo(0xf52a15e9a9b5e89bL);
+    }
+
+    @Test
+    void spreadsSimilarKeysOverTheLowBits() {
+        int[] buckets = new int[64];
+        IntStream.range(0, 64_000).forEach(i -> buckets[(int) KeyHash.of("user" + i) & 63]++);
+
+        assertThat(IntStream.of(buckets).min().getAsInt()).isGreaterThan(800);
+        assertThat(IntStream.of(buckets).max().getAsInt()).isLessThan(1_200);
+    }
+
+    @Test
+    void spreadsSimilarKeysOverTheHighBits() {
+        int[] buckets = new int[64];
+        IntStream.range(0, 64_000).forEach(i -> buckets[(int) (KeyHash.of("user" + i) >>> 58)]++);
+
+        assertThat(IntStream.of(buckets).min().getAsInt()).isGreaterThan(800);
+        assertThat(IntStream.of(buckets).max().getAsInt()).isLessThan(1_200);
+    }
+}
@@ -0,0 +1,53 @@
+package com.newwek.platform.jfr;
+
+import com.newwek.platform.metrics.MeteredCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.core.io.Resource;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheLookupEventTest {
+
+    private final FlightRecorderEndpoint endpoint = new FlightRecorderEndpoint();
+
+    @AfterEach
+    void tearDown() {
+        endpoint.stop();
+    }
+
+    @Test
+    void dumpsRecordedCacheLookups() throws Exception {
+        endpoint.start(null, null);
+
+        MeteredCache cache = new MeteredCache(new ConcurrentMapCache("posts"), new SimpleMeterRegistry());
+        cache.get(1L);
+        cache.get(1L, () -> "loaded");
+
+        Resource dump = endpoint.dump(FlightRecorderEndpoint.RECORDING_NAME).getBody();
+        Path copy = Files.createTempFile("dump-", ".jfr");
+        try (InputStream in = dump.getInputStream()) {
+            Files.copy(in, copy, StandardCopyOption.REPLACE_EXISTING);
+        }
+        try {
+            List<RecordedEvent> lookups = RecordingFile.readAllEvents(copy).stream()
+                    .filter(event -> event.getEventType().getName().equals("com.newwek.CacheLookup"))
+                    .toList();
+            assertThat(lookups).hasSize(2);
+            assertThat(lookups).allMatch(event -> event.getString("cache").equals("posts") && !event.getBoolean("hit"));
+            assertThat(lookups).anyMatch(event -> event.getDuration("loadTime").toNanos() > 0);
+        } finally {
+            Files.delete(copy);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.newwek.platform.jfr;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FlightRecorderAutoConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(FlightRecorderAutoConfiguration.class));
+
+    @Test
+    void registersTheEndpointOnlyWhenItIsExposed() {
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean(FlightRecorderEndpoint.class));
+        contextRunner.withPropertyValues("management.endpoints.web.exposure.include=health, jfr")
+                .run(context -> assertThat(context).hasSingleBean(FlightRecorderEndpoint.class));
+    }
+
+    @Test
+    void staysOffWhenDisabled() {
+        contextRunner.withPropertyValues("management.endpoints.web.exposure.include=jfr", "management.endpoint.jfr.enabled=false")
+                .run(context -> assertThat(context).doesNotHaveBean(FlightRecorderEndpoint.class));
+    }
+}
@@ -0,0 +1,85 @@
+package com.newwek.platform.jfr;
+
+import jdk.jfr.Event;
+import jdk.jfr.Name;
+import jdk.jfr.RecordingState;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.unit.DataSize;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FlightRecorderEndpointTest {
+
+    private final FlightRecorderEndpoint endpoint = new FlightRecorderEndpoint();
+
+    @AfterEach
+    void tearDown() {
+        endpoint.stop();
+    }
+
+    @Test
+    void startsOnceAndStops() {
+        WebEndpointResponse<FlightRecorderEndpoint.RecordingStatus> started = endpoint.start(Duration.ofMinutes(5), DataSize.ofMegabytes(10));
+        assertThat(started.getStatus()).isEqualTo(WebEndpointResponse.STATUS_OK);
+        assertThat(started.getBody().state()).isEqualTo(RecordingState.RUNNING);
+        assertThat(started.getBody().maxAge()).isEqualTo(Duration.ofMinutes(5));
+        assertThat(started.getBody().maxSize()).isEqualTo(DataSize.ofMegabytes(10).toBytes());
+
+        assertThat(endpoint.start(null, null).getStatus()).isEqualTo(HttpStatus.CONFLICT.value());
+
+        assertThat(endpoint.stop().getStatus()).isEqualTo(WebEndpointResponse.STATUS_OK);
+        assertThat(endpoint.status().state()).isNull();
+        assertThat(endpoint.stop().getStatus()).isEqualTo(WebEndpointResponse.STATUS_NOT_FOUND);
+    }
+
+    @Test
+    void rejectsUnboundedRecordings() {
+        assertThat(endpoint.start(null, DataSize.ofGigabytes(1)).getStatus()).isEqualTo(WebEndpointResponse.STATUS_BAD_REQUEST);
+        assertThat(endpoint.start(Duration.ZERO, null).getStatus()).isEqualTo(WebEndpointResponse.STATUS_BAD_REQUEST);
+        assertThat(endpoint.status().state()).isNull();
+    }
+
+    @Test
+    void dumpsTheEventsOfTheServiceRecordedSoFar() throws Exception {
+        assertThat(endpoint.dump(FlightRecorderEndpoint.RECORDING_NAME).getStatus()).isEqualTo(WebEndpointResponse.STATUS_NOT_FOUND);
+        endpoint.start(null, null);
+
+        TestEvent event = new TestEvent();
+        event.value = "recorded";
+        event.commit();
+
+        assertThat(endpoint.dump("other").getStatus()).isEqualTo(WebEndpointResponse.STATUS_NOT_FOUND);
+        Resource dump = endpoint.dump(FlightRecorderEndpoint.RECORDING_NAME).getBody();
+        Path copy = Files.createTempFile("dump-", ".jfr");
+        try (InputStream in = dump.getInputStream()) {
+            Files.copy(in, copy, StandardCopyOption.REPLACE_EXISTING);
+        }
+        try {
+            List<RecordedEvent> events = RecordingFile.readAllEvents(copy).stream()
+                    .filter(recorded -> recorded.getEventType().getName().equals("com.newwek.test.Recorded"))
+                    .toList();
+            assertThat(events).singleElement().satisfies(recorded -> assertThat(recorded.getString("value")).isEqualTo("recorded"));
+        } finally {
+            Files.delete(copy);
+        }
+    }
+
+    @Name("com.newwek.test.Recorded")
+    static class TestEvent extends Event {
+
+        String value;
+    }
+}
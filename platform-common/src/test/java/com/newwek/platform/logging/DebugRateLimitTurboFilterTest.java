@@ -0,0 +1,80 @@
+package com.newwek.platform.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DebugRateLimitTurboFilterTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final LoggerContext context = new LoggerContext();
+    private final ListAppender<ILoggingEvent> events = new ListAppender<>();
+    private DebugRateLimitTurboFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new DebugRateLimitTurboFilter(nanos::get);
+        filter.setContext(context);
+        filter.addLogger("com.newwek.blogservice.services");
+        filter.setPermitsPerSecond(3);
+        filter.start();
+        context.addTurboFilter(filter);
+
+        events.setContext(context);
+        events.start();
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.DEBUG);
+        root.addAppender(events);
+    }
+
+    @Test
+    void limitsDebugEventsOfConfiguredLoggersPerSecond() {
+        Logger limited = context.getLogger("com.newwek.blogservice.services.PostServiceImpl");
+        for (int i = 0; i < 10; i++) {
+            limited.debug("event {}", i);
+        }
+        assertThat(events.list).hasSize(3);
+
+        nanos.addAndGet(1_000_000_000L);
+        limited.debug("next second");
+
+        assertThat(events.list).hasSize(4);
+        assertThat(filter.getRateLimitedCount()).isEqualTo(7);
+    }
+
+    @Test
+    void leavesOtherLevelsLoggersAndLevelChecksAlone() {
+        Logger limited = context.getLogger("com.newwek.blogservice.services.PostServiceImpl");
+        Logger sibling = context.getLogger("com.newwek.blogservice.servicesx.Other");
+        for (int i = 0; i < 5; i++) {
+            limited.info("info {}", i);
+            sibling.debug("sibling {}", i);
+            assertThat(limited.isDebugEnabled()).isTrue();
+        }
+
+        assertThat(events.list).hasSize(10);
+        assertThat(filter.getRateLimitedCount()).isZero();
+    }
+
+    @Test
+    void ignoresEventsDisabledByTheLoggerLevel() {
+        Logger limited = context.getLogger("com.newwek.blogservice.services.PostServiceImpl");
+        limited.setLevel(Level.INFO);
+        for (int i = 0; i < 5; i++) {
+            limited.debug("disabled {}", i);
+        }
+        limited.setLevel(Level.DEBUG);
+        limited.debug("enabled");
+
+        assertThat(events.list).hasSize(1);
+        assertThat(filter.getRateLimitedCount()).isZero();
+    }
+}
@@ -0,0 +1,82 @@
+package com.newwek.platform.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.helpers.NOPAppender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoggingMetricsTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final SamplingAsyncAppender appender = new SamplingAsyncAppender();
+    private final DebugRateLimitTurboFilter filter = new DebugRateLimitTurboFilter(() -> 0L);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        appender.setName("ASYNC_LOKI");
+        appender.setContext(context);
+        appender.setQueueSize(16);
+        NOPAppender<ILoggingEvent> delegate = new NOPAppender<>();
+        delegate.setContext(context);
+        delegate.start();
+        appender.addAppender(delegate);
+        appender.start();
+        context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).addAppender(appender);
+
+        filter.setContext(context);
+        filter.addLogger("com.newwek");
+        filter.setPermitsPerSecond(1);
+        filter.start();
+        context.addTurboFilter(filter);
+
+        new LoggingMetrics(context).bindTo(registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.stop();
+    }
+
+    @Test
+    void publishesTheQueueOfEverySamplingAppender() {
+        Gauge capacity = registry.get("logging.queue.capacity").tag("appender", "ASYNC_LOKI").gauge();
+        Gauge size = registry.get("logging.queue.size").tag("appender", "ASYNC_LOKI").gauge();
+
+        assertThat(capacity.value()).isEqualTo(16);
+        assertThat(size.value()).isZero();
+        assertThat(registry.get("logging.events.dropped").tags("appender", "ASYNC_LOKI", "reason", "sampled").functionCounter().count()).isZero();
+        assertThat(registry.get("logging.events.dropped").tags("appender", "ASYNC_LOKI", "reason", "overflow").functionCounter().count()).isZero();
+    }
+
+    @Test
+    void countsTheEventsDeniedByTheRateLimit() {
+        Logger logger = context.getLogger("com.newwek.Service");
+        logger.setLevel(Level.DEBUG);
+        logger.debug("first");
+        logger.debug("second");
+        logger.debug("third");
+
+        FunctionCounter rateLimited = registry.get("logging.events.dropped").tags("appender", "none", "reason", "rate-limited").functionCounter();
+        assertThat(rateLimited.count()).isEqualTo(2);
+    }
+
+    @Test
+    void publishesNothingWithoutLogback() {
+        SimpleMeterRegistry other = new SimpleMeterRegistry();
+        new LoggingMetrics(new org.slf4j.helpers.NOPLoggerFactory()).bindTo(other);
+
+        assertThat(other.getMeters()).isEmpty();
+    }
+}
@@ -0,0 +1,106 @@
+package com.newwek.platform.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SamplingAsyncAppenderTest {
+
+    private static final int QUEUE_SIZE = 10;
+
+    private final LoggerContext context = new LoggerContext();
+    private final BlockedAppender delegate = new BlockedAppender();
+    private final SamplingAsyncAppender appender = new SamplingAsyncAppender();
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        delegate.setContext(context);
+        delegate.start();
+
+        appender.setContext(context);
+        appender.setQueueSize(QUEUE_SIZE);
+        appender.setNeverBlock(true);
+        appender.setInfoSampleRate(2);
+        appender.addAppender(delegate);
+        appender.start();
+
+        // The worker takes the first event and then stalls in the delegate, leaving the queue empty
+        appender.doAppend(event(Level.WARN));
+        assertThat(delegate.entered.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @AfterEach
+    void tearDown() {
+        delegate.release.countDown();
+        appender.stop();
+    }
+
+    @Test
+    void keepsEverythingWhileTheQueueHasRoom() {
+        for (int i = 0; i < QUEUE_SIZE - appender.getDiscardingThreshold(); i++) {
+            appender.doAppend(event(i % 2 == 0 ? Level.DEBUG : Level.INFO));
+        }
+
+        assertThat(appender.getNumberOfElementsInQueue()).isEqualTo(QUEUE_SIZE - appender.getDiscardingThreshold());
+        assertThat(appender.getSampledOutCount()).isZero();
+        assertThat(appender.getOverflowCount()).isZero();
+    }
+
+    @Test
+    void dropsDebugAndSamplesInfoWhenTheQueueBacksUpAndCountsOverflow() {
+        for (int i = 0; i < QUEUE_SIZE - 1; i++) {
+            appender.doAppend(event(Level.WARN));
+        }
+
+        appender.doAppend(event(Level.DEBUG));
+        appender.doAppend(event(Level.INFO));
+        appender.doAppend(event(Level.INFO));
+        appender.doAppend(event(Level.ERROR));
+
+        assertThat(appender.getSampledOutCount()).isEqualTo(2);
+        assertThat(appender.getOverflowCount()).isEqualTo(1);
+
+        delegate.release.countDown();
+        appender.stop();
+        assertThat(delegate.received).extracting(ILoggingEvent::getLevel)
+                .containsOnly(Level.WARN, Level.INFO)
+                .filteredOn(Level.INFO::equals).hasSize(1);
+        assertThat(delegate.received).hasSize(QUEUE_SIZE + 1);
+    }
+
+    private LoggingEvent event(Level level) {
+        return new LoggingEvent(getClass().getName(), context.getLogger("test"), level, "message", null, null);
+    }
+
+    private static final class BlockedAppender extends AppenderBase<ILoggingEvent> {
+
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final List<ILoggingEvent> received = new CopyOnWriteArrayList<>();
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.add(event);
+        }
+    }
+}
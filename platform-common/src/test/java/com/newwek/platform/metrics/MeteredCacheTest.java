@@ -0,0 +1,52 @@
+package com.newwek.platform.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MeteredCacheTest {
+
+    private static final String POST_CACHE = "posts";
+
+    private MeterRegistry registry;
+    private MeteredCache cache;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        cache = new MeteredCache(new ConcurrentMapCache(POST_CACHE), registry);
+    }
+
+    @Test
+    void countsHitsMissesPutsAndEvictions() {
+        assertThat(cache.get(1L)).isNull();
+        cache.put(1L, "post");
+        assertThat(cache.get(1L, String.class)).isEqualTo("post");
+        assertThat(cache.get(1L).get()).isEqualTo("post");
+        cache.evict(1L);
+        cache.clear();
+
+        assertThat(gets("hit")).isEqualTo(2);
+        assertThat(gets("miss")).isEqualTo(1);
+        assertThat(registry.get("cache.puts").tag("cache", POST_CACHE).counter().count()).isEqualTo(1);
+        assertThat(registry.get("cache.evictions").tag("cache", POST_CACHE).counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void timesLoadsOnlyOnSynchronizedMiss() {
+        assertThat(cache.get(1L, () -> "loaded")).isEqualTo("loaded");
+        assertThat(cache.get(1L, () -> "not loaded again")).isEqualTo("loaded");
+
+        assertThat(gets("miss")).isEqualTo(1);
+        assertThat(gets("hit")).isEqualTo(1);
+        assertThat(registry.get("cache.loads").tag("cache", POST_CACHE).timer().count()).isEqualTo(1);
+    }
+
+    private double gets(String result) {
+        return registry.get("cache.gets").tag("cache", POST_CACHE).tag("result", result).counter().count();
+    }
+}
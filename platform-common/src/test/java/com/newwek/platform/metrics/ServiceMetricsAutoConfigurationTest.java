@@ -0,0 +1,40 @@
+package com.newwek.platform.metrics;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAspectsAutoConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.FilteredClassLoader;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ServiceMetricsAutoConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(ServiceMetricsAutoConfiguration.class));
+
+    @Test
+    void registersTheTimedAspectWhenThereIsARegistry() {
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean(TimedAspect.class));
+        contextRunner.withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+                .run(context -> assertThat(context).hasSingleBean(TimedAspect.class));
+    }
+
+    @Test
+    void staysOffWithoutAspectJ() {
+        contextRunner.withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+                .withClassLoader(new FilteredClassLoader("org.aspectj"))
+                .run(context -> assertThat(context).doesNotHaveBean(TimedAspect.class));
+    }
+
+    @Test
+    void backsOffWhenSpringBootRegistersTheAspect() {
+        contextRunner.withConfiguration(AutoConfigurations.of(MetricsAspectsAutoConfiguration.class))
+                .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+                .withPropertyValues("management.observations.annotations.enabled=true")
+                .run(context -> assertThat(context).hasSingleBean(TimedAspect.class));
+    }
+}
@@ -0,0 +1,32 @@
+package com.newwek.platform.moderation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentFilterAutoConfigurationTest {
+
+    // Converts the reload interval as a Spring Boot application would
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withInitializer(context -> context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance()))
+            .withConfiguration(AutoConfigurations.of(ContentFilterAutoConfiguration.class));
+
+    @Test
+    void registersTheFilterOnlyWhenATermListIsConfigured(@TempDir Path directory) throws Exception {
+        Path terms = Files.writeString(directory.resolve("terms.txt"), "# banned\nspam\n");
+
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean(ContentFilter.class));
+        contextRunner.withPropertyValues("content-filter.terms=" + terms.toUri(), "content-filter.reload-interval=1h")
+                .run(context -> {
+                    assertThat(context).hasSingleBean(ContentFilter.class);
+                    assertThat(context.getBean(ContentFilter.class).findBannedTerm("Buy SPAM now")).isEqualTo("spam");
+                });
+    }
+}
@@ -0,0 +1,71 @@
+package com.newwek.platform.moderation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ContentFilterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testRejectsContentWithBannedTerms() throws Exception {
+        Path terms = Files.writeString(directory.resolve("terms.txt"), "# Spam\nspam\n\n  cheap pills  \n");
+        ContentFilter filter = new ContentFilter(new FileSystemResource(terms), Duration.ofHours(1));
+        try {
+            assertThat(filter.termCount()).isEqualTo(2);
+            assertThat(filter.findBannedTerm("Cheap Pills!")).isEqualTo("cheap pills");
+            assertThat(filter.findBannedTerm("# Spam")).isEqualTo("spam");
+            filter.check("A perfectly fine comment");
+            assertThatThrownBy(() -> filter.check("This is SPAM"))
+                    .isInstanceOf(ResponseStatusException.class)
+                    .hasMessageContaining("Content contains a banned term.");
+        } finally {
+            filter.destroy();
+        }
+    }
+
+    @Test
+    public void testReloadsTheListWhenItChanges() throws Exception {
+        Path terms = Files.writeString(directory.resolve("terms.txt"), "spam\n");
+        ContentFilter filter = new ContentFilter(new FileSystemResource(terms), Duration.ofHours(1));
+        try {
+            assertThat(filter.reloadIfModified()).isFalse();
+
+            Files.writeString(terms, "spam\nscam\n");
+            Files.setLastModifiedTime(terms, FileTime.from(Instant.now().plusSeconds(60)));
+            assertThat(filter.reloadIfModified()).isTrue();
+            assertThat(filter.findBannedTerm("Total scam")).isEqualTo("scam");
+
+            // A list that disappears keeps the previous one in place
+            Files.delete(terms);
+            assertThat(filter.reloadIfModified()).isFalse();
+            assertThat(filter.termCount()).isEqualTo(2);
+        } finally {
+            filter.destroy();
+        }
+    }
+
+    @Test
+    public void testMissingListBansNothing() {
+        ContentFilter filter = new ContentFilter(new ClassPathResource("no-such-terms.txt"), Duration.ofHours(1));
+        try {
+            assertThat(filter.termCount()).isZero();
+            assertThat(filter.findBannedTerm("anything")).isNull();
+        } finally {
+            filter.destroy();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.newwek.platform.moderation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TermAutomatonTest {
+
+    @Test
+    public void testFindsTermsAsWholeWords() {
+        TermAutomaton automaton = TermAutomaton.compile(List.of("spam", "cheap pills", "$$$"));
+
+        assertThat(automaton.findTerm("This is spam.")).isEqualTo("spam");
+        assertThat(automaton.findTerm("spam")).isEqualTo("spam");
+        assertThat(automaton.findTerm("Get cheap pills here")).isEqualTo("cheap pills");
+        assertThat(automaton.findTerm("Earn$$$fast")).isEqualTo("$$$");
+        // Inside a longer word
+        assertThat(automaton.findTerm("Spamalot is a musical")).isNull();
+        assertThat(automaton.findTerm("antispam")).isNull();
+        assertThat(automaton.findTerm("cheap pillsbury")).isNull();
+        assertThat(automaton.findTerm("Nothing to see here")).isNull();
+        assertThat(automaton.findTerm("")).isNull();
+        assertThat(automaton.findTerm(null)).isNull();
+    }
+
+    @Test
+    public void testIgnoresCaseAndCompatibilityVariants() {
+        TermAutomaton automaton = TermAutomaton.compile(List.of("SPAM", "ﬁnance", "σοφος"));
+
+        assertThat(automaton.findTerm("sPaM!")).isEqualTo("spam");
+        // Fullwidth letters and the fi ligature are compatibility variants
+        assertThat(automaton.findTerm("ｓｐａｍ")).isEqualTo("spam");
+        assertThat(automaton.findTerm("Finance")).isEqualTo("finance");
+        // The final sigma folds to the regular one
+        assertThat(automaton.findTerm("ΣΟΦΟΣ")).isEqualTo("σοφοσ");
+        assertThat(automaton.findTerm("σοφος")).isEqualTo("σοφοσ");
+        // A combining accent is composed with its letter
+        assertThat(TermAutomaton.compile(List.of("caf\u00e9")).findTerm("CAFE\u0301")).isEqualTo("caf\u00e9");
+    }
+
+    @Test
+    public void testFindsTermsSharingSuffixesAndPrefixes() {
+        TermAutomaton automaton = TermAutomaton.compile(List.of("he", "she", "his", "hers", "ushers"));
+
+        assertThat(automaton.findTerm("ushers")).isEqualTo("ushers");
+        // "she" and "he" end inside the word, and "hers" never completes
+        assertThat(automaton.findTerm("usher")).isNull();
+        assertThat(automaton.findTerm("say hers")).isEqualTo("hers");
+        // A shorter term ending at the same position is a whole word where the longer one is not
+        assertThat(TermAutomaton.compile(List.of("ab", "b")).findTerm("xab b")).isEqualTo("b");
+        assertThat(TermAutomaton.compile(List.of("bad word", "word")).findTerm("not bad word")).isEqualTo("bad word");
+        assertThat(TermAutomaton.compile(List.of("bad word", "word")).findTerm("notbad word")).isEqualTo("word");
+    }
+
+    @Test
+    public void testIgnoresBlankAndDuplicateTerms() {
+        TermAutomaton automaton = TermAutomaton.compile(List.of("spam", " SPAM ", "", "   "));
+
+        assertThat(automaton.size()).isEqualTo(1);
+        assertThat(automaton.findTerm("no spam please")).isEqualTo("spam");
+        assertThat(TermAutomaton.compile(List.of()).findTerm("anything")).isNull();
+    }
+
+    @Test
+    public void testMatchesLikeNaiveSearchWithManyTerms() {
+        List<String> terms = IntStream.range(0, 5_000).mapToObj(i -> "term" + Integer.toString(i, 36)).toList();
+        TermAutomaton automaton = TermAutomaton.compile(terms);
+
+        List<String> found = new ArrayList<>();
+        for (int i = 0; i < 5_000; i += 97) {
+            found.add(automaton.findTerm("The word Term" + Integer.toString(i, 36) + " is banned"));
+        }
+
+        assertThat(automaton.size()).isEqualTo(5_000);
+        assertThat(found).containsExactlyElementsOf(
+                IntStream.iterate(0, i -> i < 5_000, i -> i + 97).mapToObj(i -> "term" + Integer.toString(i, 36)).toList());
+        assertThat(automaton.findTerm("terminal termination term")).isNull();
+    }
+}
@@ -0,0 +1,94 @@
+package com.newwek.platform.revocation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CuckooFilterTest {
+
+    @Test
+    void addsFindsAndRemovesKeys() {
+        CuckooFilter filter = new CuckooFilter(16);
+
+        assertThat(filter.mightContain("a")).isFalse();
+        assertThat(filter.add("a")).isTrue();
+        assertThat(filter.add("b")).isTrue();
+        assertThat(filter.mightContain("a")).isTrue();
+        assertThat(filter.size()).isEqualTo(2);
+
+        assertThat(filter.remove("a")).isTrue();
+        assertThat(filter.mightContain("a")).isFalse();
+        assertThat(filter.mightContain("b")).isTrue();
+        assertThat(filter.remove("a")).isFalse();
+        assertThat(filter.size()).isEqualTo(1);
+    }
+
+    @Test
+    void removesOneCopyOfAKeyAddedTwice() {
+        CuckooFilter filter = new CuckooFilter(16);
+        filter.add("a");
+        filter.add("a");
+
+        filter.remove("a");
+
+        assertThat(filter.mightContain("a")).isTrue();
+    }
+
+    @Test
+    void neverRulesOutAKeyThatWasAddedAndNotRemoved() {
+        CuckooFilter filter = new CuckooFilter(10_000);
+        IntStream.range(0, filter.capacity()).forEach(i -> assertThat(filter.add("key-" + i)).isTrue());
+        IntStream.range(0, filter.capacity()).filter(i -> i % 2 == 0).forEach(i -> filter.remove("key-" + i));
+
+        assertThat(IntStream.range(0, filter.capacity()).filter(i -> i % 2 == 1)).allMatch(i -> filter.mightContain("key-" + i));
+    }
+
+    @Test
+    void reportsFewKeysThatWereNotAdded() {
+        CuckooFilter filter = new CuckooFilter(10_000);
+        IntStream.range(0, filter.capacity()).forEach(i -> filter.add("key-" + i));
+
+        long falsePositives = IntStream.range(0, 1_000_000).filter(i -> filter.mightContain("absent-" + i)).count();
+
+        assertThat(falsePositives / 1_000_000.0).isLessThan(0.0002);
+    }
+
+    @Test
+    void keepsEveryKeyWhenTooFullToTakeAnother() {
+        CuckooFilter filter = new CuckooFilter(64);
+        List<String> added = new ArrayList<>();
+        for (int i = 0; filter.add("key-" + i); i++) {
+            added.add("key-" + i);
+        }
+
+        assertThat(added.size()).isGreaterThanOrEqualTo(filter.capacity() * 3 / 4);
+        assertThat(filter.size()).isEqualTo(added.size());
+        assertThat(added).allMatch(filter::mightContain);
+    }
+
+    @Test
+    void readsBackTheTableItWrites() {
+        CuckooFilter filter = new CuckooFilter(1_000);
+        IntStream.range(0, 500).forEach(i -> filter.add("key-" + i));
+
+        CuckooFilter read = CuckooFilter.fromBytes(filter.toBytes());
+
+        assertThat(read.size()).isEqualTo(500);
+        assertThat(read.capacity()).isEqualTo(filter.capacity());
+        assertThat(IntStream.range(0, 500)).allMatch(i -> read.mightContain("key-" + i));
+        assertThat(IntStream.range(0, 100_000).filter(i -> read.mightContain("absent-" + i) != filter.mightContain("absent-" + i))).isEmpty();
+    }
+
+    @Test
+    void rejectsBytesThatAreNotATable() {
+        assertThatThrownBy(() -> CuckooFilter.fromBytes(new byte[0])).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CuckooFilter.fromBytes(new byte[24])).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CuckooFilter.fromBytes(new byte[17])).isInstanceOf(IllegalArgumentException.class);
+        assertThat(CuckooFilter.fromBytes(new byte[16]).mightContain("a")).isFalse();
+    }
+}